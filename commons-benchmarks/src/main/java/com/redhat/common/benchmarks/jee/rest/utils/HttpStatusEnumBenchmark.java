@@ -0,0 +1,55 @@
+package com.redhat.common.benchmarks.jee.rest.utils;
+
+import com.redhat.common.jee.rest.utils.HttpStatusEnum;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures looking up HTTP statuses by code and by string, for the first and
+ * last declared values and for a miss.
+ *
+ * @author sfloess
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpStatusEnumBenchmark {
+    private int firstCode = HttpStatusEnum.values()[0].getStatusCode();
+
+    private int lastCode = HttpStatusEnum.values()[HttpStatusEnum.values().length - 1].getStatusCode();
+
+    private int missingCode = 299;
+
+    private String lastStr = " " + lastCode + " ";
+
+    @Benchmark
+    public HttpStatusEnum findFirstByStatusCode() {
+        return HttpStatusEnum.findByStatusCode(firstCode);
+    }
+
+    @Benchmark
+    public HttpStatusEnum findLastByStatusCode() {
+        return HttpStatusEnum.findByStatusCode(lastCode);
+    }
+
+    @Benchmark
+    public HttpStatusEnum findMissingByStatusCode() {
+        return HttpStatusEnum.findByStatusCode(missingCode);
+    }
+
+    @Benchmark
+    public HttpStatusEnum findLastByStr() {
+        return HttpStatusEnum.findByStr(lastStr);
+    }
+}
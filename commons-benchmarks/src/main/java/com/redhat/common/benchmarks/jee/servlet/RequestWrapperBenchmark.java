@@ -0,0 +1,126 @@
+package com.redhat.common.benchmarks.jee.servlet;
+
+import com.redhat.common.jee.servlet.RequestWrapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures capturing a request body with RequestWrapper and replaying it.
+ *
+ * @author sfloess
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestWrapperBenchmark {
+    /**
+     * Body size in KB.
+     */
+    @Param({"1", "64", "1024"})
+    private int sizeInKb;
+
+    private byte[] body;
+
+    /**
+     * Return a servlet input stream over <code>bytes</code>.
+     */
+    static ServletInputStream toServletInputStream(final byte[] bytes) {
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return inputStream.read();
+            }
+
+            @Override
+            public int read(final byte[] buffer, final int offset, final int length) {
+                return inputStream.read(buffer, offset, length);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return 0 == inputStream.available();
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(final ReadListener readListener) {
+            }
+        };
+    }
+
+    /**
+     * Return a request whose body is <code>bytes</code> - other methods return defaults.
+     */
+    static HttpServletRequest createRequest(final byte[] bytes) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getInputStream":
+                    return toServletInputStream(bytes);
+
+                case "getCharacterEncoding":
+                    return StandardCharsets.UTF_8.name();
+
+                case "getContentLength":
+                    return bytes.length;
+
+                case "getContentLengthLong":
+                    return (long) bytes.length;
+
+                case "getContentType":
+                    return "application/json";
+
+                default:
+                    return method.getReturnType().isPrimitive() ? (boolean.class == method.getReturnType() ? Boolean.FALSE : (Object) 0) : null;
+            }
+        });
+    }
+
+    @Setup
+    public void setup() {
+        body = new byte[sizeInKb * 1024];
+
+        Arrays.fill(body, (byte) 'x');
+
+        for (int index = 79; index < body.length; index += 80) {
+            body[index] = '\n';
+        }
+    }
+
+    @Benchmark
+    public String captureBody() throws IOException {
+        return new RequestWrapper(createRequest(body)).getBody();
+    }
+
+    @Benchmark
+    public byte[] captureAndReplay() throws IOException {
+        return IOUtils.toByteArray(new RequestWrapper(createRequest(body)).getInputStream());
+    }
+}
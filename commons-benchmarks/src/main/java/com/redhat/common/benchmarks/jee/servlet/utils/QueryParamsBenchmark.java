@@ -0,0 +1,103 @@
+package com.redhat.common.benchmarks.jee.servlet.utils;
+
+import com.redhat.common.jee.servlet.utils.QueryParams;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares copying a request's parameter map against the shared QueryParams
+ * view, for typed access and the canonical key.
+ *
+ * @author sfloess
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryParamsBenchmark {
+    /**
+     * Number of parameters.
+     */
+    @Param({"4", "32"})
+    private int paramCount;
+
+    private HttpServletRequest request;
+
+    /**
+     * Return a request with working attributes whose parameter map, like
+     * Undertow's and Jetty's, is a new copy of <code>parameterMap</code> on
+     * every call - other methods return defaults.
+     */
+    static HttpServletRequest createRequest(final Map<String, String[]> parameterMap) {
+        final Map<String, Object> attributes = new HashMap<>();
+
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getParameterMap":
+                    return new HashMap<>(parameterMap);
+
+                case "getAttribute":
+                    return attributes.get(args[0]);
+
+                case "setAttribute":
+                    attributes.put((String) args[0], args[1]);
+
+                    return null;
+
+                default:
+                    return method.getReturnType().isPrimitive() ? (boolean.class == method.getReturnType() ? Boolean.FALSE : (Object) 0) : null;
+            }
+        });
+    }
+
+    @Setup
+    public void setup() {
+        final Map<String, String[]> parameterMap = new LinkedHashMap<>();
+
+        for (int index = paramCount - 1; index >= 0; index--) {
+            parameterMap.put("param" + index, new String[]{String.valueOf(index * 1000)});
+        }
+
+        request = createRequest(Collections.unmodifiableMap(parameterMap));
+    }
+
+    @Benchmark
+    public int copyAndParse() {
+        final Map<String, String[]> copy = new HashMap<>(request.getParameterMap());
+
+        return Integer.parseInt(copy.get("param1")[0]);
+    }
+
+    @Benchmark
+    public int viewAndParse() {
+        return QueryParams.of(request).getInt("param1", -1);
+    }
+
+    @Benchmark
+    public String canonicalKeyPerCall() {
+        return QueryParams.toCanonicalKey(new HashMap<>(request.getParameterMap()));
+    }
+
+    @Benchmark
+    public String canonicalKeyCached() {
+        return QueryParams.of(request).getCanonicalKey();
+    }
+}
@@ -0,0 +1,69 @@
+package com.redhat.common.benchmarks.markup;
+
+import com.redhat.common.markup.MarkupBuilder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the shared, cached mapper against building a new mapper per call.
+ *
+ * @author sfloess
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperCacheBenchmark {
+    @Param({"JSON", "XML", "YAML"})
+    private MarkupBuilder markupBuilder;
+
+    private Map<String, Object> map;
+
+    private String markup;
+
+    @Setup
+    public void setup() {
+        map = new HashMap<>();
+
+        map.put("name", "benchmark");
+        map.put("description", "Compares mapper creation strategies");
+        map.put("count", 42);
+        map.put("enabled", true);
+
+        markup = markupBuilder.toString(map);
+    }
+
+    @Benchmark
+    public Map readPerCallMapper() throws Exception {
+        return markupBuilder.createMapper().readValue(markup, HashMap.class);
+    }
+
+    @Benchmark
+    public Map readCachedMapper() {
+        return markupBuilder.asMap(markup);
+    }
+
+    @Benchmark
+    public String writePerCallMapper() throws Exception {
+        return markupBuilder.createMapper().writeValueAsString(map);
+    }
+
+    @Benchmark
+    public String writeCachedMapper() {
+        return markupBuilder.toString(map);
+    }
+}
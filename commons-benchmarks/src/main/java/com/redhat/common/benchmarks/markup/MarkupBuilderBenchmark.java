@@ -0,0 +1,87 @@
+package com.redhat.common.benchmarks.markup;
+
+import com.redhat.common.markup.MarkupBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses and serializes documents of several sizes in each markup format.
+ *
+ * @author sfloess
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkupBuilderBenchmark {
+    @Param({"JSON", "XML", "YAML"})
+    private MarkupBuilder markupBuilder;
+
+    /**
+     * Approximate document size in KB, as JSON.
+     */
+    @Param({"1", "10", "100"})
+    private int sizeInKb;
+
+    private Map<String, Object> map;
+
+    private String markup;
+
+    /**
+     * Create a document of roughly <code>sizeInKb</code> KB as JSON.
+     */
+    static Map<String, Object> createDocument(final int sizeInKb) {
+        final Map<String, Object> retVal = new HashMap<>();
+        final List<Map<String, Object>> items = new ArrayList<>();
+
+        retVal.put("name", "benchmark");
+        retVal.put("items", items);
+
+        while (MarkupBuilder.JSON.toString(retVal).length() < sizeInKb * 1024) {
+            for (int count = 0; count < 10; count++) {
+                final Map<String, Object> item = new HashMap<>();
+
+                item.put("id", items.size());
+                item.put("title", "Item number " + items.size());
+                item.put("score", items.size() * 1.5);
+                item.put("active", 0 == items.size() % 2);
+
+                items.add(item);
+            }
+        }
+
+        return retVal;
+    }
+
+    @Setup
+    public void setup() {
+        map = createDocument(sizeInKb);
+        markup = markupBuilder.toString(map);
+    }
+
+    @Benchmark
+    public Map parse() {
+        return markupBuilder.asMap(markup);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return markupBuilder.toString(map);
+    }
+}
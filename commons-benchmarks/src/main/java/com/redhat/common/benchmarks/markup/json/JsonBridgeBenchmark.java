@@ -0,0 +1,94 @@
+package com.redhat.common.benchmarks.markup.json;
+
+import static com.redhat.common.markup.MarkupBuilder.JSON;
+import com.redhat.common.markup.json.JsonUtils;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the direct JSONObject bridges against the string/map round trips
+ * they replaced. Run with <code>-prof gc</code> to see allocations per op.
+ *
+ * @author sfloess
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBridgeBenchmark {
+    /**
+     * Approximate document size in KB.
+     */
+    @Param({"1", "10", "100"})
+    private int sizeInKb;
+
+    private String json;
+
+    private JSONObject jsonObject;
+
+    /**
+     * Create a document of roughly <code>sizeInKb</code> KB.
+     */
+    static JSONObject createDocument(final int sizeInKb) {
+        final JSONObject retVal = new JSONObject();
+        final JSONArray items = new JSONArray();
+
+        retVal.put("name", "benchmark");
+        retVal.put("items", items);
+
+        while (retVal.toString().length() < sizeInKb * 1024) {
+            final JSONObject item = new JSONObject();
+
+            item.put("id", items.length());
+            item.put("title", "Item number " + items.length());
+            item.put("score", items.length() * 1.5);
+            item.put("active", 0 == items.length() % 2);
+
+            items.put(item);
+        }
+
+        return retVal;
+    }
+
+    @Setup
+    public void setup() {
+        jsonObject = createDocument(sizeInKb);
+        json = jsonObject.toString();
+    }
+
+    @Benchmark
+    public JSONObject asJsonObjectViaMap() {
+        return new JSONObject(JSON.asType(json, HashMap.class));
+    }
+
+    @Benchmark
+    public JSONObject asJsonObjectDirect() {
+        return JSON.asJsonObject(json);
+    }
+
+    @Benchmark
+    public Map jsonObjectToObjectViaString() {
+        return JSON.asType(jsonObject.toString(), HashMap.class);
+    }
+
+    @Benchmark
+    public Map jsonObjectToObjectDirect() {
+        return JsonUtils.jsonObjectToObject(jsonObject, HashMap.class);
+    }
+}
@@ -0,0 +1,88 @@
+package com.redhat.common.benchmarks.markup.json;
+
+import com.redhat.common.markup.json.JsonUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures converting maps to JSONObjects and JSONObjects to beans.
+ *
+ * @author sfloess
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUtilsBenchmark {
+    /**
+     * A bean to convert to.
+     */
+    public static class Item {
+        public int id;
+        public String title;
+        public double score;
+        public boolean active;
+        public List<String> tags;
+    }
+
+    /**
+     * Number of maps converted by {@link #toJsonList()}.
+     */
+    @Param({"10", "100", "1000"})
+    private int count;
+
+    private List<Map> maps;
+
+    private JSONObject jsonObject;
+
+    @Setup
+    public void setup() {
+        maps = new ArrayList<>(count);
+
+        for (int index = 0; index < count; index++) {
+            final Map<String, Object> map = new HashMap<>();
+
+            map.put("id", index);
+            map.put("title", "Item number " + index);
+            map.put("score", index * 1.5);
+            map.put("active", 0 == index % 2);
+
+            maps.add(map);
+        }
+
+        jsonObject = new JSONObject();
+
+        jsonObject.put("id", 42);
+        jsonObject.put("title", "The answer");
+        jsonObject.put("score", 4.2);
+        jsonObject.put("active", true);
+        jsonObject.put("tags", new String[]{"alpha", "beta", "gamma"});
+    }
+
+    @Benchmark
+    public List<JSONObject> toJsonList() {
+        return JsonUtils.toJsonList(maps);
+    }
+
+    @Benchmark
+    public Item jsonObjectToObject() {
+        return JsonUtils.jsonObjectToObject(jsonObject, Item.class);
+    }
+}
@@ -0,0 +1,78 @@
+package com.redhat.common.benchmarks.processor.executor;
+
+import com.redhat.common.processor.Processor;
+import com.redhat.common.processor.executor.AbstractExecutor;
+import com.redhat.common.processor.metrics.ExecutorMetrics;
+import com.redhat.common.processor.metrics.ProcessorMetrics;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead AbstractExecutor adds around a trivial processor,
+ * with and without metrics.
+ *
+ * @author sfloess
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutorBenchmark {
+    /**
+     * Runs the processor on the calling thread.
+     */
+    static final class DirectExecutor extends AbstractExecutor<String, Processor<String>> {
+        @Override
+        protected String doProcess(final Processor<String> processor, final String toProcess) {
+            return processor.process(toProcess);
+        }
+    }
+
+    @Param({"false", "true"})
+    private boolean metricsEnabled;
+
+    private DirectExecutor executor;
+
+    private ProcessorMetrics metrics;
+
+    private Processor<String> processor;
+
+    @Setup
+    public void setup() {
+        executor = new DirectExecutor();
+        processor = toProcess -> toProcess;
+
+        if (metricsEnabled) {
+            metrics = new ProcessorMetrics();
+
+            executor.setMetrics(metrics);
+        } else {
+            executor.setMetrics(ExecutorMetrics.DISABLED);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (null != metrics) {
+            metrics.unregister();
+        }
+    }
+
+    @Benchmark
+    public String executeProcessor() {
+        return executor.executeProcessor(processor, "benchmark");
+    }
+}
@@ -0,0 +1,99 @@
+package com.redhat.common.benchmarks.utils;
+
+import com.redhat.common.utils.LoggerUtils;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures LoggerUtils at a disabled level (debug) and an enabled one (info).
+ * Enabled messages go to an appender that discards them, so the numbers
+ * reflect formatting rather than I/O.
+ *
+ * @author sfloess
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggerUtilsBenchmark {
+    /**
+     * Discards everything appended.
+     */
+    static final class DiscardingAppender extends AppenderSkeleton {
+        @Override
+        protected void append(final LoggingEvent event) {
+            event.getRenderedMessage();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+
+    private Logger logger;
+
+    private Object value;
+
+    @Setup
+    public void setup() {
+        final org.apache.log4j.Logger root = org.apache.log4j.Logger.getRootLogger();
+
+        root.removeAllAppenders();
+        root.addAppender(new DiscardingAppender());
+        root.setLevel(Level.INFO);
+
+        logger = LoggerFactory.getLogger(LoggerUtilsBenchmark.class);
+        value = new StringBuilder("a value with a toString()");
+    }
+
+    @Benchmark
+    public void disabledVarargs() {
+        LoggerUtils.logIfDebug(logger, "Processing [", value, "] with ", 42, " items", "!");
+    }
+
+    @Benchmark
+    public void disabledFixedArity() {
+        LoggerUtils.logIfDebug(logger, "Processing [", value, "] with ", 42);
+    }
+
+    @Benchmark
+    public void disabledSupplier() {
+        LoggerUtils.logDebugLazy(logger, () -> "Processing [" + value + "]");
+    }
+
+    @Benchmark
+    public void enabledVarargs() {
+        LoggerUtils.logIfInfo(logger, "Processing [", value, "] with ", 42, " items", "!");
+    }
+
+    @Benchmark
+    public void enabledFixedArity() {
+        LoggerUtils.logIfInfo(logger, "Processing [", value, "] with ", 42);
+    }
+
+    @Benchmark
+    public void enabledRateLimited() {
+        LoggerUtils.logWarningRateLimited(logger, "Processing [", value, "] with ", 42);
+    }
+}
@@ -1,6 +1,7 @@
 package com.redhat.common;
 
 import com.redhat.common.utils.LoggerUtils;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,28 +26,28 @@ public class AbstractBase {
     }
 
     /**
-     * Log a debug statement with a stack trace.
+     * Log a debug message with a stack trace.
      *
      * @param throwable an exception to be logged with <code>toLog</code>.
-     * @param toLog     the debug statement to log.
+     * @param toLog     the debug message to log.
      */
     protected void logDebug(final Throwable throwable, final Object... toLog) {
         LoggerUtils.logDebug(getLogger(), throwable, toLog);
     }
 
     /**
-     * Log a debug statement.
+     * Log a debug message.
      *
-     * @param toLog the debug statement to log.
+     * @param toLog the debug message to log.
      */
     protected void logDebug(final Object... toLog) {
         LoggerUtils.logDebug(getLogger(), toLog);
     }
 
     /**
-     * Log a message and stack trace if debug is enabled.
+     * Log a debug message with a stack trace if debug is enabled.
      *
-     * @param throwable an exception to be logged with <code>toLog</code
+     * @param throwable an exception to be logged with <code>toLog</code>.
      * @param toLog     the debug message to log.
      */
     protected void logIfDebug(final Throwable throwable, final Object... toLog) {
@@ -54,7 +55,7 @@ public class AbstractBase {
     }
 
     /**
-     * Log a message if debug is enabled.
+     * Log a debug message if debug is enabled.
      *
      * @param toLog the debug message to log.
      */
@@ -62,14 +63,101 @@ public class AbstractBase {
         LoggerUtils.logIfDebug(getLogger(), toLog);
     }
 
+    /**
+     * Log a debug message of two parts - nothing is formatted unless debug is enabled.
+     *
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     */
+    protected void logIfDebug(final Object toLog1, final Object toLog2) {
+        LoggerUtils.logIfDebug(getLogger(), toLog1, toLog2);
+    }
+
+    /**
+     * Log a debug message of three parts - nothing is formatted unless debug is enabled.
+     *
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     * @param toLog3 the third part of the message.
+     */
+    protected void logIfDebug(final Object toLog1, final Object toLog2, final Object toLog3) {
+        LoggerUtils.logIfDebug(getLogger(), toLog1, toLog2, toLog3);
+    }
+
+    /**
+     * Log a debug message of four parts - nothing is formatted unless debug is enabled.
+     *
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     * @param toLog3 the third part of the message.
+     * @param toLog4 the fourth part of the message.
+     */
+    protected void logIfDebug(final Object toLog1, final Object toLog2, final Object toLog3, final Object toLog4) {
+        LoggerUtils.logIfDebug(getLogger(), toLog1, toLog2, toLog3, toLog4);
+    }
+
+    /**
+     * Log a debug message of one part with a stack trace - nothing is formatted unless debug is enabled.
+     *
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     */
+    protected void logIfDebug(final Throwable throwable, final Object toLog1) {
+        LoggerUtils.logIfDebug(getLogger(), throwable, toLog1);
+    }
+
+    /**
+     * Log a debug message of two parts with a stack trace - nothing is formatted unless debug is enabled.
+     *
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     * @param toLog2    the second part of the message.
+     */
+    protected void logIfDebug(final Throwable throwable, final Object toLog1, final Object toLog2) {
+        LoggerUtils.logIfDebug(getLogger(), throwable, toLog1, toLog2);
+    }
+
+    /**
+     * Log a debug message of three parts with a stack trace - nothing is formatted unless debug is enabled.
+     *
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     * @param toLog2    the second part of the message.
+     * @param toLog3    the third part of the message.
+     */
+    protected void logIfDebug(final Throwable throwable, final Object toLog1, final Object toLog2, final Object toLog3) {
+        LoggerUtils.logIfDebug(getLogger(), throwable, toLog1, toLog2, toLog3);
+    }
+
+    /**
+     * Log a lazily computed debug message - <code>message</code> is only
+     * called if debug is enabled.
+     *
+     * @param message supplies the debug message.
+     */
+    protected void logDebugLazy(final Supplier<?> message) {
+        LoggerUtils.logDebugLazy(getLogger(), message);
+    }
+
+    /**
+     * Log a lazily computed debug message with a stack trace - <code>message</code>
+     * is only called if debug is enabled.
+     *
+     * @param throwable an exception to be logged with the message.
+     * @param message   supplies the debug message.
+     */
+    protected void logDebugLazy(final Throwable throwable, final Supplier<?> message) {
+        LoggerUtils.logDebugLazy(getLogger(), throwable, message);
+    }
+
     /**
      * Log an info message with a stack trace.
      *
-     * @param throwable an exception to be logged with <code>toLog</code
+     * @param throwable an exception to be logged with <code>toLog</code>.
      * @param toLog     the info message to log.
      */
     protected void logInfo(final Throwable throwable, final Object... toLog) {
-        LoggerUtils.logIfInfo(getLogger(), toLog);
+        LoggerUtils.logInfo(getLogger(), throwable, toLog);
     }
 
     /**
@@ -78,20 +166,21 @@ public class AbstractBase {
      * @param toLog the info message to log.
      */
     protected void logInfo(final Object... toLog) {
-        LoggerUtils.logIfInfo(getLogger(), toLog);
+        LoggerUtils.logInfo(getLogger(), toLog);
     }
 
     /**
-     * Log an info message and stack trace if enabled.
+     * Log an info message with a stack trace if info is enabled.
      *
-     * @param toLog the info message to log.
+     * @param throwable an exception to be logged with <code>toLog</code>.
+     * @param toLog     the info message to log.
      */
     protected void logIfInfo(final Throwable throwable, final Object... toLog) {
         LoggerUtils.logIfInfo(getLogger(), throwable, toLog);
     }
 
     /**
-     * Log an info message if enabled.
+     * Log an info message if info is enabled.
      *
      * @param toLog the info message to log.
      */
@@ -99,10 +188,97 @@ public class AbstractBase {
         LoggerUtils.logIfInfo(getLogger(), toLog);
     }
 
+    /**
+     * Log an info message of two parts - nothing is formatted unless info is enabled.
+     *
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     */
+    protected void logIfInfo(final Object toLog1, final Object toLog2) {
+        LoggerUtils.logIfInfo(getLogger(), toLog1, toLog2);
+    }
+
+    /**
+     * Log an info message of three parts - nothing is formatted unless info is enabled.
+     *
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     * @param toLog3 the third part of the message.
+     */
+    protected void logIfInfo(final Object toLog1, final Object toLog2, final Object toLog3) {
+        LoggerUtils.logIfInfo(getLogger(), toLog1, toLog2, toLog3);
+    }
+
+    /**
+     * Log an info message of four parts - nothing is formatted unless info is enabled.
+     *
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     * @param toLog3 the third part of the message.
+     * @param toLog4 the fourth part of the message.
+     */
+    protected void logIfInfo(final Object toLog1, final Object toLog2, final Object toLog3, final Object toLog4) {
+        LoggerUtils.logIfInfo(getLogger(), toLog1, toLog2, toLog3, toLog4);
+    }
+
+    /**
+     * Log an info message of one part with a stack trace - nothing is formatted unless info is enabled.
+     *
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     */
+    protected void logIfInfo(final Throwable throwable, final Object toLog1) {
+        LoggerUtils.logIfInfo(getLogger(), throwable, toLog1);
+    }
+
+    /**
+     * Log an info message of two parts with a stack trace - nothing is formatted unless info is enabled.
+     *
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     * @param toLog2    the second part of the message.
+     */
+    protected void logIfInfo(final Throwable throwable, final Object toLog1, final Object toLog2) {
+        LoggerUtils.logIfInfo(getLogger(), throwable, toLog1, toLog2);
+    }
+
+    /**
+     * Log an info message of three parts with a stack trace - nothing is formatted unless info is enabled.
+     *
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     * @param toLog2    the second part of the message.
+     * @param toLog3    the third part of the message.
+     */
+    protected void logIfInfo(final Throwable throwable, final Object toLog1, final Object toLog2, final Object toLog3) {
+        LoggerUtils.logIfInfo(getLogger(), throwable, toLog1, toLog2, toLog3);
+    }
+
+    /**
+     * Log a lazily computed info message - <code>message</code> is only
+     * called if info is enabled.
+     *
+     * @param message supplies the info message.
+     */
+    protected void logInfoLazy(final Supplier<?> message) {
+        LoggerUtils.logInfoLazy(getLogger(), message);
+    }
+
+    /**
+     * Log a lazily computed info message with a stack trace - <code>message</code>
+     * is only called if info is enabled.
+     *
+     * @param throwable an exception to be logged with the message.
+     * @param message   supplies the info message.
+     */
+    protected void logInfoLazy(final Throwable throwable, final Supplier<?> message) {
+        LoggerUtils.logInfoLazy(getLogger(), throwable, message);
+    }
+
     /**
      * Log a warning message with a stack trace.
      *
-     * @param throwable an exception to be logged with <code>toLog</code
+     * @param throwable an exception to be logged with <code>toLog</code>.
      * @param toLog     the warning message to log.
      */
     protected void logWarning(final Throwable throwable, final Object... toLog) {
@@ -121,7 +297,7 @@ public class AbstractBase {
     /**
      * Log an error message with a stack trace.
      *
-     * @param throwable an exception to be logged with <code>toLog</code
+     * @param throwable an exception to be logged with <code>toLog</code>.
      * @param toLog     the error message to log.
      */
     protected void logError(final Throwable throwable, final Object... toLog) {
@@ -136,4 +312,142 @@ public class AbstractBase {
     protected void logError(final Object... toLog) {
         LoggerUtils.logError(getLogger(), toLog);
     }
+
+    /**
+     * Log an info message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the info message - also the rate limiting key.
+     */
+    protected void logInfoRateLimited(final String template) {
+        LoggerUtils.logInfoRateLimited(getLogger(), template);
+    }
+
+    /**
+     * Log an info message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the info message - also the rate limiting key.
+     * @param toLog2   the second part of the info message.
+     */
+    protected void logInfoRateLimited(final String template, final Object toLog2) {
+        LoggerUtils.logInfoRateLimited(getLogger(), template, toLog2);
+    }
+
+    /**
+     * Log an info message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the info message - also the rate limiting key.
+     * @param toLog2   the second part of the info message.
+     * @param toLog3   the third part of the info message.
+     */
+    protected void logInfoRateLimited(final String template, final Object toLog2, final Object toLog3) {
+        LoggerUtils.logInfoRateLimited(getLogger(), template, toLog2, toLog3);
+    }
+
+    /**
+     * Log an info message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the info message - also the rate limiting key.
+     * @param toLog2   the second part of the info message.
+     * @param toLog3   the third part of the info message.
+     * @param toLog4   the fourth part of the info message.
+     */
+    protected void logInfoRateLimited(final String template, final Object toLog2, final Object toLog3, final Object toLog4) {
+        LoggerUtils.logInfoRateLimited(getLogger(), template, toLog2, toLog3, toLog4);
+    }
+
+    /**
+     * Log a warning message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the warning message - also the rate limiting key.
+     */
+    protected void logWarningRateLimited(final String template) {
+        LoggerUtils.logWarningRateLimited(getLogger(), template);
+    }
+
+    /**
+     * Log a warning message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the warning message - also the rate limiting key.
+     * @param toLog2   the second part of the warning message.
+     */
+    protected void logWarningRateLimited(final String template, final Object toLog2) {
+        LoggerUtils.logWarningRateLimited(getLogger(), template, toLog2);
+    }
+
+    /**
+     * Log a warning message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the warning message - also the rate limiting key.
+     * @param toLog2   the second part of the warning message.
+     * @param toLog3   the third part of the warning message.
+     */
+    protected void logWarningRateLimited(final String template, final Object toLog2, final Object toLog3) {
+        LoggerUtils.logWarningRateLimited(getLogger(), template, toLog2, toLog3);
+    }
+
+    /**
+     * Log a warning message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the warning message - also the rate limiting key.
+     * @param toLog2   the second part of the warning message.
+     * @param toLog3   the third part of the warning message.
+     * @param toLog4   the fourth part of the warning message.
+     */
+    protected void logWarningRateLimited(final String template, final Object toLog2, final Object toLog3, final Object toLog4) {
+        LoggerUtils.logWarningRateLimited(getLogger(), template, toLog2, toLog3, toLog4);
+    }
+
+    /**
+     * Log an error message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the error message - also the rate limiting key.
+     */
+    protected void logErrorRateLimited(final String template) {
+        LoggerUtils.logErrorRateLimited(getLogger(), template);
+    }
+
+    /**
+     * Log an error message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the error message - also the rate limiting key.
+     * @param toLog2   the second part of the error message.
+     */
+    protected void logErrorRateLimited(final String template, final Object toLog2) {
+        LoggerUtils.logErrorRateLimited(getLogger(), template, toLog2);
+    }
+
+    /**
+     * Log an error message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the error message - also the rate limiting key.
+     * @param toLog2   the second part of the error message.
+     * @param toLog3   the third part of the error message.
+     */
+    protected void logErrorRateLimited(final String template, final Object toLog2, final Object toLog3) {
+        LoggerUtils.logErrorRateLimited(getLogger(), template, toLog2, toLog3);
+    }
+
+    /**
+     * Log an error message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param template the constant first part of the error message - also the rate limiting key.
+     * @param toLog2   the second part of the error message.
+     * @param toLog3   the third part of the error message.
+     * @param toLog4   the fourth part of the error message.
+     */
+    protected void logErrorRateLimited(final String template, final Object toLog2, final Object toLog3, final Object toLog4) {
+        LoggerUtils.logErrorRateLimited(getLogger(), template, toLog2, toLog3, toLog4);
+    }
 }
@@ -1,10 +1,18 @@
 package com.redhat.common.jee.rest.proxy;
 
 import com.redhat.common.AbstractBase;
+import com.redhat.common.jee.rest.utils.ResponseBuilder;
 import com.redhat.common.jee.servlet.utils.HttpServletRequestUtils;
+import com.redhat.common.markup.MarkupBuilder;
+import java.security.Principal;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
 
 /**
  * Abstract base class for REST resources...
@@ -25,6 +33,26 @@ public abstract class AbstractResourceProxy<S> extends AbstractBase {
      */
     private S service;
 
+    /**
+     * Optional cache of service results.
+     */
+    private ResponseCache responseCache;
+
+    /**
+     * Optional coalescing of concurrent identical calls.
+     */
+    private SingleFlight<String, CachedResponse> singleFlight;
+
+    /**
+     * Optional limit on concurrent service calls.
+     */
+    private Bulkhead bulkhead;
+
+    /**
+     * Optional circuit breaker around service calls.
+     */
+    private CircuitBreaker circuitBreaker;
+
     /**
      * Default constructor.
      */
@@ -48,7 +76,8 @@ public abstract class AbstractResourceProxy<S> extends AbstractBase {
     }
 
     /**
-     * Converts the HttpServletRequest to query params...
+     * Return a read-only view of the request's query params - shared for the
+     * request, not copied.
      */
     protected Map<String, String[]> getQueryParams() {
         return HttpServletRequestUtils.getQueryParams(getRequest());
@@ -71,4 +100,269 @@ public abstract class AbstractResourceProxy<S> extends AbstractBase {
 
         this.service = service;
     }
+
+    /**
+     * Return the cache of service results, or null if results are not cached.
+     */
+    protected ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Set the cache of service results - null disables caching.
+     *
+     * Results are cached by {@link #getCacheKey()}: path, query params and
+     * user principal. If a result depends on anything else - roles, tenant,
+     * headers such as Accept-Language - <b>override {@link #getCacheKey()}</b>
+     * or one client may be served another's data.
+     *
+     * @param responseCache the cache to use.
+     */
+    protected void setResponseCache(final ResponseCache responseCache) {
+        logIfDebug("Response cache set:  [", responseCache, "]");
+
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Return the coalescing of concurrent identical calls, or null if calls
+     * are not coalesced.
+     */
+    protected SingleFlight<String, CachedResponse> getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * Set the coalescing of concurrent identical calls - null disables it.
+     *
+     * @param singleFlight the coalescing to use.
+     */
+    protected void setSingleFlight(final SingleFlight<String, CachedResponse> singleFlight) {
+        logIfDebug("Single flight set:  [", singleFlight, "]");
+
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * Return the limit on concurrent service calls, or null if unlimited.
+     */
+    protected Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * Set the limit on concurrent service calls - null removes it.
+     *
+     * @param bulkhead the limit to use.
+     */
+    protected void setBulkhead(final Bulkhead bulkhead) {
+        logIfDebug("Bulkhead set:  [", bulkhead, "]");
+
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * Return the circuit breaker around service calls, or null if none.
+     */
+    protected CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Set the circuit breaker around service calls - null removes it.
+     *
+     * @param circuitBreaker the circuit breaker to use.
+     */
+    protected void setCircuitBreaker(final CircuitBreaker circuitBreaker) {
+        logIfDebug("Circuit breaker set:  [", circuitBreaker, "]");
+
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Call <code>call</code> with our service, within the circuit breaker and
+     * bulkhead if set. The circuit is checked first so calls rejected by an
+     * open circuit never wait for a permit, and the outcome is recorded inside
+     * the bulkhead so its rejections are not counted as service failures - a
+     * half open trial rejected by the bulkhead is given up.
+     *
+     * @param <V>  the type of result.
+     * @param call calls the service.
+     *
+     * @return the result of <code>call</code>.
+     *
+     * @throws ProxyException if the call was rejected or, with a circuit
+     *                        breaker, failed.
+     */
+    protected <V> V callService(final Function<S, V> call) {
+        final Bulkhead currentBulkhead = getBulkhead();
+        final CircuitBreaker currentCircuitBreaker = getCircuitBreaker();
+        final Supplier<V> invoke = () -> call.apply(getService());
+
+        if (null == currentCircuitBreaker) {
+            return null == currentBulkhead ? invoke.get() : currentBulkhead.execute(invoke);
+        }
+
+        currentCircuitBreaker.acquire();
+
+        if (null == currentBulkhead) {
+            return currentCircuitBreaker.record(invoke);
+        }
+
+        return currentBulkhead.execute(() -> currentCircuitBreaker.record(invoke), currentCircuitBreaker::onIgnored);
+    }
+
+    /**
+     * Return the markup results are serialized in.
+     */
+    protected MarkupBuilder getMarkupBuilder() {
+        return MarkupBuilder.JSON;
+    }
+
+    /**
+     * Return true if the current request's result may be cached - only GET
+     * and HEAD are.
+     */
+    protected boolean isCacheable() {
+        final HttpServletRequest httpRequest = getRequest();
+
+        return null != httpRequest && (HttpMethod.GET.equals(httpRequest.getMethod()) || HttpMethod.HEAD.equals(httpRequest.getMethod()));
+    }
+
+    /**
+     * Return the cache key of the current request: its user principal, path
+     * and normalized query params, so users never share entries.
+     */
+    protected String getCacheKey() {
+        final HttpServletRequest httpRequest = getRequest();
+
+        if (null == httpRequest) {
+            return ResponseCache.toKey(null, null, getQueryParams());
+        }
+
+        final Principal principal = httpRequest.getUserPrincipal();
+
+        return ResponseCache.toKey(null == principal ? null : principal.getName(), httpRequest.getRequestURI(), getQueryParams());
+    }
+
+    /**
+     * Return the If-Modified-Since date of the current request, or -1.
+     */
+    long getIfModifiedSince() {
+        try {
+            return getRequest().getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (final IllegalArgumentException illegalArgumentException) {
+            logIfDebug("Ignoring malformed ", HttpHeaders.IF_MODIFIED_SINCE, " header");
+
+            return -1;
+        }
+    }
+
+    /**
+     * Return true if the client already has <code>cachedResponse</code>. If-None-Match
+     * takes precedence over If-Modified-Since.
+     */
+    boolean isNotModified(final CachedResponse cachedResponse) {
+        final HttpServletRequest httpRequest = getRequest();
+
+        if (null == httpRequest) {
+            return false;
+        }
+
+        final String ifNoneMatch = httpRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+        return null != ifNoneMatch ? cachedResponse.matches(ifNoneMatch) : cachedResponse.isNotModifiedSince(getIfModifiedSince());
+    }
+
+    /**
+     * Return true if the current request's If-None-Match matches
+     * <code>cachedResponse</code>.
+     */
+    boolean isMatch(final CachedResponse cachedResponse) {
+        final HttpServletRequest httpRequest = getRequest();
+
+        return null != cachedResponse && null != httpRequest && cachedResponse.matches(httpRequest.getHeader(HttpHeaders.IF_NONE_MATCH));
+    }
+
+    /**
+     * Convert <code>cachedResponse</code> to a response: for a cacheable
+     * request 304 if the client already has it, otherwise 200 with the body.
+     * Both carry the entity tag and last modified date. A null result is 204.
+     * Preconditions are only evaluated for cacheable requests - 304 is only
+     * defined for GET and HEAD.
+     *
+     * @param cachedResponse the serialized result - may be null.
+     *
+     * @return the response.
+     */
+    protected Response toResponse(final CachedResponse cachedResponse) {
+        if (null == cachedResponse) {
+            return ResponseBuilder.NO_CONTENT.createResponse();
+        }
+
+        if (isCacheable() && isNotModified(cachedResponse)) {
+            return ResponseBuilder.NOT_MODIFIED.buildResponse(builder -> builder.tag(cachedResponse.getEntityTag()).lastModified(cachedResponse.getLastModifiedDate()));
+        }
+
+        return ResponseBuilder.OK.buildResponse(builder -> builder.entity(cachedResponse.getBody()).type(cachedResponse.getMediaType()).tag(cachedResponse.getEntityTag()).lastModified(cachedResponse.getLastModifiedDate()));
+    }
+
+    /**
+     * Call <code>call</code> with our service and respond with its serialized
+     * result. When the request is cacheable, results are served from the
+     * cache (if set) by {@link #getCacheKey()}, concurrent identical calls
+     * share one service call (if single flight is set) and clients sending a
+     * matching If-None-Match (or an If-Modified-Since not before the result)
+     * receive 304 with no body. Other requests always call the service,
+     * unless their If-None-Match matches the cached representation - then
+     * they receive 412 without doing the work. Once such a call succeeds the
+     * cached entry for {@link #getCacheKey()} is removed, so later reads see
+     * the change - entries cached for other users expire by themselves.
+     * Service calls go through
+     * {@link #callService(Function)}. A {@link ProxyException} is answered
+     * with its response.
+     *
+     * @param <V>  the type of result.
+     * @param call calls the service.
+     *
+     * @return the response.
+     */
+    protected <V> Response cachedResponse(final Function<S, V> call) {
+        final Supplier<CachedResponse> loader = () -> {
+            final V value = callService(call);
+
+            return null == value ? null : CachedResponse.of(value, getMarkupBuilder());
+        };
+
+        try {
+            final ResponseCache cache = getResponseCache();
+
+            if (!isCacheable()) {
+                if (null != cache && isMatch(cache.getIfPresent(getCacheKey()))) {
+                    return ResponseBuilder.PRECONDITION_FAILED.createResponse();
+                }
+
+                final CachedResponse result = loader.get();
+
+                if (null != cache) {
+                    cache.invalidate(getCacheKey());
+                }
+
+                return toResponse(result);
+            }
+
+            final String key = getCacheKey();
+            final SingleFlight<String, CachedResponse> flight = getSingleFlight();
+
+            if (null != cache) {
+                return toResponse(cache.get(key, flight, loader));
+            }
+
+            return toResponse(null == flight ? loader.get() : flight.execute(key, loader));
+        } catch (final ProxyException proxyException) {
+            logWarning("Trouble calling service:  ", proxyException.getMessage());
+
+            return proxyException.getResponseBuilder().createResponse();
+        }
+    }
 }
@@ -0,0 +1,327 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.AbstractBase;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that tunes itself from observed latency, using a
+ * gradient algorithm. Latencies are averaged over a sampling window; at the
+ * end of each window the average is compared to the no load latency - the
+ * smallest latency seen, re-probed every {@link #PROBE_WINDOWS} windows so it
+ * can follow the service as it changes:
+ *
+ * <pre>
+ *   gradient = clamp(tolerance * noLoadRtt / shortRtt, 0.5, 1)
+ *   newLimit = limit * gradient + sqrt(limit)
+ *   limit    = limit * (1 - smoothing) + newLimit * smoothing
+ * </pre>
+ *
+ * While latency holds steady the gradient is 1 and the limit grows by the
+ * allowed queue (the square root of the limit); once requests start to queue
+ * latency rises, the gradient drops and the limit shrinks toward the knee of
+ * the latency curve. The limit only grows while at least half of it is used.
+ *
+ * Requests dropped because the service is overloaded - timed out or rejected
+ * downstream - say more than any latency: a window that saw a drop shrinks
+ * the limit by {@link #DROP_BACKOFF} instead.
+ *
+ * Lock free - the thread that closes a window recomputes the limit.
+ *
+ * @author sfloess
+ */
+public class AdaptiveConcurrencyLimiter extends AbstractBase {
+    /**
+     * Default initial limit.
+     */
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+    /**
+     * Default minimum limit.
+     */
+    public static final int DEFAULT_MIN_LIMIT = 1;
+
+    /**
+     * Default maximum limit.
+     */
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+
+    /**
+     * Default sampling window, in milliseconds.
+     */
+    public static final long DEFAULT_WINDOW_MILLIS = 1000;
+
+    /**
+     * Samples needed before a window is closed.
+     */
+    static final int MIN_WINDOW_SAMPLES = 10;
+
+    /**
+     * How much more than the long term latency is tolerated before shrinking.
+     */
+    static final double TOLERANCE = 1.5;
+
+    /**
+     * Weight of a new limit.
+     */
+    static final double SMOOTHING = 0.2;
+
+    /**
+     * Windows between resets of the no load latency.
+     */
+    static final int PROBE_WINDOWS = 600;
+
+    /**
+     * Smallest gradient applied.
+     */
+    static final double MIN_GRADIENT = 0.5;
+
+    /**
+     * Limit multiplier applied when a window saw requests dropped.
+     */
+    static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight;
+
+    private final AtomicLong windowStart;
+
+    private final AtomicLong windowRttSum;
+
+    private final AtomicInteger windowSamples;
+
+    private final AtomicInteger windowDrops;
+
+    private final AtomicLong windowMinRtt;
+
+    private final AtomicInteger windowMaxInFlight;
+
+    private volatile double limit;
+
+    private volatile long noLoadRtt;
+
+    private final AtomicInteger windowsSinceProbe;
+
+    private final LongAdder rejected;
+
+    /**
+     * Start at <code>initialLimit</code>, tuning between <code>minLimit</code>
+     * and <code>maxLimit</code> every <code>window</code>.
+     *
+     * @param initialLimit the starting limit.
+     * @param minLimit     the smallest limit - must be positive.
+     * @param maxLimit     the largest limit - at least <code>minLimit</code>.
+     * @param window       how often the limit is tuned - must be positive.
+     * @param unit         the unit of <code>window</code>.
+     */
+    public AdaptiveConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit, final long window, final TimeUnit unit) {
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("Min limit must be positive: " + minLimit);
+        }
+
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException("Max limit [" + maxLimit + "] less than min limit [" + minLimit + "]");
+        }
+
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Initial limit [" + initialLimit + "] must be between [" + minLimit + "] and [" + maxLimit + "]");
+        }
+
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = Objects.requireNonNull(unit, "Cannot have a null time unit!").toNanos(window);
+        this.inFlight = new AtomicInteger();
+        this.windowStart = new AtomicLong(System.nanoTime());
+        this.windowRttSum = new AtomicLong();
+        this.windowSamples = new AtomicInteger();
+        this.windowDrops = new AtomicInteger();
+        this.windowMinRtt = new AtomicLong(Long.MAX_VALUE);
+        this.windowMaxInFlight = new AtomicInteger();
+        this.noLoadRtt = Long.MAX_VALUE;
+        this.windowsSinceProbe = new AtomicInteger();
+        this.limit = initialLimit;
+        this.rejected = new LongAdder();
+    }
+
+    /**
+     * Start at {@link #DEFAULT_INITIAL_LIMIT}, tuning between
+     * {@link #DEFAULT_MIN_LIMIT} and {@link #DEFAULT_MAX_LIMIT} every
+     * {@link #DEFAULT_WINDOW_MILLIS} milliseconds.
+     */
+    public AdaptiveConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Return true, counting the request as in flight, if it is within the
+     * limit. Every successful acquire must be followed by {@link #release(long)},
+     * {@link #releaseDropped()} or {@link #release()}.
+     *
+     * @return true if the request may proceed.
+     */
+    public boolean tryAcquire() {
+        final int currentLimit = getLimit();
+
+        while (true) {
+            final int current = inFlight.get();
+
+            if (current >= currentLimit) {
+                rejected.increment();
+
+                return false;
+            }
+
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release a request without recording its latency - for example when it
+     * failed before doing real work.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Release a request that took <code>rttNanos</code>.
+     *
+     * @param rttNanos the time the request took, in nanoseconds.
+     */
+    public void release(final long rttNanos) {
+        inFlight.decrementAndGet();
+
+        if (rttNanos <= 0) {
+            return;
+        }
+
+        windowRttSum.addAndGet(rttNanos);
+        windowMinRtt.accumulateAndGet(rttNanos, Math::min);
+
+        closeWindowIfDue(windowSamples.incrementAndGet() + windowDrops.get());
+    }
+
+    /**
+     * Release a request dropped because the service is overloaded - it timed
+     * out or was rejected downstream. The window it falls in shrinks the limit.
+     */
+    public void releaseDropped() {
+        inFlight.decrementAndGet();
+
+        closeWindowIfDue(windowSamples.get() + windowDrops.incrementAndGet());
+    }
+
+    /**
+     * Close the window if it has lasted long enough and holds enough samples.
+     */
+    void closeWindowIfDue(final int samples) {
+        final long now = System.nanoTime();
+        final long start = windowStart.get();
+
+        if (samples >= MIN_WINDOW_SAMPLES && now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            closeWindow();
+        }
+    }
+
+    /**
+     * Recompute the limit from the window just closed and start a new one.
+     */
+    void closeWindow() {
+        final int samples = windowSamples.getAndSet(0);
+        final int drops = windowDrops.getAndSet(0);
+        final long rttSum = windowRttSum.getAndSet(0);
+        final long minRtt = windowMinRtt.getAndSet(Long.MAX_VALUE);
+        final int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+        final double currentLimit = limit;
+
+        if (drops > 0) {
+            limit = Math.max(minLimit, currentLimit * DROP_BACKOFF);
+
+            logIfDebug("Concurrency limit [", (int) currentLimit, "] -> [", getLimit(), "] (", drops, " dropped)");
+
+            return;
+        }
+
+        if (samples < 1) {
+            return;
+        }
+
+        final long currentNoLoadRtt = windowsSinceProbe.incrementAndGet() % PROBE_WINDOWS == 0 ? minRtt : Math.min(noLoadRtt, minRtt);
+
+        noLoadRtt = currentNoLoadRtt;
+
+        final double shortRtt = (double) rttSum / samples;
+        final double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * currentNoLoadRtt / shortRtt));
+        double newLimit = currentLimit * gradient + Math.sqrt(currentLimit);
+
+        if (maxInFlight < currentLimit / 2) {
+            newLimit = Math.min(newLimit, currentLimit);
+        }
+
+        newLimit = currentLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+
+        logIfDebug("Concurrency limit [", (int) currentLimit, "] -> [", getLimit(), "] (short rtt ", (long) shortRtt, "ns, no load rtt ", currentNoLoadRtt, "ns)");
+    }
+
+    /**
+     * Return the current limit.
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Return the number of requests in flight.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Return the number of requests rejected.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Return the no load latency, or -1 if not yet measured.
+     */
+    public long getNoLoadRtt(final TimeUnit unit) {
+        final long currentNoLoadRtt = noLoadRtt;
+
+        return Long.MAX_VALUE == currentNoLoadRtt ? -1 : Objects.requireNonNull(unit, "Cannot have a null time unit!").convert(currentNoLoadRtt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Return the smallest limit.
+     */
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    /**
+     * Return the largest limit.
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+}
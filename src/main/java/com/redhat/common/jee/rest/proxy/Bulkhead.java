@@ -0,0 +1,152 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.AbstractBase;
+import com.redhat.common.jee.rest.utils.ResponseBuilder;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many calls may run at once. A call that cannot obtain a permit
+ * within {@link #getMaxWait(TimeUnit)} is rejected with a
+ * {@link ProxyException} answering {@link ResponseBuilder#SERVICE_UNAVAILABLE},
+ * so a slow service ties up at most {@link #getMaxConcurrent()} threads.
+ *
+ * @author sfloess
+ */
+public class Bulkhead extends AbstractBase {
+    /**
+     * Default maximum number of concurrent calls.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT = 25;
+
+    private final int maxConcurrent;
+
+    private final long maxWaitNanos;
+
+    private final Semaphore permits;
+
+    private final LongAdder rejected;
+
+    /**
+     * Allow <code>maxConcurrent</code> calls at once, waiting up to
+     * <code>maxWait</code> for a permit.
+     *
+     * @param maxConcurrent maximum number of concurrent calls - must be positive.
+     * @param maxWait       how long to wait for a permit - 0 to not wait.
+     * @param unit          the unit of <code>maxWait</code>.
+     */
+    public Bulkhead(final int maxConcurrent, final long maxWait, final TimeUnit unit) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Max concurrent must be positive: " + maxConcurrent);
+        }
+
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("Max wait cannot be negative: " + maxWait);
+        }
+
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = Objects.requireNonNull(unit, "Cannot have a null time unit!").toNanos(maxWait);
+        this.permits = new Semaphore(maxConcurrent);
+        this.rejected = new LongAdder();
+    }
+
+    /**
+     * Allow <code>maxConcurrent</code> calls at once, rejecting any more without waiting.
+     *
+     * @param maxConcurrent maximum number of concurrent calls - must be positive.
+     */
+    public Bulkhead(final int maxConcurrent) {
+        this(maxConcurrent, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Allow {@link #DEFAULT_MAX_CONCURRENT} calls at once, rejecting any more without waiting.
+     */
+    public Bulkhead() {
+        this(DEFAULT_MAX_CONCURRENT);
+    }
+
+    /**
+     * Obtain a permit - return false if none was available in time.
+     */
+    boolean tryAcquire() {
+        try {
+            return 0 == maxWaitNanos ? permits.tryAcquire() : permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+
+            return false;
+        }
+    }
+
+    /**
+     * Perform <code>call</code> if a permit is available.
+     *
+     * @param <V>  the type of result.
+     * @param call the call to perform.
+     *
+     * @return the result of <code>call</code>.
+     *
+     * @throws ProxyException if no permit was available in time.
+     */
+    public <V> V execute(final Supplier<V> call) {
+        return execute(call, null);
+    }
+
+    /**
+     * Perform <code>call</code> if a permit is available, otherwise run
+     * <code>onRejected</code> (if not null) before raising the rejection.
+     */
+    <V> V execute(final Supplier<V> call, final Runnable onRejected) {
+        Objects.requireNonNull(call, "Cannot have a null call!");
+
+        if (!tryAcquire()) {
+            rejected.increment();
+
+            if (null != onRejected) {
+                onRejected.run();
+            }
+
+            logIfDebug("Bulkhead full - rejecting call");
+
+            throw new ProxyException(ResponseBuilder.SERVICE_UNAVAILABLE, "Too many concurrent calls:  " + maxConcurrent);
+        }
+
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Return the maximum number of concurrent calls.
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Return how long a call waits for a permit.
+     */
+    public long getMaxWait(final TimeUnit unit) {
+        return Objects.requireNonNull(unit, "Cannot have a null time unit!").convert(maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Return the number of calls running.
+     */
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Return the number of calls rejected.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,194 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.markup.MarkupBuilder;
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * A serialized service result: the bytes sent to the client, a strong entity
+ * tag computed from those bytes and the time it was produced. Immutable.
+ *
+ * @author sfloess
+ */
+public final class CachedResponse {
+    /**
+     * Media type used for YAML, which JAX-RS does not define.
+     */
+    public static final String APPLICATION_YAML = "application/yaml";
+
+    /**
+     * Wildcard accepted in an If-None-Match header.
+     */
+    static final String ANY_TAG = "*";
+
+    /**
+     * Prefix of a weak entity tag.
+     */
+    static final String WEAK_PREFIX = "W/";
+
+    private final byte[] body;
+
+    private final String mediaType;
+
+    private final EntityTag entityTag;
+
+    private final long lastModified;
+
+    /**
+     * Return the media type produced by <code>markupBuilder</code>.
+     */
+    static String toMediaType(final MarkupBuilder markupBuilder) {
+        switch (markupBuilder) {
+            case XML:
+                return MediaType.APPLICATION_XML;
+
+            case YAML:
+                return APPLICATION_YAML;
+
+            default:
+                return MediaType.APPLICATION_JSON;
+        }
+    }
+
+    /**
+     * Return a strong entity tag value for <code>body</code> - the unpadded,
+     * URL safe Base64 SHA-256 digest of the bytes.
+     */
+    static String computeTag(final byte[] body) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (final NoSuchAlgorithmException noSuchAlgorithmException) {
+            throw new IllegalStateException("SHA-256 is not available", noSuchAlgorithmException);
+        }
+    }
+
+    /**
+     * Return the opaque value of <code>tag</code>, less any weak prefix and quotes.
+     */
+    static String toOpaqueTag(final String tag) {
+        final String retVal = tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+
+        return retVal.length() > 1 && retVal.charAt(0) == '"' && retVal.charAt(retVal.length() - 1) == '"' ? retVal.substring(1, retVal.length() - 1) : retVal;
+    }
+
+    /**
+     * Serialize <code>value</code> using <code>markupBuilder</code>.
+     *
+     * @param value         the value to serialize - may not be null.
+     * @param markupBuilder the markup to serialize in.
+     *
+     * @return the serialized value.
+     */
+    public static CachedResponse of(final Object value, final MarkupBuilder markupBuilder) {
+        Objects.requireNonNull(value, "Cannot have a null value!");
+        Objects.requireNonNull(markupBuilder, "Cannot have a null markup builder!");
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        markupBuilder.writeTo(out, value);
+
+        return new CachedResponse(out.toByteArray(), toMediaType(markupBuilder), System.currentTimeMillis());
+    }
+
+    /**
+     * Wrap already serialized bytes.
+     *
+     * @param body         the serialized bytes - not copied.
+     * @param mediaType    the media type of <code>body</code>.
+     * @param lastModified when <code>body</code> was produced, in milliseconds
+     *                     since the epoch - truncated to seconds as HTTP dates are.
+     */
+    public CachedResponse(final byte[] body, final String mediaType, final long lastModified) {
+        this.body = Objects.requireNonNull(body, "Cannot have a null body!");
+        this.mediaType = Objects.requireNonNull(mediaType, "Cannot have a null media type!");
+        this.entityTag = new EntityTag(computeTag(body));
+        this.lastModified = lastModified - lastModified % 1000;
+    }
+
+    /**
+     * Return the serialized bytes - do not modify.
+     *
+     * @return the serialized bytes.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Return the media type of the body.
+     *
+     * @return the media type of the body.
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Return the strong entity tag of the body.
+     *
+     * @return the strong entity tag of the body.
+     */
+    public EntityTag getEntityTag() {
+        return entityTag;
+    }
+
+    /**
+     * Return when the body was produced, in milliseconds since the epoch.
+     *
+     * @return when the body was produced.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Return when the body was produced.
+     *
+     * @return when the body was produced.
+     */
+    public Date getLastModifiedDate() {
+        return new Date(lastModified);
+    }
+
+    /**
+     * Return true if an If-None-Match header value names our entity tag. As
+     * required for If-None-Match, weak comparison is used.
+     *
+     * @param ifNoneMatch the header value - may be null.
+     *
+     * @return true if the client already has this body.
+     */
+    public boolean matches(final String ifNoneMatch) {
+        if (null == ifNoneMatch) {
+            return false;
+        }
+
+        for (final String tag : ifNoneMatch.split(",")) {
+            final String trimmed = tag.trim();
+
+            if (ANY_TAG.equals(trimmed) || entityTag.getValue().equals(toOpaqueTag(trimmed))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return true if the body has not changed since an If-Modified-Since date.
+     *
+     * @param ifModifiedSince the header value in milliseconds since the epoch,
+     *                        negative if absent.
+     *
+     * @return true if the client already has this body.
+     */
+    public boolean isNotModifiedSince(final long ifModifiedSince) {
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+}
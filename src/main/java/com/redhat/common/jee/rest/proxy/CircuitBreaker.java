@@ -0,0 +1,460 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.AbstractBase;
+import com.redhat.common.jee.rest.utils.ResponseBuilder;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+/**
+ * Stops calling a failing service. Outcomes are counted in a sliding time
+ * window of buckets; once at least {@link #getMinimumCalls()} calls were made
+ * in the window and the failure rate reaches {@link #getFailureRateThreshold()}
+ * percent the circuit opens and calls are rejected, without being made, with
+ * a {@link ProxyException} answering {@link ResponseBuilder#SERVICE_UNAVAILABLE}.
+ *
+ * After the open duration a single trial call is let through (half open): if
+ * it succeeds the circuit closes with an empty window, otherwise it reopens.
+ *
+ * A predicate decides which exceptions are failures. By default client errors
+ * - a {@link WebApplicationException} with a status below 500 - are not: the
+ * service answered, so they are neither counted nor wrapped.
+ *
+ * Lock free - state changes are compare and set of an immutable snapshot and
+ * buckets are replaced by compare and set as the window slides.
+ *
+ * @author sfloess
+ */
+public class CircuitBreaker extends AbstractBase {
+    /**
+     * Default failure rate, in percent, that opens the circuit.
+     */
+    public static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+
+    /**
+     * Default minimum number of calls in the window before the rate is considered.
+     */
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+
+    /**
+     * Default window length, in seconds.
+     */
+    public static final long DEFAULT_WINDOW_SECONDS = 10;
+
+    /**
+     * Default time the circuit stays open, in seconds.
+     */
+    public static final long DEFAULT_OPEN_SECONDS = 30;
+
+    /**
+     * Number of buckets the window is divided into.
+     */
+    static final int BUCKETS = 10;
+
+    /**
+     * Circuit states.
+     */
+    public enum State {
+        /**
+         * Calls are made.
+         */
+        CLOSED,
+
+        /**
+         * Calls are rejected.
+         */
+        OPEN,
+
+        /**
+         * One trial call has been let through.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Immutable state, when it was entered and the first bucket counted.
+     */
+    static final class Snapshot {
+        final State state;
+        final long since;
+        final long fromEpoch;
+
+        Snapshot(final State state, final long since, final long fromEpoch) {
+            this.state = state;
+            this.since = since;
+            this.fromEpoch = fromEpoch;
+        }
+    }
+
+    /**
+     * Outcomes counted during one slice of the window.
+     */
+    static final class Bucket {
+        final long epoch;
+        final LongAdder successes = new LongAdder();
+        final LongAdder failures = new LongAdder();
+
+        Bucket(final long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private final int failureRateThreshold;
+
+    private final int minimumCalls;
+
+    private final long bucketNanos;
+
+    private final long openNanos;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    private final AtomicReference<Snapshot> snapshot;
+
+    private final LongAdder rejected;
+
+    private final Predicate<Throwable> failurePredicate;
+
+    /**
+     * Return true if <code>throwable</code> says the service failed - anything
+     * but a {@link WebApplicationException} with a status below 500.
+     *
+     * @param throwable what a call raised.
+     *
+     * @return true if it is a failure.
+     */
+    public static boolean isServiceFailure(final Throwable throwable) {
+        if (!(throwable instanceof WebApplicationException)) {
+            return true;
+        }
+
+        final Response response = ((WebApplicationException) throwable).getResponse();
+
+        return null == response || response.getStatus() >= 500;
+    }
+
+    /**
+     * Open once <code>failureRateThreshold</code> percent of at least
+     * <code>minimumCalls</code> calls within <code>window</code> fail, and
+     * stay open for <code>openDuration</code>. Only exceptions matching
+     * <code>failurePredicate</code> are failures.
+     *
+     * @param failureRateThreshold failure percentage that opens the circuit - 1 to 100.
+     * @param minimumCalls         calls needed in the window before opening - must be positive.
+     * @param window               length of the sliding window - must be positive.
+     * @param openDuration         how long the circuit stays open - must be positive.
+     * @param unit                 the unit of <code>window</code> and <code>openDuration</code>.
+     * @param failurePredicate     true for exceptions that count as failures.
+     */
+    public CircuitBreaker(final int failureRateThreshold, final int minimumCalls, final long window, final long openDuration, final TimeUnit unit, final Predicate<Throwable> failurePredicate) {
+        if (failureRateThreshold < 1 || failureRateThreshold > 100) {
+            throw new IllegalArgumentException("Failure rate threshold must be 1 to 100: " + failureRateThreshold);
+        }
+
+        if (minimumCalls < 1) {
+            throw new IllegalArgumentException("Minimum calls must be positive: " + minimumCalls);
+        }
+
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+
+        if (openDuration < 1) {
+            throw new IllegalArgumentException("Open duration must be positive: " + openDuration);
+        }
+
+        Objects.requireNonNull(unit, "Cannot have a null time unit!");
+
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.bucketNanos = Math.max(1, unit.toNanos(window) / BUCKETS);
+        this.openNanos = unit.toNanos(openDuration);
+        this.buckets = new AtomicReferenceArray<>(BUCKETS);
+        this.snapshot = new AtomicReference<>(new Snapshot(State.CLOSED, System.nanoTime(), Long.MIN_VALUE));
+        this.rejected = new LongAdder();
+        this.failurePredicate = Objects.requireNonNull(failurePredicate, "Cannot have a null failure predicate!");
+    }
+
+    /**
+     * Open once <code>failureRateThreshold</code> percent of at least
+     * <code>minimumCalls</code> calls within <code>window</code> fail, and
+     * stay open for <code>openDuration</code>. Failures are decided by
+     * {@link #isServiceFailure(Throwable)}.
+     *
+     * @param failureRateThreshold failure percentage that opens the circuit - 1 to 100.
+     * @param minimumCalls         calls needed in the window before opening - must be positive.
+     * @param window               length of the sliding window - must be positive.
+     * @param openDuration         how long the circuit stays open - must be positive.
+     * @param unit                 the unit of <code>window</code> and <code>openDuration</code>.
+     */
+    public CircuitBreaker(final int failureRateThreshold, final int minimumCalls, final long window, final long openDuration, final TimeUnit unit) {
+        this(failureRateThreshold, minimumCalls, window, openDuration, unit, CircuitBreaker::isServiceFailure);
+    }
+
+    /**
+     * Open once {@link #DEFAULT_FAILURE_RATE_THRESHOLD} percent of at least
+     * {@link #DEFAULT_MINIMUM_CALLS} calls within {@link #DEFAULT_WINDOW_SECONDS}
+     * seconds fail, and stay open {@link #DEFAULT_OPEN_SECONDS} seconds.
+     */
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_MINIMUM_CALLS, DEFAULT_WINDOW_SECONDS, DEFAULT_OPEN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Return the bucket number of <code>now</code>.
+     */
+    long toEpoch(final long now) {
+        return Math.floorDiv(now, bucketNanos);
+    }
+
+    /**
+     * Return the index of the bucket for <code>epoch</code>.
+     */
+    static int toIndex(final long epoch) {
+        return (int) Math.floorMod(epoch, (long) BUCKETS);
+    }
+
+    /**
+     * Return the bucket for <code>epoch</code>, replacing a stale one.
+     */
+    Bucket getBucket(final long epoch) {
+        final int index = toIndex(epoch);
+
+        while (true) {
+            final Bucket current = buckets.get(index);
+
+            if (null != current && current.epoch >= epoch) {
+                return current;
+            }
+
+            final Bucket replacement = new Bucket(epoch);
+
+            if (buckets.compareAndSet(index, current, replacement)) {
+                return replacement;
+            }
+        }
+    }
+
+    /**
+     * Return {successes, failures} counted in the window since <code>fromEpoch</code>.
+     */
+    long[] count(final long epoch, final long fromEpoch) {
+        final long[] retVal = new long[2];
+
+        for (int index = 0; index < BUCKETS; index++) {
+            final Bucket bucket = buckets.get(index);
+
+            if (null != bucket && bucket.epoch > epoch - BUCKETS && bucket.epoch >= fromEpoch) {
+                retVal[0] += bucket.successes.sum();
+                retVal[1] += bucket.failures.sum();
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return true if a call may be made now. Moves an open circuit whose open
+     * duration has passed to half open, letting this call through as the trial.
+     *
+     * @return true if the call may be made.
+     */
+    public boolean tryAcquire() {
+        final long now = System.nanoTime();
+
+        while (true) {
+            final Snapshot current = snapshot.get();
+
+            if (State.CLOSED == current.state) {
+                return true;
+            }
+
+            // A half open trial that never reported is treated like an open circuit...
+            if (now - current.since < openNanos) {
+                rejected.increment();
+
+                return false;
+            }
+
+            if (snapshot.compareAndSet(current, new Snapshot(State.HALF_OPEN, now, current.fromEpoch))) {
+                logInfo("Circuit half open - allowing a trial call");
+
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Record a successful call.
+     */
+    public void onSuccess() {
+        final long now = System.nanoTime();
+        final long epoch = toEpoch(now);
+
+        getBucket(epoch).successes.increment();
+
+        final Snapshot current = snapshot.get();
+
+        if (State.HALF_OPEN == current.state && snapshot.compareAndSet(current, new Snapshot(State.CLOSED, now, epoch))) {
+            // The current bucket still holds the failures that opened us...
+            buckets.set(toIndex(epoch), new Bucket(epoch));
+
+            logInfo("Circuit closed");
+        }
+    }
+
+    /**
+     * Record a failed call.
+     */
+    public void onFailure() {
+        final long now = System.nanoTime();
+        final long epoch = toEpoch(now);
+
+        getBucket(epoch).failures.increment();
+
+        final Snapshot current = snapshot.get();
+
+        if (State.HALF_OPEN == current.state) {
+            if (snapshot.compareAndSet(current, new Snapshot(State.OPEN, now, current.fromEpoch))) {
+                logWarning("Circuit reopened - trial call failed");
+            }
+
+            return;
+        }
+
+        if (State.CLOSED != current.state) {
+            return;
+        }
+
+        final long[] counts = count(epoch, current.fromEpoch);
+        final long calls = counts[0] + counts[1];
+
+        if (calls >= minimumCalls && counts[1] * 100 >= failureRateThreshold * calls && snapshot.compareAndSet(current, new Snapshot(State.OPEN, now, current.fromEpoch))) {
+            logWarning("Circuit opened - ", counts[1], " of ", calls, " calls failed");
+        }
+    }
+
+    /**
+     * Record a call that was not made, or whose outcome says nothing about
+     * the service. A half open trial is given up so the next call becomes the
+     * trial, rather than waiting out another open duration.
+     */
+    public void onIgnored() {
+        final Snapshot current = snapshot.get();
+
+        if (State.HALF_OPEN == current.state) {
+            snapshot.compareAndSet(current, new Snapshot(State.OPEN, System.nanoTime() - openNanos, current.fromEpoch));
+        }
+    }
+
+    /**
+     * Raise a {@link ProxyException} answering
+     * {@link ResponseBuilder#SERVICE_UNAVAILABLE} unless a call may be made now.
+     */
+    void acquire() {
+        if (!tryAcquire()) {
+            throw new ProxyException(ResponseBuilder.SERVICE_UNAVAILABLE, "Circuit open");
+        }
+    }
+
+    /**
+     * Perform <code>call</code>, already acquired, recording its outcome.
+     */
+    <V> V record(final Supplier<V> call) {
+        final V retVal;
+
+        try {
+            retVal = call.get();
+        } catch (final RuntimeException | Error throwable) {
+            if (!failurePredicate.test(throwable)) {
+                onIgnored();
+
+                throw throwable;
+            }
+
+            onFailure();
+
+            if (throwable instanceof ProxyException || throwable instanceof Error) {
+                throw throwable;
+            }
+
+            throw new ProxyException(ResponseBuilder.BAD_GATEWAY, "Service call failed:  " + throwable.getMessage(), throwable);
+        }
+
+        onSuccess();
+
+        return retVal;
+    }
+
+    /**
+     * Perform <code>call</code> unless the circuit is open, recording its
+     * outcome. A failed call is rethrown as a {@link ProxyException} answering
+     * {@link ResponseBuilder#BAD_GATEWAY}, unless it already is one. Exceptions
+     * that are not failures are rethrown unchanged and not recorded.
+     *
+     * @param <V>  the type of result.
+     * @param call the call to perform.
+     *
+     * @return the result of <code>call</code>.
+     *
+     * @throws ProxyException if the circuit is open or the call failed.
+     */
+    public <V> V execute(final Supplier<V> call) {
+        Objects.requireNonNull(call, "Cannot have a null call!");
+
+        acquire();
+
+        return record(call);
+    }
+
+    /**
+     * Return the current state.
+     */
+    public State getState() {
+        return snapshot.get().state;
+    }
+
+    /**
+     * Return the failure percentage in the current window, 0 if there were no calls.
+     */
+    public int getFailureRate() {
+        final long[] counts = count(toEpoch(System.nanoTime()), snapshot.get().fromEpoch);
+        final long calls = counts[0] + counts[1];
+
+        return 0 == calls ? 0 : (int) (counts[1] * 100 / calls);
+    }
+
+    /**
+     * Return the number of calls rejected while open.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Return the failure percentage that opens the circuit.
+     */
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Return the number of calls needed in the window before opening.
+     */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * Return how long the circuit stays open.
+     */
+    public long getOpenDuration(final TimeUnit unit) {
+        return Objects.requireNonNull(unit, "Cannot have a null time unit!").convert(openNanos, TimeUnit.NANOSECONDS);
+    }
+}
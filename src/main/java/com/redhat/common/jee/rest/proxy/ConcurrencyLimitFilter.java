@@ -0,0 +1,222 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.AbstractBase;
+import com.redhat.common.jee.rest.utils.ResponseBuilder;
+import com.redhat.common.jee.servlet.RequestWrapperCleanupListener;
+import java.io.Closeable;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Priority;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Limits concurrent requests to resources marked {@link ConcurrencyLimited}
+ * using an {@link AdaptiveConcurrencyLimiter}. Requests over the limit are
+ * rejected, before authentication or any other work, with
+ * {@link ResponseBuilder#SERVICE_UNAVAILABLE} and a Retry-After header. The
+ * latency of every request let through, measured from this filter to its
+ * response, tunes the limit. Responses showing the service is overloaded -
+ * 429, 502 (such as a timed out call), 503 and 504 - are released as drops,
+ * which shrink the limit. Other server errors fail without telling us
+ * anything about load and are released without a sample.
+ *
+ * Every admitted request is released exactly once: by the response filter,
+ * as above, or - for requests that never reach it, such as unmapped
+ * exceptions or abandoned async requests - without a latency sample when the
+ * servlet request completes, via {@link RequestWrapperCleanupListener}. That
+ * listener must be registered, as it is when annotations are scanned.
+ *
+ * @author sfloess
+ */
+@Provider
+@ConcurrencyLimited
+@Priority(ConcurrencyLimitFilter.PRIORITY)
+public class ConcurrencyLimitFilter extends AbstractBase implements ContainerRequestFilter, ContainerResponseFilter {
+    /**
+     * Runs before authentication.
+     */
+    public static final int PRIORITY = Priorities.AUTHENTICATION - 100;
+
+    /**
+     * Default Retry-After, in seconds.
+     */
+    public static final int DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * Request property holding an admitted request's {@link Permit}.
+     */
+    static final String PERMIT_PROPERTY = ConcurrencyLimitFilter.class.getName() + ".permit";
+
+    /**
+     * An admitted request's slot - released at most once.
+     */
+    static final class Permit implements Closeable {
+        final AdaptiveConcurrencyLimiter limiter;
+        final long start;
+        final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(final AdaptiveConcurrencyLimiter limiter, final long start) {
+            this.limiter = limiter;
+            this.start = start;
+        }
+
+        /**
+         * Release with a latency sample.
+         */
+        void release(final long now) {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(now - start);
+            }
+        }
+
+        /**
+         * Release as dropped because the service is overloaded.
+         */
+        void drop() {
+            if (released.compareAndSet(false, true)) {
+                limiter.releaseDropped();
+            }
+        }
+
+        /**
+         * Release without a latency sample.
+         */
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+    }
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private volatile int retryAfterSeconds;
+
+    /**
+     * Return true if <code>status</code> shows the service is overloaded.
+     */
+    static boolean isOverloaded(final int status) {
+        switch (status) {
+            case 429:
+            case 502:
+            case 503:
+            case 504:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The servlet request - a proxy to the current one.
+     */
+    private HttpServletRequest servletRequest;
+
+    /**
+     * Limit using <code>limiter</code>.
+     *
+     * @param limiter the limiter to use.
+     */
+    public ConcurrencyLimitFilter(final AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = Objects.requireNonNull(limiter, "Cannot have a null limiter!");
+        this.retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+    }
+
+    /**
+     * Limit using a default {@link AdaptiveConcurrencyLimiter}.
+     */
+    public ConcurrencyLimitFilter() {
+        this(new AdaptiveConcurrencyLimiter());
+    }
+
+    /**
+     * Return the limiter used.
+     */
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Set the servlet request, used to release requests that never reach the
+     * response filter.
+     *
+     * @param servletRequest the servlet request.
+     */
+    @Context
+    public void setServletRequest(final HttpServletRequest servletRequest) {
+        this.servletRequest = servletRequest;
+    }
+
+    /**
+     * Return the Retry-After, in seconds, sent with rejections.
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Set the Retry-After, in seconds, sent with rejections.
+     *
+     * @param retryAfterSeconds seconds a client should wait - must not be negative.
+     */
+    public void setRetryAfterSeconds(final int retryAfterSeconds) {
+        if (retryAfterSeconds < 0) {
+            throw new IllegalArgumentException("Retry after cannot be negative: " + retryAfterSeconds);
+        }
+
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) {
+        if (!limiter.tryAcquire()) {
+            logIfDebug("Concurrency limit [", limiter.getLimit(), "] reached - rejecting request");
+
+            final int retryAfter = retryAfterSeconds;
+
+            requestContext.abortWith(ResponseBuilder.SERVICE_UNAVAILABLE.buildResponse(builder -> builder.header(HttpHeaders.RETRY_AFTER, retryAfter)));
+
+            return;
+        }
+
+        final Permit permit = new Permit(limiter, System.nanoTime());
+
+        requestContext.setProperty(PERMIT_PROPERTY, permit);
+
+        if (null != servletRequest) {
+            RequestWrapperCleanupListener.register(servletRequest, permit);
+        }
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) {
+        final Object permit = requestContext.getProperty(PERMIT_PROPERTY);
+
+        if (!(permit instanceof Permit)) {
+            return;
+        }
+
+        requestContext.removeProperty(PERMIT_PROPERTY);
+
+        final int status = responseContext.getStatus();
+
+        if (isOverloaded(status)) {
+            ((Permit) permit).drop();
+        } else if (status >= 500) {
+            // Failed fast - says nothing useful about latency...
+            ((Permit) permit).close();
+        } else {
+            ((Permit) permit).release(System.nanoTime());
+        }
+    }
+}
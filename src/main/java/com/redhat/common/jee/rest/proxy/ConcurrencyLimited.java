@@ -0,0 +1,19 @@
+package com.redhat.common.jee.rest.proxy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.ws.rs.NameBinding;
+
+/**
+ * Marks resources, or resource methods, whose requests are limited by
+ * {@link ConcurrencyLimitFilter}.
+ *
+ * @author sfloess
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface ConcurrencyLimited {
+}
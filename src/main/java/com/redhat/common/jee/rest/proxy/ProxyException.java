@@ -0,0 +1,47 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.jee.rest.utils.ResponseBuilder;
+import java.util.Objects;
+
+/**
+ * Raised when a proxy cannot call its service. Carries the response the
+ * client should receive - {@link ResponseBuilder#BAD_GATEWAY} unless stated.
+ *
+ * @author sfloess
+ */
+public class ProxyException extends RuntimeException {
+    private final ResponseBuilder responseBuilder;
+
+    public ProxyException() {
+        this(ResponseBuilder.BAD_GATEWAY, null, null);
+    }
+
+    public ProxyException(final String message) {
+        this(ResponseBuilder.BAD_GATEWAY, message, null);
+    }
+
+    public ProxyException(final String message, final Throwable cause) {
+        this(ResponseBuilder.BAD_GATEWAY, message, cause);
+    }
+
+    public ProxyException(final Throwable cause) {
+        this(ResponseBuilder.BAD_GATEWAY, null == cause ? null : cause.toString(), cause);
+    }
+
+    public ProxyException(final ResponseBuilder responseBuilder, final String message) {
+        this(responseBuilder, message, null);
+    }
+
+    public ProxyException(final ResponseBuilder responseBuilder, final String message, final Throwable cause) {
+        super(message, cause);
+
+        this.responseBuilder = Objects.requireNonNull(responseBuilder, "Cannot have a null response builder!");
+    }
+
+    /**
+     * Return the response the client should receive.
+     */
+    public ResponseBuilder getResponseBuilder() {
+        return responseBuilder;
+    }
+}
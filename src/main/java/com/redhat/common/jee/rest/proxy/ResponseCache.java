@@ -0,0 +1,388 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.AbstractBase;
+import com.redhat.common.jee.servlet.utils.QueryParams;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Size bounded, time limited cache of serialized service results. Entries
+ * expire a fixed time after they are stored and, when full, the least recently
+ * used entry is evicted. Keys are spread across segments, each an access
+ * ordered map with its own lock and an equal share of the capacity, so
+ * concurrent lookups of different keys rarely contend.
+ *
+ * Loading happens outside any lock - concurrent misses for the same key may
+ * each call the loader, the last result stored wins, unless they load through
+ * a {@link SingleFlight}.
+ *
+ * @author sfloess
+ */
+public class ResponseCache extends AbstractBase {
+    /**
+     * Default maximum number of entries.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * Default time to live, in seconds.
+     */
+    public static final long DEFAULT_TTL_SECONDS = 60;
+
+    /**
+     * Maximum number of segments.
+     */
+    static final int MAX_SEGMENTS = 16;
+
+    /**
+     * A cached response and when it expires.
+     */
+    static final class Expiring {
+        final CachedResponse response;
+        final long expires;
+
+        Expiring(final CachedResponse response, final long expires) {
+            this.response = response;
+            this.expires = expires;
+        }
+
+        boolean isExpired(final long now) {
+            return now - expires >= 0;
+        }
+    }
+
+    /**
+     * Access ordered map that drops its eldest entry once above capacity.
+     */
+    final class Segment extends LinkedHashMap<String, Expiring> {
+        final int capacity;
+
+        Segment(final int capacity) {
+            super(16, 0.75f, true);
+
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Expiring> eldest) {
+            if (size() <= capacity) {
+                return false;
+            }
+
+            evictions.increment();
+
+            return true;
+        }
+    }
+
+    /**
+     * Compute a cache key from a path and query params: the path and, if
+     * there are params, <code>?</code> and their canonical key. Param names
+     * are sorted, values keep their order, so the same request always
+     * produces the same key regardless of how its params were ordered. The
+     * canonical key of a {@link QueryParams} is computed once per request.
+     *
+     * @param path        the request path - may be null.
+     * @param queryParams the query params - may be null.
+     *
+     * @return the cache key.
+     *
+     * @see QueryParams#toCanonicalKey(Map)
+     */
+    public static String toKey(final String path, final Map<String, String[]> queryParams) {
+        final String canonicalKey = QueryParams.toCanonicalKey(queryParams);
+        final String escapedPath = null == path ? "" : path.replace("%", "%25").replace("?", "%3F");
+
+        return canonicalKey.isEmpty() ? escapedPath : escapedPath + '?' + canonicalKey;
+    }
+
+    /**
+     * Compute a cache key private to <code>principal</code>: the principal
+     * name, <code>@</code> and the key of <code>path</code> and
+     * <code>queryParams</code>. Anonymous keys start with <code>@</code>.
+     *
+     * @param principal   the user principal name - null if anonymous.
+     * @param path        the request path - may be null.
+     * @param queryParams the query params - may be null.
+     *
+     * @return the cache key.
+     *
+     * @see #toKey(String, Map)
+     */
+    public static String toKey(final String principal, final String path, final Map<String, String[]> queryParams) {
+        final String escapedPrincipal = null == principal ? "" : principal.replace("%", "%25").replace("@", "%40");
+
+        return escapedPrincipal + '@' + toKey(path, queryParams);
+    }
+
+    private final int maxEntries;
+
+    private final long ttlNanos;
+
+    private final Segment[] segments;
+
+    private final LongAdder hits;
+
+    private final LongAdder misses;
+
+    private final LongAdder evictions;
+
+    /**
+     * Hold at most <code>maxEntries</code>, each for <code>ttl</code>.
+     *
+     * @param maxEntries the maximum number of entries - must be positive.
+     * @param ttl        how long an entry is kept - must be positive.
+     * @param unit       the unit of <code>ttl</code>.
+     */
+    public ResponseCache(final int maxEntries, final long ttl, final TimeUnit unit) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max entries must be positive: " + maxEntries);
+        }
+
+        if (ttl < 1) {
+            throw new IllegalArgumentException("TTL must be positive: " + ttl);
+        }
+
+        this.maxEntries = maxEntries;
+        this.ttlNanos = Objects.requireNonNull(unit, "Cannot have a null time unit!").toNanos(ttl);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+
+        int segmentCount = 1;
+
+        while (segmentCount < MAX_SEGMENTS && segmentCount << 1 <= maxEntries) {
+            segmentCount <<= 1;
+        }
+
+        this.segments = new Segment[segmentCount];
+
+        for (int index = 0; index < segmentCount; index++) {
+            segments[index] = new Segment(maxEntries / segmentCount + (index < maxEntries % segmentCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Hold at most {@link #DEFAULT_MAX_ENTRIES}, each for {@link #DEFAULT_TTL_SECONDS} seconds.
+     */
+    public ResponseCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Return the segment holding <code>key</code>.
+     */
+    Segment getSegment(final String key) {
+        final int hash = key.hashCode();
+
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * Return the unexpired response for <code>key</code> or null.
+     *
+     * @param key the cache key.
+     *
+     * @return the response or null.
+     */
+    public CachedResponse getIfPresent(final String key) {
+        Objects.requireNonNull(key, "Cannot have a null key!");
+
+        final Segment segment = getSegment(key);
+        final long now = System.nanoTime();
+
+        synchronized (segment) {
+            final Expiring entry = segment.get(key);
+
+            if (null == entry) {
+                return null;
+            }
+
+            if (entry.isExpired(now)) {
+                segment.remove(key);
+
+                return null;
+            }
+
+            return entry.response;
+        }
+    }
+
+    /**
+     * Store <code>response</code> for <code>key</code>.
+     *
+     * @param key      the cache key.
+     * @param response the response to store.
+     */
+    public void put(final String key, final CachedResponse response) {
+        Objects.requireNonNull(key, "Cannot have a null key!");
+        Objects.requireNonNull(response, "Cannot have a null response!");
+
+        final Segment segment = getSegment(key);
+        final Expiring entry = new Expiring(response, System.nanoTime() + ttlNanos);
+
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    /**
+     * Return the response for <code>key</code>, calling <code>loader</code>
+     * and storing its result if there is none. Null results are not stored.
+     *
+     * @param key    the cache key.
+     * @param loader computes the response on a miss.
+     *
+     * @return the response, or null if <code>loader</code> returned null.
+     */
+    public CachedResponse get(final String key, final Supplier<CachedResponse> loader) {
+        return get(key, null, loader);
+    }
+
+    /**
+     * Return the response for <code>key</code>, calling <code>loader</code>
+     * and storing its result if there is none. Concurrent misses share one
+     * call through <code>flight</code>: the result is stored before the call
+     * completes, and a call starting afterwards finds it stored rather than
+     * calling <code>loader</code> again. Null results are not stored.
+     *
+     * @param key    the cache key.
+     * @param flight shares concurrent loads - null to load independently.
+     * @param loader computes the response on a miss.
+     *
+     * @return the response, or null if <code>loader</code> returned null.
+     *
+     * @throws ProxyException if waiting for a shared load timed out or was interrupted.
+     */
+    public CachedResponse get(final String key, final SingleFlight<String, CachedResponse> flight, final Supplier<CachedResponse> loader) {
+        Objects.requireNonNull(loader, "Cannot have a null loader!");
+
+        final CachedResponse cached = getIfPresent(key);
+
+        if (null != cached) {
+            hits.increment();
+
+            return cached;
+        }
+
+        misses.increment();
+
+        if (null == flight) {
+            return load(key, loader);
+        }
+
+        return flight.execute(key, () -> {
+            // Stored by a shared load that finished after our lookup...
+            final CachedResponse stored = getIfPresent(key);
+
+            return null == stored ? load(key, loader) : stored;
+        });
+    }
+
+    /**
+     * Call <code>loader</code>, storing a non null result for <code>key</code>.
+     */
+    CachedResponse load(final String key, final Supplier<CachedResponse> loader) {
+        final CachedResponse retVal = loader.get();
+
+        if (null != retVal) {
+            put(key, retVal);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Remove <code>key</code>.
+     *
+     * @param key the cache key.
+     */
+    public void invalidate(final String key) {
+        Objects.requireNonNull(key, "Cannot have a null key!");
+
+        final Segment segment = getSegment(key);
+
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void invalidateAll() {
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Return the number of entries, including any expired but not yet removed.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        int retVal = 0;
+
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                retVal += segment.size();
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return the maximum number of entries.
+     *
+     * @return the maximum number of entries.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Return how long an entry is kept.
+     *
+     * @param unit the unit of the returned value.
+     *
+     * @return how long an entry is kept.
+     */
+    public long getTtl(final TimeUnit unit) {
+        return Objects.requireNonNull(unit, "Cannot have a null time unit!").convert(ttlNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Return the number of lookups answered from the cache.
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Return the number of lookups not answered from the cache.
+     *
+     * @return the number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Return the number of entries evicted to stay within size.
+     *
+     * @return the number of evictions.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,309 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.AbstractBase;
+import com.redhat.common.jee.rest.utils.ResponseBuilder;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key. The first caller for a key
+ * (the leader) performs the call in its own thread; callers arriving while it
+ * is in flight share its future rather than calling again. Waiting is bounded
+ * - a caller not answered within {@link #getMaxWait(TimeUnit)} receives a
+ * {@link ProxyException} answering {@link ResponseBuilder#SERVICE_UNAVAILABLE}.
+ *
+ * Calls are not reentrant: a call that requests its own key waits on itself
+ * until the wait times out.
+ *
+ * @param <K> the type of key.
+ * @param <V> the type of result.
+ *
+ * @author sfloess
+ */
+public class SingleFlight<K, V> extends AbstractBase {
+    /**
+     * Default maximum time to wait for a shared call, in seconds.
+     */
+    public static final long DEFAULT_MAX_WAIT_SECONDS = 30;
+
+    /**
+     * Default maximum number of keys with their own stats.
+     */
+    public static final int DEFAULT_MAX_KEYS = 1024;
+
+    /**
+     * Counts for one key, or for all keys.
+     */
+    public static final class Stats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder shared = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        /**
+         * Return the number of calls performed.
+         */
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        /**
+         * Return the number of callers that shared an in-flight call.
+         */
+        public long getShared() {
+            return shared.sum();
+        }
+
+        /**
+         * Return the number of calls that failed.
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * Return the number of callers that gave up waiting.
+         */
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "calls=" + getCalls() + ", shared=" + getShared() + ", failures=" + getFailures() + ", timeouts=" + getTimeouts();
+        }
+    }
+
+    private final long maxWaitNanos;
+
+    private final int maxKeys;
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight;
+
+    private final ConcurrentHashMap<K, Stats> keyStats;
+
+    /**
+     * Stats of keys seen once {@link #getMaxKeys()} keys are tracked.
+     */
+    private final Stats overflowStats;
+
+    private final Stats totalStats;
+
+    /**
+     * Wait at most <code>maxWait</code> for a shared call, and keep stats for
+     * at most <code>maxKeys</code> keys.
+     *
+     * @param maxWait how long to wait for a shared call - must be positive.
+     * @param unit    the unit of <code>maxWait</code>.
+     * @param maxKeys maximum number of keys with their own stats - must be positive.
+     */
+    public SingleFlight(final long maxWait, final TimeUnit unit, final int maxKeys) {
+        if (maxWait < 1) {
+            throw new IllegalArgumentException("Max wait must be positive: " + maxWait);
+        }
+
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("Max keys must be positive: " + maxKeys);
+        }
+
+        this.maxWaitNanos = Objects.requireNonNull(unit, "Cannot have a null time unit!").toNanos(maxWait);
+        this.maxKeys = maxKeys;
+        this.inFlight = new ConcurrentHashMap<>();
+        this.keyStats = new ConcurrentHashMap<>();
+        this.overflowStats = new Stats();
+        this.totalStats = new Stats();
+    }
+
+    /**
+     * Wait at most {@link #DEFAULT_MAX_WAIT_SECONDS} seconds and keep stats
+     * for at most {@link #DEFAULT_MAX_KEYS} keys.
+     */
+    public SingleFlight() {
+        this(DEFAULT_MAX_WAIT_SECONDS, TimeUnit.SECONDS, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Return the stats for <code>key</code>, creating them if possible.
+     */
+    Stats statsFor(final K key) {
+        final Stats retVal = keyStats.get(key);
+
+        if (null != retVal) {
+            return retVal;
+        }
+
+        return keyStats.size() >= maxKeys ? overflowStats : keyStats.computeIfAbsent(key, k -> new Stats());
+    }
+
+    /**
+     * Perform <code>call</code> as the leader for <code>key</code>.
+     */
+    V lead(final K key, final CompletableFuture<V> future, final Supplier<V> call, final Stats stats) {
+        stats.calls.increment();
+        totalStats.calls.increment();
+
+        try {
+            final V retVal = call.get();
+
+            future.complete(retVal);
+
+            return retVal;
+        } catch (final RuntimeException | Error throwable) {
+            stats.failures.increment();
+            totalStats.failures.increment();
+
+            future.completeExceptionally(throwable);
+
+            throw throwable;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Wait, bounded, for a call another thread is performing.
+     */
+    V await(final K key, final CompletableFuture<V> future, final Stats stats) {
+        stats.shared.increment();
+        totalStats.shared.increment();
+
+        try {
+            return future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (final TimeoutException timeoutException) {
+            stats.timeouts.increment();
+            totalStats.timeouts.increment();
+
+            logWarning("Timed out waiting for shared call [", key, "]");
+
+            throw new ProxyException(ResponseBuilder.SERVICE_UNAVAILABLE, "Timed out waiting for shared call:  " + key, timeoutException);
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+
+            throw new ProxyException(ResponseBuilder.SERVICE_UNAVAILABLE, "Interrupted waiting for shared call:  " + key, interruptedException);
+        } catch (final ExecutionException executionException) {
+            final Throwable cause = executionException.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new ProxyException("Shared call failed:  " + key, cause);
+        }
+    }
+
+    /**
+     * Return the result of <code>call</code> for <code>key</code>, sharing
+     * the result of a call already in flight for <code>key</code>.
+     *
+     * @param key  identifies the call.
+     * @param call performs the call.
+     *
+     * @return the result.
+     *
+     * @throws ProxyException if waiting for a shared call timed out or was interrupted.
+     */
+    public V execute(final K key, final Supplier<V> call) {
+        Objects.requireNonNull(key, "Cannot have a null key!");
+        Objects.requireNonNull(call, "Cannot have a null call!");
+
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        final Stats stats = statsFor(key);
+
+        return null == existing ? lead(key, future, call, stats) : await(key, existing, stats);
+    }
+
+    /**
+     * Return a future for the result of <code>call</code> for <code>key</code>.
+     * If no call is in flight for <code>key</code> it is performed now, in
+     * this thread, and the returned future is complete; otherwise the in-flight
+     * call's future is returned.
+     *
+     * @param key  identifies the call.
+     * @param call performs the call.
+     *
+     * @return the result's future.
+     */
+    public CompletableFuture<V> submit(final K key, final Supplier<V> call) {
+        Objects.requireNonNull(key, "Cannot have a null key!");
+        Objects.requireNonNull(call, "Cannot have a null call!");
+
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        final Stats stats = statsFor(key);
+
+        if (null != existing) {
+            stats.shared.increment();
+            totalStats.shared.increment();
+
+            return existing;
+        }
+
+        try {
+            lead(key, future, call, stats);
+        } catch (final RuntimeException | Error throwable) {
+            // Already recorded in the future...
+        }
+
+        return future;
+    }
+
+    /**
+     * Return the number of calls in flight.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Return the stats for <code>key</code>, or null if it has none of its own.
+     */
+    public Stats getStats(final K key) {
+        return keyStats.get(Objects.requireNonNull(key, "Cannot have a null key!"));
+    }
+
+    /**
+     * Return the stats of keys seen once the maximum number of keys was tracked.
+     */
+    public Stats getOverflowStats() {
+        return overflowStats;
+    }
+
+    /**
+     * Return the stats across all keys.
+     */
+    public Stats getTotalStats() {
+        return totalStats;
+    }
+
+    /**
+     * Forget per-key stats.
+     */
+    public void resetStats() {
+        keyStats.clear();
+    }
+
+    /**
+     * Return the maximum time to wait for a shared call.
+     */
+    public long getMaxWait(final TimeUnit unit) {
+        return Objects.requireNonNull(unit, "Cannot have a null time unit!").convert(maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Return the maximum number of keys with their own stats.
+     */
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+}
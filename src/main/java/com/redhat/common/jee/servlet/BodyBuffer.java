@@ -0,0 +1,142 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * A growable byte buffer for request bodies. The bytes written are read back
+ * through views over the same array - nothing is copied after capture.
+ *
+ * @author sfloess
+ */
+class BodyBuffer extends ByteArrayOutputStream implements CapturedBody {
+    /**
+     * Initial capacity when the content length is unknown.
+     */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Largest initial capacity taken from a declared content length, so a
+     * bogus header cannot force a huge allocation up front.
+     */
+    static final int MAX_INITIAL_CAPACITY = 1024 * 1024;
+
+    /**
+     * Size of the chunks read from a stream.
+     */
+    static final int READ_CHUNK_SIZE = 8192;
+
+    /**
+     * Return an initial capacity suited to a declared content length.
+     */
+    static int toInitialCapacity(final long contentLength) {
+        return contentLength > 0 ? (int) Math.min(contentLength, MAX_INITIAL_CAPACITY) : DEFAULT_CAPACITY;
+    }
+
+    /**
+     * Create a buffer sized for <code>contentLength</code> bytes, or the
+     * default if unknown (negative).
+     */
+    BodyBuffer(final long contentLength) {
+        super(toInitialCapacity(contentLength));
+    }
+
+    /**
+     * Read <code>inputStream</code> into this buffer, writing straight into the
+     * backing array, until its end or until more than <code>limit</code> bytes
+     * are held. Returns true if the end was reached. Reads are sized so the
+     * array never grows beyond one byte more than <code>limit</code>.
+     */
+    boolean readFrom(final InputStream inputStream, final long limit) throws IOException {
+        final int maxCapacity = toMaxCapacity(limit);
+
+        while (count < maxCapacity) {
+            if (count == buf.length) {
+                ensureCapacity(Math.min(count + READ_CHUNK_SIZE, maxCapacity), maxCapacity);
+            }
+
+            final int read = inputStream.read(buf, count, Math.min(buf.length, maxCapacity) - count);
+
+            if (read < 0) {
+                return true;
+            }
+
+            count += read;
+        }
+
+        return false;
+    }
+
+    /**
+     * Write the bytes held to <code>channel</code>.
+     */
+    void writeTo(final WritableByteChannel channel) throws IOException {
+        final ByteBuffer wrapped = ByteBuffer.wrap(buf, 0, count);
+
+        while (wrapped.hasRemaining()) {
+            channel.write(wrapped);
+        }
+    }
+
+    /**
+     * Return the largest array needed to tell a body of <code>limit</code>
+     * bytes from a larger one.
+     */
+    static int toMaxCapacity(final long limit) {
+        return limit < Integer.MAX_VALUE - 8 ? (int) limit + 1 : Integer.MAX_VALUE - 8;
+    }
+
+    /**
+     * Grow the backing array to hold at least <code>capacity</code> bytes,
+     * but no more than <code>maxCapacity</code> unless <code>capacity</code>
+     * itself is larger.
+     */
+    void ensureCapacity(final int capacity, final int maxCapacity) {
+        if (capacity > buf.length) {
+            final byte[] grown = new byte[Math.max(capacity, Math.min(buf.length << 1, maxCapacity))];
+
+            System.arraycopy(buf, 0, grown, 0, count);
+
+            buf = grown;
+        }
+    }
+
+    /**
+     * Return the size of the backing array.
+     */
+    int capacity() {
+        return buf.length;
+    }
+
+    @Override
+    public long length() {
+        return count;
+    }
+
+    /**
+     * Return a new stream over the bytes captured - shares our array.
+     */
+    @Override
+    public InputStream newInputStream() {
+        return new ByteArrayInputStream(buf, 0, count);
+    }
+
+    @Override
+    public String decode(final Charset charset) {
+        return new String(buf, 0, count, charset);
+    }
+
+    @Override
+    public boolean isSpilled() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+}
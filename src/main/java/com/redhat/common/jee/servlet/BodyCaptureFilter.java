@@ -0,0 +1,238 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Wraps selected requests in a {@link LazyRequestWrapper}, so their bodies are
+ * captured as they are read and can be replayed. Requests are selected by
+ * method and content type, and bodies declared larger than the maximum size
+ * are left alone. Configure with init parameters or setters:
+ *
+ * <ul>
+ * <li><code>methods</code> - comma separated, default POST, PUT and PATCH.</li>
+ * <li><code>contentTypes</code> - comma separated media types such as
+ * <code>application/json</code> or <code>text/*</code>, default any.</li>
+ * <li><code>maxSize</code> - largest body captured in bytes, default 1 MB.</li>
+ * </ul>
+ *
+ * @author sfloess
+ */
+public class BodyCaptureFilter implements Filter {
+    /**
+     * Init parameter naming the methods whose bodies are captured.
+     */
+    public static final String METHODS_PARAM = "methods";
+
+    /**
+     * Init parameter naming the content types whose bodies are captured.
+     */
+    public static final String CONTENT_TYPES_PARAM = "contentTypes";
+
+    /**
+     * Init parameter giving the largest body captured in bytes.
+     */
+    public static final String MAX_SIZE_PARAM = "maxSize";
+
+    /**
+     * Methods captured by default.
+     */
+    public static final Set<String> DEFAULT_METHODS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList("POST", "PUT", "PATCH")));
+
+    /**
+     * Largest body captured by default.
+     */
+    public static final long DEFAULT_MAX_SIZE = 1024 * 1024;
+
+    private volatile Set<String> methods = DEFAULT_METHODS;
+
+    /**
+     * Lower case media types - those ending in "/*" match a prefix. Empty matches any.
+     */
+    private volatile Set<String> contentTypes = Collections.emptySet();
+
+    private volatile long maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * Split a comma separated list, converting each value and skipping blanks.
+     */
+    static Set<String> toSet(final String[] values, final boolean upperCase) {
+        final Set<String> retVal = new LinkedHashSet<>();
+
+        if (null != values) {
+            for (final String value : values) {
+                for (final String part : null == value ? new String[0] : value.split(",")) {
+                    final String trimmed = part.trim();
+
+                    if (!trimmed.isEmpty()) {
+                        retVal.add(upperCase ? trimmed.toUpperCase(Locale.ROOT) : trimmed.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+
+        return Collections.unmodifiableSet(retVal);
+    }
+
+    /**
+     * Return the media type of <code>contentType</code>, lower case and without parameters.
+     */
+    static String toMediaType(final String contentType) {
+        final int semicolon = contentType.indexOf(';');
+
+        return (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Return the methods whose bodies are captured.
+     */
+    public Set<String> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Set the methods whose bodies are captured.
+     */
+    public void setMethods(final String... methods) {
+        this.methods = toSet(methods, true);
+    }
+
+    /**
+     * Return the content types whose bodies are captured - empty for any.
+     */
+    public Set<String> getContentTypes() {
+        return contentTypes;
+    }
+
+    /**
+     * Set the content types whose bodies are captured - none for any.
+     */
+    public void setContentTypes(final String... contentTypes) {
+        this.contentTypes = toSet(contentTypes, false);
+    }
+
+    /**
+     * Return the largest body captured in bytes.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Set the largest body captured in bytes.
+     */
+    public void setMaxSize(final long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size cannot be negative: " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Return true if <code>contentType</code> is one we capture.
+     */
+    boolean isCapturedContentType(final String contentType) {
+        final Set<String> currentContentTypes = contentTypes;
+
+        if (currentContentTypes.isEmpty()) {
+            return true;
+        }
+
+        if (null == contentType) {
+            return false;
+        }
+
+        final String mediaType = toMediaType(contentType);
+
+        for (final String candidate : currentContentTypes) {
+            if ("*/*".equals(candidate) || candidate.equals(mediaType) || (candidate.endsWith("/*") && mediaType.startsWith(candidate.substring(0, candidate.length() - 1)))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return true if the body of <code>request</code> should be captured.
+     */
+    public boolean shouldCapture(final HttpServletRequest request) {
+        return null != request.getMethod()
+                && methods.contains(request.getMethod().toUpperCase(Locale.ROOT))
+                && request.getContentLengthLong() <= maxSize
+                && isCapturedContentType(request.getContentType());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+        final String methodsParam = filterConfig.getInitParameter(METHODS_PARAM);
+        final String contentTypesParam = filterConfig.getInitParameter(CONTENT_TYPES_PARAM);
+        final String maxSizeParam = filterConfig.getInitParameter(MAX_SIZE_PARAM);
+
+        if (null != methodsParam) {
+            setMethods(methodsParam);
+        }
+
+        if (null != contentTypesParam) {
+            setContentTypes(contentTypesParam);
+        }
+
+        if (null != maxSizeParam) {
+            try {
+                setMaxSize(Long.parseLong(maxSizeParam.trim()));
+            } catch (final IllegalArgumentException illegalArgumentException) {
+                throw new ServletException("Invalid " + MAX_SIZE_PARAM + " [" + maxSizeParam + "]", illegalArgumentException);
+            }
+        }
+    }
+
+    /**
+     * Wrap selected requests - closing the wrapper once the chain completes,
+     * or when the request completes if it went async.
+     */
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !shouldCapture((HttpServletRequest) request)) {
+            chain.doFilter(request, response);
+
+            return;
+        }
+
+        final LazyRequestWrapper requestWrapper = new LazyRequestWrapper((HttpServletRequest) request, maxSize);
+        boolean async = false;
+
+        try {
+            chain.doFilter(requestWrapper, response);
+
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                RequestWrapperCleanupListener.register(request, requestWrapper);
+            } else {
+                requestWrapper.close();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+    }
+}
@@ -0,0 +1,86 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Collects a request body as it arrives in chunks - in memory up to a
+ * threshold, then in a temporary file.
+ *
+ * @author sfloess
+ */
+final class BodyCollector {
+    private final long memoryThreshold;
+
+    private final Path spillDirectory;
+
+    private final BodyBuffer bodyBuffer;
+
+    private Path path;
+
+    private FileChannel channel;
+
+    BodyCollector(final long contentLength, final long memoryThreshold, final Path spillDirectory) {
+        this.memoryThreshold = memoryThreshold;
+        this.spillDirectory = spillDirectory;
+        this.bodyBuffer = new BodyBuffer(contentLength > memoryThreshold ? 0 : contentLength);
+    }
+
+    /**
+     * Add <code>length</code> bytes from <code>bytes</code>.
+     */
+    void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (null == channel && bodyBuffer.size() + (long) length > memoryThreshold) {
+            path = SpilledBody.createTempFile(spillDirectory);
+            channel = SpilledBody.open(path);
+
+            bodyBuffer.writeTo(channel);
+            bodyBuffer.reset();
+        }
+
+        if (null == channel) {
+            bodyBuffer.ensureCapacity(bodyBuffer.size() + length, BodyBuffer.toMaxCapacity(memoryThreshold));
+            bodyBuffer.write(bytes, offset, length);
+        } else {
+            SpilledBody.write(channel, ByteBuffer.wrap(bytes, offset, length));
+        }
+    }
+
+    /**
+     * Return the body collected.
+     */
+    CapturedBody finish() throws IOException {
+        if (null == channel) {
+            return bodyBuffer;
+        }
+
+        try {
+            return SpilledBody.map(path, channel);
+        } catch (final IOException | RuntimeException exception) {
+            abort();
+
+            throw exception;
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Discard anything collected.
+     */
+    void abort() {
+        bodyBuffer.reset();
+
+        if (null != channel) {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (final IOException ioException) {
+                path.toFile().deleteOnExit();
+            }
+        }
+    }
+}
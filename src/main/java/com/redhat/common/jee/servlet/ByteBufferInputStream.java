@@ -0,0 +1,79 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream over a byte buffer - reads do not copy the buffer.
+ *
+ * @author sfloess
+ */
+final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private int mark;
+
+    /**
+     * Read the remaining bytes of <code>buffer</code> - which must not be
+     * shared with other readers.
+     */
+    ByteBufferInputStream(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.mark = buffer.position();
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) {
+        if (offset < 0 || length < 0 || length > bytes.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (0 == length) {
+            return 0;
+        }
+
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        final int retVal = Math.min(length, buffer.remaining());
+
+        buffer.get(bytes, offset, retVal);
+
+        return retVal;
+    }
+
+    @Override
+    public long skip(final long count) {
+        final int retVal = (int) Math.max(0, Math.min(count, buffer.remaining()));
+
+        buffer.position(buffer.position() + retVal);
+
+        return retVal;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(final int readLimit) {
+        mark = buffer.position();
+    }
+
+    @Override
+    public synchronized void reset() {
+        buffer.position(mark);
+    }
+}
@@ -0,0 +1,40 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * A request body captured for replay.
+ *
+ * @author sfloess
+ */
+interface CapturedBody extends Closeable {
+    /**
+     * Return the number of bytes captured.
+     */
+    long length();
+
+    /**
+     * Return a new stream over the bytes captured.
+     */
+    InputStream newInputStream();
+
+    /**
+     * Decode the bytes captured using <code>charset</code> - always onto the
+     * heap, even for a spilled body.
+     */
+    String decode(Charset charset);
+
+    /**
+     * Return true if the bytes are held outside the heap.
+     */
+    boolean isSpilled();
+
+    /**
+     * Release any resources held - by default nothing.
+     */
+    @Override
+    default void close() {
+    }
+}
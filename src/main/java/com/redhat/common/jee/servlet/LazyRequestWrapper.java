@@ -0,0 +1,275 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * A request wrapper that captures the body lazily: nothing is read until
+ * someone reads the body, and the bytes they read are copied into a replay
+ * buffer as they go. Once the body has been read to its end - the declared
+ * content length has been read, or the container reports the stream finished
+ * - later calls to {@link #getInputStream()} and {@link #getReader()} replay
+ * it, and {@link #getBody()} returns it. Bodies larger than the maximum size
+ * are passed through but not kept.
+ *
+ * Reads may happen on different container threads, as with async reads: the
+ * capture state is changed while holding this wrapper's lock.
+ *
+ * Usually created by {@link BodyCaptureFilter} - use {@link #find(ServletRequest)}
+ * to get back to it from a request further down the chain.
+ *
+ * @author sfloess
+ */
+public class LazyRequestWrapper extends HttpServletRequestWrapper implements Closeable {
+    private final long maxSize;
+
+    private final long memoryThreshold;
+
+    private final Path spillDirectory;
+
+    private final long contentLength;
+
+    /**
+     * Guarded by this.
+     */
+    private BodyCollector collector;
+
+    /**
+     * Guarded by this.
+     */
+    private long collected;
+
+    /**
+     * Guarded by this.
+     */
+    private TeeServletInputStream teeInputStream;
+
+    private volatile CapturedBody capturedBody;
+
+    private volatile boolean overflowed;
+
+    private volatile String body;
+
+    /**
+     * Holds single bytes read - guarded by this.
+     */
+    private final byte[] singleByte = new byte[1];
+
+    /**
+     * Return the lazy wrapper around <code>request</code>, searching through
+     * any other wrappers, or null if there is none.
+     */
+    public static LazyRequestWrapper find(final ServletRequest request) {
+        for (ServletRequest current = request; null != current;) {
+            if (current instanceof LazyRequestWrapper) {
+                return (LazyRequestWrapper) current;
+            }
+
+            current = current instanceof ServletRequestWrapper ? ((ServletRequestWrapper) current).getRequest() : null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Capture up to <code>maxSize</code> bytes of the body of
+     * <code>request</code> as it is read, spilling to <code>spillDirectory</code>
+     * (the default temporary directory if null) beyond <code>memoryThreshold</code>.
+     */
+    public LazyRequestWrapper(final HttpServletRequest request, final long maxSize, final long memoryThreshold, final Path spillDirectory) {
+        super(request);
+
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size cannot be negative: " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+        this.memoryThreshold = RequestWrapper.checkMemoryThreshold(memoryThreshold);
+        this.spillDirectory = spillDirectory;
+        this.contentLength = request.getContentLengthLong();
+    }
+
+    /**
+     * Capture up to <code>maxSize</code> bytes using the default memory
+     * threshold and temporary directory.
+     */
+    public LazyRequestWrapper(final HttpServletRequest request, final long maxSize) {
+        this(request, maxSize, RequestWrapper.getDefaultMemoryThreshold(), null);
+    }
+
+    /**
+     * Return the collector, created on first use.
+     */
+    BodyCollector getCollector() {
+        if (null == collector) {
+            collector = new BodyCollector(contentLength, memoryThreshold, spillDirectory);
+        }
+
+        return collector;
+    }
+
+    /**
+     * Copy one byte read.
+     */
+    synchronized void collect(final int value) throws IOException {
+        singleByte[0] = (byte) value;
+
+        collect(singleByte, 0, 1);
+    }
+
+    /**
+     * Copy <code>length</code> bytes read, completing the capture once the
+     * declared content length has been read.
+     */
+    synchronized void collect(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (overflowed || null != capturedBody || 0 == length) {
+            return;
+        }
+
+        collected += length;
+
+        if (collected > maxSize) {
+            RequestWrapper.getLogger().debug("Request body exceeds " + maxSize + " bytes - not capturing");
+
+            abandon();
+
+            return;
+        }
+
+        try {
+            getCollector().write(bytes, offset, length);
+        } catch (final IOException ioException) {
+            abandon();
+
+            throw ioException;
+        }
+
+        if (collected == contentLength) {
+            complete();
+        }
+    }
+
+    /**
+     * The body has been read to its end - keep what was collected.
+     */
+    synchronized void complete() throws IOException {
+        if (overflowed || null != capturedBody) {
+            return;
+        }
+
+        capturedBody = getCollector().finish();
+        collector = null;
+
+        if (capturedBody.isSpilled()) {
+            RequestWrapperCleanupListener.register(getRequest(), this);
+        }
+    }
+
+    /**
+     * Stop capturing and discard anything collected.
+     */
+    synchronized void abandon() {
+        overflowed = true;
+
+        if (null != collector) {
+            collector.abort();
+            collector = null;
+        }
+    }
+
+    /**
+     * Return the charset used to decode the body.
+     */
+    public Charset getBodyCharset() {
+        return RequestWrapper.toCharset(getCharacterEncoding());
+    }
+
+    /**
+     * Returns the original stream, copying as it is read, until the body has
+     * been read to its end - then a replay of the captured body.
+     */
+    @Override
+    public synchronized ServletInputStream getInputStream() throws IOException {
+        if (null != capturedBody) {
+            return new ReplayServletInputStream(capturedBody.newInputStream(), callback -> RequestWrapper.dispatch(this, callback));
+        }
+
+        if (null == teeInputStream) {
+            teeInputStream = new TeeServletInputStream(super.getInputStream(), this);
+        }
+
+        return teeInputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(getInputStream(), getBodyCharset()));
+    }
+
+    /**
+     * Returns true once the whole body has been captured.
+     */
+    public boolean isCaptured() {
+        return null != capturedBody;
+    }
+
+    /**
+     * Returns true if the body was too large to capture.
+     */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * Returns the body of the request, reading whatever has not yet been read,
+     * or null if it is larger than the maximum size. The String is decoded
+     * onto the heap and kept even when the body was spilled to disk, so it is
+     * never larger than the maximum size.
+     */
+    public String getBody() throws IOException {
+        if (null != body) {
+            return body;
+        }
+
+        if (null == capturedBody && !overflowed) {
+            final ServletInputStream inputStream = getInputStream();
+            final byte[] chunk = new byte[BodyBuffer.READ_CHUNK_SIZE];
+
+            while (!overflowed && null == capturedBody && inputStream.read(chunk) >= 0) {
+                // Reading copies the bytes.
+            }
+        }
+
+        if (null == capturedBody) {
+            return null;
+        }
+
+        body = capturedBody.decode(getBodyCharset());
+
+        return body;
+    }
+
+    /**
+     * Release the captured body and any temporary file.
+     */
+    @Override
+    public synchronized void close() {
+        if (null != collector) {
+            collector.abort();
+            collector = null;
+        }
+
+        if (null != capturedBody) {
+            capturedBody.close();
+        }
+    }
+}
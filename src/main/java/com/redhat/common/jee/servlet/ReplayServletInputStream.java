@@ -0,0 +1,208 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+/**
+ * A servlet input stream over a captured body. All of the data is already
+ * buffered, so reads never block.
+ *
+ * Once a read listener is set, callbacks are run by the given executor and
+ * follow the ReadListener contract: {@link #isReady()} is true only while
+ * data is unread and the listener is inside onDataAvailable. A listener that
+ * reads some data and returns is called again. One that returns without
+ * reading is resumed when it next calls isReady(), which returns false. Once
+ * everything is read, isReady() returns false and onAllDataRead is called
+ * exactly once.
+ *
+ * @author sfloess
+ */
+final class ReplayServletInputStream extends ServletInputStream {
+    private final InputStream inputStream;
+
+    private final Executor dispatcher;
+
+    private volatile ReadListener readListener;
+
+    /**
+     * The thread inside onDataAvailable, if any.
+     */
+    private volatile Thread callbackThread;
+
+    /**
+     * True while callbacks are dispatched or running - guarded by this.
+     */
+    private boolean notifying;
+
+    /**
+     * True if isReady() was called outside a callback while notifying - guarded by this.
+     */
+    private boolean resumeRequested;
+
+    private final AtomicBoolean allDataRead = new AtomicBoolean();
+
+    /**
+     * Replay <code>inputStream</code> - which must report exactly how many bytes
+     * remain from <code>available()</code>.
+     */
+    ReplayServletInputStream(final InputStream inputStream, final Executor dispatcher) {
+        this.inputStream = inputStream;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Return the number of bytes unread.
+     */
+    int remaining() {
+        try {
+            return inputStream.available();
+        } catch (final IOException ioException) {
+            return 0;
+        }
+    }
+
+    /**
+     * Dispatch {@link #notifyListener(ReadListener)} unless already notifying.
+     */
+    void requestNotify(final ReadListener listener) {
+        synchronized (this) {
+            if (notifying) {
+                resumeRequested = true;
+
+                return;
+            }
+
+            notifying = true;
+        }
+
+        dispatcher.execute(() -> notifyListener(listener));
+    }
+
+    /**
+     * Return true if notifying should stop - unless a resume was requested meanwhile.
+     */
+    synchronized boolean stopNotifying() {
+        if (resumeRequested) {
+            resumeRequested = false;
+
+            return false;
+        }
+
+        notifying = false;
+
+        return true;
+    }
+
+    /**
+     * Tell <code>listener</code> data is available for as long as it keeps
+     * reading, then that all data has been read.
+     */
+    void notifyListener(final ReadListener listener) {
+        try {
+            do {
+                int remaining = remaining();
+
+                while (remaining > 0) {
+                    callbackThread = Thread.currentThread();
+
+                    try {
+                        listener.onDataAvailable();
+                    } finally {
+                        callbackThread = null;
+                    }
+
+                    final int stillRemaining = remaining();
+
+                    if (stillRemaining == remaining) {
+                        break;
+                    }
+
+                    remaining = stillRemaining;
+                }
+
+                if (0 == remaining && allDataRead.compareAndSet(false, true)) {
+                    listener.onAllDataRead();
+                }
+            } while (!stopNotifying());
+        } catch (final Throwable throwable) {
+            // Still notifying - so the listener is not called again.
+            listener.onError(throwable);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        return inputStream.read();
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        return inputStream.read(buffer, offset, length);
+    }
+
+    @Override
+    public long skip(final long count) throws IOException {
+        return inputStream.skip(count);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return inputStream.available();
+    }
+
+    @Override
+    public boolean isFinished() {
+        try {
+            return 0 == inputStream.available();
+        } catch (final IOException ioException) {
+            return true;
+        }
+    }
+
+    /**
+     * Always true without a read listener - reads never block. With one, true
+     * only while data is unread and the listener is inside onDataAvailable.
+     * Otherwise false, and the listener is called again: onDataAvailable if
+     * data is unread, else onAllDataRead if not yet called.
+     */
+    @Override
+    public boolean isReady() {
+        final ReadListener listener = readListener;
+
+        if (null == listener) {
+            return true;
+        }
+
+        final boolean unread = remaining() > 0;
+
+        if (unread && Thread.currentThread() == callbackThread) {
+            return true;
+        }
+
+        if (unread || !allDataRead.get()) {
+            requestNotify(listener);
+        }
+
+        return false;
+    }
+
+    @Override
+    public void setReadListener(final ReadListener readListener) {
+        Objects.requireNonNull(readListener, "Cannot have a null read listener!");
+
+        synchronized (this) {
+            if (null != this.readListener) {
+                throw new IllegalStateException("Read listener already set");
+            }
+
+            this.readListener = readListener;
+        }
+
+        requestNotify(readListener);
+    }
+}
@@ -1,19 +1,20 @@
 package com.redhat.common.jee.servlet;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,73 +24,278 @@ import org.slf4j.LoggerFactory;
  *      String body = requestWrapper.getBody();
  * }
  *
+ * The body's bytes are captured once, exactly as sent, and replayed from the
+ * same buffer. The String form is only decoded when asked for, using the
+ * request's declared character encoding or UTF-8 if there is none.
+ *
+ * Bodies larger than the memory threshold are spilled to a temporary file and
+ * read through a memory mapping. The file is deleted when the wrapper is
+ * closed - done for you by {@link RequestWrapperCleanupListener} when the
+ * request completes.
+ *
+ * The replayed input stream supports Servlet 3.1 non-blocking reads, and
+ * {@link #captureAsync(HttpServletRequest)} captures the body of an async
+ * request without blocking a container thread.
+ *
  * @author randalap
  */
-public class RequestWrapper extends HttpServletRequestWrapper {
+public class RequestWrapper extends HttpServletRequestWrapper implements Closeable {
 
-    private final String body;
+    /**
+     * System property overriding {@link #DEFAULT_MEMORY_THRESHOLD}.
+     */
+    public static final String MEMORY_THRESHOLD_PROPERTY = RequestWrapper.class.getName() + ".memoryThreshold";
+
+    /**
+     * Bodies larger than this many bytes are spilled to disk by default.
+     */
+    public static final long DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    private final CapturedBody capturedBody;
+    private volatile String body;
     private static final Logger logger = LoggerFactory.getLogger(RequestWrapper.class);
 
+    /**
+     * Return the memory threshold used when none is given.
+     */
+    public static long getDefaultMemoryThreshold() {
+        return Long.getLong(MEMORY_THRESHOLD_PROPERTY, DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * Capture <code>inputStream</code>, in memory if no larger than
+     * <code>memoryThreshold</code> bytes, otherwise in a temporary file in
+     * <code>spillDirectory</code>.
+     */
+    static CapturedBody capture(final InputStream inputStream, final long contentLength, final long memoryThreshold, final Path spillDirectory) throws IOException {
+        final BodyBuffer bodyBuffer = new BodyBuffer(contentLength > memoryThreshold ? 0 : contentLength);
+
+        if (null == inputStream || (contentLength <= memoryThreshold && bodyBuffer.readFrom(inputStream, memoryThreshold))) {
+            return bodyBuffer;
+        }
+
+        return SpilledBody.spill(bodyBuffer, inputStream, spillDirectory);
+    }
+
+    /**
+     * Return the charset named by <code>encoding</code>, or UTF-8 if null or
+     * not supported.
+     */
+    static Charset toCharset(final String encoding) {
+        if (null == encoding) {
+            return StandardCharsets.UTF_8;
+        }
+
+        try {
+            return Charset.forName(encoding.trim());
+        } catch (final IllegalArgumentException illegalArgumentException) {
+            getLogger().warn("Unsupported character encoding [" + encoding + "] - using UTF-8");
+
+            return StandardCharsets.UTF_8;
+        }
+    }
+
     public RequestWrapper(HttpServletRequest request) throws IOException {
+        this(request, getDefaultMemoryThreshold());
+    }
+
+    /**
+     * Capture the body of <code>request</code>, spilling it to the default
+     * temporary directory if larger than <code>memoryThreshold</code> bytes.
+     */
+    public RequestWrapper(HttpServletRequest request, long memoryThreshold) throws IOException {
+        this(request, memoryThreshold, null);
+    }
+
+    /**
+     * Capture the body of <code>request</code>, spilling it to
+     * <code>spillDirectory</code> (the default temporary directory if null)
+     * if larger than <code>memoryThreshold</code> bytes.
+     */
+    public RequestWrapper(HttpServletRequest request, long memoryThreshold, Path spillDirectory) throws IOException {
         //Let other request method behave just like before
+        this(request, captureBody(request, checkMemoryThreshold(memoryThreshold), spillDirectory));
+    }
+
+    /**
+     * Wrap <code>request</code> whose body has already been captured.
+     */
+    RequestWrapper(HttpServletRequest request, CapturedBody capturedBody) {
         super(request);
 
-        List<String> lists = new ArrayList<>();
+        this.capturedBody = capturedBody;
 
-        try {
-            InputStream inputStream = request.getInputStream();
-            if (inputStream != null) {
-                //bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
+        if (capturedBody.isSpilled()) {
+            RequestWrapperCleanupListener.register(request, this);
+        }
+    }
+
+    /**
+     * Return <code>memoryThreshold</code> if it is not negative.
+     */
+    static long checkMemoryThreshold(final long memoryThreshold) {
+        if (memoryThreshold < 0) {
+            throw new IllegalArgumentException("Memory threshold cannot be negative: " + memoryThreshold);
+        }
 
-                lists = IOUtils.readLines(inputStream, Charset.defaultCharset());
-            }
+        return memoryThreshold;
+    }
+
+    /**
+     * Capture the body of <code>request</code> - an empty body if it cannot be read.
+     */
+    static CapturedBody captureBody(final HttpServletRequest request, final long memoryThreshold, final Path spillDirectory) {
+        try {
+            return capture(request.getInputStream(), request.getContentLengthLong(), memoryThreshold, spillDirectory);
         } catch (IOException ex) {
             getLogger().warn("Could not extract body due to exception=" + ex);
+
+            return new BodyBuffer(0);
         }
-        //Store request pody content in 'body' variable
-        body = StringUtils.join(lists, "");
     }
 
-    @Override
-    public ServletInputStream getInputStream() throws IOException {
-        final ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(body.getBytes());
-        ServletInputStream servletInputStream = new ServletInputStream() {
+    /**
+     * Capture the body of <code>request</code> using the default memory
+     * threshold and temporary directory.
+     *
+     * @see #captureAsync(HttpServletRequest, long, Path)
+     */
+    public static CompletableFuture<RequestWrapper> captureAsync(final HttpServletRequest request) {
+        return captureAsync(request, getDefaultMemoryThreshold(), null);
+    }
+
+    /**
+     * Capture the body of <code>request</code> without blocking. If async
+     * processing has started, bytes are read by a {@link ReadListener} as the
+     * container makes them available and the future completes on a container
+     * thread once all are read. Otherwise the body is captured immediately on
+     * the calling thread.
+     */
+    public static CompletableFuture<RequestWrapper> captureAsync(final HttpServletRequest request, final long memoryThreshold, final Path spillDirectory) {
+        Objects.requireNonNull(request, "Cannot have a null request!");
+        checkMemoryThreshold(memoryThreshold);
+
+        final CompletableFuture<RequestWrapper> retVal = new CompletableFuture<>();
 
-            @Override
-            public int read() throws IOException {
-                return byteArrayInputStream.read();
-            }
+        if (!request.isAsyncStarted()) {
+            retVal.complete(new RequestWrapper(request, captureBody(request, memoryThreshold, spillDirectory)));
 
-            @Override
-            public boolean isFinished() {
-                return false;
-            }
+            return retVal;
+        }
+
+        try {
+            final ServletInputStream inputStream = request.getInputStream();
+            final BodyCollector collector = new BodyCollector(request.getContentLengthLong(), memoryThreshold, spillDirectory);
+
+            inputStream.setReadListener(new ReadListener() {
+                private final byte[] chunk = new byte[BodyBuffer.READ_CHUNK_SIZE];
 
-            @Override
-            public boolean isReady() {
-                return false;
-            }
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (inputStream.isReady()) {
+                        final int read = inputStream.read(chunk);
 
-            @Override
-            public void setReadListener(ReadListener rl) {
+                        if (read < 0) {
+                            return;
+                        }
 
-            }
-        };
-        return servletInputStream;
+                        collector.write(chunk, 0, read);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    try {
+                        retVal.complete(new RequestWrapper(request, collector.finish()));
+                    } catch (final IOException | RuntimeException exception) {
+                        onError(exception);
+                    }
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {
+                    collector.abort();
+                    retVal.completeExceptionally(throwable);
+                }
+            });
+        } catch (final IOException | RuntimeException exception) {
+            retVal.completeExceptionally(exception);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Run a read listener callback - through the async context if async
+     * processing has started on <code>request</code>, otherwise on the
+     * calling thread.
+     */
+    static void dispatch(final ServletRequest request, final Runnable callback) {
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().start(callback);
+        } else {
+            callback.run();
+        }
+    }
+
+    /**
+     * Return the charset used to decode the body.
+     */
+    public Charset getBodyCharset() {
+        return toCharset(getCharacterEncoding());
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        return new ReplayServletInputStream(capturedBody.newInputStream(), callback -> dispatch(this, callback));
     }
 
     @Override
     public BufferedReader getReader() throws IOException {
-        return new BufferedReader(new InputStreamReader(this.getInputStream()));
+        return new BufferedReader(new InputStreamReader(capturedBody.newInputStream(), getBodyCharset()));
     }
 
     /**
      * Returns the body of the request. Use this method to extract request body as many times as required
      *
+     * The String is decoded onto the heap and kept, even when the body was
+     * spilled to disk - read large bodies with {@link #getInputStream()} or
+     * {@link #getReader()} instead.
+     *
      * @return
      */
     public String getBody() {
-        return this.body;
+        String retVal = body;
+
+        if (null == retVal) {
+            retVal = capturedBody.decode(getBodyCharset());
+            body = retVal;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Returns the number of bytes in the request body.
+     */
+    public long getBodyLength() {
+        return capturedBody.length();
+    }
+
+    /**
+     * Returns true if the body was spilled to disk.
+     */
+    public boolean isSpilled() {
+        return capturedBody.isSpilled();
+    }
+
+    /**
+     * Release the body's temporary file, if any. The body stays readable
+     * where the platform allows a deleted file to remain mapped.
+     */
+    @Override
+    public void close() {
+        capturedBody.close();
     }
 
     /**
@@ -0,0 +1,79 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.ServletRequestListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Closes any {@link RequestWrapper} or {@link LazyRequestWrapper} that spilled
+ * its body to disk once the request completes, deleting the temporary file. Registered automatically
+ * when annotations are scanned - otherwise declare it in web.xml or close the
+ * wrapper directly. Anything else that must be released however a request
+ * ends - even by an unhandled exception or an abandoned async request - can
+ * be registered too.
+ *
+ * @author sfloess
+ */
+@WebListener
+public class RequestWrapperCleanupListener implements ServletRequestListener {
+    /**
+     * Request attribute holding the wrappers to close.
+     */
+    public static final String ATTRIBUTE = RequestWrapperCleanupListener.class.getName() + ".wrappers";
+
+    /**
+     * Arrange for <code>requestWrapper</code> to be closed when <code>request</code> completes.
+     *
+     * @param request        the request.
+     * @param requestWrapper what to close.
+     */
+    public static void register(final ServletRequest request, final Closeable requestWrapper) {
+        @SuppressWarnings("unchecked")
+        List<Closeable> wrappers = (List<Closeable>) request.getAttribute(ATTRIBUTE);
+
+        if (null == wrappers) {
+            wrappers = new ArrayList<>(1);
+
+            request.setAttribute(ATTRIBUTE, wrappers);
+        }
+
+        wrappers.add(requestWrapper);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void requestInitialized(final ServletRequestEvent event) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void requestDestroyed(final ServletRequestEvent event) {
+        final ServletRequest request = event.getServletRequest();
+
+        @SuppressWarnings("unchecked")
+        final List<Closeable> wrappers = (List<Closeable>) request.getAttribute(ATTRIBUTE);
+
+        if (null == wrappers) {
+            return;
+        }
+
+        request.removeAttribute(ATTRIBUTE);
+
+        for (final Closeable requestWrapper : wrappers) {
+            try {
+                requestWrapper.close();
+            } catch (final IOException ioException) {
+                RequestWrapper.getLogger().warn("Could not close [" + requestWrapper + "] due to exception=" + ioException);
+            }
+        }
+    }
+}
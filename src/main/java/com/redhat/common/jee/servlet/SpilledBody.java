@@ -0,0 +1,156 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A request body held in a temporary file and read through a memory mapping,
+ * so large bodies stay off the heap.
+ *
+ * @author sfloess
+ */
+final class SpilledBody implements CapturedBody {
+    /**
+     * Prefix of temporary file names.
+     */
+    static final String TEMP_FILE_PREFIX = "request-body-";
+
+    /**
+     * Suffix of temporary file names.
+     */
+    static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final Logger logger = LoggerFactory.getLogger(SpilledBody.class);
+
+    private final Path path;
+
+    private final MappedByteBuffer mapped;
+
+    /**
+     * Create a temporary file in <code>directory</code>, or the default
+     * temporary directory if null.
+     */
+    static Path createTempFile(final Path directory) throws IOException {
+        return null == directory ? Files.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX) : Files.createTempFile(directory, TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+    }
+
+    /**
+     * Open <code>path</code> for writing and mapping.
+     */
+    static FileChannel open(final Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Map everything written to <code>channel</code>, the contents of <code>path</code>.
+     */
+    static SpilledBody map(final Path path, final FileChannel channel) throws IOException {
+        final long size = channel.size();
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Request body of " + size + " bytes is too large to buffer");
+        }
+
+        // The mapping remains valid once the channel is closed.
+        return new SpilledBody(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+
+    /**
+     * Write <code>bytes</code> fully to <code>channel</code>.
+     */
+    static void write(final FileChannel channel, final ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Write <code>head</code> then the rest of <code>inputStream</code> to a
+     * temporary file in <code>directory</code> (the default temporary
+     * directory if null) and map it. The file is removed if this fails.
+     */
+    static SpilledBody spill(final BodyBuffer head, final InputStream inputStream, final Path directory) throws IOException {
+        final Path path = createTempFile(directory);
+
+        try (final FileChannel channel = open(path)) {
+            head.writeTo(channel);
+
+            final byte[] chunk = new byte[BodyBuffer.READ_CHUNK_SIZE];
+            final ByteBuffer wrapped = ByteBuffer.wrap(chunk);
+
+            for (int read = inputStream.read(chunk); read >= 0; read = inputStream.read(chunk)) {
+                wrapped.clear();
+                wrapped.limit(read);
+
+                write(channel, wrapped);
+            }
+
+            return map(path, channel);
+        } catch (final IOException | RuntimeException exception) {
+            Files.deleteIfExists(path);
+
+            throw exception;
+        }
+    }
+
+    SpilledBody(final Path path, final MappedByteBuffer mapped) {
+        this.path = path;
+        this.mapped = mapped;
+    }
+
+    /**
+     * Return the temporary file.
+     */
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public long length() {
+        return mapped.capacity();
+    }
+
+    @Override
+    public InputStream newInputStream() {
+        return new ByteBufferInputStream(mapped.duplicate());
+    }
+
+    /**
+     * Decode the whole file into a String on the heap - undoing the spill for
+     * this copy. Stream large bodies with {@link #newInputStream()} instead.
+     */
+    @Override
+    public String decode(final Charset charset) {
+        return charset.decode(mapped.duplicate()).toString();
+    }
+
+    @Override
+    public boolean isSpilled() {
+        return true;
+    }
+
+    /**
+     * Delete the temporary file. Existing mappings stay readable until
+     * collected; where the platform refuses to delete a mapped file, it is
+     * deleted on exit instead.
+     */
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException ioException) {
+            logger.warn("Could not delete [" + path + "] - deleting on exit: " + ioException);
+
+            path.toFile().deleteOnExit();
+        }
+    }
+}
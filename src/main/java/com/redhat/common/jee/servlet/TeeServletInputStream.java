@@ -0,0 +1,105 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.IOException;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+/**
+ * Passes reads through to a request's input stream while copying the bytes
+ * read to a {@link LazyRequestWrapper} - and tells it when the stream ends,
+ * whether by returning -1 or by reporting itself finished.
+ *
+ * @author sfloess
+ */
+final class TeeServletInputStream extends ServletInputStream {
+    private final ServletInputStream delegate;
+
+    private final LazyRequestWrapper requestWrapper;
+
+    TeeServletInputStream(final ServletInputStream delegate, final LazyRequestWrapper requestWrapper) {
+        this.delegate = delegate;
+        this.requestWrapper = requestWrapper;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int retVal = delegate.read();
+
+        if (retVal < 0) {
+            requestWrapper.complete();
+        } else {
+            requestWrapper.collect(retVal);
+
+            completeIfFinished();
+        }
+
+        return retVal;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        final int retVal = delegate.read(buffer, offset, length);
+
+        if (retVal < 0) {
+            requestWrapper.complete();
+        } else {
+            requestWrapper.collect(buffer, offset, retVal);
+
+            completeIfFinished();
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Complete the capture if the stream reports all data read - a reader may
+     * stop without ever seeing -1.
+     */
+    void completeIfFinished() throws IOException {
+        if (delegate.isFinished()) {
+            requestWrapper.complete();
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return delegate.available();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return delegate.isFinished();
+    }
+
+    @Override
+    public boolean isReady() {
+        return delegate.isReady();
+    }
+
+    @Override
+    public void setReadListener(final ReadListener readListener) {
+        delegate.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                readListener.onDataAvailable();
+            }
+
+            @Override
+            public void onAllDataRead() throws IOException {
+                requestWrapper.complete();
+                readListener.onAllDataRead();
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                requestWrapper.abandon();
+                readListener.onError(throwable);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -1,7 +1,5 @@
 package com.redhat.common.jee.servlet.utils;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 
@@ -15,15 +13,15 @@ import javax.servlet.http.HttpServletRequest;
 public final class HttpServletRequestUtils {
 
     /**
-     * Return the query params contained in request.
+     * Return a read-only view of the query params contained in request. The
+     * view is not a copy and is cached on the request - use
+     * {@link QueryParams#of(javax.servlet.ServletRequest)} for typed access.
+     *
+     * @see QueryParams#of(javax.servlet.ServletRequest)
      */
     public static Map<String, String[]> getQueryParams(final HttpServletRequest request) {
-        final Map<String, String[]> retVal = new HashMap<>();
-
         // Just in case the request is null - shouldn't be!
-        retVal.putAll(null != request ? request.getParameterMap() : Collections.EMPTY_MAP);
-
-        return retVal;
+        return QueryParams.of(request);
     }
 
     /**
@@ -0,0 +1,421 @@
+package com.redhat.common.jee.servlet.utils;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Read-only view of a request's parameters. Nothing is copied - the view is
+ * backed by the request's parameter map and is cached as a request attribute,
+ * so every caller during a request shares one instance. Typed accessors parse
+ * the first value of a parameter, returning a default when it is absent or
+ * malformed. The canonical key (names sorted, values in order) is computed
+ * once, on first use.
+ *
+ * Values are the request's own arrays - do not modify them.
+ *
+ * @author sfloess
+ */
+public final class QueryParams extends AbstractMap<String, String[]> {
+    /**
+     * Request attribute holding the view.
+     */
+    public static final String ATTRIBUTE = QueryParams.class.getName();
+
+    /**
+     * A view with no parameters.
+     */
+    public static final QueryParams EMPTY = new QueryParams(Collections.<String, String[]>emptyMap(), null, null);
+
+    /**
+     * The request's parameter map.
+     */
+    private final Map<String, String[]> source;
+
+    /**
+     * Read-only wrapper of {@link #source}.
+     */
+    private final Map<String, String[]> params;
+
+    /**
+     * The dispatch the view was created for.
+     */
+    private final DispatcherType dispatcherType;
+
+    /**
+     * The query string the view was created for.
+     */
+    private final String queryString;
+
+    private String canonicalKey;
+
+    /**
+     * Escape the characters used as separators in a canonical key.
+     */
+    static void appendEscaped(final StringBuilder sb, final String str) {
+        if (null == str) {
+            return;
+        }
+
+        for (int index = 0; index < str.length(); index++) {
+            final char c = str.charAt(index);
+
+            switch (c) {
+                case '%':
+                    sb.append("%25");
+                    break;
+
+                case '&':
+                    sb.append("%26");
+                    break;
+
+                case '=':
+                    sb.append("%3D");
+                    break;
+
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Return the canonical form of <code>params</code>: names sorted, values
+     * in order, as <code>name=value</code> pairs separated by <code>&amp;</code>.
+     * A name without values appears alone.
+     *
+     * @param params the params - may be null.
+     *
+     * @return the canonical form, empty if there are no params.
+     */
+    public static String toCanonicalKey(final Map<String, String[]> params) {
+        if (params instanceof QueryParams) {
+            return ((QueryParams) params).getCanonicalKey();
+        }
+
+        if (null == params || params.isEmpty()) {
+            return "";
+        }
+
+        final String[] names = params.keySet().toArray(new String[params.size()]);
+
+        Arrays.sort(names);
+
+        final StringBuilder sb = new StringBuilder();
+
+        for (final String name : names) {
+            final String[] values = params.get(name);
+
+            if (null == values || 0 == values.length) {
+                if (sb.length() > 0) {
+                    sb.append('&');
+                }
+
+                appendEscaped(sb, name);
+
+                continue;
+            }
+
+            for (final String value : values) {
+                if (sb.length() > 0) {
+                    sb.append('&');
+                }
+
+                appendEscaped(sb, name);
+                sb.append('=');
+                appendEscaped(sb, value);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Return <code>str</code> as a long, or <code>defaultValue</code> if it is
+     * not an optionally signed decimal that fits.
+     */
+    static long parseLong(final String str, final long defaultValue) {
+        final int length = str.length();
+
+        if (0 == length) {
+            return defaultValue;
+        }
+
+        final char first = str.charAt(0);
+        final boolean negative = '-' == first;
+        int index = negative || '+' == first ? 1 : 0;
+
+        if (index == length) {
+            return defaultValue;
+        }
+
+        // Accumulate negatively so Long.MIN_VALUE parses...
+        long retVal = 0;
+
+        for (; index < length; index++) {
+            final int digit = str.charAt(index) - '0';
+
+            if (digit < 0 || digit > 9 || retVal < (Long.MIN_VALUE + digit) / 10) {
+                return defaultValue;
+            }
+
+            retVal = retVal * 10 - digit;
+        }
+
+        if (negative) {
+            return retVal;
+        }
+
+        return Long.MIN_VALUE == retVal ? defaultValue : -retVal;
+    }
+
+    /**
+     * Return the query string of <code>request</code>, or null if it is not
+     * an HTTP request.
+     */
+    static String getQueryString(final ServletRequest request) {
+        return request instanceof HttpServletRequest ? ((HttpServletRequest) request).getQueryString() : null;
+    }
+
+    /**
+     * Return the view of <code>request</code>'s parameters, creating and
+     * caching it on first use. The cached view is reused for the rest of the
+     * request - containers may build a new parameter map on every call, so
+     * the map itself is not compared. It is replaced when the dispatcher type
+     * or query string changes, as they do when the request is forwarded or
+     * included with extra parameters.
+     *
+     * @param request the request - may be null.
+     *
+     * @return the view, {@link #EMPTY} if <code>request</code> is null.
+     */
+    public static QueryParams of(final ServletRequest request) {
+        if (null == request) {
+            return EMPTY;
+        }
+
+        final DispatcherType dispatcherType = request.getDispatcherType();
+        final String queryString = getQueryString(request);
+        final Object cached = request.getAttribute(ATTRIBUTE);
+
+        if (cached instanceof QueryParams && ((QueryParams) cached).isFor(dispatcherType, queryString)) {
+            return (QueryParams) cached;
+        }
+
+        final Map<String, String[]> parameterMap = request.getParameterMap();
+        final QueryParams retVal = new QueryParams(null == parameterMap ? Collections.<String, String[]>emptyMap() : parameterMap, dispatcherType, queryString);
+
+        request.setAttribute(ATTRIBUTE, retVal);
+
+        return retVal;
+    }
+
+    QueryParams(final Map<String, String[]> source, final DispatcherType dispatcherType, final String queryString) {
+        this.source = Objects.requireNonNull(source, "Cannot have a null parameter map!");
+        this.params = Collections.unmodifiableMap(source);
+        this.dispatcherType = dispatcherType;
+        this.queryString = queryString;
+    }
+
+    /**
+     * Return true if this view was created for <code>dispatcherType</code>
+     * and <code>queryString</code>.
+     */
+    boolean isFor(final DispatcherType dispatcherType, final String queryString) {
+        return this.dispatcherType == dispatcherType && Objects.equals(this.queryString, queryString);
+    }
+
+    /**
+     * Return the canonical key of these params.
+     *
+     * @return the canonical key - empty if there are no params.
+     *
+     * @see #toCanonicalKey(Map)
+     */
+    public String getCanonicalKey() {
+        String retVal = canonicalKey;
+
+        if (null == retVal) {
+            retVal = source.isEmpty() ? "" : toCanonicalKey(params);
+
+            canonicalKey = retVal;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return the first value of <code>name</code>, or null.
+     *
+     * @param name the parameter name.
+     *
+     * @return the first value, or null.
+     */
+    public String getFirst(final String name) {
+        final String[] values = source.get(name);
+
+        return null == values || 0 == values.length ? null : values[0];
+    }
+
+    /**
+     * Return the first value of <code>name</code>, or <code>defaultValue</code>.
+     *
+     * @param name         the parameter name.
+     * @param defaultValue returned when absent.
+     *
+     * @return the first value, or <code>defaultValue</code>.
+     */
+    public String getString(final String name, final String defaultValue) {
+        final String retVal = getFirst(name);
+
+        return null == retVal ? defaultValue : retVal;
+    }
+
+    /**
+     * Return the first value of <code>name</code> as an int.
+     *
+     * @param name         the parameter name.
+     * @param defaultValue returned when absent or not an int.
+     *
+     * @return the value, or <code>defaultValue</code>.
+     */
+    public int getInt(final String name, final int defaultValue) {
+        final String value = getFirst(name);
+
+        if (null == value) {
+            return defaultValue;
+        }
+
+        final long retVal = parseLong(value.trim(), Long.MIN_VALUE);
+
+        return retVal < Integer.MIN_VALUE || retVal > Integer.MAX_VALUE ? defaultValue : (int) retVal;
+    }
+
+    /**
+     * Return the first value of <code>name</code> as a long.
+     *
+     * @param name         the parameter name.
+     * @param defaultValue returned when absent or not a long.
+     *
+     * @return the value, or <code>defaultValue</code>.
+     */
+    public long getLong(final String name, final long defaultValue) {
+        final String value = getFirst(name);
+
+        return null == value ? defaultValue : parseLong(value.trim(), defaultValue);
+    }
+
+    /**
+     * Return the first value of <code>name</code> as a boolean - "true" or
+     * "false", ignoring case.
+     *
+     * @param name         the parameter name.
+     * @param defaultValue returned when absent or neither "true" nor "false".
+     *
+     * @return the value, or <code>defaultValue</code>.
+     */
+    public boolean getBoolean(final String name, final boolean defaultValue) {
+        final String value = getFirst(name);
+
+        if (null == value) {
+            return defaultValue;
+        }
+
+        final String trimmed = value.trim();
+
+        if ("true".equalsIgnoreCase(trimmed)) {
+            return true;
+        }
+
+        if ("false".equalsIgnoreCase(trimmed)) {
+            return false;
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * Return the first value of <code>name</code> as a constant of
+     * <code>enumClass</code>, matching the constant name exactly or in upper case.
+     *
+     * @param <E>          the enum type.
+     * @param name         the parameter name.
+     * @param enumClass    the enum class.
+     * @param defaultValue returned when absent or not a constant.
+     *
+     * @return the constant, or <code>defaultValue</code>.
+     */
+    public <E extends Enum<E>> E getEnum(final String name, final Class<E> enumClass, final E defaultValue) {
+        Objects.requireNonNull(enumClass, "Cannot have a null enum class!");
+
+        final String value = getFirst(name);
+
+        if (null == value) {
+            return defaultValue;
+        }
+
+        final String trimmed = value.trim();
+
+        try {
+            return Enum.valueOf(enumClass, trimmed);
+        } catch (final IllegalArgumentException illegalArgumentException) {
+            final String upperCase = trimmed.toUpperCase(Locale.ROOT);
+
+            if (upperCase.equals(trimmed)) {
+                return defaultValue;
+            }
+
+            try {
+                return Enum.valueOf(enumClass, upperCase);
+            } catch (final IllegalArgumentException upperCaseException) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Return every value of <code>name</code>.
+     *
+     * @param name the parameter name.
+     *
+     * @return a read-only list backed by the request's values - empty if absent.
+     */
+    public List<String> getList(final String name) {
+        final String[] values = source.get(name);
+
+        return null == values ? Collections.<String>emptyList() : Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    @Override
+    public String[] get(final Object name) {
+        return source.get(name);
+    }
+
+    @Override
+    public boolean containsKey(final Object name) {
+        return source.containsKey(name);
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return source.isEmpty();
+    }
+
+    @Override
+    public Set<Map.Entry<String, String[]>> entrySet() {
+        return params.entrySet();
+    }
+}
@@ -1,15 +1,42 @@
 package com.redhat.common.markup;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.fasterxml.jackson.dataformat.xml.XmlFactory;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.redhat.common.markup.json.JsonUtils;
+import com.redhat.common.markup.json.UnknownPropertyModule;
 import com.redhat.common.utils.LoggerUtils;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.xml.namespace.QName;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +57,22 @@ public enum MarkupBuilder {
         return new YAMLFactory();
     });
 
+    /**
+     * When transcoding to XML, the root element name for objects - the same
+     * name <code>toString(Map)</code> produces.
+     */
+    static final QName XML_OBJECT_ROOT = new QName("HashMap");
+
+    /**
+     * When transcoding to XML, the root element name for arrays.
+     */
+    static final QName XML_ARRAY_ROOT = new QName("ArrayList");
+
+    /**
+     * When transcoding to XML, the element name for top level array elements.
+     */
+    static final String XML_ARRAY_ITEM = "item";
+
     /**
      * Our logger.
      */
@@ -49,10 +92,35 @@ public enum MarkupBuilder {
      */
     private final Supplier<JsonFactory> factorySupplier;
 
+    /**
+     * Our shared mapper and its reader/writer caches - lazily created.
+     */
+    private volatile MapperCache mapperCache;
+
     private MarkupBuilder(final Supplier<JsonFactory> factorySupplier) {
         this.factorySupplier = factorySupplier;
     }
 
+    /**
+     * Return the shared mapper and caches, creating them if need be.
+     */
+    MapperCache getMapperCache() {
+        MapperCache retVal = mapperCache;
+
+        if (null == retVal) {
+            synchronized (this) {
+                retVal = mapperCache;
+
+                if (null == retVal) {
+                    retVal = new MapperCache(createMapper());
+                    mapperCache = retVal;
+                }
+            }
+        }
+
+        return retVal;
+    }
+
     /**
      * Allows us to encapsulate a JSONFactory.
      */
@@ -67,15 +135,94 @@ public enum MarkupBuilder {
         return getFactorySupplier().get();
     }
 
+    /**
+     * Create a raw mapper for <code>factory</code>. XML needs its own mapper
+     * type so root elements can be named when writing.
+     */
+    static ObjectMapper createMapper(final JsonFactory factory) {
+        return factory instanceof XmlFactory ? new XmlMapper((XmlFactory) factory) : new ObjectMapper(factory);
+    }
+
     /**
      * The mapper based upon the factory for the enum.
      */
     public ObjectMapper createMapper() {
-        return new ObjectMapper(createFactory())
+        return createMapper(createFactory())
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
                 .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS, true)
                 .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES, true)
-                .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_VALUES, true);
+                .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_VALUES, true)
+                .registerModule(new UnknownPropertyModule());
+    }
+
+    /**
+     * The shared mapper for the enum. Callers must not reconfigure it - use
+     * <code>setMapper()</code> to supply a differently configured mapper.
+     */
+    public ObjectMapper getMapper() {
+        return getMapperCache().getMapper();
+    }
+
+    /**
+     * Replace the shared mapper with a custom configured one. Any cached
+     * readers and writers are discarded. An {@link UnknownPropertyModule} is
+     * registered on the mapper, unless it already has one, so unknown property
+     * policies still apply - set the mapper before using it elsewhere. The
+     * mapper must not be reconfigured once set.
+     *
+     * @param mapper the mapper to use - should be based upon a factory for
+     *               this enum's markup.
+     */
+    public void setMapper(final ObjectMapper mapper) {
+        Objects.requireNonNull(mapper, "Cannot have a null mapper!").registerModule(new UnknownPropertyModule());
+
+        synchronized (this) {
+            mapperCache = new MapperCache(mapper);
+        }
+    }
+
+    /**
+     * Restore the default shared mapper.
+     */
+    public void resetMapper() {
+        synchronized (this) {
+            mapperCache = null;
+        }
+    }
+
+    /**
+     * Return a cached reader for <code>klass</code>.
+     */
+    public ObjectReader getReader(final Class<?> klass) {
+        return getMapperCache().getReader(Objects.requireNonNull(klass, "Cannot have a null class!"));
+    }
+
+    /**
+     * Return a cached reader for <code>type</code>.
+     */
+    public ObjectReader getReader(final JavaType type) {
+        return getMapperCache().getReader(Objects.requireNonNull(type, "Cannot have a null type!"));
+    }
+
+    /**
+     * Return the cached writer that uses the runtime type of values written.
+     */
+    public ObjectWriter getWriter() {
+        return getMapperCache().getWriter();
+    }
+
+    /**
+     * Return a cached writer for <code>klass</code>.
+     */
+    public ObjectWriter getWriter(final Class<?> klass) {
+        return getMapperCache().getWriter(Objects.requireNonNull(klass, "Cannot have a null class!"));
+    }
+
+    /**
+     * Return a cached writer for <code>type</code>.
+     */
+    public ObjectWriter getWriter(final JavaType type) {
+        return getMapperCache().getWriter(Objects.requireNonNull(type, "Cannot have a null type!"));
     }
 
     /**
@@ -83,7 +230,7 @@ public enum MarkupBuilder {
      */
     public <T> T asType(final String str, final Class<T> klass) {
         try {
-            return createMapper().readValue(str, klass);
+            return getReader(klass).readValue(str);
         } catch (final Exception exception) {
             LoggerUtils.logError(getLogger(), exception, "Trouble reading a value of type [", klass, "]");
 
@@ -95,7 +242,22 @@ public enum MarkupBuilder {
      * Convert <code>str</code> to a JSONObject. Assumption here is the string is in the correct markup for the enum.
      */
     public JSONObject asJsonObject(final String str) {
-        return new JSONObject(asType(str, HashMap.class));
+        try (final JsonParser parser = createParser(str)) {
+            return JsonUtils.readJsonObject(parser);
+        } catch (final Exception exception) {
+            throw new MarkupException("Trouble reading a JSON object", exception);
+        }
+    }
+
+    /**
+     * Convert the markup in <code>in</code> directly to a JSONObject.
+     */
+    public JSONObject asJsonObject(final InputStream in) {
+        try (final JsonParser parser = createParser(in)) {
+            return JsonUtils.readJsonObject(parser);
+        } catch (final Exception exception) {
+            throw new MarkupException("Trouble reading a JSON object", exception);
+        }
     }
 
     /**
@@ -110,7 +272,7 @@ public enum MarkupBuilder {
      */
     public String toString(final Map map) {
         try {
-            return createMapper().writeValueAsString(map);
+            return getWriter().writeValueAsString(map);
         } catch (final Exception exception) {
             LoggerUtils.logError(getLogger(), exception, "Trouble converting:\n", map);
 
@@ -122,6 +284,463 @@ public enum MarkupBuilder {
      * Converts the JSON Object to the proper markup.
      */
     public String toString(final JSONObject jsonObject) {
-        return toString(jsonObject.toMap());
+        final StringWriter retVal = new StringWriter();
+
+        try (final JsonGenerator generator = createGenerator(retVal)) {
+            if (XML == this) {
+                ((ToXmlGenerator) generator).setNextName(XML_OBJECT_ROOT);
+            }
+
+            JsonUtils.writeJsonObject(generator, jsonObject);
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble converting:\n", jsonObject);
+
+            throw new MarkupException("Trouble writing:  " + jsonObject, exception);
+        }
+
+        return retVal.toString();
+    }
+
+    /**
+     * Create a parser for token level reading of <code>str</code>.
+     */
+    public JsonParser createParser(final String str) {
+        Objects.requireNonNull(str, "Cannot have a null string!");
+
+        try {
+            return getMapper().getFactory().createParser(str);
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble creating a parser");
+
+            throw new MarkupException("Trouble creating a parser", exception);
+        }
+    }
+
+    /**
+     * Create a parser for token level reading of <code>in</code>. The parser
+     * will not close <code>in</code> - closing the stream is up to the caller.
+     */
+    public JsonParser createParser(final InputStream in) {
+        Objects.requireNonNull(in, "Cannot have a null input stream!");
+
+        try {
+            return getMapper().getFactory().createParser(in).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble creating a parser");
+
+            throw new MarkupException("Trouble creating a parser", exception);
+        }
+    }
+
+    /**
+     * Create a parser for token level reading of <code>reader</code>. The
+     * parser will not close <code>reader</code>.
+     */
+    public JsonParser createParser(final Reader reader) {
+        Objects.requireNonNull(reader, "Cannot have a null reader!");
+
+        try {
+            return getMapper().getFactory().createParser(reader).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble creating a parser");
+
+            throw new MarkupException("Trouble creating a parser", exception);
+        }
+    }
+
+    /**
+     * Create a generator for token level writing to <code>out</code>. The
+     * generator will not close <code>out</code>.
+     */
+    public JsonGenerator createGenerator(final OutputStream out) {
+        Objects.requireNonNull(out, "Cannot have a null output stream!");
+
+        try {
+            return getMapper().getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble creating a generator");
+
+            throw new MarkupException("Trouble creating a generator", exception);
+        }
+    }
+
+    /**
+     * Create a generator for token level writing to <code>writer</code>. The
+     * generator will not close <code>writer</code>.
+     */
+    public JsonGenerator createGenerator(final Writer writer) {
+        Objects.requireNonNull(writer, "Cannot have a null writer!");
+
+        try {
+            return getMapper().getFactory().createGenerator(writer).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble creating a generator");
+
+            throw new MarkupException("Trouble creating a generator", exception);
+        }
+    }
+
+    /**
+     * Reads the next value from <code>parser</code> as a type of class.
+     */
+    public <T> T asType(final JsonParser parser, final Class<T> klass) {
+        try {
+            return getReader(klass).readValue(parser);
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble reading a value of type [", klass, "]");
+
+            throw new MarkupException("Trouble reading a value of type [" + klass + "]", exception);
+        }
+    }
+
+    /**
+     * Converts the markup read from <code>in</code> to a type of class. The
+     * stream is read directly - it is not converted to a string first.
+     */
+    public <T> T asType(final InputStream in, final Class<T> klass) {
+        try (final JsonParser parser = createParser(in)) {
+            return asType(parser, klass);
+        } catch (final MarkupException markupException) {
+            throw markupException;
+        } catch (final Exception exception) {
+            throw new MarkupException("Trouble reading a value of type [" + klass + "]", exception);
+        }
+    }
+
+    /**
+     * Converts the markup read from <code>reader</code> to a type of class.
+     */
+    public <T> T asType(final Reader reader, final Class<T> klass) {
+        try (final JsonParser parser = createParser(reader)) {
+            return asType(parser, klass);
+        } catch (final MarkupException markupException) {
+            throw markupException;
+        } catch (final Exception exception) {
+            throw new MarkupException("Trouble reading a value of type [" + klass + "]", exception);
+        }
+    }
+
+    /**
+     * Takes the markup read from <code>in</code> and converts to a map.
+     */
+    public Map<String, Object> asMap(final InputStream in) {
+        try (final JsonParser parser = createParser(in)) {
+            return getReader(getMapper().getTypeFactory().constructMapType(HashMap.class, String.class, Object.class)).readValue(parser);
+        } catch (final MarkupException markupException) {
+            throw markupException;
+        } catch (final Exception exception) {
+            throw new MarkupException("Trouble reading a map", exception);
+        }
+    }
+
+    /**
+     * Writes <code>value</code> to <code>generator</code> in our markup.
+     */
+    public void writeTo(final JsonGenerator generator, final Object value) {
+        try {
+            getWriter().writeValue(generator, value);
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble converting:\n", value);
+
+            throw new MarkupException("Trouble writing:  " + value, exception);
+        }
+    }
+
+    /**
+     * Writes <code>value</code> to <code>out</code> in our markup. The stream
+     * is written directly and is not closed.
+     */
+    public void writeTo(final OutputStream out, final Object value) {
+        try (final JsonGenerator generator = createGenerator(out)) {
+            writeTo(generator, value);
+        } catch (final MarkupException markupException) {
+            throw markupException;
+        } catch (final Exception exception) {
+            throw new MarkupException("Trouble writing:  " + value, exception);
+        }
+    }
+
+    /**
+     * Writes <code>value</code> to <code>writer</code> in our markup. The
+     * writer is not closed.
+     */
+    public void writeTo(final Writer writer, final Object value) {
+        try (final JsonGenerator generator = createGenerator(writer)) {
+            writeTo(generator, value);
+        } catch (final MarkupException markupException) {
+            throw markupException;
+        } catch (final Exception exception) {
+            throw new MarkupException("Trouble writing:  " + value, exception);
+        }
+    }
+
+    /**
+     * Lazily iterates the top level elements of the markup in <code>in</code>
+     * as type <code>klass</code>. Top level arrays are iterated element by
+     * element (for XML, the children of the root element). Only one element
+     * is held in memory at a time. Closing the iterator closes the parser but
+     * not <code>in</code>.
+     */
+    public <T> MarkupIterator<T> iterator(final InputStream in, final Class<T> klass) {
+        return new MarkupIterator<>(this, createParser(in), klass);
+    }
+
+    /**
+     * Lazily iterates the top level elements of the markup in
+     * <code>reader</code> as type <code>klass</code>.
+     *
+     * @see #iterator(java.io.InputStream, java.lang.Class)
+     */
+    public <T> MarkupIterator<T> iterator(final Reader reader, final Class<T> klass) {
+        return new MarkupIterator<>(this, createParser(reader), klass);
+    }
+
+    /**
+     * A lazy stream of the top level elements of the markup in <code>in</code>.
+     * The stream should be closed when done.
+     *
+     * @see #iterator(java.io.InputStream, java.lang.Class)
+     */
+    public <T> Stream<T> stream(final InputStream in, final Class<T> klass) {
+        return toStream(iterator(in, klass));
+    }
+
+    /**
+     * A lazy stream of the top level elements of the markup in
+     * <code>reader</code>. The stream should be closed when done.
+     *
+     * @see #iterator(java.io.Reader, java.lang.Class)
+     */
+    public <T> Stream<T> stream(final Reader reader, final Class<T> klass) {
+        return toStream(iterator(reader, klass));
+    }
+
+    /**
+     * Copy the value the parser is positioned at to an XML generator. XML
+     * requires a named root element, and top level array elements are written
+     * as repeated <code>item</code> children.
+     */
+    static void copyToXml(final JsonParser parser, final ToXmlGenerator generator) throws Exception {
+        if (JsonToken.START_ARRAY != parser.currentToken()) {
+            generator.setNextName(XML_OBJECT_ROOT);
+            generator.copyCurrentStructure(parser);
+
+            return;
+        }
+
+        generator.setNextName(XML_ARRAY_ROOT);
+        generator.writeStartObject();
+
+        while (JsonToken.END_ARRAY != parser.nextToken()) {
+            generator.writeFieldName(XML_ARRAY_ITEM);
+            generator.copyCurrentStructure(parser);
+        }
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write the buffered value in <code>buffer</code> to <code>generator</code>.
+     */
+    static void replay(final TokenBuffer buffer, final JsonGenerator generator) throws Exception {
+        try (final JsonParser bufferParser = buffer.asParser()) {
+            bufferParser.nextToken();
+            generator.copyCurrentStructure(bufferParser);
+        }
+    }
+
+    /**
+     * Copy the value at the current token of <code>parser</code>, read from
+     * XML, to <code>generator</code>. XML has no arrays - a list is a run of
+     * sibling elements with the same name - so each run of adjacent repeated
+     * fields is written as one array field. Only the first value of a run is
+     * buffered, everything else streams. Repeated fields that are not adjacent
+     * cannot be grouped without buffering the whole object and are rejected.
+     */
+    static void copyFromXml(final JsonParser parser, final JsonGenerator generator) throws Exception {
+        final JsonToken token = parser.currentToken();
+
+        if (JsonToken.START_ARRAY == token) {
+            generator.writeStartArray();
+
+            while (JsonToken.END_ARRAY != parser.nextToken()) {
+                copyFromXml(parser, generator);
+            }
+
+            generator.writeEndArray();
+
+            return;
+        }
+
+        if (JsonToken.START_OBJECT != token) {
+            generator.copyCurrentEvent(parser);
+
+            return;
+        }
+
+        generator.writeStartObject();
+
+        final Set<String> names = new HashSet<>();
+
+        String runName = null;
+        TokenBuffer first = null;
+        boolean inArray = false;
+
+        while (JsonToken.END_OBJECT != parser.nextToken()) {
+            final String name = parser.currentName();
+
+            parser.nextToken();
+
+            if (name.equals(runName)) {
+                if (!inArray) {
+                    generator.writeFieldName(name);
+                    generator.writeStartArray();
+
+                    replay(first, generator);
+
+                    first = null;
+                    inArray = true;
+                }
+
+                copyFromXml(parser, generator);
+
+                continue;
+            }
+
+            if (inArray) {
+                generator.writeEndArray();
+            } else if (null != first) {
+                generator.writeFieldName(runName);
+
+                replay(first, generator);
+            }
+
+            if (!names.add(name)) {
+                throw new MarkupException("Repeated element [" + name + "] is separated from its siblings - cannot be written as an array");
+            }
+
+            runName = name;
+            inArray = false;
+            first = new TokenBuffer(parser);
+
+            copyFromXml(parser, first);
+        }
+
+        if (inArray) {
+            generator.writeEndArray();
+        } else if (null != first) {
+            generator.writeFieldName(runName);
+
+            replay(first, generator);
+        }
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Streams every token from <code>parser</code> (in our markup) into
+     * <code>generator</code> (in <code>target</code>'s markup). Only the
+     * current nesting is held in memory - no intermediate tree is built.
+     * When converting from XML to JSON or YAML, adjacent repeated elements are
+     * written as an array; repeated elements separated by other elements
+     * cause a {@link MarkupException}.
+     */
+    public void transcode(final MarkupBuilder target, final JsonParser parser, final JsonGenerator generator) {
+        Objects.requireNonNull(target, "Cannot have a null target markup!");
+        Objects.requireNonNull(parser, "Cannot have a null parser!");
+        Objects.requireNonNull(generator, "Cannot have a null generator!");
+
+        try {
+            while (null != parser.nextToken()) {
+                if (XML == target) {
+                    copyToXml(parser, (ToXmlGenerator) generator);
+                } else if (XML == this) {
+                    copyFromXml(parser, generator);
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+
+            generator.flush();
+        } catch (final MarkupException markupException) {
+            LoggerUtils.logError(getLogger(), markupException, "Trouble transcoding from [", this, "] to [", target, "]");
+
+            throw markupException;
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble transcoding from [", this, "] to [", target, "]");
+
+            throw new MarkupException("Trouble transcoding from [" + this + "] to [" + target + "]", exception);
+        }
+    }
+
+    /**
+     * Converts the markup read from <code>in</code> to <code>target</code>'s
+     * markup, written to <code>out</code>. Neither stream is closed.
+     */
+    public void transcode(final MarkupBuilder target, final InputStream in, final OutputStream out) {
+        Objects.requireNonNull(target, "Cannot have a null target markup!");
+
+        try (final JsonParser parser = createParser(in); final JsonGenerator generator = target.createGenerator(out)) {
+            transcode(target, parser, generator);
+        } catch (final MarkupException markupException) {
+            throw markupException;
+        } catch (final Exception exception) {
+            throw new MarkupException("Trouble transcoding from [" + this + "] to [" + target + "]", exception);
+        }
+    }
+
+    /**
+     * Wrap <code>iterator</code> as a sequential stream.
+     */
+    static <T> Stream<T> toStream(final MarkupIterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false).onClose(iterator::close);
+    }
+
+    /**
+     * A mapper and the readers/writers created from it. Readers and writers
+     * are immutable and thread safe, so they are shared across all callers.
+     */
+    static final class MapperCache {
+        private final ObjectMapper mapper;
+        private final ObjectWriter writer;
+        private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Type, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+        MapperCache(final ObjectMapper mapper) {
+            this.mapper = mapper;
+            this.writer = mapper.writer();
+        }
+
+        ObjectMapper getMapper() {
+            return mapper;
+        }
+
+        ObjectReader getReader(final Class<?> klass) {
+            final ObjectReader retVal = readers.get(klass);
+
+            return null != retVal ? retVal : readers.computeIfAbsent(klass, key -> mapper.readerFor(klass));
+        }
+
+        ObjectReader getReader(final JavaType type) {
+            final ObjectReader retVal = readers.get(type);
+
+            return null != retVal ? retVal : readers.computeIfAbsent(type, key -> mapper.readerFor(type));
+        }
+
+        ObjectWriter getWriter() {
+            return writer;
+        }
+
+        ObjectWriter getWriter(final Class<?> klass) {
+            final ObjectWriter retVal = writers.get(klass);
+
+            return null != retVal ? retVal : writers.computeIfAbsent(klass, key -> mapper.writerFor(klass));
+        }
+
+        ObjectWriter getWriter(final JavaType type) {
+            final ObjectWriter retVal = writers.get(type);
+
+            return null != retVal ? retVal : writers.computeIfAbsent(type, key -> mapper.writerFor(type));
+        }
     }
 }
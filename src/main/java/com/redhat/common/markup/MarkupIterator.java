@@ -0,0 +1,137 @@
+package com.redhat.common.markup;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates the top level elements of markup. When the root is an array,
+ * each element is returned. For XML, whose root is always an element, each
+ * child of the root is returned. Otherwise each root value is returned.
+ *
+ * @param <T> the type of element returned.
+ *
+ * @author sfloess
+ */
+public final class MarkupIterator<T> implements Iterator<T>, Closeable {
+    /**
+     * What we are iterating across.
+     */
+    private enum Mode {
+        ARRAY, XML_ROOT, ROOT_VALUES
+    }
+
+    private final MarkupBuilder markupBuilder;
+    private final JsonParser parser;
+    private final Class<T> klass;
+
+    private Mode mode;
+
+    /**
+     * True when the parser is positioned at the start of the next element.
+     */
+    private boolean hasPending;
+
+    /**
+     * True when all elements have been read.
+     */
+    private boolean finished;
+
+    MarkupIterator(final MarkupBuilder markupBuilder, final JsonParser parser, final Class<T> klass) {
+        this.markupBuilder = markupBuilder;
+        this.parser = parser;
+        this.klass = klass;
+    }
+
+    /**
+     * Position the parser at the start of the next element, if any.
+     */
+    private void advance() throws Exception {
+        if (null == mode) {
+            final JsonToken token = parser.nextToken();
+
+            if (JsonToken.START_ARRAY == token) {
+                mode = Mode.ARRAY;
+            } else if (JsonToken.START_OBJECT == token && MarkupBuilder.XML == markupBuilder) {
+                mode = Mode.XML_ROOT;
+            } else {
+                mode = Mode.ROOT_VALUES;
+                hasPending = null != token;
+                finished = !hasPending;
+
+                return;
+            }
+        }
+
+        JsonToken token = parser.nextToken();
+
+        if (Mode.XML_ROOT == mode && JsonToken.FIELD_NAME == token) {
+            token = parser.nextToken();
+        }
+
+        if (null == token || (Mode.ARRAY == mode && JsonToken.END_ARRAY == token) || (Mode.XML_ROOT == mode && JsonToken.END_OBJECT == token)) {
+            finished = true;
+        } else {
+            hasPending = true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        if (!hasPending && !finished) {
+            try {
+                advance();
+            } catch (final Exception exception) {
+                close();
+
+                throw new MarkupException("Trouble reading the next element", exception);
+            }
+
+            if (finished) {
+                close();
+            }
+        }
+
+        return hasPending;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        hasPending = false;
+
+        try {
+            return markupBuilder.asType(parser, klass);
+        } catch (final RuntimeException runtimeException) {
+            close();
+
+            throw runtimeException;
+        }
+    }
+
+    /**
+     * Closes the parser - the underlying source is left open.
+     */
+    @Override
+    public void close() {
+        finished = true;
+        hasPending = false;
+
+        try {
+            parser.close();
+        } catch (final Exception exception) {
+            throw new MarkupException("Trouble closing the parser", exception);
+        }
+    }
+}
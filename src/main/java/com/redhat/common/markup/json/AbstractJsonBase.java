@@ -4,10 +4,12 @@ import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.redhat.common.AbstractBase;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Abstract base class for JSON Objects
@@ -15,28 +17,142 @@ import java.util.Map;
  * @author sfloess
  */
 public abstract class AbstractJsonBase extends AbstractBase {
+    /**
+     * Created on first use - most objects have no unmanaged properties.
+     */
     @JsonIgnore
-    private Map<String, Object> additionalProperties = new HashMap<>();
+    private AdditionalProperties additionalProperties;
 
-    @JsonIgnore
-    private List<String> orderedAdditionalProperties = new ArrayList<>();
+    /**
+     * Return our unmanaged properties, creating the store if needed.
+     */
+    AdditionalProperties ensureAdditionalProperties() {
+        if (null == additionalProperties) {
+            additionalProperties = new AdditionalProperties();
+        }
+
+        return additionalProperties;
+    }
+
+    /**
+     * Our unmanaged properties before any exist - creates the store on the
+     * first write and then reads and writes through to it.
+     */
+    private final class LazyProperties extends AbstractMap<String, Object> {
+        @Override
+        public int size() {
+            return null == additionalProperties ? 0 : additionalProperties.size();
+        }
+
+        @Override
+        public boolean containsKey(final Object name) {
+            return null != additionalProperties && additionalProperties.containsKey(name);
+        }
+
+        @Override
+        public Object get(final Object name) {
+            return null == additionalProperties ? null : additionalProperties.get(name);
+        }
+
+        @Override
+        public Object put(final String name, final Object value) {
+            return ensureAdditionalProperties().put(name, value);
+        }
+
+        @Override
+        public Object remove(final Object name) {
+            return null == additionalProperties ? null : additionalProperties.remove(name);
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            return null == additionalProperties ? Collections.<Map.Entry<String, Object>>emptySet() : additionalProperties.entrySet();
+        }
+    }
+
+    /**
+     * Our unmanaged property names before any exist - creates the store on
+     * the first write and then reads and writes through to it.
+     */
+    private final class LazyHistory extends AbstractList<String> {
+        @Override
+        public String get(final int position) {
+            if (null == additionalProperties) {
+                throw new IndexOutOfBoundsException("Index: " + position + ", Size: 0");
+            }
 
+            return additionalProperties.getHistory().get(position);
+        }
+
+        @Override
+        public String set(final int position, final String name) {
+            return ensureAdditionalProperties().getHistory().set(position, name);
+        }
+
+        @Override
+        public void add(final int position, final String name) {
+            ensureAdditionalProperties().getHistory().add(position, name);
+
+            modCount++;
+        }
+
+        @Override
+        public String remove(final int position) {
+            final String retVal = ensureAdditionalProperties().getHistory().remove(position);
+
+            modCount++;
+
+            return retVal;
+        }
+
+        @Override
+        public int size() {
+            return null == additionalProperties ? 0 : additionalProperties.getHistory().size();
+        }
+    }
+
+    /**
+     * Return our unmanaged properties as a modifiable map. Until one is
+     * received this is a small view that creates the store on the first
+     * write, so serializing objects without any allocates no store.
+     */
     @JsonAnyGetter
     protected Map<String, Object> getAdditionalProperties() {
-        return this.additionalProperties;
+        return null == additionalProperties ? new LazyProperties() : additionalProperties;
     }
 
+    /**
+     * Return the names of unmanaged properties received, newest first and
+     * including repeats, as a modifiable list - changes are made to our own
+     * list of names.
+     */
     @JsonAnyGetter
     protected List<String> getOrderedAdditionalProperties() {
-        return this.orderedAdditionalProperties;
+        return null == additionalProperties ? new LazyHistory() : additionalProperties.getHistory();
     }
 
+    /**
+     * Store and process an unmanaged property, subject to our class's
+     * {@link UnknownPropertyPolicy}.
+     */
     @JsonAnySetter
     protected void setAdditionalProperty(String name, Object value) {
-        this.additionalProperties.put(name, value);
-        this.orderedAdditionalProperties.add(0, name);
+        final UnknownPropertyPolicies.Resolved resolved = UnknownPropertyPolicies.resolve(getClass());
+
+        if (!resolved.accepts(name)) {
+            if (resolved.rejects()) {
+                throw new JsonException("Unknown property [" + name + "] not allowed for " + getClass().getName());
+            }
+
+            return;
+        }
+
+        final AdditionalProperties properties = ensureAdditionalProperties();
+
+        properties.put(name, value);
+        properties.record(name);
 
-        logWarning("Received unmanaged property [", name, "] -> [", value, "]  Allowing sub-class to process");
+        logWarningRateLimited("Received unmanaged property - allowing sub-class to process [", name, "] -> ", value);
 
         processUnmanagedProperty(name, value);
     }
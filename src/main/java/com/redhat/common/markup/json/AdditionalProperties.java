@@ -0,0 +1,314 @@
+package com.redhat.common.markup.json;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact, insertion ordered store of unmanaged properties. Entries are held
+ * in parallel arrays and only indexed by a hash map once there are more than
+ * {@link #LINEAR_SCAN_LIMIT} of them. Every name received is also appended to
+ * a history, presented newest first, that includes repeated names.
+ *
+ * Not thread safe.
+ *
+ * @author sfloess
+ */
+final class AdditionalProperties extends AbstractMap<String, Object> {
+    /**
+     * Up to this many entries are found by scanning rather than hashing.
+     */
+    static final int LINEAR_SCAN_LIMIT = 8;
+
+    /**
+     * Initial array capacity.
+     */
+    static final int INITIAL_CAPACITY = 4;
+
+    private static final String[] NO_NAMES = new String[0];
+
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private String[] names;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Name to position, only built when above {@link #LINEAR_SCAN_LIMIT} entries.
+     */
+    private Map<String, Integer> index;
+
+    private String[] history;
+    private int historySize;
+
+    /**
+     * Return <code>array</code> large enough to hold <code>required</code> elements.
+     */
+    static <T> T[] ensureCapacity(final T[] array, final int required) {
+        return required <= array.length ? array : Arrays.copyOf(array, Math.max(INITIAL_CAPACITY, Math.max(required, array.length << 1)));
+    }
+
+    AdditionalProperties() {
+        this.names = NO_NAMES;
+        this.values = NO_VALUES;
+        this.history = NO_NAMES;
+    }
+
+    /**
+     * Return the position of <code>name</code> or -1.
+     */
+    int indexOf(final Object name) {
+        if (null != index) {
+            final Integer retVal = index.get(name);
+
+            return null == retVal ? -1 : retVal;
+        }
+
+        for (int position = 0; position < size; position++) {
+            if (null == name ? null == names[position] : name.equals(names[position])) {
+                return position;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Build or drop the index to suit the current size.
+     */
+    void reindex() {
+        if (size <= LINEAR_SCAN_LIMIT) {
+            index = null;
+
+            return;
+        }
+
+        index = new HashMap<>(size << 1);
+
+        for (int position = 0; position < size; position++) {
+            index.put(names[position], position);
+        }
+    }
+
+    /**
+     * Remove the entry at <code>position</code>.
+     */
+    Object removeAt(final int position) {
+        final Object retVal = values[position];
+        final int moved = size - position - 1;
+
+        System.arraycopy(names, position + 1, names, position, moved);
+        System.arraycopy(values, position + 1, values, position, moved);
+
+        size--;
+
+        names[size] = null;
+        values[size] = null;
+
+        if (null != index) {
+            reindex();
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Append <code>name</code> to the history.
+     */
+    void record(final String name) {
+        history = ensureCapacity(history, historySize + 1);
+        history[historySize++] = name;
+    }
+
+    /**
+     * Return the history position of <code>position</code> in the newest
+     * first view, after checking it is below <code>limit</code>.
+     */
+    int toHistoryIndex(final int position, final int limit) {
+        if (position < 0 || position >= limit) {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + historySize);
+        }
+
+        return historySize - 1 - position;
+    }
+
+    /**
+     * Return every name recorded, newest first, including repeats, as a
+     * modifiable view - changes are made to the history itself.
+     */
+    List<String> getHistory() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(final int position) {
+                return history[toHistoryIndex(position, historySize)];
+            }
+
+            @Override
+            public String set(final int position, final String name) {
+                final int historyIndex = toHistoryIndex(position, historySize);
+                final String retVal = history[historyIndex];
+
+                history[historyIndex] = name;
+
+                return retVal;
+            }
+
+            @Override
+            public void add(final int position, final String name) {
+                final int historyIndex = toHistoryIndex(position, historySize + 1) + 1;
+
+                history = ensureCapacity(history, historySize + 1);
+
+                System.arraycopy(history, historyIndex, history, historyIndex + 1, historySize - historyIndex);
+
+                history[historyIndex] = name;
+
+                historySize++;
+                modCount++;
+            }
+
+            @Override
+            public String remove(final int position) {
+                final int historyIndex = toHistoryIndex(position, historySize);
+                final String retVal = history[historyIndex];
+
+                System.arraycopy(history, historyIndex + 1, history, historyIndex, historySize - historyIndex - 1);
+
+                history[--historySize] = null;
+
+                modCount++;
+
+                return retVal;
+            }
+
+            @Override
+            public int size() {
+                return historySize;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(final Object name) {
+        return indexOf(name) >= 0;
+    }
+
+    @Override
+    public Object get(final Object name) {
+        final int position = indexOf(name);
+
+        return position < 0 ? null : values[position];
+    }
+
+    @Override
+    public Object put(final String name, final Object value) {
+        final int position = indexOf(name);
+
+        if (position >= 0) {
+            final Object retVal = values[position];
+
+            values[position] = value;
+
+            return retVal;
+        }
+
+        names = ensureCapacity(names, size + 1);
+        values = ensureCapacity(values, size + 1);
+
+        names[size] = name;
+        values[size] = value;
+
+        size++;
+
+        if (null != index) {
+            index.put(name, size - 1);
+        } else if (size > LINEAR_SCAN_LIMIT) {
+            reindex();
+        }
+
+        return null;
+    }
+
+    @Override
+    public Object remove(final Object name) {
+        final int position = indexOf(name);
+
+        return position < 0 ? null : removeAt(position);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+
+        size = 0;
+        index = null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new Iterator<Map.Entry<String, Object>>() {
+                    private int next;
+                    private int last = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        if (next >= size) {
+                            throw new NoSuchElementException();
+                        }
+
+                        last = next++;
+
+                        final String name = names[last];
+
+                        return new AbstractMap.SimpleEntry<String, Object>(name, values[last]) {
+                            @Override
+                            public Object setValue(final Object value) {
+                                super.setValue(value);
+
+                                return put(name, value);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0) {
+                            throw new IllegalStateException();
+                        }
+
+                        removeAt(last);
+
+                        next = last;
+                        last = -1;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -1,14 +1,24 @@
 package com.redhat.common.markup.json;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import static com.redhat.common.markup.MarkupBuilder.JSON;
 import com.redhat.common.utils.LoggerUtils;
 import com.redhat.common.utils.Strings;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.json.JSONString;
+import org.json.JSONTokener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,8 +34,281 @@ public final class JsonUtils {
         return logger;
     }
 
+    /**
+     * Convert <code>json</code> to an object of type <code>klass</code>. The
+     * JSON object's tokens are handed directly to Jackson - no string is
+     * created.
+     */
     public static <T> T jsonObjectToObject(final JSONObject json, final Class<T> klass) {
-        return JSON.asType(Objects.requireNonNull(json, "Cannot have a null JSON object!").toString(), klass);
+        return JSON.asType(toTokenBuffer(Objects.requireNonNull(json, "Cannot have a null JSON object!")).asParser(), klass);
+    }
+
+    /**
+     * Write <code>json</code> into a token buffer.
+     */
+    static TokenBuffer toTokenBuffer(final JSONObject json) {
+        final TokenBuffer retVal = new TokenBuffer(JSON.getMapper(), false);
+
+        writeJsonObject(retVal, json);
+
+        return retVal;
+    }
+
+    /**
+     * Read the value the parser is positioned at as a JSONObject, JSONArray,
+     * or scalar. Object members whose value is null are omitted and null
+     * array elements become <code>JSONObject.NULL</code> - the same as when
+     * built from a map.
+     */
+    static Object readValue(final JsonParser parser) throws Exception {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                return readJsonObject(parser, new JSONObject());
+
+            case START_ARRAY:
+                return readJsonArray(parser, new JSONArray());
+
+            case VALUE_STRING:
+                return parser.getText();
+
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+
+            case VALUE_EMBEDDED_OBJECT:
+                return JSONObject.wrap(parser.getEmbeddedObject());
+
+            default:
+                return JSONObject.NULL;
+        }
+    }
+
+    /**
+     * Populate <code>toPopulate</code> from an object the parser is positioned
+     * at.
+     */
+    static JSONObject readJsonObject(final JsonParser parser, final JSONObject toPopulate) throws Exception {
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            final String name = parser.getCurrentName();
+
+            parser.nextToken();
+
+            final Object value = readValue(parser);
+
+            if (JSONObject.NULL != value) {
+                toPopulate.put(name, value);
+            }
+        }
+
+        return toPopulate;
+    }
+
+    /**
+     * Populate <code>toPopulate</code> from an array the parser is positioned
+     * at.
+     */
+    static JSONArray readJsonArray(final JsonParser parser, final JSONArray toPopulate) throws Exception {
+        while (JsonToken.END_ARRAY != parser.nextToken()) {
+            toPopulate.put(readValue(parser));
+        }
+
+        return toPopulate;
+    }
+
+    /**
+     * Read the next object from <code>parser</code> directly into a
+     * JSONObject.
+     */
+    public static JSONObject readJsonObject(final JsonParser parser) {
+        Objects.requireNonNull(parser, "Cannot have a null parser!");
+
+        try {
+            if (null == parser.currentToken()) {
+                parser.nextToken();
+            }
+
+            if (JsonToken.START_OBJECT != parser.currentToken()) {
+                throw new JsonException("Expected the start of an object but found [" + parser.currentToken() + "]");
+            }
+
+            return readJsonObject(parser, new JSONObject());
+        } catch (final JsonException jsonException) {
+            throw jsonException;
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble reading a JSON object");
+
+            throw new JsonException("Trouble reading a JSON object", exception);
+        }
+    }
+
+    /**
+     * Read the next array from <code>parser</code> directly into a
+     * JSONArray.
+     */
+    public static JSONArray readJsonArray(final JsonParser parser) {
+        Objects.requireNonNull(parser, "Cannot have a null parser!");
+
+        try {
+            if (null == parser.currentToken()) {
+                parser.nextToken();
+            }
+
+            if (JsonToken.START_ARRAY != parser.currentToken()) {
+                throw new JsonException("Expected the start of an array but found [" + parser.currentToken() + "]");
+            }
+
+            return readJsonArray(parser, new JSONArray());
+        } catch (final JsonException jsonException) {
+            throw jsonException;
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble reading a JSON array");
+
+            throw new JsonException("Trouble reading a JSON array", exception);
+        }
+    }
+
+    /**
+     * Write a number given as text using the type a parser would choose for it.
+     */
+    static void writeNumber(final JsonGenerator generator, final String text) throws Exception {
+        if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+            generator.writeNumber(Double.parseDouble(text));
+
+            return;
+        }
+
+        final BigInteger value = new BigInteger(text);
+
+        if (value.bitLength() < Integer.SIZE) {
+            generator.writeNumber(value.intValue());
+        } else if (value.bitLength() < Long.SIZE) {
+            generator.writeNumber(value.longValue());
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    /**
+     * Write a JSONObject, JSONArray or scalar value to <code>generator</code>.
+     * Maps, collections and arrays held unwrapped are written as JSONObject.toString() would.
+     */
+    static void writeValue(final JsonGenerator generator, final Object value) throws Exception {
+        if (null == value || JSONObject.NULL.equals(value)) {
+            generator.writeNull();
+        } else if (value instanceof JSONObject) {
+            writeJsonObject(generator, (JSONObject) value);
+        } else if (value instanceof JSONArray) {
+            writeJsonArray(generator, (JSONArray) value);
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Float) {
+            generator.writeNumber((Float) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Number) {
+            writeNumber(generator, JSONObject.numberToString((Number) value));
+        } else if (value instanceof Enum) {
+            generator.writeString(((Enum) value).name());
+        } else if (value instanceof JSONString) {
+            writeValue(generator, new JSONTokener(((JSONString) value).toJSONString()).nextValue());
+        } else if (value instanceof Map) {
+            writeJsonObject(generator, new JSONObject((Map) value));
+        } else if (value instanceof Collection) {
+            writeJsonArray(generator, new JSONArray((Collection) value));
+        } else if (value.getClass().isArray()) {
+            writeJsonArray(generator, new JSONArray(value));
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    /**
+     * Write <code>json</code> to <code>generator</code> as an object.
+     */
+    public static void writeJsonObject(final JsonGenerator generator, final JSONObject json) {
+        Objects.requireNonNull(generator, "Cannot have a null generator!");
+        Objects.requireNonNull(json, "Cannot have a null JSON object!");
+
+        try {
+            generator.writeStartObject();
+
+            for (final String name : json.keySet()) {
+                generator.writeFieldName(name);
+
+                writeValue(generator, json.opt(name));
+            }
+
+            generator.writeEndObject();
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble writing a JSON object");
+
+            throw new JsonException("Trouble writing a JSON object", exception);
+        }
+    }
+
+    /**
+     * Write <code>jsonArray</code> to <code>generator</code> as an array.
+     */
+    public static void writeJsonArray(final JsonGenerator generator, final JSONArray jsonArray) {
+        Objects.requireNonNull(generator, "Cannot have a null generator!");
+        Objects.requireNonNull(jsonArray, "Cannot have a null JSON array!");
+
+        try {
+            generator.writeStartArray();
+
+            for (int index = 0; index < jsonArray.length(); index++) {
+                writeValue(generator, jsonArray.opt(index));
+            }
+
+            generator.writeEndArray();
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble writing a JSON array");
+
+            throw new JsonException("Trouble writing a JSON array", exception);
+        }
+    }
+
+    /**
+     * Convert a Jackson tree to a JSONObject without creating a string. As
+     * when built from a map, null members are omitted.
+     */
+    public static JSONObject toJsonObject(final JsonNode node) {
+        Objects.requireNonNull(node, "Cannot have a null JSON node!");
+
+        return readJsonObject(node.traverse(JSON.getMapper()));
+    }
+
+    /**
+     * Convert a JSONObject to a Jackson tree without creating a string.
+     */
+    public static JsonNode toJsonNode(final JSONObject json) {
+        Objects.requireNonNull(json, "Cannot have a null JSON object!");
+
+        try {
+            return JSON.getMapper().readTree(toTokenBuffer(json).asParser());
+        } catch (final Exception exception) {
+            LoggerUtils.logError(getLogger(), exception, "Trouble converting a JSON object to a tree");
+
+            throw new JsonException("Trouble converting a JSON object to a tree", exception);
+        }
     }
 
     /**
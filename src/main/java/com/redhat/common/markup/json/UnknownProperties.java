@@ -0,0 +1,33 @@
+package com.redhat.common.markup.json;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the {@link UnknownPropertyPolicy} of an {@link AbstractJsonBase} subclass.
+ *
+ * @author sfloess
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface UnknownProperties {
+    /**
+     * The policy to apply.
+     *
+     * @return the policy to apply.
+     */
+    UnknownPropertyPolicy value();
+
+    /**
+     * Names retained when the policy is {@link UnknownPropertyPolicy#RETAIN_WHITELIST}.
+     *
+     * @return names retained.
+     */
+    String[] whitelist() default {};
+}
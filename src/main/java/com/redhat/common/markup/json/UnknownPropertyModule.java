@@ -0,0 +1,110 @@
+package com.redhat.common.markup.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.SettableAnyProperty;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import java.io.IOException;
+
+/**
+ * Applies each {@link AbstractJsonBase} subclass's {@link UnknownPropertyPolicy}
+ * while parsing: unknown properties that would be discarded are skipped at the
+ * token level rather than deserialized, and rejected ones fail immediately.
+ *
+ * @author sfloess
+ */
+public final class UnknownPropertyModule extends SimpleModule {
+    /**
+     * Returned by {@link PolicyAnySetter#deserialize(JsonParser, DeserializationContext)}
+     * for values that were skipped.
+     */
+    static final Object SKIPPED = new Object();
+
+    /**
+     * Wraps the any-setter of an {@link AbstractJsonBase} subclass.
+     */
+    static final class PolicyAnySetter extends SettableAnyProperty {
+        private final Class<?> beanClass;
+
+        private final SettableAnyProperty delegate;
+
+        PolicyAnySetter(final Class<?> beanClass, final SettableAnyProperty delegate) {
+            super(delegate.getProperty(), null, delegate.getType(), null, null, null);
+
+            this.beanClass = beanClass;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public SettableAnyProperty withValueDeserializer(final JsonDeserializer<Object> deserializer) {
+            return new PolicyAnySetter(beanClass, delegate.withValueDeserializer(deserializer));
+        }
+
+        @Override
+        public void fixAccess(final DeserializationConfig config) {
+            delegate.fixAccess(config);
+        }
+
+        @Override
+        public boolean hasValueDeserializer() {
+            return delegate.hasValueDeserializer();
+        }
+
+        @Override
+        public Object deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+            final String name = parser.currentName();
+            final UnknownPropertyPolicies.Resolved resolved = UnknownPropertyPolicies.resolve(beanClass);
+
+            if (resolved.accepts(name)) {
+                return delegate.deserialize(parser, context);
+            }
+
+            if (resolved.rejects()) {
+                throw UnrecognizedPropertyException.from(parser, beanClass, name, null);
+            }
+
+            parser.skipChildren();
+
+            return SKIPPED;
+        }
+
+        @Override
+        public void set(final Object instance, final Object name, final Object value) throws IOException {
+            if (SKIPPED != value) {
+                delegate.set(instance, name, value);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "[policy any property on " + beanClass.getName() + "]";
+        }
+    }
+
+    /**
+     * Default constructor.
+     */
+    public UnknownPropertyModule() {
+        super(UnknownPropertyModule.class.getSimpleName());
+
+        setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public BeanDeserializerBuilder updateBuilder(final DeserializationConfig config, final BeanDescription beanDesc, final BeanDeserializerBuilder builder) {
+                final SettableAnyProperty anySetter = builder.getAnySetter();
+
+                if (null != anySetter && AbstractJsonBase.class.isAssignableFrom(beanDesc.getBeanClass())) {
+                    builder.setAnySetter(null);
+                    builder.setAnySetter(new PolicyAnySetter(beanDesc.getBeanClass(), anySetter));
+                }
+
+                return builder;
+            }
+        });
+    }
+}
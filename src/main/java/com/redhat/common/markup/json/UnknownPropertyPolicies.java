@@ -0,0 +1,147 @@
+package com.redhat.common.markup.json;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@link UnknownPropertyPolicy} of a class once and caches it.
+ * A policy set here for a class takes precedence over its
+ * {@link UnknownProperties} annotation; classes with neither use
+ * {@link UnknownPropertyPolicy#RETAIN}.
+ *
+ * @author sfloess
+ */
+public final class UnknownPropertyPolicies {
+    /**
+     * A resolved policy and its white list.
+     */
+    static final class Resolved {
+        static final Resolved RETAIN_ALL = new Resolved(UnknownPropertyPolicy.RETAIN, Collections.emptySet());
+
+        final UnknownPropertyPolicy policy;
+        final Set<String> whitelist;
+
+        Resolved(final UnknownPropertyPolicy policy, final Set<String> whitelist) {
+            this.policy = policy;
+            this.whitelist = whitelist;
+        }
+
+        /**
+         * Return true if <code>name</code> should be stored and processed.
+         */
+        boolean accepts(final String name) {
+            switch (policy) {
+                case RETAIN:
+                    return true;
+
+                case RETAIN_WHITELIST:
+                    return whitelist.contains(name);
+
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Return true if unknown properties must be rejected.
+         */
+        boolean rejects() {
+            return UnknownPropertyPolicy.FAIL == policy;
+        }
+    }
+
+    /**
+     * Policies set programmatically, by exact class.
+     */
+    private static final Map<Class<?>, Resolved> OVERRIDES = new ConcurrentHashMap<>();
+
+    /**
+     * Resolved policy per class.
+     */
+    private static final ClassValue<Resolved> RESOLVED = new ClassValue<Resolved>() {
+        @Override
+        protected Resolved computeValue(final Class<?> klass) {
+            final Resolved retVal = OVERRIDES.get(klass);
+
+            if (null != retVal) {
+                return retVal;
+            }
+
+            final UnknownProperties annotation = klass.getAnnotation(UnknownProperties.class);
+
+            return null == annotation ? Resolved.RETAIN_ALL : toResolved(annotation.value(), annotation.whitelist());
+        }
+    };
+
+    /**
+     * Convert a policy and white list to their resolved form.
+     */
+    static Resolved toResolved(final UnknownPropertyPolicy policy, final String[] whitelist) {
+        return new Resolved(policy, null == whitelist || 0 == whitelist.length ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(Arrays.asList(whitelist))));
+    }
+
+    /**
+     * Return the resolved policy for <code>klass</code>.
+     */
+    static Resolved resolve(final Class<?> klass) {
+        return RESOLVED.get(klass);
+    }
+
+    /**
+     * Default constructor not allowed.
+     */
+    private UnknownPropertyPolicies() {
+    }
+
+    /**
+     * Return the policy of <code>klass</code>.
+     *
+     * @param klass the class whose policy is desired.
+     *
+     * @return the policy of <code>klass</code>.
+     */
+    public static UnknownPropertyPolicy getPolicy(final Class<?> klass) {
+        return resolve(Objects.requireNonNull(klass, "Cannot have a null class!")).policy;
+    }
+
+    /**
+     * Return the names retained by <code>klass</code> under {@link UnknownPropertyPolicy#RETAIN_WHITELIST}.
+     *
+     * @param klass the class whose white list is desired.
+     *
+     * @return the names retained.
+     */
+    public static Set<String> getWhitelist(final Class<?> klass) {
+        return resolve(Objects.requireNonNull(klass, "Cannot have a null class!")).whitelist;
+    }
+
+    /**
+     * Set the policy of <code>klass</code>, overriding any annotation. Applies
+     * to that exact class only.
+     *
+     * @param klass     the class to configure.
+     * @param policy    the policy to apply.
+     * @param whitelist names retained under {@link UnknownPropertyPolicy#RETAIN_WHITELIST}.
+     */
+    public static void setPolicy(final Class<?> klass, final UnknownPropertyPolicy policy, final String... whitelist) {
+        OVERRIDES.put(Objects.requireNonNull(klass, "Cannot have a null class!"), toResolved(Objects.requireNonNull(policy, "Cannot have a null policy!"), whitelist));
+
+        RESOLVED.remove(klass);
+    }
+
+    /**
+     * Remove a policy set with {@link #setPolicy(Class, UnknownPropertyPolicy, String...)}.
+     *
+     * @param klass the class to reset.
+     */
+    public static void clearPolicy(final Class<?> klass) {
+        OVERRIDES.remove(Objects.requireNonNull(klass, "Cannot have a null class!"));
+
+        RESOLVED.remove(klass);
+    }
+}
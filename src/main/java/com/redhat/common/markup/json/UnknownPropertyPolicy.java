@@ -0,0 +1,28 @@
+package com.redhat.common.markup.json;
+
+/**
+ * How an {@link AbstractJsonBase} subclass treats properties it does not manage.
+ *
+ * @author sfloess
+ */
+public enum UnknownPropertyPolicy {
+    /**
+     * Skip unknown properties entirely - they are neither stored nor processed.
+     */
+    DROP,
+
+    /**
+     * Store and process every unknown property - the default.
+     */
+    RETAIN,
+
+    /**
+     * Store and process only the unknown properties named in the white list.
+     */
+    RETAIN_WHITELIST,
+
+    /**
+     * Reject any unknown property.
+     */
+    FAIL
+}
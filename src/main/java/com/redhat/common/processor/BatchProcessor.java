@@ -0,0 +1,53 @@
+package com.redhat.common.processor;
+
+import java.util.List;
+
+/**
+ * Interface for classes that can process many objects in a single bulk
+ * operation. Results must be positionally aligned with the batch: the result
+ * at index <code>i</code> belongs to the item at index <code>i</code>.
+ *
+ * @author sfloess
+ */
+@FunctionalInterface
+public interface BatchProcessor<T> {
+    /**
+     * The name of a processor.
+     */
+    default public String getName() {
+        return "";
+    }
+
+    /**
+     * A description of the processor.
+     */
+    default public String getDescription() {
+        return "";
+    }
+
+    /**
+     * Called before processing is invoked.
+     */
+    default List<T> preProcess(List<T> batch) {
+        return batch;
+    }
+
+    /**
+     * Perform bulk processing.
+     */
+    List<T> process(List<T> batch);
+
+    /**
+     * Called after processing is invoked.
+     */
+    default List<T> postProcess(List<T> batch, List<T> resultsOfProcessing) {
+        return resultsOfProcessing;
+    }
+
+    /**
+     * Called after processing is invoked when there is a failure.
+     */
+    default List<T> postProcessFailure(List<T> failedBatch, final Throwable failure) {
+        throw new ProcessorException("Failed to process batch of size " + failedBatch.size(), failure);
+    }
+}
@@ -0,0 +1,316 @@
+package com.redhat.common.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Composes processors into a single processor. Stages are fused: each item
+ * makes one pass through every stage's pre-process, process and post-process
+ * in turn with no intermediate collections. Stages may be conditional, may
+ * branch, and the pipeline may short-circuit. Since a pipeline is itself a
+ * processor, it can be handed to any executor unchanged.
+ *
+ * A failing stage has its <code>postProcessFailure</code> called - if that
+ * returns a value (rather than raising an exception) processing continues
+ * with it.
+ *
+ * @param <T> the type processed.
+ *
+ * @author sfloess
+ */
+public class ProcessorPipeline<T> extends AbstractProcessor<T> {
+    /**
+     * Our stages - replaced, never modified, when stages are added so
+     * processing can iterate by index without locking or allocating.
+     */
+    private volatile List<Stage<T>> stages = Collections.emptyList();
+
+    /**
+     * When true, each stage's time is recorded.
+     */
+    private volatile boolean timingEnabled = true;
+
+    /**
+     * Return a display name for <code>processor</code> - lambdas are named by
+     * their position in the pipeline.
+     */
+    String computeName(final Processor<?> processor) {
+        final String name = processor.getName();
+
+        if (null != name && !name.trim().isEmpty()) {
+            return name;
+        }
+
+        return processor.getClass().isSynthetic() ? "stage-" + stages.size() : processor.getClass().getSimpleName();
+    }
+
+    /**
+     * Run every lifecycle hook of <code>processor</code> for <code>toProcess</code>,
+     * counting a failure against <code>stage</code> whether or not
+     * <code>postProcessFailure</code> recovers from it.
+     */
+    static <T> T runStage(final Stage<T> stage, final Processor<T> processor, final T toProcess) {
+        try {
+            return processor.postProcess(toProcess, processor.process(processor.preProcess(toProcess)));
+        } catch (final Throwable throwable) {
+            stage.failures.increment();
+
+            return processor.postProcessFailure(toProcess, throwable);
+        }
+    }
+
+    /**
+     * Add a stage.
+     */
+    synchronized ProcessorPipeline<T> addStage(final Stage<T> stage) {
+        final List<Stage<T>> newStages = new ArrayList<>(stages.size() + 1);
+
+        newStages.addAll(stages);
+        newStages.add(stage);
+        stages = newStages;
+
+        return this;
+    }
+
+    /**
+     * Add a stage that processes every item.
+     */
+    public ProcessorPipeline<T> add(final Processor<T> processor) {
+        return addStage(new Stage<>(computeName(Objects.requireNonNull(processor, "Cannot have a null processor!")), null, processor, null, false));
+    }
+
+    /**
+     * Add a stage that only processes items for which <code>condition</code>
+     * holds - other items pass through untouched.
+     */
+    public ProcessorPipeline<T> addIf(final Predicate<? super T> condition, final Processor<T> processor) {
+        Objects.requireNonNull(condition, "Cannot have a null condition!");
+
+        return addStage(new Stage<>(computeName(Objects.requireNonNull(processor, "Cannot have a null processor!")), condition, processor, null, false));
+    }
+
+    /**
+     * Add a stage that processes items with <code>whenTrue</code> if
+     * <code>condition</code> holds, otherwise with <code>whenFalse</code>.
+     */
+    public ProcessorPipeline<T> addBranch(final Predicate<? super T> condition, final Processor<T> whenTrue, final Processor<T> whenFalse) {
+        Objects.requireNonNull(condition, "Cannot have a null condition!");
+        Objects.requireNonNull(whenTrue, "Cannot have a null processor when true!");
+        Objects.requireNonNull(whenFalse, "Cannot have a null processor when false!");
+
+        return addStage(new Stage<>(computeName(whenTrue) + "|" + computeName(whenFalse), condition, whenTrue, whenFalse, false));
+    }
+
+    /**
+     * Stop processing, returning the current item, when <code>condition</code>
+     * holds at this point in the pipeline.
+     */
+    public ProcessorPipeline<T> stopWhen(final Predicate<? super T> condition) {
+        return addStage(new Stage<>("stopWhen", Objects.requireNonNull(condition, "Cannot have a null condition!"), null, null, true));
+    }
+
+    /**
+     * Return true if stage times are being recorded.
+     */
+    public boolean isTimingEnabled() {
+        return timingEnabled;
+    }
+
+    /**
+     * Enable or disable recording of stage times.
+     */
+    public void setTimingEnabled(final boolean timingEnabled) {
+        this.timingEnabled = timingEnabled;
+    }
+
+    /**
+     * Return the number of stages.
+     */
+    public int size() {
+        return stages.size();
+    }
+
+    /**
+     * Return a snapshot of each stage's timing, in stage order.
+     */
+    public List<StageTiming> getStageTimings() {
+        final List<Stage<T>> currentStages = stages;
+        final List<StageTiming> retVal = new ArrayList<>(currentStages.size());
+
+        for (final Stage<T> stage : currentStages) {
+            retVal.add(stage.snapshot());
+        }
+
+        return Collections.unmodifiableList(retVal);
+    }
+
+    /**
+     * Reset all stage timings.
+     */
+    public void resetStageTimings() {
+        for (final Stage<T> stage : stages) {
+            stage.reset();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T process(final T toProcess) {
+        final boolean timing = timingEnabled;
+
+        final List<Stage<T>> currentStages = stages;
+
+        T retVal = toProcess;
+
+        for (int index = 0; index < currentStages.size(); index++) {
+            final Stage<T> stage = currentStages.get(index);
+
+            if (stage.shortCircuit) {
+                if (stage.condition.test(retVal)) {
+                    stage.invocations.increment();
+
+                    return retVal;
+                }
+
+                continue;
+            }
+
+            final Processor<T> processor = stage.select(retVal);
+
+            if (null == processor) {
+                stage.skipped.increment();
+
+                continue;
+            }
+
+            final long start = timing ? System.nanoTime() : 0L;
+
+            try {
+                retVal = runStage(stage, processor, retVal);
+            } finally {
+                stage.invocations.increment();
+
+                if (timing) {
+                    stage.totalNanos.add(System.nanoTime() - start);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * A single stage in the pipeline.
+     */
+    static final class Stage<T> {
+        final String name;
+        final Predicate<? super T> condition;
+        final Processor<T> whenTrue;
+        final Processor<T> whenFalse;
+        final boolean shortCircuit;
+
+        final LongAdder invocations = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+
+        Stage(final String name, final Predicate<? super T> condition, final Processor<T> whenTrue, final Processor<T> whenFalse, final boolean shortCircuit) {
+            this.name = name;
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+            this.shortCircuit = shortCircuit;
+        }
+
+        /**
+         * Return the processor to use for <code>toProcess</code> - null to skip.
+         */
+        Processor<T> select(final T toProcess) {
+            return null == condition || condition.test(toProcess) ? whenTrue : whenFalse;
+        }
+
+        StageTiming snapshot() {
+            return new StageTiming(name, invocations.sum(), skipped.sum(), failures.sum(), totalNanos.sum());
+        }
+
+        void reset() {
+            invocations.reset();
+            skipped.reset();
+            failures.reset();
+            totalNanos.reset();
+        }
+    }
+
+    /**
+     * A point in time view of a stage's timing. For a short-circuit stage,
+     * invocations is the number of times the pipeline was stopped.
+     */
+    public static final class StageTiming {
+        private final String name;
+        private final long invocations;
+        private final long skipped;
+        private final long failures;
+        private final long totalNanos;
+
+        StageTiming(final String name, final long invocations, final long skipped, final long failures, final long totalNanos) {
+            this.name = name;
+            this.invocations = invocations;
+            this.skipped = skipped;
+            this.failures = failures;
+            this.totalNanos = totalNanos;
+        }
+
+        /**
+         * The name of the stage's processor(s).
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * How many items the stage processed.
+         */
+        public long getInvocations() {
+            return invocations;
+        }
+
+        /**
+         * How many items the stage's condition skipped.
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * How many items failed in the stage.
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Total time spent in the stage.
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Average time per item spent in the stage.
+         */
+        public long getAverageNanos() {
+            return 0 == invocations ? 0 : totalNanos / invocations;
+        }
+
+        @Override
+        public String toString() {
+            return name + " [invocations=" + invocations + ", skipped=" + skipped + ", failures=" + failures + ", totalNanos=" + totalNanos + "]";
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.redhat.common.processor.engine;
+
+/**
+ * What a processing engine does with submitted items when its buffer is full.
+ *
+ * @author sfloess
+ */
+public enum OverflowPolicy {
+    /**
+     * The producer blocks until space is available (or its timeout passes).
+     */
+    BLOCK,
+
+    /**
+     * The submitted item is rejected.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest buffered item is discarded to make room for the submitted item.
+     */
+    DROP_OLDEST
+}
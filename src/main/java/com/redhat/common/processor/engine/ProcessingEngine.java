@@ -0,0 +1,409 @@
+package com.redhat.common.processor.engine;
+
+import com.redhat.common.AbstractBase;
+import com.redhat.common.processor.Processor;
+import com.redhat.common.processor.ProcessorException;
+import com.redhat.common.processor.executor.Executor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A producer/consumer engine. Producers submit items into a bounded ring
+ * buffer and a pool of consumer threads drains them through a processor. When
+ * the buffer is full, the overflow policy decides whether producers block or
+ * load is shed. On shutdown, submissions stop and consumers drain whatever is
+ * buffered before exiting.
+ *
+ * Producers hold a read lock while checking the engine runs and buffering an
+ * item, and shutting down takes the write lock, so an item is never accepted
+ * after consumers were told to stop. A producer blocked on a full buffer
+ * holds the read lock for at most {@link #POLL_MILLIS} at a time.
+ *
+ * @param <T> the type to process.
+ * @param <P> the type of processor.
+ *
+ * @author sfloess
+ */
+public class ProcessingEngine<T, P extends Processor<T>> extends AbstractBase {
+    /**
+     * How often, in milliseconds, blocked producers and idle consumers check
+     * whether the engine has been shut down.
+     */
+    static final long POLL_MILLIS = 100;
+
+    static final int NEW = 0;
+    static final int RUNNING = 1;
+    static final int SHUTDOWN = 2;
+    static final int STOPPED = 3;
+
+    private final Executor<T, P> executor;
+    private final P processor;
+    private final BlockingQueue<T> buffer;
+    private final int consumerCount;
+    private final OverflowPolicy overflowPolicy;
+    private final ThreadFactory threadFactory;
+
+    private final AtomicInteger state = new AtomicInteger(NEW);
+    private final ReadWriteLock admission = new ReentrantReadWriteLock();
+    private final CountDownLatch terminated;
+    private final List<Thread> consumers = new ArrayList<>();
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder processedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+
+    /**
+     * Create an engine.
+     *
+     * @param executor       processes each item - must be thread safe.
+     * @param processor      the processor used for every item.
+     * @param capacity       the maximum number of buffered items.
+     * @param consumerCount  the number of consumer threads.
+     * @param overflowPolicy what to do when the buffer is full.
+     * @param threadFactory  creates the consumer threads.
+     */
+    public ProcessingEngine(final Executor<T, P> executor, final P processor, final int capacity, final int consumerCount, final OverflowPolicy overflowPolicy, final ThreadFactory threadFactory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive:  " + capacity);
+        }
+
+        if (consumerCount < 1) {
+            throw new IllegalArgumentException("Consumer count must be positive:  " + consumerCount);
+        }
+
+        this.executor = Objects.requireNonNull(executor, "Cannot have a null executor!");
+        this.processor = Objects.requireNonNull(processor, "Cannot have a null processor!");
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "Cannot have a null overflow policy!");
+        this.threadFactory = Objects.requireNonNull(threadFactory, "Cannot have a null thread factory!");
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.consumerCount = consumerCount;
+        this.terminated = new CountDownLatch(consumerCount);
+    }
+
+    /**
+     * Create an engine whose consumer threads are named after the processor.
+     *
+     * @param executor       processes each item - must be thread safe.
+     * @param processor      the processor used for every item.
+     * @param capacity       the maximum number of buffered items.
+     * @param consumerCount  the number of consumer threads.
+     * @param overflowPolicy what to do when the buffer is full.
+     */
+    public ProcessingEngine(final Executor<T, P> executor, final P processor, final int capacity, final int consumerCount, final OverflowPolicy overflowPolicy) {
+        this(executor, processor, capacity, consumerCount, overflowPolicy, createThreadFactory(processor));
+    }
+
+    /**
+     * Create a thread factory naming threads after <code>processor</code>.
+     */
+    static ThreadFactory createThreadFactory(final Processor<?> processor) {
+        final String name = null == processor || null == processor.getName() || processor.getName().isEmpty() ? ProcessingEngine.class.getSimpleName() : processor.getName();
+        final AtomicInteger threadNumber = new AtomicInteger();
+
+        return runnable -> new Thread(runnable, name + "-consumer-" + threadNumber.incrementAndGet());
+    }
+
+    /**
+     * Start the consumer threads.
+     *
+     * @throws IllegalStateException if already started.
+     */
+    public synchronized void start() {
+        if (!state.compareAndSet(NEW, RUNNING)) {
+            throw new IllegalStateException("Engine has already been started");
+        }
+
+        for (int index = 0; index < consumerCount; index++) {
+            final Thread consumer = threadFactory.newThread(this::consume);
+
+            consumers.add(consumer);
+            consumer.start();
+        }
+    }
+
+    /**
+     * Drain the buffer until shut down and the buffer is empty.
+     */
+    void consume() {
+        try {
+            while (STOPPED != state.get()) {
+                final T item = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+                if (null != item) {
+                    process(item);
+                } else if (SHUTDOWN == state.get() && buffer.isEmpty()) {
+                    break;
+                }
+            }
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        } finally {
+            terminated.countDown();
+        }
+    }
+
+    /**
+     * Process a single item - failures are counted and logged, not propagated.
+     */
+    void process(final T item) {
+        try {
+            executor.executeProcessor(processor, item);
+
+            processedCount.increment();
+        } catch (final Throwable throwable) {
+            failedCount.increment();
+
+            logWarning(throwable, "Processor [", processor.getName(), "] failed to process: ", item);
+        }
+    }
+
+    /**
+     * Raise an exception if not accepting submissions.
+     */
+    void ensureRunning() {
+        if (RUNNING != state.get()) {
+            throw new ProcessorException("Engine is not accepting submissions");
+        }
+    }
+
+    /**
+     * Submit an item, blocking without limit if the policy is to block.
+     *
+     * @param item the item to process.
+     *
+     * @return true if the item was buffered, false if it was dropped.
+     *
+     * @throws ProcessorException if the engine is not running.
+     */
+    public boolean submit(final T item) {
+        return submit(item, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Submit an item. When the buffer is full and the policy is to block, wait
+     * at most <code>timeout</code> for space.
+     *
+     * @param item    the item to process.
+     * @param timeout how long to wait for space when blocking.
+     * @param unit    the unit of <code>timeout</code>.
+     *
+     * @return true if the item was buffered, false if it was dropped.
+     *
+     * @throws ProcessorException if the engine is not running or the producer
+     *                            is interrupted.
+     */
+    public boolean submit(final T item, final long timeout, final TimeUnit unit) {
+        Objects.requireNonNull(item, "Cannot submit a null item!");
+        Objects.requireNonNull(unit, "Cannot have a null time unit!");
+
+        if (OverflowPolicy.BLOCK == overflowPolicy) {
+            return submitBlocking(item, unit.toNanos(timeout));
+        }
+
+        admission.readLock().lock();
+
+        try {
+            ensureRunning();
+
+            if (buffer.offer(item)) {
+                submittedCount.increment();
+
+                return true;
+            }
+
+            if (OverflowPolicy.DROP_OLDEST == overflowPolicy) {
+                return submitDroppingOldest(item);
+            }
+        } finally {
+            admission.readLock().unlock();
+        }
+
+        droppedCount.increment();
+
+        return false;
+    }
+
+    /**
+     * Wait up to <code>timeoutNanos</code> for space in the buffer, releasing
+     * the read lock between attempts so shutdown is never held up for long.
+     */
+    boolean submitBlocking(final T item, final long timeoutNanos) {
+        final long deadline = System.nanoTime() + timeoutNanos;
+
+        try {
+            long remaining = timeoutNanos;
+
+            do {
+                admission.readLock().lock();
+
+                try {
+                    ensureRunning();
+
+                    if (buffer.offer(item, Math.max(0, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS))), TimeUnit.NANOSECONDS)) {
+                        submittedCount.increment();
+
+                        return true;
+                    }
+                } finally {
+                    admission.readLock().unlock();
+                }
+
+                remaining = deadline - System.nanoTime();
+            } while (remaining > 0);
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+
+            throw new ProcessorException("Interrupted while waiting to submit", interruptedException);
+        }
+
+        droppedCount.increment();
+
+        return false;
+    }
+
+    /**
+     * Discard the oldest buffered items until <code>item</code> fits - called
+     * holding the read lock.
+     */
+    boolean submitDroppingOldest(final T item) {
+        while (!buffer.offer(item)) {
+            if (null != buffer.poll()) {
+                droppedCount.increment();
+            }
+        }
+
+        submittedCount.increment();
+
+        return true;
+    }
+
+    /**
+     * Stop accepting submissions. Consumers process everything already
+     * buffered and then exit.
+     */
+    public synchronized void shutdown() {
+        admission.writeLock().lock();
+
+        try {
+            if (state.compareAndSet(NEW, STOPPED)) {
+                releaseNeverStarted();
+            }
+
+            state.compareAndSet(RUNNING, SHUTDOWN);
+        } finally {
+            admission.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Mark as terminated when consumers were never started.
+     */
+    void releaseNeverStarted() {
+        while (terminated.getCount() > 0) {
+            terminated.countDown();
+        }
+    }
+
+    /**
+     * Stop accepting submissions and stop consumers as soon as possible.
+     *
+     * @return the items that were buffered but not processed.
+     */
+    public synchronized List<T> shutdownNow() {
+        admission.writeLock().lock();
+
+        try {
+            if (NEW == state.getAndSet(STOPPED)) {
+                releaseNeverStarted();
+            }
+        } finally {
+            admission.writeLock().unlock();
+        }
+
+        for (final Thread consumer : consumers) {
+            consumer.interrupt();
+        }
+
+        final List<T> retVal = new ArrayList<>(buffer.size());
+
+        buffer.drainTo(retVal);
+
+        return retVal;
+    }
+
+    /**
+     * Wait for consumers to exit after a shutdown.
+     *
+     * @return true if all consumers exited, false if the timeout passed.
+     */
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /**
+     * Return true if accepting submissions.
+     */
+    public boolean isRunning() {
+        return RUNNING == state.get();
+    }
+
+    /**
+     * Return true once shut down and all consumers have exited.
+     */
+    public boolean isTerminated() {
+        return RUNNING != state.get() && 0 == terminated.getCount();
+    }
+
+    /**
+     * Return the overflow policy.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Return the number of items currently buffered.
+     */
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Return the number of items accepted into the buffer.
+     */
+    public long getSubmittedCount() {
+        return submittedCount.sum();
+    }
+
+    /**
+     * Return the number of items processed successfully.
+     */
+    public long getProcessedCount() {
+        return processedCount.sum();
+    }
+
+    /**
+     * Return the number of items whose processing failed.
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * Return the number of items shed because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+}
@@ -0,0 +1,228 @@
+package com.redhat.common.processor.executor;
+
+import com.redhat.common.AbstractBase;
+import com.redhat.common.processor.Processor;
+import com.redhat.common.processor.ProcessorException;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Abstract base class for asynchronously using a processor to process an
+ * object. Each lifecycle hook runs as its own stage on the supplied executor
+ * service, so no thread is blocked while waiting on a processor. Failures,
+ * timeouts and cancellation are all reported to the processor's
+ * <code>postProcessFailure</code>.
+ *
+ * @author sfloess
+ */
+public abstract class AbstractAsyncExecutor<T, P extends Processor<T>> extends AbstractBase implements AsyncExecutor<T, P> {
+    /**
+     * Used to time out processing. Shared by all instances.
+     */
+    private static final ScheduledThreadPoolExecutor TIMEOUT_SCHEDULER = createTimeoutScheduler();
+
+    /**
+     * Create the scheduler used for timeouts.
+     */
+    static ScheduledThreadPoolExecutor createTimeoutScheduler() {
+        final ScheduledThreadPoolExecutor retVal = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, AbstractAsyncExecutor.class.getSimpleName() + "-timeout");
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        retVal.setRemoveOnCancelPolicy(true);
+
+        return retVal;
+    }
+
+    /**
+     * Where the lifecycle hooks run.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * How long processing may take in milliseconds - 0 means no limit.
+     */
+    private volatile long timeout;
+
+    /**
+     * Run the lifecycle hooks on <code>executorService</code>, which could be a
+     * virtual thread per task executor on newer JDKs.
+     */
+    protected AbstractAsyncExecutor(final ExecutorService executorService) {
+        this.executorService = Objects.requireNonNull(executorService, "Cannot have a null executor service!");
+    }
+
+    /**
+     * Run the lifecycle hooks on the common fork/join pool.
+     */
+    protected AbstractAsyncExecutor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Return where the lifecycle hooks run.
+     */
+    protected ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Return how long processing may take in milliseconds - 0 means no limit.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Set how long processing may take - 0 means no limit.
+     */
+    public void setTimeout(final long timeout, final TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout cannot be negative:  " + timeout);
+        }
+
+        this.timeout = Objects.requireNonNull(unit, "Cannot have a null time unit!").toMillis(timeout);
+    }
+
+    /**
+     * Give subclasses a chance to manage pre-processing.
+     */
+    protected T doPreProcess(final P processor, final T toProcess) {
+        return processor.preProcess(toProcess);
+    }
+
+    /**
+     * Subclasses should perform actual processing.
+     */
+    protected abstract T doProcess(final P processor, final T toProcess);
+
+    /**
+     * Give subclasses a chance to manage post-processing.
+     */
+    protected T doPostProcess(final P processor, final T toProcess, final T result) {
+        return processor.postProcess(toProcess, result);
+    }
+
+    /**
+     * Give subclasses a chance to manage post-processing failures.
+     */
+    protected void doPostProcessFailure(final P processor, final T toProcess, final Throwable failure) {
+        processor.postProcessFailure(toProcess, failure);
+    }
+
+    /**
+     * Strip the wrappers completable futures place around failures.
+     */
+    static Throwable unwrap(final Throwable failure) {
+        return (failure instanceof CompletionException || failure instanceof ExecutionException) && null != failure.getCause() ? failure.getCause() : failure;
+    }
+
+    /**
+     * Report <code>failure</code> to the processor, returning the exception
+     * the future should complete with.
+     */
+    Throwable handleFailure(final P processor, final T toProcess, final Throwable failure) {
+        logError(failure, "Processor [", processor, "] had trouble processing: ", toProcess);
+
+        try {
+            doPostProcessFailure(processor, toProcess, failure);
+
+            return new ProcessorException(failure);
+        } catch (final Throwable throwable) {
+            return throwable;
+        }
+    }
+
+    /**
+     * Report <code>failure</code> to the processor on the executor service and
+     * only then complete <code>future</code>, so callers observe the failure
+     * after <code>postProcessFailure</code> ran - as with a synchronous
+     * executor. Runs on the calling thread if the executor service rejects it.
+     */
+    void fail(final CompletableFuture<T> future, final P processor, final T toProcess, final Throwable failure) {
+        final Runnable runnable = () -> future.completeExceptionally(handleFailure(processor, toProcess, failure));
+
+        try {
+            executorService.execute(runnable);
+        } catch (final RejectedExecutionException rejectedExecutionException) {
+            runnable.run();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<T> executeProcessorAsync(final P processor, final T toProcess) {
+        Objects.requireNonNull(processor, "Cannot provide a null processor for processing!");
+        Objects.requireNonNull(toProcess, "Cannot provide a null object for processing!");
+
+        final CompletableFuture<T> retVal = new CompletableFuture<>();
+
+        final CompletableFuture<T> pipeline;
+
+        try {
+            pipeline = CompletableFuture.supplyAsync(() -> doPreProcess(processor, toProcess), executorService)
+                    .thenApplyAsync(preProcessed -> doProcess(processor, preProcessed), executorService)
+                    .thenApplyAsync(result -> doPostProcess(processor, toProcess, result), executorService);
+        } catch (final RejectedExecutionException rejectedExecutionException) {
+            retVal.completeExceptionally(handleFailure(processor, toProcess, rejectedExecutionException));
+
+            return retVal;
+        }
+
+        // Ensures only one of success, failure, timeout or cancellation wins.
+        final AtomicBoolean settled = new AtomicBoolean();
+
+        pipeline.whenComplete((result, failure) -> {
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+
+            if (null == failure) {
+                retVal.complete(result);
+            } else {
+                retVal.completeExceptionally(handleFailure(processor, toProcess, unwrap(failure)));
+            }
+        });
+
+        final long currentTimeout = timeout;
+
+        if (currentTimeout > 0) {
+            final ScheduledFuture<?> timer = TIMEOUT_SCHEDULER.schedule(() -> {
+                if (settled.compareAndSet(false, true)) {
+                    pipeline.cancel(true);
+
+                    fail(retVal, processor, toProcess, new TimeoutException("Processing exceeded " + currentTimeout + " ms"));
+                }
+            }, currentTimeout, TimeUnit.MILLISECONDS);
+
+            retVal.whenComplete((result, failure) -> timer.cancel(false));
+        }
+
+        retVal.whenComplete((result, failure) -> {
+            if (retVal.isCancelled() && settled.compareAndSet(false, true)) {
+                pipeline.cancel(true);
+
+                fail(retVal, processor, toProcess, new CancellationException("Processing was cancelled"));
+            }
+        });
+
+        return retVal;
+    }
+}
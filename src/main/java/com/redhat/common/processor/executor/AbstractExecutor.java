@@ -3,6 +3,7 @@ package com.redhat.common.processor.executor;
 import com.redhat.common.AbstractBase;
 import com.redhat.common.processor.Processor;
 import com.redhat.common.processor.ProcessorException;
+import com.redhat.common.processor.metrics.ExecutorMetrics;
 import java.util.Objects;
 
 /**
@@ -11,6 +12,35 @@ import java.util.Objects;
  * @author sfloess
  */
 public abstract class AbstractExecutor<T, P extends Processor<T>> extends AbstractBase implements Executor<T, P> {
+    /**
+     * Where we record timings and outcomes - disabled by default.
+     */
+    private volatile ExecutorMetrics metrics = ExecutorMetrics.DISABLED;
+
+    /**
+     * Return where we record timings and outcomes.
+     */
+    public ExecutorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Set where we record timings and outcomes. Use null or
+     * <code>ExecutorMetrics.DISABLED</code> to stop recording.
+     */
+    public void setMetrics(final ExecutorMetrics metrics) {
+        this.metrics = null == metrics ? ExecutorMetrics.DISABLED : metrics;
+    }
+
+    /**
+     * Return the name metrics are recorded under for <code>processor</code>.
+     */
+    protected String computeMetricsName(final P processor) {
+        final String name = processor.getName();
+
+        return null == name || name.isEmpty() ? processor.getClass().getName() : name;
+    }
+
     /**
      * Give subclasses a chance to manage pre-processing.
      */
@@ -45,14 +75,60 @@ public abstract class AbstractExecutor<T, P extends Processor<T>> extends Abstra
         Objects.requireNonNull(processor, "Cannot provide a null processor for processing!");
         Objects.requireNonNull(toProcess, "Cannot provide a null object for processing!");
 
+        final ExecutorMetrics currentMetrics = metrics;
+
+        if (currentMetrics.isEnabled()) {
+            return executeMeasured(currentMetrics, processor, toProcess);
+        }
+
         try {
             return doPostProcess(processor, toProcess, doProcess(processor, doPreProcess(processor, toProcess)));
         } catch (final Throwable throwable) {
-            logError(throwable, "Processor [", processor, "] had trouble processing: ", toProcess);
+            throw handleFailure(processor, toProcess, throwable);
+        }
+    }
+
+    /**
+     * Process while recording each phase's timing to <code>currentMetrics</code>.
+     */
+    T executeMeasured(final ExecutorMetrics currentMetrics, final P processor, final T toProcess) {
+        final String name = computeMetricsName(processor);
+        final long start = System.nanoTime();
+
+        try {
+            final T preProcessed = doPreProcess(processor, toProcess);
+            final long preProcessEnd = System.nanoTime();
+
+            currentMetrics.recordPhase(name, ExecutorMetrics.Phase.PRE_PROCESS, preProcessEnd - start);
+
+            final T processed = doProcess(processor, preProcessed);
+            final long processEnd = System.nanoTime();
+
+            currentMetrics.recordPhase(name, ExecutorMetrics.Phase.PROCESS, processEnd - preProcessEnd);
 
-            doPostProcessFailure(processor, toProcess, throwable);
+            final T retVal = doPostProcess(processor, toProcess, processed);
+            final long postProcessEnd = System.nanoTime();
 
-            throw new ProcessorException(throwable);
+            currentMetrics.recordPhase(name, ExecutorMetrics.Phase.POST_PROCESS, postProcessEnd - processEnd);
+            currentMetrics.recordSuccess(name, postProcessEnd - start);
+
+            return retVal;
+        } catch (final Throwable throwable) {
+            currentMetrics.recordFailure(name, System.nanoTime() - start);
+
+            throw handleFailure(processor, toProcess, throwable);
         }
     }
+
+    /**
+     * Log and report <code>throwable</code> to the processor, returning the
+     * exception to raise.
+     */
+    ProcessorException handleFailure(final P processor, final T toProcess, final Throwable throwable) {
+        logError(throwable, "Processor [", processor, "] had trouble processing: ", toProcess);
+
+        doPostProcessFailure(processor, toProcess, throwable);
+
+        return new ProcessorException(throwable);
+    }
 }
@@ -0,0 +1,24 @@
+package com.redhat.common.processor.executor;
+
+import com.redhat.common.processor.Processor;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart to an executor.
+ *
+ * @author sfloess
+ */
+public interface AsyncExecutor<T, P extends Processor<T>> {
+
+    /**
+     * Using processor, will asynchronously force it to process toProcess.
+     *
+     * @param processor the processor who will process.
+     * @param toProcess the thing processor will process.
+     *
+     * @return a future containing the result of processing.
+     */
+    default CompletableFuture<T> executeProcessorAsync(final P processor, final T toProcess) {
+        return CompletableFuture.completedFuture(toProcess);
+    }
+}
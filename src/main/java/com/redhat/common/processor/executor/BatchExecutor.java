@@ -0,0 +1,188 @@
+package com.redhat.common.processor.executor;
+
+import com.redhat.common.AbstractBase;
+import com.redhat.common.processor.Processor;
+import com.redhat.common.processor.ProcessorException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Processes batches of objects in parallel. Each item is handed to an
+ * underlying executor, so the full pre-process, process, post-process and
+ * failure lifecycle applies to every item. Results are returned in input
+ * order and a failing item does not abort the rest of the batch.
+ *
+ * @param <T> the type to process.
+ * @param <P> the type of processor.
+ *
+ * @author sfloess
+ */
+public class BatchExecutor<T, P extends Processor<T>> extends AbstractBase implements Executor<T, P> {
+    /**
+     * Used when computing chunk sizes - how many chunks per available thread.
+     */
+    static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Performs the processing of each item - must be thread safe.
+     */
+    private final Executor<T, P> executor;
+
+    /**
+     * The threads upon which we fan out work.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * How many items each task processes - 0 means computed per batch.
+     */
+    private int chunkSize;
+
+    /**
+     * Process items using <code>executor</code> across the threads of
+     * <code>executorService</code>.
+     *
+     * @param executor        processes each item - must be thread safe.
+     * @param executorService where items are processed - may be a ForkJoinPool.
+     */
+    public BatchExecutor(final Executor<T, P> executor, final ExecutorService executorService) {
+        this.executor = Objects.requireNonNull(executor, "Cannot have a null executor!");
+        this.executorService = Objects.requireNonNull(executorService, "Cannot have a null executor service!");
+    }
+
+    /**
+     * Process items using <code>executor</code> on the common fork/join pool.
+     *
+     * @param executor processes each item - must be thread safe.
+     */
+    public BatchExecutor(final Executor<T, P> executor) {
+        this(executor, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Return the executor that processes each item.
+     */
+    protected Executor<T, P> getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Return the threads upon which work is fanned out.
+     */
+    protected ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Return how many items each task processes - 0 if computed per batch.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Set how many items each task processes. Use 0 to compute it per batch.
+     */
+    public void setChunkSize(final int chunkSize) {
+        if (chunkSize < 0) {
+            throw new IllegalArgumentException("Chunk size cannot be negative:  " + chunkSize);
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Return the number of threads we can expect to use.
+     */
+    int computeParallelism() {
+        return executorService instanceof ForkJoinPool ? ((ForkJoinPool) executorService).getParallelism() : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Return how many items each task should process for a batch of <code>size</code>.
+     */
+    int computeChunkSize(final int size) {
+        return chunkSize > 0 ? chunkSize : Math.max(1, size / (computeParallelism() * CHUNKS_PER_THREAD));
+    }
+
+    /**
+     * Process the items from <code>start</code> (inclusive) to <code>end</code>
+     * (exclusive), recording each result or failure.
+     */
+    void executeChunk(final P processor, final List<T> toProcess, final int start, final int end, final BatchResult<T> batchResult) {
+        for (int index = start; index < end; index++) {
+            try {
+                batchResult.setResult(index, executor.executeProcessor(processor, toProcess.get(index)));
+            } catch (final Throwable throwable) {
+                batchResult.setFailure(index, throwable);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T executeProcessor(final P processor, final T toProcess) {
+        return executor.executeProcessor(processor, toProcess);
+    }
+
+    /**
+     * Using processor, process every item in <code>toProcess</code> in parallel.
+     *
+     * @param processor the processor who will process.
+     * @param toProcess the things processor will process.
+     *
+     * @return the results, in the same order as <code>toProcess</code>.
+     */
+    public BatchResult<T> executeBatch(final P processor, final Collection<T> toProcess) {
+        Objects.requireNonNull(processor, "Cannot provide a null processor for processing!");
+        Objects.requireNonNull(toProcess, "Cannot provide a null collection for processing!");
+
+        final List<T> items = toProcess instanceof List && toProcess instanceof RandomAccess ? (List<T>) toProcess : new ArrayList<>(toProcess);
+        final BatchResult<T> retVal = new BatchResult<>(items.size());
+        final int size = items.size();
+        final int computedChunkSize = computeChunkSize(size);
+        final List<CompletableFuture<Void>> chunks = new ArrayList<>(size / computedChunkSize + 1);
+
+        try {
+            for (int start = 0; start < size; start += computedChunkSize) {
+                final int chunkStart = start;
+                final int chunkEnd = Math.min(size, start + computedChunkSize);
+
+                chunks.add(CompletableFuture.runAsync(() -> executeChunk(processor, items, chunkStart, chunkEnd, retVal), executorService));
+            }
+        } catch (final Throwable throwable) {
+            logError(throwable, "Processor [", processor, "] could not schedule a batch of size ", size);
+
+            throw new ProcessorException("Could not schedule a batch of size " + size, throwable);
+        }
+
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[chunks.size()])).join();
+
+        logIfDebug("Processor [", processor, "] processed a batch of size ", size, " with ", retVal.getFailureCount(), " failures");
+
+        return retVal;
+    }
+
+    /**
+     * Using processor, process every item in <code>toProcess</code> in parallel.
+     * The stream is consumed before processing begins.
+     *
+     * @param processor the processor who will process.
+     * @param toProcess the things processor will process.
+     *
+     * @return the results, in the same order as <code>toProcess</code>.
+     */
+    public BatchResult<T> executeBatch(final P processor, final Stream<T> toProcess) {
+        return executeBatch(processor, Objects.requireNonNull(toProcess, "Cannot provide a null stream for processing!").collect(Collectors.toList()));
+    }
+}
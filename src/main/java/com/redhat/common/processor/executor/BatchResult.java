@@ -0,0 +1,118 @@
+package com.redhat.common.processor.executor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of processing a batch - in the same order as the items
+ * submitted. Each item either has a result or a failure.
+ *
+ * @param <T> the type processed.
+ *
+ * @author sfloess
+ */
+public final class BatchResult<T> {
+    /**
+     * The results of processing, null where an item failed.
+     */
+    private final List<T> results;
+
+    /**
+     * The failures, null where an item succeeded.
+     */
+    private final Throwable[] failures;
+
+    BatchResult(final int size) {
+        this.results = new ArrayList<>(Collections.<T>nCopies(size, null));
+        this.failures = new Throwable[size];
+    }
+
+    /**
+     * Record a successful result for the item at <code>index</code>.
+     */
+    void setResult(final int index, final T result) {
+        results.set(index, result);
+    }
+
+    /**
+     * Record a failure for the item at <code>index</code>.
+     */
+    void setFailure(final int index, final Throwable failure) {
+        failures[index] = failure;
+    }
+
+    /**
+     * The number of items in the batch.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Return true if the item at <code>index</code> was processed successfully.
+     */
+    public boolean isSuccess(final int index) {
+        return null == failures[index];
+    }
+
+    /**
+     * Return the result for the item at <code>index</code> - null if it failed.
+     */
+    public T getResult(final int index) {
+        return results.get(index);
+    }
+
+    /**
+     * Return the failure for the item at <code>index</code> - null if it succeeded.
+     */
+    public Throwable getFailure(final int index) {
+        return failures[index];
+    }
+
+    /**
+     * Return all results in input order. Failed items have a null result.
+     */
+    public List<T> getResults() {
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * Return the failures keyed by the index of the failed item, in input order.
+     */
+    public Map<Integer, Throwable> getFailures() {
+        final Map<Integer, Throwable> retVal = new LinkedHashMap<>();
+
+        for (int index = 0; index < failures.length; index++) {
+            if (null != failures[index]) {
+                retVal.put(index, failures[index]);
+            }
+        }
+
+        return Collections.unmodifiableMap(retVal);
+    }
+
+    /**
+     * Return the number of items that failed.
+     */
+    public int getFailureCount() {
+        int retVal = 0;
+
+        for (final Throwable failure : failures) {
+            if (null != failure) {
+                retVal++;
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Return true if any item failed.
+     */
+    public boolean hasFailures() {
+        return getFailureCount() > 0;
+    }
+}
@@ -0,0 +1,314 @@
+package com.redhat.common.processor.executor;
+
+import com.redhat.common.AbstractBase;
+import com.redhat.common.processor.BatchProcessor;
+import com.redhat.common.processor.ProcessorException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces individually submitted items into batches for a bulk processor.
+ * A batch is dispatched once it reaches the maximum size or once its first
+ * item has waited the maximum time, whichever comes first. Each submitter
+ * receives a future for its own result.
+ *
+ * @param <T> the type to process.
+ * @param <P> the type of batch processor.
+ *
+ * @author sfloess
+ */
+public class MicroBatchExecutor<T, P extends BatchProcessor<T>> extends AbstractBase {
+    /**
+     * How often, in milliseconds, an idle or filling collector checks for
+     * shutdown.
+     */
+    static final long POLL_MILLIS = 100;
+
+    private final P processor;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+
+    /**
+     * Where bulk calls run - null to run them on the collector thread.
+     */
+    private final ExecutorService executorService;
+
+    private final BlockingQueue<Pending<T>> pending = new LinkedBlockingQueue<>();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder itemCount = new LongAdder();
+
+    private volatile boolean running;
+    private Thread collector;
+
+    /**
+     * Create an executor whose bulk calls run on <code>executorService</code>.
+     *
+     * @param processor       performs the bulk processing.
+     * @param maxBatchSize    the most items in a batch.
+     * @param maxWait         the longest an item waits for its batch to fill.
+     * @param unit            the unit of <code>maxWait</code>.
+     * @param executorService where bulk calls run - null to run them on the
+     *                        collector thread.
+     */
+    public MicroBatchExecutor(final P processor, final int maxBatchSize, final long maxWait, final TimeUnit unit, final ExecutorService executorService) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive:  " + maxBatchSize);
+        }
+
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("Max wait cannot be negative:  " + maxWait);
+        }
+
+        this.processor = Objects.requireNonNull(processor, "Cannot have a null processor!");
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = Objects.requireNonNull(unit, "Cannot have a null time unit!").toNanos(maxWait);
+        this.executorService = executorService;
+    }
+
+    /**
+     * Create an executor whose bulk calls run on the collector thread.
+     *
+     * @param processor    performs the bulk processing.
+     * @param maxBatchSize the most items in a batch.
+     * @param maxWait      the longest an item waits for its batch to fill.
+     * @param unit         the unit of <code>maxWait</code>.
+     */
+    public MicroBatchExecutor(final P processor, final int maxBatchSize, final long maxWait, final TimeUnit unit) {
+        this(processor, maxBatchSize, maxWait, unit, null);
+    }
+
+    /**
+     * Start collecting batches.
+     *
+     * @throws IllegalStateException if already started.
+     */
+    public synchronized void start() {
+        if (null != collector) {
+            throw new IllegalStateException("Executor has already been started");
+        }
+
+        final String name = null == processor.getName() || processor.getName().isEmpty() ? getClass().getSimpleName() : processor.getName();
+
+        running = true;
+        collector = new Thread(this::collect, name + "-collector");
+        collector.setDaemon(true);
+        collector.start();
+    }
+
+    /**
+     * Submit an item for processing in the next batch.
+     *
+     * @param item the item to process.
+     *
+     * @return a future for the item's result.
+     *
+     * @throws ProcessorException if not running.
+     */
+    public CompletableFuture<T> submit(final T item) {
+        Objects.requireNonNull(item, "Cannot submit a null item!");
+
+        if (!running) {
+            throw new ProcessorException("Executor is not accepting submissions");
+        }
+
+        final Pending<T> retVal = new Pending<>(item);
+
+        pending.add(retVal);
+
+        // Raced with a shutdown - the collector may already have exited.
+        if (!running && pending.remove(retVal)) {
+            throw new ProcessorException("Executor is not accepting submissions");
+        }
+
+        return retVal.future;
+    }
+
+    /**
+     * Gather and dispatch batches until shut down and nothing is pending.
+     */
+    void collect() {
+        try {
+            while (running || !pending.isEmpty()) {
+                final Pending<T> first = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+                if (null != first) {
+                    dispatch(fill(first));
+                }
+            }
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        } finally {
+            final List<Pending<T>> abandoned = new ArrayList<>();
+
+            pending.drainTo(abandoned);
+
+            fail(abandoned, new ProcessorException("Executor stopped before the item was processed"));
+
+            terminated.countDown();
+        }
+    }
+
+    /**
+     * Fill a batch starting with <code>first</code> until it is full, the
+     * maximum wait has passed or we are shut down - a partial batch is not
+     * held back once no more items can arrive.
+     */
+    List<Pending<T>> fill(final Pending<T> first) throws InterruptedException {
+        final List<Pending<T>> retVal = new ArrayList<>(maxBatchSize);
+        final long deadline = System.nanoTime() + maxWaitNanos;
+
+        retVal.add(first);
+
+        while (retVal.size() < maxBatchSize) {
+            pending.drainTo(retVal, maxBatchSize - retVal.size());
+
+            final long remaining = deadline - System.nanoTime();
+
+            if (retVal.size() >= maxBatchSize || remaining <= 0) {
+                break;
+            }
+
+            final Pending<T> next = pending.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS)), TimeUnit.NANOSECONDS);
+
+            if (null != next) {
+                retVal.add(next);
+            } else if (!running) {
+                break;
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Hand the batch to the processor, on our executor service if we have one.
+     */
+    void dispatch(final List<Pending<T>> batch) {
+        batchCount.increment();
+        itemCount.add(batch.size());
+
+        if (null == executorService) {
+            execute(batch);
+
+            return;
+        }
+
+        try {
+            executorService.execute(() -> execute(batch));
+        } catch (final Throwable throwable) {
+            fail(batch, new ProcessorException("Could not dispatch a batch of size " + batch.size(), throwable));
+        }
+    }
+
+    /**
+     * Perform the bulk call and complete each item's future.
+     */
+    void execute(final List<Pending<T>> batch) {
+        final List<T> items = new ArrayList<>(batch.size());
+
+        for (final Pending<T> entry : batch) {
+            items.add(entry.item);
+        }
+
+        try {
+            complete(batch, processor.postProcess(items, processor.process(processor.preProcess(items))));
+        } catch (final Throwable throwable) {
+            logError(throwable, "Batch processor [", processor, "] had trouble processing a batch of size ", batch.size());
+
+            try {
+                complete(batch, processor.postProcessFailure(items, throwable));
+            } catch (final Throwable failure) {
+                fail(batch, failure);
+            }
+        }
+    }
+
+    /**
+     * Complete each item's future with its positionally aligned result.
+     */
+    static <T> void complete(final List<Pending<T>> batch, final List<T> results) {
+        if (null == results || results.size() != batch.size()) {
+            throw new ProcessorException("Expected " + batch.size() + " results but received " + (null == results ? "none" : results.size()));
+        }
+
+        for (int index = 0; index < batch.size(); index++) {
+            batch.get(index).future.complete(results.get(index));
+        }
+    }
+
+    /**
+     * Fail each item's future with <code>failure</code>.
+     */
+    static <T> void fail(final List<Pending<T>> batch, final Throwable failure) {
+        for (final Pending<T> entry : batch) {
+            entry.future.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Stop accepting submissions. Pending items are still dispatched.
+     */
+    public void shutdown() {
+        running = false;
+    }
+
+    /**
+     * Wait for pending items to be dispatched after a shutdown. Bulk calls
+     * running on an executor service may still be in flight.
+     *
+     * @return true if the collector exited, false if the timeout passed.
+     */
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return null == collector || terminated.await(timeout, unit);
+    }
+
+    /**
+     * Return the most items in a batch.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Return the number of items waiting for a batch.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Return the number of batches dispatched.
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * Return the number of items dispatched.
+     */
+    public long getItemCount() {
+        return itemCount.sum();
+    }
+
+    /**
+     * An item awaiting its batch, and its caller's future.
+     */
+    static final class Pending<T> {
+        final T item;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Pending(final T item) {
+            this.item = item;
+        }
+    }
+}
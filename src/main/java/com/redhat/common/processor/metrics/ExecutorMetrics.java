@@ -0,0 +1,57 @@
+package com.redhat.common.processor.metrics;
+
+/**
+ * Receives timings and outcomes from executors. All methods default to doing
+ * nothing so executors can skip timing entirely when metrics are disabled.
+ *
+ * @author sfloess
+ */
+public interface ExecutorMetrics {
+    /**
+     * The phases of processing that are timed.
+     */
+    enum Phase {
+        PRE_PROCESS, PROCESS, POST_PROCESS
+    }
+
+    /**
+     * Metrics that record nothing.
+     */
+    ExecutorMetrics DISABLED = new ExecutorMetrics() {
+    };
+
+    /**
+     * Return true if timings should be taken and recorded.
+     */
+    default boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Record how long a phase of processing took.
+     *
+     * @param processorName the name of the processor.
+     * @param phase         the phase that was timed.
+     * @param nanos         how long the phase took.
+     */
+    default void recordPhase(final String processorName, final Phase phase, final long nanos) {
+    }
+
+    /**
+     * Record a successful processing.
+     *
+     * @param processorName the name of the processor.
+     * @param nanos         how long processing took in total.
+     */
+    default void recordSuccess(final String processorName, final long nanos) {
+    }
+
+    /**
+     * Record a failed processing.
+     *
+     * @param processorName the name of the processor.
+     * @param nanos         how long processing took until it failed.
+     */
+    default void recordFailure(final String processorName, final long nanos) {
+    }
+}
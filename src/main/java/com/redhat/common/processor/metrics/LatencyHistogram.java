@@ -0,0 +1,147 @@
+package com.redhat.common.processor.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free latency histogram in the style of HDR histograms. Values are
+ * bucketed log-linearly: each power of two is split into 32 sub-buckets, so
+ * percentiles are accurate to within about 3%. Values of 2^41 or more -
+ * roughly 36 minutes in nanoseconds - are recorded in the last bucket.
+ *
+ * @author sfloess
+ */
+public final class LatencyHistogram {
+    /**
+     * The number of bits used for sub-buckets.
+     */
+    static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The number of sub-buckets per power of two.
+     */
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The largest power of two tracked.
+     */
+    static final int MAX_EXPONENT = 40;
+
+    /**
+     * Total number of buckets.
+     */
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Return the bucket for <code>value</code>.
+     */
+    static int computeBucket(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return value < 0 ? 0 : (int) value;
+        }
+
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+        if (shift > MAX_EXPONENT - SUB_BUCKET_BITS) {
+            return BUCKET_COUNT - 1;
+        }
+
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * Return the highest value that falls in <code>bucket</code>.
+     */
+    static long computeHighestValue(final int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+
+        final int shift = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        final long subBucket = SUB_BUCKET_COUNT + (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Record a value.
+     */
+    public void record(final long value) {
+        buckets.incrementAndGet(computeBucket(value));
+        count.increment();
+        sum.add(value);
+
+        long currentMax = max.get();
+
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Clear all recorded values.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            buckets.set(bucket, 0);
+        }
+
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Return a point in time view of the histogram. Recording may continue
+     * concurrently, so the view is approximate.
+     */
+    public LatencySnapshot snapshot() {
+        final long[] counts = new long[BUCKET_COUNT];
+
+        long total = 0;
+
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            counts[bucket] = buckets.get(bucket);
+            total += counts[bucket];
+        }
+
+        final long currentMax = max.get();
+        final long currentCount = count.sum();
+        final long mean = 0 == currentCount ? 0 : sum.sum() / currentCount;
+
+        return new LatencySnapshot(total, mean, currentMax,
+                computePercentile(counts, total, 0.50, currentMax),
+                computePercentile(counts, total, 0.90, currentMax),
+                computePercentile(counts, total, 0.99, currentMax),
+                computePercentile(counts, total, 0.999, currentMax));
+    }
+
+    /**
+     * Return the value at <code>percentile</code> (0 to 1) of the recorded values.
+     */
+    static long computePercentile(final long[] counts, final long total, final double percentile, final long max) {
+        if (0 == total) {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(total * percentile));
+
+        long seen = 0;
+
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+
+            if (seen >= target) {
+                return Math.min(computeHighestValue(bucket), max);
+            }
+        }
+
+        return max;
+    }
+}
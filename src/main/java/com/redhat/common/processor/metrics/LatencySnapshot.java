@@ -0,0 +1,80 @@
+package com.redhat.common.processor.metrics;
+
+/**
+ * A point in time view of a latency histogram. All values are in nanoseconds.
+ *
+ * @author sfloess
+ */
+public final class LatencySnapshot {
+    private final long count;
+    private final long mean;
+    private final long max;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+
+    LatencySnapshot(final long count, final long mean, final long max, final long p50, final long p90, final long p99, final long p999) {
+        this.count = count;
+        this.mean = mean;
+        this.max = max;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+    }
+
+    /**
+     * The number of values recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The mean value.
+     */
+    public long getMean() {
+        return mean;
+    }
+
+    /**
+     * The largest value.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * The median value.
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * The 90th percentile.
+     */
+    public long getP90() {
+        return p90;
+    }
+
+    /**
+     * The 99th percentile.
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    /**
+     * The 99.9th percentile.
+     */
+    public long getP999() {
+        return p999;
+    }
+
+    @Override
+    public String toString() {
+        return "[count=" + count + ", mean=" + mean + ", max=" + max + ", p50=" + p50 + ", p90=" + p90 + ", p99=" + p99 + ", p999=" + p999 + "]";
+    }
+}
@@ -0,0 +1,201 @@
+package com.redhat.common.processor.metrics;
+
+import com.redhat.common.AbstractBase;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Lock free metrics keyed by processor name. Each processor's stats can be
+ * published as an MXBean named
+ * <code>com.redhat.common.processor:type=ProcessorMetrics,registry=&lt;registry&gt;,name=&lt;processor&gt;</code>.
+ *
+ * @author sfloess
+ */
+public class ProcessorMetrics extends AbstractBase implements ExecutorMetrics {
+    /**
+     * The JMX domain for our MXBeans.
+     */
+    public static final String JMX_DOMAIN = "com.redhat.common.processor";
+
+    /**
+     * The default registry name.
+     */
+    public static final String DEFAULT_REGISTRY = "default";
+
+    /**
+     * Distinguishes our MXBeans from those of other instances.
+     */
+    private final String registry;
+
+    /**
+     * When true, stats are published via JMX.
+     */
+    private final boolean jmxEnabled;
+
+    private final ConcurrentMap<String, ProcessorStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Create metrics published via JMX under <code>registry</code>.
+     *
+     * @param registry   distinguishes our MXBeans from other instances.
+     * @param jmxEnabled if true, publish stats via JMX.
+     */
+    public ProcessorMetrics(final String registry, final boolean jmxEnabled) {
+        this.registry = Objects.requireNonNull(registry, "Cannot have a null registry name!");
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    /**
+     * Create metrics published via JMX under the default registry.
+     */
+    public ProcessorMetrics() {
+        this(DEFAULT_REGISTRY, true);
+    }
+
+    /**
+     * Return the name of our JMX registry.
+     */
+    public String getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Return true if stats are published via JMX.
+     */
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    /**
+     * Compute the JMX name for <code>processorName</code>.
+     */
+    ObjectName computeObjectName(final String processorName) throws Exception {
+        return new ObjectName(JMX_DOMAIN + ":type=ProcessorMetrics,registry=" + ObjectName.quote(registry) + ",name=" + ObjectName.quote(processorName));
+    }
+
+    /**
+     * Publish <code>processorStats</code> via JMX.
+     */
+    void register(final ProcessorStats processorStats) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = computeObjectName(processorStats.getName());
+
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(processorStats, objectName);
+            }
+        } catch (final Exception exception) {
+            logWarning(exception, "Could not register metrics for processor [", processorStats.getName(), "]");
+        }
+    }
+
+    /**
+     * Return the stats for <code>processorName</code>, creating them if need be.
+     */
+    ProcessorStats getOrCreate(final String processorName) {
+        final ProcessorStats retVal = stats.get(processorName);
+
+        if (null != retVal) {
+            return retVal;
+        }
+
+        return stats.computeIfAbsent(processorName, name -> {
+            final ProcessorStats processorStats = new ProcessorStats(name);
+
+            if (jmxEnabled) {
+                register(processorStats);
+            }
+
+            return processorStats;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordPhase(final String processorName, final Phase phase, final long nanos) {
+        getOrCreate(processorName).recordPhase(phase, nanos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordSuccess(final String processorName, final long nanos) {
+        getOrCreate(processorName).recordSuccess(nanos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordFailure(final String processorName, final long nanos) {
+        getOrCreate(processorName).recordFailure(nanos);
+    }
+
+    /**
+     * Return the stats for <code>processorName</code> - null if none recorded.
+     */
+    public ProcessorStats getStats(final String processorName) {
+        return stats.get(processorName);
+    }
+
+    /**
+     * Return a point in time view of every processor's stats, keyed by name.
+     */
+    public Map<String, ProcessorSnapshot> snapshot() {
+        final Map<String, ProcessorSnapshot> retVal = new LinkedHashMap<>();
+
+        for (final ProcessorStats processorStats : stats.values()) {
+            retVal.put(processorStats.getName(), processorStats.snapshot());
+        }
+
+        return Collections.unmodifiableMap(retVal);
+    }
+
+    /**
+     * Clear all recorded stats. Processors remain registered.
+     */
+    public void reset() {
+        for (final ProcessorStats processorStats : stats.values()) {
+            processorStats.reset();
+        }
+    }
+
+    /**
+     * Remove all of our MXBeans and forget all stats.
+     */
+    public void unregister() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        for (final String processorName : stats.keySet()) {
+            try {
+                final ObjectName objectName = computeObjectName(processorName);
+
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+            } catch (final Exception exception) {
+                logWarning(exception, "Could not unregister metrics for processor [", processorName, "]");
+            }
+        }
+
+        stats.clear();
+    }
+}
@@ -0,0 +1,80 @@
+package com.redhat.common.processor.metrics;
+
+/**
+ * A point in time view of a single processor's metrics.
+ *
+ * @author sfloess
+ */
+public final class ProcessorSnapshot {
+    private final String name;
+    private final long successCount;
+    private final long failureCount;
+    private final LatencySnapshot preProcessLatency;
+    private final LatencySnapshot processLatency;
+    private final LatencySnapshot postProcessLatency;
+    private final LatencySnapshot totalLatency;
+
+    ProcessorSnapshot(final ProcessorStats stats) {
+        this.name = stats.getName();
+        this.successCount = stats.getSuccessCount();
+        this.failureCount = stats.getFailureCount();
+        this.preProcessLatency = stats.getPreProcessLatency();
+        this.processLatency = stats.getProcessLatency();
+        this.postProcessLatency = stats.getPostProcessLatency();
+        this.totalLatency = stats.getTotalLatency();
+    }
+
+    /**
+     * The name of the processor.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * How many items were processed successfully.
+     */
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * How many items failed processing.
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Latency of pre-processing.
+     */
+    public LatencySnapshot getPreProcessLatency() {
+        return preProcessLatency;
+    }
+
+    /**
+     * Latency of processing.
+     */
+    public LatencySnapshot getProcessLatency() {
+        return processLatency;
+    }
+
+    /**
+     * Latency of post-processing.
+     */
+    public LatencySnapshot getPostProcessLatency() {
+        return postProcessLatency;
+    }
+
+    /**
+     * Latency of the entire lifecycle, successful or not.
+     */
+    public LatencySnapshot getTotalLatency() {
+        return totalLatency;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [successes=" + successCount + ", failures=" + failureCount + ", preProcess=" + preProcessLatency + ", process=" + processLatency + ", postProcess=" + postProcessLatency + ", total=" + totalLatency + "]";
+    }
+}
@@ -0,0 +1,129 @@
+package com.redhat.common.processor.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies for a single processor.
+ *
+ * @author sfloess
+ */
+public final class ProcessorStats implements ProcessorStatsMXBean {
+    private final String name;
+
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+
+    private final LatencyHistogram[] phaseLatencies = new LatencyHistogram[ExecutorMetrics.Phase.values().length];
+    private final LatencyHistogram totalLatency = new LatencyHistogram();
+
+    ProcessorStats(final String name) {
+        this.name = name;
+
+        for (int index = 0; index < phaseLatencies.length; index++) {
+            phaseLatencies[index] = new LatencyHistogram();
+        }
+    }
+
+    void recordPhase(final ExecutorMetrics.Phase phase, final long nanos) {
+        phaseLatencies[phase.ordinal()].record(nanos);
+    }
+
+    void recordSuccess(final long nanos) {
+        successCount.increment();
+        totalLatency.record(nanos);
+    }
+
+    void recordFailure(final long nanos) {
+        failureCount.increment();
+        totalLatency.record(nanos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSuccessCount() {
+        return successCount.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * Return the latency of <code>phase</code>.
+     */
+    public LatencySnapshot getLatency(final ExecutorMetrics.Phase phase) {
+        return phaseLatencies[phase.ordinal()].snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencySnapshot getPreProcessLatency() {
+        return getLatency(ExecutorMetrics.Phase.PRE_PROCESS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencySnapshot getProcessLatency() {
+        return getLatency(ExecutorMetrics.Phase.PROCESS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencySnapshot getPostProcessLatency() {
+        return getLatency(ExecutorMetrics.Phase.POST_PROCESS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencySnapshot getTotalLatency() {
+        return totalLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        successCount.reset();
+        failureCount.reset();
+        totalLatency.reset();
+
+        for (final LatencyHistogram phaseLatency : phaseLatencies) {
+            phaseLatency.reset();
+        }
+    }
+
+    /**
+     * Return a point in time view of our counters and latencies.
+     */
+    public ProcessorSnapshot snapshot() {
+        return new ProcessorSnapshot(this);
+    }
+
+    @Override
+    public String toString() {
+        return name + " [successes=" + getSuccessCount() + ", failures=" + getFailureCount() + ", total=" + getTotalLatency() + "]";
+    }
+}
@@ -0,0 +1,48 @@
+package com.redhat.common.processor.metrics;
+
+/**
+ * JMX view of a single processor's metrics. Latencies are in nanoseconds.
+ *
+ * @author sfloess
+ */
+public interface ProcessorStatsMXBean {
+    /**
+     * The name of the processor.
+     */
+    String getName();
+
+    /**
+     * How many items were processed successfully.
+     */
+    long getSuccessCount();
+
+    /**
+     * How many items failed processing.
+     */
+    long getFailureCount();
+
+    /**
+     * Latency of pre-processing.
+     */
+    LatencySnapshot getPreProcessLatency();
+
+    /**
+     * Latency of processing.
+     */
+    LatencySnapshot getProcessLatency();
+
+    /**
+     * Latency of post-processing.
+     */
+    LatencySnapshot getPostProcessLatency();
+
+    /**
+     * Latency of the entire lifecycle, successful or not.
+     */
+    LatencySnapshot getTotalLatency();
+
+    /**
+     * Clear all counters and latencies.
+     */
+    void reset();
+}
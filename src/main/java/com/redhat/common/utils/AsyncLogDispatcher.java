@@ -0,0 +1,522 @@
+package com.redhat.common.utils;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+/**
+ * Hands formatted log events to a single drain thread that writes them to the
+ * underlying SLF4J loggers, so request threads do not block on appender I/O.
+ *
+ * Events are queued in a bounded, lock-free multi-producer/single-consumer
+ * ring buffer. Messages are formatted on the calling thread - only the write
+ * is deferred. The drain thread removes events in batches of up to
+ * {@link #getBatchSize()} before checking whether it should park. Note that
+ * MDC values and thread names seen by appenders are those of the drain thread.
+ *
+ * Install with {@link LoggerUtils#setAsyncLogging(boolean)} or
+ * {@link LoggerUtils#setAsyncLogging(AsyncLogDispatcher)}.
+ *
+ * @author sfloess
+ */
+public final class AsyncLogDispatcher {
+    /**
+     * What to do when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for the drain thread to make room - no events are lost.
+         */
+        BLOCK,
+
+        /**
+         * Discard the event and count it as dropped.
+         */
+        DROP
+    }
+
+    /**
+     * Default ring buffer capacity.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * Default number of events written per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * Default time the drain thread parks when it finds nothing to write.
+     */
+    public static final long DEFAULT_MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * How long a blocked producer parks before retrying.
+     */
+    static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Set on the tail once closed - no producer may claim a slot afterwards.
+     */
+    static final long CLOSED = 1L << 62;
+
+    /**
+     * A log event waiting to be written.
+     */
+    static final class LogEvent {
+        final Logger logger;
+        final Level level;
+        final String message;
+        final Throwable throwable;
+
+        LogEvent(final Logger logger, final Level level, final String message, final Throwable throwable) {
+            this.logger = logger;
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
+    }
+
+    private final int mask;
+
+    private final AtomicReferenceArray<LogEvent> slots;
+
+    /**
+     * Per slot sequence: equal to the claiming position when the slot is free,
+     * one past it once published.
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail;
+
+    /**
+     * Next position to read - only written by the drain thread.
+     */
+    private volatile long head;
+
+    /**
+     * Position before which every event has been written, not just read -
+     * only written by the drain thread.
+     */
+    private volatile long completed;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final LongAdder published;
+    private final LongAdder dropped;
+    private final LongAdder written;
+    private final LongAdder failed;
+
+    private volatile int batchSize;
+
+    private volatile long maxIdleNanos;
+
+    private volatile boolean parked;
+
+    private volatile Thread drainThread;
+
+    /**
+     * Round up to the next power of two.
+     */
+    static int toCapacity(final int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30: " + capacity);
+        }
+
+        return 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+    }
+
+    /**
+     * Write <code>event</code> to its logger.
+     */
+    static void write(final LogEvent event) {
+        LoggerUtils.write(event.logger, event.level, event.message, event.throwable);
+    }
+
+    /**
+     * Create a dispatcher holding at least <code>capacity</code> events.
+     *
+     * @param capacity       minimum number of events held - rounded up to a power of two.
+     * @param overflowPolicy what to do when full.
+     */
+    public AsyncLogDispatcher(final int capacity, final OverflowPolicy overflowPolicy) {
+        final int actualCapacity = toCapacity(capacity);
+
+        this.mask = actualCapacity - 1;
+        this.slots = new AtomicReferenceArray<>(actualCapacity);
+        this.sequences = new AtomicLongArray(actualCapacity);
+        this.tail = new AtomicLong();
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "Cannot have a null overflow policy!");
+        this.published = new LongAdder();
+        this.dropped = new LongAdder();
+        this.written = new LongAdder();
+        this.failed = new LongAdder();
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.maxIdleNanos = DEFAULT_MAX_IDLE_NANOS;
+
+        for (int index = 0; index < actualCapacity; index++) {
+            sequences.set(index, index);
+        }
+    }
+
+    /**
+     * Create a blocking dispatcher of the default capacity.
+     */
+    public AsyncLogDispatcher() {
+        this(DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Return the ring buffer capacity.
+     *
+     * @return the ring buffer capacity.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Return what happens when full.
+     *
+     * @return what happens when full.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Return the maximum number of events written before the drain thread
+     * checks whether to park.
+     *
+     * @return the batch size.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set the maximum number of events written per batch.
+     *
+     * @param batchSize the batch size - must be positive.
+     */
+    public void setBatchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Return the longest time the drain thread parks when idle.
+     *
+     * @param unit the unit of the returned value.
+     *
+     * @return the longest idle park.
+     */
+    public long getMaxIdle(final TimeUnit unit) {
+        return Objects.requireNonNull(unit, "Cannot have a null time unit!").convert(maxIdleNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Set the longest time the drain thread parks when idle. Producers wake
+     * it early, so this only bounds how long a missed wake up can delay writes.
+     *
+     * @param maxIdle the longest idle park - must be positive.
+     * @param unit    the unit of <code>maxIdle</code>.
+     */
+    public void setMaxIdle(final long maxIdle, final TimeUnit unit) {
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("Max idle must be positive: " + maxIdle);
+        }
+
+        this.maxIdleNanos = Objects.requireNonNull(unit, "Cannot have a null time unit!").toNanos(maxIdle);
+    }
+
+    /**
+     * Return the number of events queued.
+     *
+     * @return the number of events queued.
+     */
+    public long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * Return the number of events discarded because the buffer was full.
+     *
+     * @return the number of events dropped.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Return the number of events written by the drain thread.
+     *
+     * @return the number of events written.
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * Return the number of events whose write threw.
+     *
+     * @return the number of failed writes.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Return the number of events waiting to be written.
+     *
+     * @return the number of events pending.
+     */
+    public long getPending() {
+        return Math.max(0, (tail.get() & ~CLOSED) - head);
+    }
+
+    /**
+     * Return true if started and not yet closed.
+     *
+     * @return true if accepting events.
+     */
+    public boolean isRunning() {
+        return null != drainThread && (tail.get() & CLOSED) == 0;
+    }
+
+    /**
+     * Start the drain thread.
+     *
+     * @return this dispatcher.
+     */
+    public synchronized AsyncLogDispatcher start() {
+        if (null != drainThread) {
+            throw new IllegalStateException("Already started");
+        }
+
+        final Thread thread = new Thread(this::drain, "async-log-dispatcher");
+
+        thread.setDaemon(true);
+
+        drainThread = thread;
+
+        thread.start();
+
+        return this;
+    }
+
+    /**
+     * Queue an event. Returns false if the event was not queued because this
+     * dispatcher is not running or the caller is the drain thread - in which
+     * case the caller should write it directly. Events dropped because the
+     * buffer is full return true.
+     */
+    boolean dispatch(final Logger logger, final Level level, final String message, final Throwable throwable) {
+        final Thread thread = drainThread;
+
+        if (null == thread || Thread.currentThread() == thread) {
+            return false;
+        }
+
+        final LogEvent event = new LogEvent(logger, level, message, throwable);
+
+        while (true) {
+            final long position = offer(event);
+
+            // Checked first - CLOSED is itself a non-negative position...
+            if (CLOSED == position) {
+                return false;
+            }
+
+            if (position >= 0) {
+                published.increment();
+
+                if (parked) {
+                    LockSupport.unpark(thread);
+                }
+
+                return true;
+            }
+
+            if (OverflowPolicy.DROP == overflowPolicy) {
+                dropped.increment();
+
+                return true;
+            }
+
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Claim a slot and publish <code>event</code>. Returns the claimed
+     * position, -1 if full or {@link #CLOSED} if closed.
+     */
+    long offer(final LogEvent event) {
+        while (true) {
+            final long position = tail.get();
+
+            if ((position & CLOSED) != 0) {
+                return CLOSED;
+            }
+
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, event);
+                    sequences.lazySet(index, position + 1);
+
+                    return position;
+                }
+            } else if (difference < 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Remove the next event, or return null if the next slot is not yet
+     * published. Only called by the single consumer.
+     */
+    LogEvent poll() {
+        final long position = head;
+        final int index = (int) position & mask;
+
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        final LogEvent retVal = slots.get(index);
+
+        slots.lazySet(index, null);
+        sequences.lazySet(index, position + mask + 1);
+
+        head = position + 1;
+
+        return retVal;
+    }
+
+    /**
+     * Write up to <code>max</code> events, returning how many were written.
+     */
+    int writeBatch(final int max) {
+        int count = 0;
+
+        for (LogEvent event = null; count < max && null != (event = poll()); count++) {
+            try {
+                write(event);
+                written.increment();
+            } catch (final RuntimeException exception) {
+                failed.increment();
+            }
+        }
+
+        if (count > 0) {
+            completed = head;
+        }
+
+        return count;
+    }
+
+    /**
+     * Drain thread loop - runs until closed and every claimed slot is written.
+     */
+    void drain() {
+        while ((tail.get() & CLOSED) == 0) {
+            if (writeBatch(batchSize) > 0) {
+                continue;
+            }
+
+            parked = true;
+
+            if (0 == getPending() && (tail.get() & CLOSED) == 0) {
+                LockSupport.parkNanos(this, maxIdleNanos);
+            }
+
+            parked = false;
+        }
+
+        final long end = tail.get() & ~CLOSED;
+
+        while (head < end) {
+            if (0 == writeBatch(batchSize)) {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Wait until every event queued before this call has been written.
+     *
+     * @param timeout how long to wait.
+     * @param unit    the unit of <code>timeout</code>.
+     *
+     * @return true if flushed, false if the time elapsed first.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean flush(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long target = tail.get() & ~CLOSED;
+        final long deadline = System.nanoTime() + Objects.requireNonNull(unit, "Cannot have a null time unit!").toNanos(timeout);
+        final Thread thread = drainThread;
+
+        while (completed < target) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+
+            if (null != thread) {
+                LockSupport.unpark(thread);
+            }
+
+            LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+        }
+
+        return true;
+    }
+
+    /**
+     * Stop accepting events and wait for those already queued to be written.
+     * Callers logging afterwards are told to write directly.
+     *
+     * @param timeout how long to wait.
+     * @param unit    the unit of <code>timeout</code>.
+     *
+     * @return true if every queued event was written.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean close(final long timeout, final TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(unit, "Cannot have a null time unit!");
+
+        tail.getAndAccumulate(CLOSED, (current, closed) -> current | closed);
+
+        final Thread thread = drainThread;
+
+        if (null == thread) {
+            return true;
+        }
+
+        LockSupport.unpark(thread);
+
+        thread.join(Math.max(1, unit.toMillis(timeout)));
+
+        return !thread.isAlive();
+    }
+}
@@ -0,0 +1,449 @@
+package com.redhat.common.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+/**
+ * Limits how often the same message is logged. Messages are keyed on the
+ * logger (the call site's class), level and message template - at most
+ * {@link #getPermits()} messages per key are allowed each interval and the
+ * rest are counted. The next message allowed for a key reports how many were
+ * suppressed before it. Counts not reported that way - the flood stopped, or
+ * the key was evicted - are handed to the {@link SummaryListener} once the
+ * key's interval has ended, by the next call for any key, or by
+ * {@link #flush()}.
+ *
+ * The number of tracked keys is capped. Keys unused for an interval are
+ * evicted; when full, new keys share one window per level.
+ *
+ * @author sfloess
+ */
+public final class LogRateLimiter {
+    /**
+     * Returned by {@link #acquire(String, Level, String)} when a message should be suppressed.
+     */
+    public static final long SUPPRESSED = -1;
+
+    /**
+     * Default number of messages allowed per key each interval.
+     */
+    public static final int DEFAULT_PERMITS = 10;
+
+    /**
+     * Default interval, in seconds.
+     */
+    public static final long DEFAULT_INTERVAL_SECONDS = 60;
+
+    /**
+     * Default maximum number of keys tracked.
+     */
+    public static final int DEFAULT_MAX_KEYS = 1024;
+
+    /**
+     * Template reported for messages counted in a level's shared window.
+     */
+    static final String OVERFLOW_TEMPLATE = "Messages beyond the tracked key limit";
+
+    /**
+     * Receives the number of messages suppressed for a key that were not
+     * reported with a later message for that key.
+     */
+    @FunctionalInterface
+    public interface SummaryListener {
+        /**
+         * Called with the messages suppressed for a key.
+         *
+         * @param loggerName the name of the logger used.
+         * @param level      the level logged at.
+         * @param template   the constant part of the messages.
+         * @param suppressed how many were suppressed - always positive.
+         */
+        void onSuppressed(String loggerName, Level level, String template, long suppressed);
+    }
+
+    /**
+     * Logs a summary to the logger the messages were suppressed from.
+     */
+    public static final SummaryListener LOG_SUMMARY = (loggerName, level, template, suppressed) -> LoggerUtils.emit(LoggerFactory.getLogger(loggerName), level, toSummary(template + "...", suppressed), null);
+
+    /**
+     * Per thread key used for lookups, so existing keys are found without allocating.
+     */
+    private static final ThreadLocal<Key> PROBE = ThreadLocal.withInitial(Key::new);
+
+    /**
+     * Return <code>message</code> noting <code>suppressed</code> similar messages.
+     *
+     * @param message    the message.
+     * @param suppressed how many similar messages were suppressed.
+     *
+     * @return the message and the count suppressed.
+     */
+    public static String toSummary(final String message, final long suppressed) {
+        return message + " [" + suppressed + " similar messages suppressed]";
+    }
+
+    /**
+     * Identifies a message: logger name, level and template. Keys stored in
+     * the map are never changed - only per thread probes are reused.
+     */
+    static final class Key {
+        String loggerName;
+        Level level;
+        String template;
+        int hash;
+
+        Key() {
+        }
+
+        Key(final String loggerName, final Level level, final String template) {
+            set(loggerName, level, template);
+        }
+
+        /**
+         * Identify <code>loggerName</code>, <code>level</code> and <code>template</code>.
+         */
+        Key set(final String loggerName, final Level level, final String template) {
+            this.loggerName = loggerName;
+            this.level = level;
+            this.template = template;
+            this.hash = 31 * (31 * loggerName.hashCode() + level.hashCode()) + template.hashCode();
+
+            return this;
+        }
+
+        /**
+         * Return a key to store - a probe must not be.
+         */
+        Key copy() {
+            return new Key(loggerName, level, template);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (this == object) {
+                return true;
+            }
+
+            if (!(object instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) object;
+
+            return hash == other.hash && level == other.level && loggerName.equals(other.loggerName) && template.equals(other.template);
+        }
+    }
+
+    /**
+     * Counts messages allowed and suppressed for one key in the current interval.
+     */
+    static final class Window {
+        final Key key;
+        final AtomicLong start;
+        final AtomicInteger used;
+        final AtomicLong suppressed;
+        volatile long lastSeen;
+
+        Window(final Key key, final long now) {
+            this.key = key;
+            this.start = new AtomicLong(now);
+            this.used = new AtomicInteger();
+            this.suppressed = new AtomicLong();
+            this.lastSeen = now;
+        }
+
+        /**
+         * Return {@link #SUPPRESSED} or the number suppressed since the last allowed message.
+         */
+        long acquire(final long now, final int permits, final long intervalNanos) {
+            lastSeen = now;
+
+            final long currentStart = start.get();
+
+            if (now - currentStart >= intervalNanos && start.compareAndSet(currentStart, now)) {
+                used.set(1);
+
+                return suppressed.getAndSet(0);
+            }
+
+            if (used.get() >= permits || used.incrementAndGet() > permits) {
+                suppressed.incrementAndGet();
+
+                return SUPPRESSED;
+            }
+
+            return suppressed.getAndSet(0);
+        }
+
+        /**
+         * Return true if the key was not used within the last interval.
+         */
+        boolean isIdle(final long now, final long intervalNanos) {
+            return now - lastSeen >= intervalNanos;
+        }
+
+        /**
+         * Return true if the current interval has ended.
+         */
+        boolean isEnded(final long now, final long intervalNanos) {
+            return now - start.get() >= intervalNanos;
+        }
+    }
+
+    private final int permits;
+
+    private final long intervalNanos;
+
+    private final int maxKeys;
+
+    private final ConcurrentHashMap<Key, Window> windows;
+
+    /**
+     * Shared windows, by level ordinal, used when no more keys may be tracked.
+     */
+    private final Window[] overflow;
+
+    private final AtomicLong lastSweep;
+
+    private final LongAdder totalSuppressed;
+
+    private volatile SummaryListener summaryListener;
+
+    /**
+     * Allow <code>permits</code> messages per key every <code>interval</code>.
+     *
+     * @param permits  messages allowed per key each interval - must be positive.
+     * @param interval length of an interval - must be positive.
+     * @param unit     the unit of <code>interval</code>.
+     * @param maxKeys  maximum number of keys tracked - must be positive.
+     */
+    public LogRateLimiter(final int permits, final long interval, final TimeUnit unit, final int maxKeys) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("Max keys must be positive: " + maxKeys);
+        }
+
+        final long now = System.nanoTime();
+
+        this.permits = permits;
+        this.intervalNanos = Objects.requireNonNull(unit, "Cannot have a null time unit!").toNanos(interval);
+        this.maxKeys = maxKeys;
+        this.windows = new ConcurrentHashMap<>();
+        this.overflow = new Window[Level.values().length];
+        this.lastSweep = new AtomicLong(now);
+        this.totalSuppressed = new LongAdder();
+        this.summaryListener = LOG_SUMMARY;
+
+        for (final Level level : Level.values()) {
+            overflow[level.ordinal()] = new Window(new Key(LogRateLimiter.class.getName(), level, OVERFLOW_TEMPLATE), now);
+        }
+    }
+
+    /**
+     * Allow {@link #DEFAULT_PERMITS} messages per key every {@link #DEFAULT_INTERVAL_SECONDS} seconds.
+     */
+    public LogRateLimiter() {
+        this(DEFAULT_PERMITS, DEFAULT_INTERVAL_SECONDS, TimeUnit.SECONDS, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Return the number of messages allowed per key each interval.
+     *
+     * @return the number of messages allowed per key each interval.
+     */
+    public int getPermits() {
+        return permits;
+    }
+
+    /**
+     * Return the interval length.
+     *
+     * @param unit the unit of the returned value.
+     *
+     * @return the interval length.
+     */
+    public long getInterval(final TimeUnit unit) {
+        return Objects.requireNonNull(unit, "Cannot have a null time unit!").convert(intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Return the maximum number of keys tracked.
+     *
+     * @return the maximum number of keys tracked.
+     */
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * Return the number of keys currently tracked.
+     *
+     * @return the number of keys currently tracked.
+     */
+    public int getKeyCount() {
+        return windows.size();
+    }
+
+    /**
+     * Return the total number of messages suppressed.
+     *
+     * @return the total number of messages suppressed.
+     */
+    public long getTotalSuppressed() {
+        return totalSuppressed.sum();
+    }
+
+    /**
+     * Return who receives counts of suppressed messages not otherwise reported.
+     *
+     * @return the summary listener.
+     */
+    public SummaryListener getSummaryListener() {
+        return summaryListener;
+    }
+
+    /**
+     * Set who receives counts of suppressed messages not otherwise reported.
+     * Defaults to {@link #LOG_SUMMARY}.
+     *
+     * @param summaryListener the summary listener.
+     */
+    public void setSummaryListener(final SummaryListener summaryListener) {
+        this.summaryListener = Objects.requireNonNull(summaryListener, "Cannot have a null summary listener!");
+    }
+
+    /**
+     * Report every count of suppressed messages not yet reported.
+     */
+    public void flush() {
+        for (final Window window : windows.values()) {
+            report(window);
+        }
+
+        for (final Window window : overflow) {
+            report(window);
+        }
+    }
+
+    /**
+     * Report any pending counts, then forget all keys.
+     */
+    public void reset() {
+        flush();
+
+        windows.clear();
+    }
+
+    /**
+     * Hand the messages suppressed in <code>window</code> to the summary listener.
+     */
+    void report(final Window window) {
+        final long suppressed = window.suppressed.getAndSet(0);
+
+        if (suppressed > 0) {
+            summaryListener.onSuppressed(window.key.loggerName, window.key.level, window.key.template, suppressed);
+        }
+    }
+
+    /**
+     * Report the counts of windows whose interval has ended, and remove keys
+     * unused for an interval - at most once per interval.
+     */
+    void sweep(final long now) {
+        final long last = lastSweep.get();
+
+        if (now - last < intervalNanos || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+
+        for (final Iterator<Map.Entry<Key, Window>> iter = windows.entrySet().iterator(); iter.hasNext();) {
+            final Window window = iter.next().getValue();
+
+            if (window.isIdle(now, intervalNanos)) {
+                iter.remove();
+
+                report(window);
+            } else if (window.isEnded(now, intervalNanos)) {
+                report(window);
+            }
+        }
+
+        for (final Window window : overflow) {
+            if (window.isEnded(now, intervalNanos)) {
+                report(window);
+            }
+        }
+    }
+
+    /**
+     * Return the window for <code>probe</code>, or the level's shared window
+     * if no more keys can be tracked.
+     */
+    Window getWindow(final Key probe, final long now) {
+        final Window retVal = windows.get(probe);
+
+        if (null != retVal) {
+            return retVal;
+        }
+
+        if (windows.size() >= maxKeys) {
+            return overflow[probe.level.ordinal()];
+        }
+
+        return windows.computeIfAbsent(probe.copy(), key -> new Window(key, now));
+    }
+
+    /**
+     * Decide whether a message may be logged.
+     *
+     * @param loggerName the name of the logger used.
+     * @param level      the level logged at.
+     * @param template   the constant part of the message.
+     *
+     * @return {@link #SUPPRESSED} if the message should not be logged, otherwise
+     *         the number of messages suppressed since one was last allowed.
+     */
+    public long acquire(final String loggerName, final Level level, final String template) {
+        return acquire(loggerName, level, template, System.nanoTime());
+    }
+
+    /**
+     * Decide whether a message may be logged at <code>now</code>, in nanoseconds.
+     */
+    long acquire(final String loggerName, final Level level, final String template, final long now) {
+        Objects.requireNonNull(loggerName, "Cannot have a null logger name!");
+        Objects.requireNonNull(level, "Cannot have a null level!");
+
+        final Key probe = PROBE.get().set(loggerName, level, null == template ? "" : template);
+        final long retVal = getWindow(probe, now).acquire(now, permits, intervalNanos);
+
+        sweep(now);
+
+        if (SUPPRESSED == retVal) {
+            totalSuppressed.increment();
+        }
+
+        return retVal;
+    }
+}
@@ -1,11 +1,19 @@
 package com.redhat.common.utils;
 
-import org.apache.commons.lang3.StringUtils;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
 /**
- * A logging utility class.
+ * A logging utility class. A message is the concatenation of its parts, nulls
+ * treated as empty, and is only formatted if its level is enabled.
+ * <code>logIfDebug</code> and <code>logIfInfo</code> also have fixed arity
+ * overloads, of up to four arguments, so disabled levels allocate nothing;
+ * <code>logDebugLazy</code> and <code>logInfoLazy</code> leave building the
+ * message to a supplier.
  *
  * @author sfloess
  */
@@ -15,6 +23,55 @@ public final class LoggerUtils {
      */
     private static final Logger logger = LoggerFactory.getLogger(LoggerUtils.class);
 
+    /**
+     * Initial capacity of the per-thread string builders used to format messages.
+     */
+    static final int INITIAL_BUILDER_CAPACITY = 256;
+
+    /**
+     * Per-thread string builders that grow beyond this are discarded after use
+     * so one large message does not pin memory.
+     */
+    static final int MAX_RETAINED_BUILDER_CAPACITY = 8192;
+
+    /**
+     * Per-thread string builder used to format messages without allocating one
+     * per call.
+     */
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUILDER_CAPACITY));
+
+    /**
+     * System property that, when "true", enables asynchronous logging at start up.
+     */
+    public static final String ASYNC_LOGGING_PROPERTY = "com.redhat.common.utils.asyncLogging";
+
+    /**
+     * How long to wait for queued events when asynchronous logging is disabled
+     * or the JVM exits.
+     */
+    static final long ASYNC_CLOSE_TIMEOUT_SECONDS = 5;
+
+    /**
+     * When not null, log events are written by this dispatcher's thread.
+     */
+    private static volatile AsyncLogDispatcher asyncLogDispatcher;
+
+    /**
+     * Limits repeated messages logged through the rate limited methods.
+     */
+    private static volatile LogRateLimiter rateLimiter = new LogRateLimiter();
+
+    /**
+     * Writes queued events on JVM exit while asynchronous logging is enabled.
+     */
+    private static Thread asyncShutdownHook;
+
+    static {
+        if (Boolean.getBoolean(ASYNC_LOGGING_PROPERTY)) {
+            setAsyncLogging(true);
+        }
+    }
+
     /**
      * Return our personal logger.
      *
@@ -41,6 +98,121 @@ public final class LoggerUtils {
     private LoggerUtils() {
     }
 
+    /**
+     * Return the limiter used by the rate limited log methods.
+     *
+     * @return the limiter used by the rate limited log methods.
+     */
+    public static LogRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Set the limiter used by the rate limited log methods.
+     *
+     * @param rateLimiter the limiter to use.
+     */
+    public static void setRateLimiter(final LogRateLimiter rateLimiter) {
+        LoggerUtils.rateLimiter = Objects.requireNonNull(rateLimiter, "Cannot have a null rate limiter!");
+    }
+
+    /**
+     * Return the dispatcher writing log events, or null if logging is synchronous.
+     *
+     * @return the dispatcher writing log events or null.
+     */
+    public static AsyncLogDispatcher getAsyncLogDispatcher() {
+        return asyncLogDispatcher;
+    }
+
+    /**
+     * Return true if log events are written asynchronously.
+     *
+     * @return true if log events are written asynchronously.
+     */
+    public static boolean isAsyncLogging() {
+        return null != asyncLogDispatcher;
+    }
+
+    /**
+     * Enable or disable asynchronous logging using a default, blocking
+     * {@link AsyncLogDispatcher}. Applies to all logging done through this
+     * class, including every {@link com.redhat.common.AbstractBase} subclass.
+     * Does nothing if already in the requested mode.
+     *
+     * @param enabled true to write log events on a background thread.
+     */
+    public static synchronized void setAsyncLogging(final boolean enabled) {
+        if (enabled != isAsyncLogging()) {
+            setAsyncLogging(enabled ? new AsyncLogDispatcher() : null);
+        }
+    }
+
+    /**
+     * Write log events using <code>dispatcher</code>, started here if needed.
+     * A previously installed dispatcher is closed once its queued events are
+     * written.
+     *
+     * @param dispatcher the dispatcher to use, or null to log synchronously.
+     */
+    public static synchronized void setAsyncLogging(final AsyncLogDispatcher dispatcher) {
+        if (dispatcher == asyncLogDispatcher) {
+            return;
+        }
+
+        if (null != dispatcher && !dispatcher.isRunning()) {
+            dispatcher.start();
+        }
+
+        final AsyncLogDispatcher previous = asyncLogDispatcher;
+
+        asyncLogDispatcher = dispatcher;
+
+        if (null != previous) {
+            closeAsync(previous);
+        }
+
+        updateAsyncShutdownHook(null != dispatcher);
+    }
+
+    /**
+     * Close <code>dispatcher</code>, waiting a bounded time for queued events.
+     */
+    static void closeAsync(final AsyncLogDispatcher dispatcher) {
+        try {
+            if (!dispatcher.close(ASYNC_CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                getLogger().warn("Timed out writing queued log events - " + dispatcher.getPending() + " pending");
+            }
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Add or remove the shutdown hook that writes queued events on exit.
+     */
+    static void updateAsyncShutdownHook(final boolean install) {
+        try {
+            if (install && null == asyncShutdownHook) {
+                asyncShutdownHook = new Thread(() -> {
+                    final AsyncLogDispatcher dispatcher = asyncLogDispatcher;
+
+                    if (null != dispatcher) {
+                        closeAsync(dispatcher);
+                    }
+                }, "async-log-shutdown");
+
+                Runtime.getRuntime().addShutdownHook(asyncShutdownHook);
+            } else if (!install && null != asyncShutdownHook) {
+                Runtime.getRuntime().removeShutdownHook(asyncShutdownHook);
+
+                asyncShutdownHook = null;
+            }
+        } catch (final IllegalStateException illegalStateException) {
+            // The JVM is already shutting down.
+        }
+    }
+
     /**
      * If <code>logger</code> is null, return our personal logger. Otherwise return the logger presented.
      *
@@ -52,6 +224,249 @@ public final class LoggerUtils {
         return null == logger ? warnNullLogger() : logger;
     }
 
+    /**
+     * Return true if <code>level</code> is enabled for <code>logger</code>.
+     */
+    static boolean isEnabled(final Logger logger, final Level level) {
+        switch (level) {
+            case TRACE:
+                return logger.isTraceEnabled();
+
+            case DEBUG:
+                return logger.isDebugEnabled();
+
+            case INFO:
+                return logger.isInfoEnabled();
+
+            case WARN:
+                return logger.isWarnEnabled();
+
+            default:
+                return logger.isErrorEnabled();
+        }
+    }
+
+    /**
+     * Write an already formatted message to <code>logger</code> - queued if
+     * asynchronous logging is enabled.
+     */
+    static void emit(final Logger logger, final Level level, final String message, final Throwable throwable) {
+        final AsyncLogDispatcher dispatcher = asyncLogDispatcher;
+
+        if (null == dispatcher || !dispatcher.dispatch(logger, level, message, throwable)) {
+            write(logger, level, message, throwable);
+        }
+    }
+
+    /**
+     * Write an already formatted message directly to <code>logger</code>.
+     */
+    static void write(final Logger logger, final Level level, final String message, final Throwable throwable) {
+        switch (level) {
+            case TRACE:
+                logger.trace(message, throwable);
+                break;
+
+            case DEBUG:
+                logger.debug(message, throwable);
+                break;
+
+            case INFO:
+                logger.info(message, throwable);
+                break;
+
+            case WARN:
+                logger.warn(message, throwable);
+                break;
+
+            default:
+                logger.error(message, throwable);
+        }
+    }
+
+    /**
+     * Return the string builder to format into - reused per thread unless it
+     * is already in use (for example, when a value's toString() logs).
+     */
+    static StringBuilder acquireBuilder() {
+        final StringBuilder retVal = BUILDER.get();
+
+        return 0 == retVal.length() ? retVal : new StringBuilder(INITIAL_BUILDER_CAPACITY);
+    }
+
+    /**
+     * Ready <code>builder</code> for reuse.
+     */
+    static void recycle(final StringBuilder builder) {
+        builder.setLength(0);
+
+        if (builder.capacity() > MAX_RETAINED_BUILDER_CAPACITY && builder == BUILDER.get()) {
+            BUILDER.set(new StringBuilder(INITIAL_BUILDER_CAPACITY));
+        }
+    }
+
+    /**
+     * Append <code>toLog</code> - nulls are treated as empty.
+     */
+    static StringBuilder append(final StringBuilder builder, final Object toLog) {
+        return null == toLog ? builder : builder.append(toLog);
+    }
+
+    /**
+     * Concatenate the parts of a message - nulls are treated as empty.
+     */
+    static String join(final Object toLog1) {
+        return null == toLog1 ? "" : toLog1.toString();
+    }
+
+    /**
+     * Concatenate the parts of a message - nulls are treated as empty.
+     */
+    static String join(final Object toLog1, final Object toLog2) {
+        final StringBuilder builder = acquireBuilder();
+
+        try {
+            return append(append(builder, toLog1), toLog2).toString();
+        } finally {
+            recycle(builder);
+        }
+    }
+
+    /**
+     * Concatenate the parts of a message - nulls are treated as empty.
+     */
+    static String join(final Object toLog1, final Object toLog2, final Object toLog3) {
+        final StringBuilder builder = acquireBuilder();
+
+        try {
+            return append(append(append(builder, toLog1), toLog2), toLog3).toString();
+        } finally {
+            recycle(builder);
+        }
+    }
+
+    /**
+     * Concatenate the parts of a message - nulls are treated as empty.
+     */
+    static String join(final Object toLog1, final Object toLog2, final Object toLog3, final Object toLog4) {
+        final StringBuilder builder = acquireBuilder();
+
+        try {
+            return append(append(append(append(builder, toLog1), toLog2), toLog3), toLog4).toString();
+        } finally {
+            recycle(builder);
+        }
+    }
+
+    /**
+     * Concatenate the parts of a message - nulls are treated as empty.
+     */
+    static String joinAll(final Object[] toLog) {
+        if (null == toLog) {
+            return "";
+        }
+
+        final StringBuilder builder = acquireBuilder();
+
+        try {
+            for (final Object part : toLog) {
+                append(builder, part);
+            }
+
+            return builder.toString();
+        } finally {
+            recycle(builder);
+        }
+    }
+
+    /**
+     * Log a message of one part if <code>level</code> is enabled.
+     */
+    static void log(final Logger logger, final Level level, final Throwable throwable, final Object toLog1) {
+        final Logger computedLogger = computeLogger(logger);
+
+        if (isEnabled(computedLogger, level)) {
+            emit(computedLogger, level, join(toLog1), throwable);
+        }
+    }
+
+    /**
+     * Log a message of two parts if <code>level</code> is enabled.
+     */
+    static void log(final Logger logger, final Level level, final Throwable throwable, final Object toLog1, final Object toLog2) {
+        final Logger computedLogger = computeLogger(logger);
+
+        if (isEnabled(computedLogger, level)) {
+            emit(computedLogger, level, join(toLog1, toLog2), throwable);
+        }
+    }
+
+    /**
+     * Log a message of three parts if <code>level</code> is enabled.
+     */
+    static void log(final Logger logger, final Level level, final Throwable throwable, final Object toLog1, final Object toLog2, final Object toLog3) {
+        final Logger computedLogger = computeLogger(logger);
+
+        if (isEnabled(computedLogger, level)) {
+            emit(computedLogger, level, join(toLog1, toLog2, toLog3), throwable);
+        }
+    }
+
+    /**
+     * Log a message of four parts if <code>level</code> is enabled.
+     */
+    static void log(final Logger logger, final Level level, final Throwable throwable, final Object toLog1, final Object toLog2, final Object toLog3, final Object toLog4) {
+        final Logger computedLogger = computeLogger(logger);
+
+        if (isEnabled(computedLogger, level)) {
+            emit(computedLogger, level, join(toLog1, toLog2, toLog3, toLog4), throwable);
+        }
+    }
+
+    /**
+     * Log a message of any number of parts if <code>level</code> is enabled.
+     */
+    static void logJoined(final Logger logger, final Level level, final Throwable throwable, final Object[] toLog) {
+        final Logger computedLogger = computeLogger(logger);
+
+        if (isEnabled(computedLogger, level)) {
+            emit(computedLogger, level, joinAll(toLog), throwable);
+        }
+    }
+
+    /**
+     * Log a supplied message if <code>level</code> is enabled.
+     */
+    static void logSupplied(final Logger logger, final Level level, final Throwable throwable, final Supplier<?> message) {
+        final Logger computedLogger = computeLogger(logger);
+
+        if (isEnabled(computedLogger, level)) {
+            emit(computedLogger, level, join(null == message ? null : message.get()), throwable);
+        }
+    }
+
+    /**
+     * Log a message of up to four parts if <code>level</code> is enabled and
+     * the rate limiter allows <code>template</code> - noting any suppressed.
+     */
+    static void logLimited(final Logger logger, final Level level, final String template, final Object toLog2, final Object toLog3, final Object toLog4) {
+        final Logger computedLogger = computeLogger(logger);
+
+        if (!isEnabled(computedLogger, level)) {
+            return;
+        }
+
+        final long suppressed = rateLimiter.acquire(computedLogger.getName(), level, template);
+
+        if (LogRateLimiter.SUPPRESSED == suppressed) {
+            return;
+        }
+
+        final String message = join(template, toLog2, toLog3, toLog4);
+
+        emit(computedLogger, level, suppressed > 0 ? LogRateLimiter.toSummary(message, suppressed) : message, null);
+    }
+
     /**
      * Log a debug message with a stack trace.
      *
@@ -60,7 +475,7 @@ public final class LoggerUtils {
      * @param toLog     the debug message.
      */
     public static void logDebug(final Logger logger, final Throwable throwable, final Object... toLog) {
-        computeLogger(logger).debug(StringUtils.join(toLog), throwable);
+        logJoined(logger, Level.DEBUG, throwable, toLog);
     }
 
     /**
@@ -70,32 +485,123 @@ public final class LoggerUtils {
      * @param toLog  the debug message.
      */
     public static void logDebug(final Logger logger, final Object... toLog) {
-        computeLogger(logger).debug(StringUtils.join(toLog));
+        logJoined(logger, Level.DEBUG, null, toLog);
     }
 
     /**
-     * Log a debug message.
+     * Log a debug message with a stack trace if debug is enabled.
      *
      * @param logger    the logger to use.
      * @param throwable an exception to be logged with <code>toLog</code>.
      * @param toLog     the debug message.
      */
     public static void logIfDebug(final Logger logger, final Throwable throwable, final Object... toLog) {
-        if (computeLogger(logger).isDebugEnabled()) {
-            logDebug(logger, throwable, toLog);
-        }
+        logJoined(logger, Level.DEBUG, throwable, toLog);
     }
 
     /**
-     * Log a debug message.
+     * Log a debug message if debug is enabled.
      *
      * @param logger the logger to use.
      * @param toLog  the debug message.
      */
     public static void logIfDebug(final Logger logger, final Object... toLog) {
-        if (computeLogger(logger).isDebugEnabled()) {
-            logDebug(logger, toLog);
-        }
+        logJoined(logger, Level.DEBUG, null, toLog);
+    }
+
+    /**
+     * Log a debug message of two parts - nothing is formatted unless debug is enabled.
+     *
+     * @param logger the logger to use.
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     */
+    public static void logIfDebug(final Logger logger, final Object toLog1, final Object toLog2) {
+        log(logger, Level.DEBUG, null, toLog1, toLog2);
+    }
+
+    /**
+     * Log a debug message of three parts - nothing is formatted unless debug is enabled.
+     *
+     * @param logger the logger to use.
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     * @param toLog3 the third part of the message.
+     */
+    public static void logIfDebug(final Logger logger, final Object toLog1, final Object toLog2, final Object toLog3) {
+        log(logger, Level.DEBUG, null, toLog1, toLog2, toLog3);
+    }
+
+    /**
+     * Log a debug message of four parts - nothing is formatted unless debug is enabled.
+     *
+     * @param logger the logger to use.
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     * @param toLog3 the third part of the message.
+     * @param toLog4 the fourth part of the message.
+     */
+    public static void logIfDebug(final Logger logger, final Object toLog1, final Object toLog2, final Object toLog3, final Object toLog4) {
+        log(logger, Level.DEBUG, null, toLog1, toLog2, toLog3, toLog4);
+    }
+
+    /**
+     * Log a debug message of one part with a stack trace - nothing is formatted unless debug is enabled.
+     *
+     * @param logger    the logger to use.
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     */
+    public static void logIfDebug(final Logger logger, final Throwable throwable, final Object toLog1) {
+        log(logger, Level.DEBUG, throwable, toLog1);
+    }
+
+    /**
+     * Log a debug message of two parts with a stack trace - nothing is formatted unless debug is enabled.
+     *
+     * @param logger    the logger to use.
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     * @param toLog2    the second part of the message.
+     */
+    public static void logIfDebug(final Logger logger, final Throwable throwable, final Object toLog1, final Object toLog2) {
+        log(logger, Level.DEBUG, throwable, toLog1, toLog2);
+    }
+
+    /**
+     * Log a debug message of three parts with a stack trace - nothing is formatted unless debug is enabled.
+     *
+     * @param logger    the logger to use.
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     * @param toLog2    the second part of the message.
+     * @param toLog3    the third part of the message.
+     */
+    public static void logIfDebug(final Logger logger, final Throwable throwable, final Object toLog1, final Object toLog2, final Object toLog3) {
+        log(logger, Level.DEBUG, throwable, toLog1, toLog2, toLog3);
+    }
+
+    /**
+     * Log a lazily computed debug message - <code>message</code> is only
+     * called if debug is enabled.
+     *
+     * @param logger  the logger to use.
+     * @param message supplies the debug message.
+     */
+    public static void logDebugLazy(final Logger logger, final Supplier<?> message) {
+        logSupplied(logger, Level.DEBUG, null, message);
+    }
+
+    /**
+     * Log a lazily computed debug message with a stack trace - <code>message</code>
+     * is only called if debug is enabled.
+     *
+     * @param logger    the logger to use.
+     * @param throwable an exception to be logged with the message.
+     * @param message   supplies the debug message.
+     */
+    public static void logDebugLazy(final Logger logger, final Throwable throwable, final Supplier<?> message) {
+        logSupplied(logger, Level.DEBUG, throwable, message);
     }
 
     /**
@@ -103,45 +609,136 @@ public final class LoggerUtils {
      *
      * @param logger    the logger to use.
      * @param throwable an exception to be logged with <code>toLog</code>.
-     * @param toLog     the debug message.
+     * @param toLog     the info message.
      */
     public static void logInfo(final Logger logger, final Throwable throwable, final Object... toLog) {
-        computeLogger(logger).info(StringUtils.join(toLog), throwable);
+        logJoined(logger, Level.INFO, throwable, toLog);
     }
 
     /**
      * Log an info message.
      *
      * @param logger the logger to use.
-     * @param toLog  the debug message.
+     * @param toLog  the info message.
      */
     public static void logInfo(final Logger logger, final Object... toLog) {
-        computeLogger(logger).info(StringUtils.join(toLog));
+        logJoined(logger, Level.INFO, null, toLog);
     }
 
     /**
-     * Log an info message with a stack trace.
+     * Log an info message with a stack trace if info is enabled.
      *
      * @param logger    the logger to use.
      * @param throwable an exception to be logged with <code>toLog</code>.
      * @param toLog     the info message.
      */
     public static void logIfInfo(final Logger logger, final Throwable throwable, final Object... toLog) {
-        if (computeLogger(logger).isInfoEnabled()) {
-            logInfo(logger, throwable, toLog);
-        }
+        logJoined(logger, Level.INFO, throwable, toLog);
     }
 
     /**
-     * Log an info message.
+     * Log an info message if info is enabled.
      *
      * @param logger the logger to use.
      * @param toLog  the info message.
      */
     public static void logIfInfo(final Logger logger, final Object... toLog) {
-        if (computeLogger(logger).isInfoEnabled()) {
-            logInfo(logger, toLog);
-        }
+        logJoined(logger, Level.INFO, null, toLog);
+    }
+
+    /**
+     * Log an info message of two parts - nothing is formatted unless info is enabled.
+     *
+     * @param logger the logger to use.
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     */
+    public static void logIfInfo(final Logger logger, final Object toLog1, final Object toLog2) {
+        log(logger, Level.INFO, null, toLog1, toLog2);
+    }
+
+    /**
+     * Log an info message of three parts - nothing is formatted unless info is enabled.
+     *
+     * @param logger the logger to use.
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     * @param toLog3 the third part of the message.
+     */
+    public static void logIfInfo(final Logger logger, final Object toLog1, final Object toLog2, final Object toLog3) {
+        log(logger, Level.INFO, null, toLog1, toLog2, toLog3);
+    }
+
+    /**
+     * Log an info message of four parts - nothing is formatted unless info is enabled.
+     *
+     * @param logger the logger to use.
+     * @param toLog1 the first part of the message.
+     * @param toLog2 the second part of the message.
+     * @param toLog3 the third part of the message.
+     * @param toLog4 the fourth part of the message.
+     */
+    public static void logIfInfo(final Logger logger, final Object toLog1, final Object toLog2, final Object toLog3, final Object toLog4) {
+        log(logger, Level.INFO, null, toLog1, toLog2, toLog3, toLog4);
+    }
+
+    /**
+     * Log an info message of one part with a stack trace - nothing is formatted unless info is enabled.
+     *
+     * @param logger    the logger to use.
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     */
+    public static void logIfInfo(final Logger logger, final Throwable throwable, final Object toLog1) {
+        log(logger, Level.INFO, throwable, toLog1);
+    }
+
+    /**
+     * Log an info message of two parts with a stack trace - nothing is formatted unless info is enabled.
+     *
+     * @param logger    the logger to use.
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     * @param toLog2    the second part of the message.
+     */
+    public static void logIfInfo(final Logger logger, final Throwable throwable, final Object toLog1, final Object toLog2) {
+        log(logger, Level.INFO, throwable, toLog1, toLog2);
+    }
+
+    /**
+     * Log an info message of three parts with a stack trace - nothing is formatted unless info is enabled.
+     *
+     * @param logger    the logger to use.
+     * @param throwable an exception to be logged with the message.
+     * @param toLog1    the first part of the message.
+     * @param toLog2    the second part of the message.
+     * @param toLog3    the third part of the message.
+     */
+    public static void logIfInfo(final Logger logger, final Throwable throwable, final Object toLog1, final Object toLog2, final Object toLog3) {
+        log(logger, Level.INFO, throwable, toLog1, toLog2, toLog3);
+    }
+
+    /**
+     * Log a lazily computed info message - <code>message</code> is only
+     * called if info is enabled.
+     *
+     * @param logger  the logger to use.
+     * @param message supplies the info message.
+     */
+    public static void logInfoLazy(final Logger logger, final Supplier<?> message) {
+        logSupplied(logger, Level.INFO, null, message);
+    }
+
+    /**
+     * Log a lazily computed info message with a stack trace - <code>message</code>
+     * is only called if info is enabled.
+     *
+     * @param logger    the logger to use.
+     * @param throwable an exception to be logged with the message.
+     * @param message   supplies the info message.
+     */
+    public static void logInfoLazy(final Logger logger, final Throwable throwable, final Supplier<?> message) {
+        logSupplied(logger, Level.INFO, throwable, message);
     }
 
     /**
@@ -152,7 +749,7 @@ public final class LoggerUtils {
      * @param toLog     the warning message.
      */
     public static void logWarning(final Logger logger, final Throwable throwable, final Object... toLog) {
-        computeLogger(logger).warn(StringUtils.join(toLog), throwable);
+        logJoined(logger, Level.WARN, throwable, toLog);
     }
 
     /**
@@ -162,7 +759,7 @@ public final class LoggerUtils {
      * @param toLog  the warning message.
      */
     public static void logWarning(final Logger logger, final Object... toLog) {
-        computeLogger(logger).warn(StringUtils.join(toLog));
+        logJoined(logger, Level.WARN, null, toLog);
     }
 
     /**
@@ -173,7 +770,7 @@ public final class LoggerUtils {
      * @param toLog     the error message.
      */
     public static void logError(final Logger logger, final Throwable throwable, final Object... toLog) {
-        computeLogger(logger).error(StringUtils.join(toLog), throwable);
+        logJoined(logger, Level.ERROR, throwable, toLog);
     }
 
     /**
@@ -183,6 +780,156 @@ public final class LoggerUtils {
      * @param toLog  the error message.
      */
     public static void logError(final Logger logger, final Object... toLog) {
-        computeLogger(logger).error(StringUtils.join(toLog));
+        logJoined(logger, Level.ERROR, null, toLog);
+    }
+
+    /**
+     * Log an info message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the info message - also the rate limiting key.
+     */
+    public static void logInfoRateLimited(final Logger logger, final String template) {
+        logLimited(logger, Level.INFO, template, null, null, null);
+    }
+
+    /**
+     * Log an info message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the info message - also the rate limiting key.
+     * @param toLog2   the second part of the info message.
+     */
+    public static void logInfoRateLimited(final Logger logger, final String template, final Object toLog2) {
+        logLimited(logger, Level.INFO, template, toLog2, null, null);
+    }
+
+    /**
+     * Log an info message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the info message - also the rate limiting key.
+     * @param toLog2   the second part of the info message.
+     * @param toLog3   the third part of the info message.
+     */
+    public static void logInfoRateLimited(final Logger logger, final String template, final Object toLog2, final Object toLog3) {
+        logLimited(logger, Level.INFO, template, toLog2, toLog3, null);
+    }
+
+    /**
+     * Log an info message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the info message - also the rate limiting key.
+     * @param toLog2   the second part of the info message.
+     * @param toLog3   the third part of the info message.
+     * @param toLog4   the fourth part of the info message.
+     */
+    public static void logInfoRateLimited(final Logger logger, final String template, final Object toLog2, final Object toLog3, final Object toLog4) {
+        logLimited(logger, Level.INFO, template, toLog2, toLog3, toLog4);
+    }
+
+    /**
+     * Log a warning message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the warning message - also the rate limiting key.
+     */
+    public static void logWarningRateLimited(final Logger logger, final String template) {
+        logLimited(logger, Level.WARN, template, null, null, null);
+    }
+
+    /**
+     * Log a warning message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the warning message - also the rate limiting key.
+     * @param toLog2   the second part of the warning message.
+     */
+    public static void logWarningRateLimited(final Logger logger, final String template, final Object toLog2) {
+        logLimited(logger, Level.WARN, template, toLog2, null, null);
+    }
+
+    /**
+     * Log a warning message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the warning message - also the rate limiting key.
+     * @param toLog2   the second part of the warning message.
+     * @param toLog3   the third part of the warning message.
+     */
+    public static void logWarningRateLimited(final Logger logger, final String template, final Object toLog2, final Object toLog3) {
+        logLimited(logger, Level.WARN, template, toLog2, toLog3, null);
+    }
+
+    /**
+     * Log a warning message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the warning message - also the rate limiting key.
+     * @param toLog2   the second part of the warning message.
+     * @param toLog3   the third part of the warning message.
+     * @param toLog4   the fourth part of the warning message.
+     */
+    public static void logWarningRateLimited(final Logger logger, final String template, final Object toLog2, final Object toLog3, final Object toLog4) {
+        logLimited(logger, Level.WARN, template, toLog2, toLog3, toLog4);
+    }
+
+    /**
+     * Log an error message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the error message - also the rate limiting key.
+     */
+    public static void logErrorRateLimited(final Logger logger, final String template) {
+        logLimited(logger, Level.ERROR, template, null, null, null);
+    }
+
+    /**
+     * Log an error message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the error message - also the rate limiting key.
+     * @param toLog2   the second part of the error message.
+     */
+    public static void logErrorRateLimited(final Logger logger, final String template, final Object toLog2) {
+        logLimited(logger, Level.ERROR, template, toLog2, null, null);
+    }
+
+    /**
+     * Log an error message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the error message - also the rate limiting key.
+     * @param toLog2   the second part of the error message.
+     * @param toLog3   the third part of the error message.
+     */
+    public static void logErrorRateLimited(final Logger logger, final String template, final Object toLog2, final Object toLog3) {
+        logLimited(logger, Level.ERROR, template, toLog2, toLog3, null);
+    }
+
+    /**
+     * Log an error message unless more than the rate limiter allows with the same
+     * template have been logged recently.
+     *
+     * @param logger   the logger to use.
+     * @param template the constant first part of the error message - also the rate limiting key.
+     * @param toLog2   the second part of the error message.
+     * @param toLog3   the third part of the error message.
+     * @param toLog4   the fourth part of the error message.
+     */
+    public static void logErrorRateLimited(final Logger logger, final String template, final Object toLog2, final Object toLog3, final Object toLog4) {
+        logLimited(logger, Level.ERROR, template, toLog2, toLog3, toLog4);
     }
 }
@@ -0,0 +1,251 @@
+package com.redhat.common.jee.rest.proxy;
+
+import java.lang.reflect.Proxy;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests AbstractResourceProxy caching and preconditions.
+ *
+ * @author sfloess
+ */
+public class AbstractResourceProxyTest {
+    /**
+     * Responds with what its service returns.
+     */
+    static class TestResourceProxy extends AbstractResourceProxy<Supplier<String>> {
+        TestResourceProxy(final Supplier<String> service, final ResponseCache responseCache) {
+            setService(service);
+            setResponseCache(responseCache);
+        }
+
+        Response respond(final HttpServletRequest request, final Function<Supplier<String>, String> call) {
+            setRequest(request);
+
+            return cachedResponse(call);
+        }
+
+        Response respond(final HttpServletRequest request) {
+            return respond(request, Supplier::get);
+        }
+    }
+
+    /**
+     * Counts calls, returning a different value each time.
+     */
+    static class CountingService implements Supplier<String> {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String get() {
+            return "value-" + calls.incrementAndGet();
+        }
+    }
+
+    /**
+     * Return a request for <code>uri</code> with <code>headers</code>.
+     */
+    static HttpServletRequest createRequest(final String method, final String uri, final String user, final Map<String, String> headers) {
+        final Principal principal = null == user ? null : () -> user;
+
+        return (HttpServletRequest) Proxy.newProxyInstance(AbstractResourceProxyTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (instance, invoked, args) -> {
+            switch (invoked.getName()) {
+                case "getMethod":
+                    return method;
+
+                case "getRequestURI":
+                    return uri;
+
+                case "getParameterMap":
+                    return Collections.emptyMap();
+
+                case "getUserPrincipal":
+                    return principal;
+
+                case "getHeader":
+                    return headers.get(args[0]);
+
+                case "getDateHeader":
+                    return -1L;
+
+                default:
+                    return boolean.class == invoked.getReturnType() ? Boolean.FALSE : null;
+            }
+        });
+    }
+
+    /**
+     * Return a request with no conditional headers.
+     */
+    static HttpServletRequest createRequest(final String method, final String user) {
+        return createRequest(method, "/resource", user, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Return a request whose If-None-Match is <code>tag</code>.
+     */
+    static HttpServletRequest createConditionalRequest(final String method, final Object tag) {
+        final Map<String, String> headers = new HashMap<>();
+
+        headers.put(HttpHeaders.IF_NONE_MATCH, tag.toString());
+
+        return createRequest(method, "/resource", "alice", headers);
+    }
+
+    /**
+     * Test a GET with a matching If-None-Match is answered 304 from the cache.
+     */
+    @Test
+    public void test_cachedResponse_notModified() {
+        final CountingService service = new CountingService();
+        final TestResourceProxy proxy = new TestResourceProxy(service, new ResponseCache());
+        final Response response = proxy.respond(createRequest("GET", "alice"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(304, proxy.respond(createConditionalRequest("GET", response.getEntityTag())).getStatus());
+        assertEquals(1, service.calls.get());
+    }
+
+    /**
+     * Test a POST is never answered 304 and, when If-None-Match matches the
+     * cached representation, is answered 412 without calling the service.
+     */
+    @Test
+    public void test_cachedResponse_notCacheable() {
+        final CountingService service = new CountingService();
+        final TestResourceProxy proxy = new TestResourceProxy(service, new ResponseCache());
+        final Response response = proxy.respond(createRequest("GET", "alice"));
+
+        assertEquals(412, proxy.respond(createConditionalRequest("POST", response.getEntityTag())).getStatus());
+        assertEquals(1, service.calls.get());
+        assertEquals(200, proxy.respond(createConditionalRequest("POST", "\"other\"")).getStatus());
+        assertEquals(2, service.calls.get());
+
+        final TestResourceProxy uncached = new TestResourceProxy(service, null);
+
+        assertEquals(200, uncached.respond(createConditionalRequest("POST", response.getEntityTag())).getStatus());
+    }
+
+    /**
+     * Test a successful write removes the cached representation, and a
+     * failed one does not.
+     */
+    @Test
+    public void test_cachedResponse_writeInvalidates() {
+        final CountingService service = new CountingService();
+        final TestResourceProxy proxy = new TestResourceProxy(service, new ResponseCache());
+        final Response before = proxy.respond(createRequest("GET", "alice"));
+
+        assertEquals(502, proxy.respond(createRequest("PUT", "alice"), ignored -> {
+            throw new ProxyException("Failed");
+        }).getStatus());
+        assertEquals("Failed writes keep the entry", before.getEntityTag(), proxy.respond(createRequest("GET", "alice")).getEntityTag());
+
+        for (final String method : new String[]{"PUT", "POST", "PATCH", "DELETE"}) {
+            final Response cached = proxy.respond(createRequest("GET", "alice"));
+            final int calls = service.calls.get();
+
+            assertEquals(200, proxy.respond(createRequest(method, "alice")).getStatus());
+
+            final Response after = proxy.respond(createRequest("GET", "alice"));
+
+            assertNotEquals(method, cached.getEntityTag(), after.getEntityTag());
+            assertEquals(method, 304, proxy.respond(createConditionalRequest("GET", after.getEntityTag())).getStatus());
+            assertEquals(method, calls + 2, service.calls.get());
+        }
+    }
+
+    /**
+     * Test users never share cache entries.
+     */
+    @Test
+    public void test_cachedResponse_perUser() {
+        final CountingService service = new CountingService();
+        final TestResourceProxy proxy = new TestResourceProxy(service, new ResponseCache());
+        final Response alice = proxy.respond(createRequest("GET", "alice"));
+        final Response bob = proxy.respond(createRequest("GET", "bob"));
+
+        assertNotEquals(alice.getEntityTag(), bob.getEntityTag());
+        assertEquals(alice.getEntityTag(), proxy.respond(createRequest("GET", "alice")).getEntityTag());
+        assertEquals(2, service.calls.get());
+    }
+
+    /**
+     * Test an open circuit rejects calls before waiting for a bulkhead permit.
+     */
+    @Test
+    public void test_callService_openCircuitDoesNotWait() {
+        final TestResourceProxy proxy = new TestResourceProxy(new CountingService(), null);
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(50, 1, 10, 10, TimeUnit.SECONDS);
+        final Bulkhead bulkhead = new Bulkhead(1, 10, TimeUnit.SECONDS);
+
+        proxy.setCircuitBreaker(circuitBreaker);
+        proxy.setBulkhead(bulkhead);
+
+        assertEquals(502, proxy.respond(createRequest("GET", "alice"), service -> {
+            throw new IllegalStateException("Failed");
+        }).getStatus());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        final long start = System.nanoTime();
+
+        // Holding the only permit - a call reaching the bulkhead would wait 10 seconds...
+        assertEquals(503, bulkhead.execute(() -> proxy.respond(createRequest("GET", "alice")).getStatus()).intValue());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, bulkhead.getRejectedCount());
+    }
+
+    /**
+     * Test a half open trial rejected by the bulkhead is given up.
+     */
+    @Test
+    public void test_callService_bulkheadRejectsTrial() throws InterruptedException {
+        final CountingService service = new CountingService();
+        final TestResourceProxy proxy = new TestResourceProxy(service, null);
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(50, 1, 10_000, 50, TimeUnit.MILLISECONDS);
+        final Bulkhead bulkhead = new Bulkhead(1);
+
+        proxy.setCircuitBreaker(circuitBreaker);
+        proxy.setBulkhead(bulkhead);
+
+        proxy.respond(createRequest("GET", "alice"), ignored -> {
+            throw new IllegalStateException("Failed");
+        });
+
+        Thread.sleep(100);
+
+        assertEquals(503, bulkhead.execute(() -> proxy.respond(createRequest("GET", "alice")).getStatus()).intValue());
+        assertEquals(1, bulkhead.getRejectedCount());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(200, proxy.respond(createRequest("GET", "alice")).getStatus());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(1, service.calls.get());
+    }
+
+    /**
+     * Test client errors raised by the service are not turned into 502.
+     */
+    @Test(expected = NotFoundException.class)
+    public void test_callService_clientError() {
+        final TestResourceProxy proxy = new TestResourceProxy(new CountingService(), null);
+
+        proxy.setCircuitBreaker(new CircuitBreaker());
+        proxy.respond(createRequest("GET", "alice"), service -> {
+            throw new NotFoundException();
+        });
+    }
+}
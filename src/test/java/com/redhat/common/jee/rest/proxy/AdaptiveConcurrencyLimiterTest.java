@@ -0,0 +1,154 @@
+package com.redhat.common.jee.rest.proxy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests AdaptiveConcurrencyLimiter admission, release balance and tuning.
+ *
+ * @author sfloess
+ */
+public class AdaptiveConcurrencyLimiterTest {
+    /**
+     * Acquire and release <code>limiter</code> fully, <code>count</code>
+     * times, each taking <code>rttNanos</code>.
+     */
+    static void sample(final AdaptiveConcurrencyLimiter limiter, final int count, final long rttNanos) {
+        for (int index = 0; index < count; index++) {
+            final int inFlight = Math.max(1, limiter.getLimit() - 1);
+
+            for (int acquired = 0; acquired < inFlight; acquired++) {
+                assertTrue(limiter.tryAcquire());
+            }
+
+            for (int released = 0; released < inFlight; released++) {
+                limiter.release(rttNanos);
+            }
+        }
+    }
+
+    /**
+     * Test requests beyond the limit are rejected until one is released.
+     */
+    @Test
+    public void test_tryAcquire_limit() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1, TimeUnit.SECONDS);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejectedCount());
+
+        limiter.release();
+
+        assertTrue(limiter.tryAcquire());
+
+        limiter.release(1000);
+        limiter.release(1000);
+
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Test concurrent acquires and releases balance out.
+     */
+    @Test
+    public void test_tryAcquire_balanced() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 16, 1, TimeUnit.MILLISECONDS);
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        final CountDownLatch done = new CountDownLatch(8);
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        try {
+            for (int thread = 0; thread < 8; thread++) {
+                executorService.execute(() -> {
+                    for (int index = 0; index < 10_000; index++) {
+                        if (limiter.tryAcquire()) {
+                            maxInFlight.accumulateAndGet(limiter.getInFlight(), Math::max);
+
+                            if (0 == index % 2) {
+                                limiter.release();
+                            } else {
+                                limiter.release(1000 + index % 7);
+                            }
+                        }
+                    }
+
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertEquals(0, limiter.getInFlight());
+            assertTrue(maxInFlight.get() <= limiter.getMaxLimit());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Test a steady latency grows the limit and a rising one shrinks it.
+     */
+    @Test
+    public void test_closeWindow_tunes() throws InterruptedException {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 1, TimeUnit.MILLISECONDS);
+
+        for (int window = 0; window < 20; window++) {
+            sample(limiter, 2, 1_000_000);
+
+            Thread.sleep(2);
+        }
+
+        final int grown = limiter.getLimit();
+
+        assertTrue("Limit should grow: " + grown, grown > 10);
+        assertEquals(1, limiter.getNoLoadRtt(TimeUnit.MILLISECONDS));
+
+        for (int window = 0; window < 20; window++) {
+            sample(limiter, 2, 10_000_000);
+
+            Thread.sleep(2);
+        }
+
+        assertTrue("Limit should shrink: " + limiter.getLimit(), limiter.getLimit() < grown);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Test windows with dropped requests back the limit off down to its minimum.
+     */
+    @Test
+    public void test_releaseDropped_shrinks() throws InterruptedException {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 100, 1, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(2);
+
+        for (int dropped = 0; dropped < AdaptiveConcurrencyLimiter.MIN_WINDOW_SAMPLES; dropped++) {
+            assertTrue(limiter.tryAcquire());
+
+            limiter.releaseDropped();
+        }
+
+        assertEquals((int) (20 * AdaptiveConcurrencyLimiter.DROP_BACKOFF), limiter.getLimit());
+
+        for (int window = 0; window < 40; window++) {
+            Thread.sleep(2);
+
+            for (int dropped = 0; dropped < AdaptiveConcurrencyLimiter.MIN_WINDOW_SAMPLES; dropped++) {
+                assertTrue(limiter.tryAcquire());
+
+                limiter.releaseDropped();
+            }
+        }
+
+        assertEquals(5, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
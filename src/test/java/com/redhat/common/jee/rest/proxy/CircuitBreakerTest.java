@@ -0,0 +1,212 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.jee.rest.utils.ResponseBuilder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.NotFoundException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Tests CircuitBreaker state transitions and failure classification.
+ *
+ * @author sfloess
+ */
+public class CircuitBreakerTest {
+    /**
+     * How long test circuits stay open, in milliseconds.
+     */
+    static final long OPEN_MILLIS = 50;
+
+    /**
+     * Return a circuit opening once half of at least 4 calls fail.
+     */
+    static CircuitBreaker createCircuitBreaker() {
+        return new CircuitBreaker(50, 4, 10_000, OPEN_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Return the exception <code>call</code> raised through <code>circuitBreaker</code>.
+     */
+    static RuntimeException executeFailing(final CircuitBreaker circuitBreaker, final Supplier<?> call) {
+        try {
+            circuitBreaker.execute(call);
+        } catch (final RuntimeException runtimeException) {
+            return runtimeException;
+        }
+
+        throw new AssertionError("Call should have failed");
+    }
+
+    /**
+     * Fail calls until the circuit opens.
+     */
+    static void open(final CircuitBreaker circuitBreaker) {
+        for (int index = 0; index < 4; index++) {
+            executeFailing(circuitBreaker, () -> {
+                throw new IllegalStateException("Failed");
+            });
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    /**
+     * Test failures open the circuit only once the minimum calls were made.
+     */
+    @Test
+    public void test_execute_opens() {
+        final CircuitBreaker circuitBreaker = createCircuitBreaker();
+
+        assertEquals("value", circuitBreaker.execute(() -> "value"));
+
+        for (int index = 0; index < 2; index++) {
+            final RuntimeException exception = executeFailing(circuitBreaker, () -> {
+                throw new IllegalStateException("Failed");
+            });
+
+            assertSame(ResponseBuilder.BAD_GATEWAY, ((ProxyException) exception).getResponseBuilder());
+            assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        }
+
+        executeFailing(circuitBreaker, () -> {
+            throw new IllegalStateException("Failed");
+        });
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(75, circuitBreaker.getFailureRate());
+    }
+
+    /**
+     * Test an open circuit rejects calls without making them.
+     */
+    @Test
+    public void test_execute_open() {
+        final CircuitBreaker circuitBreaker = createCircuitBreaker();
+        final AtomicInteger calls = new AtomicInteger();
+
+        open(circuitBreaker);
+
+        final RuntimeException exception = executeFailing(circuitBreaker, calls::incrementAndGet);
+
+        assertSame(ResponseBuilder.SERVICE_UNAVAILABLE, ((ProxyException) exception).getResponseBuilder());
+        assertEquals(0, calls.get());
+        assertEquals(1, circuitBreaker.getRejectedCount());
+    }
+
+    /**
+     * Test a successful half open trial closes the circuit with an empty window.
+     */
+    @Test
+    public void test_halfOpen_closes() throws InterruptedException {
+        final CircuitBreaker circuitBreaker = createCircuitBreaker();
+
+        open(circuitBreaker);
+
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureRate());
+    }
+
+    /**
+     * Test a failed half open trial reopens the circuit.
+     */
+    @Test
+    public void test_halfOpen_reopens() throws InterruptedException {
+        final CircuitBreaker circuitBreaker = createCircuitBreaker();
+
+        open(circuitBreaker);
+
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        executeFailing(circuitBreaker, () -> {
+            throw new IllegalStateException("Failed");
+        });
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    /**
+     * Test an ignored half open trial lets the next call be the trial.
+     */
+    @Test
+    public void test_halfOpen_ignored() throws InterruptedException {
+        final CircuitBreaker circuitBreaker = createCircuitBreaker();
+
+        open(circuitBreaker);
+
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onIgnored();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    /**
+     * Test client errors pass through unchanged and are not counted, while
+     * server errors are.
+     */
+    @Test
+    public void test_execute_clientErrors() {
+        final CircuitBreaker circuitBreaker = createCircuitBreaker();
+        final NotFoundException notFound = new NotFoundException();
+
+        for (int index = 0; index < 10; index++) {
+            assertSame(notFound, executeFailing(circuitBreaker, () -> {
+                throw notFound;
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureRate());
+
+        final RuntimeException exception = executeFailing(circuitBreaker, () -> {
+            throw new InternalServerErrorException();
+        });
+
+        assertSame(ResponseBuilder.BAD_GATEWAY, ((ProxyException) exception).getResponseBuilder());
+        assertEquals(100, circuitBreaker.getFailureRate());
+    }
+
+    /**
+     * Test a supplied predicate decides what is a failure.
+     */
+    @Test
+    public void test_execute_failurePredicate() {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(50, 1, 10, 10, TimeUnit.SECONDS, throwable -> !(throwable instanceof IllegalArgumentException));
+        final IllegalArgumentException illegalArgumentException = new IllegalArgumentException("Bad argument");
+
+        assertSame(illegalArgumentException, executeFailing(circuitBreaker, () -> {
+            throw illegalArgumentException;
+        }));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        try {
+            circuitBreaker.execute(() -> {
+                throw new IllegalStateException("Failed");
+            });
+
+            fail("Should have failed");
+        } catch (final ProxyException proxyException) {
+            assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.jee.servlet.RequestWrapperCleanupListener;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests ConcurrencyLimitFilter admits, rejects and always releases requests.
+ *
+ * @author sfloess
+ */
+public class ConcurrencyLimitFilterTest {
+    /**
+     * A request's JAX-RS and servlet views, sharing attributes.
+     */
+    static class TestRequest {
+        final Map<String, Object> attributes = new HashMap<>();
+        final AtomicReference<Response> aborted = new AtomicReference<>();
+
+        final HttpServletRequest servletRequest = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (instance, invoked, args) -> invoke(invoked.getName(), args));
+
+        final ContainerRequestContext requestContext = (ContainerRequestContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ContainerRequestContext.class}, (instance, invoked, args) -> invoke(invoked.getName(), args));
+
+        Object invoke(final String name, final Object[] args) {
+            switch (name) {
+                case "getAttribute":
+                case "getProperty":
+                    return attributes.get(args[0]);
+
+                case "setAttribute":
+                case "setProperty":
+                    attributes.put((String) args[0], args[1]);
+
+                    return null;
+
+                case "removeAttribute":
+                case "removeProperty":
+                    attributes.remove(args[0]);
+
+                    return null;
+
+                case "abortWith":
+                    aborted.set((Response) args[0]);
+
+                    return null;
+
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * Complete the servlet request, as the container does however it ended.
+         */
+        void destroy() {
+            new RequestWrapperCleanupListener().requestDestroyed(new ServletRequestEvent((ServletContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ServletContext.class}, (instance, invoked, args) -> null), servletRequest));
+        }
+    }
+
+    /**
+     * Return a response context answering <code>status</code>.
+     */
+    static ContainerResponseContext createResponse(final int status) {
+        return (ContainerResponseContext) Proxy.newProxyInstance(ConcurrencyLimitFilterTest.class.getClassLoader(), new Class<?>[]{ContainerResponseContext.class}, (instance, invoked, args) -> "getStatus".equals(invoked.getName()) ? status : null);
+    }
+
+    /**
+     * Return a filter of a limiter admitting <code>limit</code> requests.
+     */
+    static ConcurrencyLimitFilter createFilter(final int limit) {
+        return new ConcurrencyLimitFilter(new AdaptiveConcurrencyLimiter(limit, 1, limit, 1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Admit <code>request</code> through <code>filter</code>.
+     */
+    static void admit(final ConcurrencyLimitFilter filter, final TestRequest request) {
+        filter.setServletRequest(request.servletRequest);
+        filter.filter(request.requestContext);
+    }
+
+    /**
+     * Test a request reaching the response filter is released once.
+     */
+    @Test
+    public void test_filter_released() {
+        final ConcurrencyLimitFilter filter = createFilter(1);
+        final TestRequest request = new TestRequest();
+
+        admit(filter, request);
+
+        assertEquals(1, filter.getLimiter().getInFlight());
+
+        filter.filter(request.requestContext, createResponse(200));
+        request.destroy();
+
+        assertEquals(0, filter.getLimiter().getInFlight());
+    }
+
+    /**
+     * Test a request that never reaches the response filter - an unmapped
+     * exception or abandoned async request - is released when it completes.
+     */
+    @Test
+    public void test_filter_releasedOnCompletion() {
+        final ConcurrencyLimitFilter filter = createFilter(1);
+        final TestRequest request = new TestRequest();
+
+        admit(filter, request);
+        request.destroy();
+
+        assertEquals(0, filter.getLimiter().getInFlight());
+
+        final TestRequest next = new TestRequest();
+
+        admit(filter, next);
+
+        assertNull(next.aborted.get());
+    }
+
+    /**
+     * Test requests over the limit are rejected with Retry-After and hold no slot.
+     */
+    @Test
+    public void test_filter_rejected() {
+        final ConcurrencyLimitFilter filter = createFilter(1);
+        final TestRequest admitted = new TestRequest();
+        final TestRequest rejected = new TestRequest();
+
+        filter.setRetryAfterSeconds(5);
+
+        admit(filter, admitted);
+        admit(filter, rejected);
+
+        assertEquals(503, rejected.aborted.get().getStatus());
+        assertEquals("5", rejected.aborted.get().getHeaderString(HttpHeaders.RETRY_AFTER));
+
+        filter.filter(rejected.requestContext, createResponse(503));
+        rejected.destroy();
+
+        assertEquals(1, filter.getLimiter().getInFlight());
+
+        admitted.destroy();
+
+        assertEquals(0, filter.getLimiter().getInFlight());
+    }
+
+    /**
+     * Test overload responses are released as drops that shrink the limit,
+     * while other server errors release without a sample.
+     */
+    @Test
+    public void test_filter_overloaded() throws InterruptedException {
+        for (final int status : new int[]{429, 502, 503, 504}) {
+            final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new AdaptiveConcurrencyLimiter(20, 1, 20, 1, TimeUnit.MILLISECONDS));
+
+            Thread.sleep(2);
+
+            for (int index = 0; index < AdaptiveConcurrencyLimiter.MIN_WINDOW_SAMPLES; index++) {
+                final TestRequest request = new TestRequest();
+
+                admit(filter, request);
+                filter.filter(request.requestContext, createResponse(status));
+                request.destroy();
+            }
+
+            assertTrue("Status " + status + " should shrink the limit", filter.getLimiter().getLimit() < 20);
+            assertEquals(0, filter.getLimiter().getInFlight());
+        }
+
+        final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new AdaptiveConcurrencyLimiter(20, 1, 20, 1, TimeUnit.MILLISECONDS));
+
+        Thread.sleep(2);
+
+        for (int index = 0; index < AdaptiveConcurrencyLimiter.MIN_WINDOW_SAMPLES; index++) {
+            final TestRequest request = new TestRequest();
+
+            admit(filter, request);
+            filter.filter(request.requestContext, createResponse(500));
+            request.destroy();
+        }
+
+        assertEquals(20, filter.getLimiter().getLimit());
+        assertEquals(0, filter.getLimiter().getInFlight());
+    }
+}
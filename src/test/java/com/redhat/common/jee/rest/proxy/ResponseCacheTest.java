@@ -0,0 +1,183 @@
+package com.redhat.common.jee.rest.proxy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests ResponseCache expiry, eviction and keys.
+ *
+ * @author sfloess
+ */
+public class ResponseCacheTest {
+    /**
+     * Return a response for <code>body</code>.
+     */
+    static CachedResponse createResponse(final String body) {
+        return new CachedResponse(body.getBytes(), "text/plain", System.currentTimeMillis());
+    }
+
+    /**
+     * Test a loaded result is stored and later served, null results are not.
+     */
+    @Test
+    public void test_get() {
+        final ResponseCache cache = new ResponseCache();
+        final CachedResponse response = createResponse("body");
+
+        assertSame(response, cache.get("key", () -> response));
+        assertSame(response, cache.get("key", () -> createResponse("other")));
+        assertNull(cache.get("null", () -> null));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    /**
+     * Test concurrent misses sharing a single flight call the loader once,
+     * including callers that start after the shared load finished.
+     */
+    @Test
+    public void test_get_singleFlight() throws Exception {
+        final ResponseCache cache = new ResponseCache();
+        final SingleFlight<String, CachedResponse> flight = new SingleFlight<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        try {
+            final List<Future<CachedResponse>> futures = new ArrayList<>();
+
+            for (int index = 0; index < 64; index++) {
+                futures.add(executorService.submit(() -> cache.get("key", flight, () -> {
+                    loads.incrementAndGet();
+
+                    try {
+                        Thread.sleep(20);
+                    } catch (final InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    return createResponse("body");
+                })));
+            }
+
+            final CachedResponse first = futures.get(0).get(5, TimeUnit.SECONDS);
+
+            for (final Future<CachedResponse> future : futures) {
+                assertSame(first, future.get(5, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, loads.get());
+            assertEquals(64, cache.getHits() + cache.getMisses());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Test entries expire after their time to live.
+     */
+    @Test
+    public void test_getIfPresent_expired() throws InterruptedException {
+        final ResponseCache cache = new ResponseCache(10, 50, TimeUnit.MILLISECONDS);
+
+        cache.put("key", createResponse("body"));
+
+        assertTrue(null != cache.getIfPresent("key"));
+
+        Thread.sleep(100);
+
+        assertNull(cache.getIfPresent("key"));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Test the cache never holds more than its maximum entries.
+     */
+    @Test
+    public void test_put_evicts() {
+        final ResponseCache cache = new ResponseCache(8, 1, TimeUnit.MINUTES);
+
+        for (int index = 0; index < 100; index++) {
+            cache.put("key-" + index, createResponse("body"));
+        }
+
+        assertTrue(cache.size() <= 8);
+        assertEquals(100 - cache.size(), cache.getEvictions());
+    }
+
+    /**
+     * Test the least recently used entry of a segment is evicted first.
+     */
+    @Test
+    public void test_put_evictsLeastRecentlyUsed() {
+        final ResponseCache cache = new ResponseCache(32, 1, TimeUnit.MINUTES);
+        final List<String> keys = new ArrayList<>();
+
+        // Find three keys sharing a segment - each segment holds two...
+        for (int index = 0; keys.size() < 3; index++) {
+            final String key = "key-" + index;
+
+            if (keys.isEmpty() || cache.getSegment(key) == cache.getSegment(keys.get(0))) {
+                keys.add(key);
+            }
+        }
+
+        cache.put(keys.get(0), createResponse("first"));
+        cache.put(keys.get(1), createResponse("second"));
+        cache.getIfPresent(keys.get(0));
+        cache.put(keys.get(2), createResponse("third"));
+
+        assertTrue(null != cache.getIfPresent(keys.get(0)));
+        assertNull(cache.getIfPresent(keys.get(1)));
+        assertTrue(null != cache.getIfPresent(keys.get(2)));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    /**
+     * Test invalidation.
+     */
+    @Test
+    public void test_invalidate() {
+        final ResponseCache cache = new ResponseCache();
+
+        cache.put("first", createResponse("first"));
+        cache.put("second", createResponse("second"));
+        cache.invalidate("first");
+
+        assertNull(cache.getIfPresent("first"));
+        assertEquals(1, cache.size());
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Test keys separate users and escape their separators.
+     */
+    @Test
+    public void test_toKey() {
+        final Map<String, String[]> params = Collections.singletonMap("name", new String[]{"value"});
+
+        assertEquals("/path?name=value", ResponseCache.toKey("/path", params));
+        assertEquals("@/path?name=value", ResponseCache.toKey(null, "/path", params));
+        assertEquals("alice@/path?name=value", ResponseCache.toKey("alice", "/path", params));
+        assertEquals("a%40b@/path", ResponseCache.toKey("a@b", "/path", null));
+        assertNotEquals(ResponseCache.toKey("alice", "/path", params), ResponseCache.toKey("bob", "/path", params));
+        assertFalse(ResponseCache.toKey("a", "b@/path", null).equals(ResponseCache.toKey("a@b", "/path", null)));
+    }
+}
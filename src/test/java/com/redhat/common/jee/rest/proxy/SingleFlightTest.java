@@ -0,0 +1,206 @@
+package com.redhat.common.jee.rest.proxy;
+
+import com.redhat.common.jee.rest.utils.ResponseBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests SingleFlight sharing, failures and timeouts.
+ *
+ * @author sfloess
+ */
+public class SingleFlightTest {
+    /**
+     * Counts calls, holding each until released.
+     */
+    static class GatedCall implements Supplier<String> {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RuntimeException failure;
+
+        GatedCall(final RuntimeException failure) {
+            this.failure = failure;
+        }
+
+        GatedCall() {
+            this(null);
+        }
+
+        @Override
+        public String get() {
+            calls.incrementAndGet();
+            started.countDown();
+
+            try {
+                release.await();
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (null != failure) {
+                throw failure;
+            }
+
+            return "result-" + calls.get();
+        }
+    }
+
+    ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Start a leader running <code>call</code> and <code>followers</code>
+     * callers, returning every caller's future once all are in flight.
+     */
+    List<Future<String>> startCallers(final SingleFlight<String, String> flight, final GatedCall call, final int followers) throws InterruptedException {
+        final List<Future<String>> retVal = new ArrayList<>();
+
+        retVal.add(executorService.submit(() -> flight.execute("key", call)));
+
+        assertTrue(call.started.await(5, TimeUnit.SECONDS));
+
+        for (int index = 0; index < followers; index++) {
+            retVal.add(executorService.submit(() -> flight.execute("key", call)));
+        }
+
+        while (flight.getTotalStats().getShared() < followers) {
+            Thread.sleep(1);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Test concurrent callers share one call.
+     */
+    @Test
+    public void test_execute_shared() throws Exception {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        final GatedCall call = new GatedCall();
+        final List<Future<String>> futures = startCallers(flight, call, 3);
+
+        call.release.countDown();
+
+        for (final Future<String> future : futures) {
+            assertEquals("result-1", future.get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, call.calls.get());
+        assertEquals(1, flight.getStats("key").getCalls());
+        assertEquals(3, flight.getStats("key").getShared());
+        assertEquals(0, flight.getInFlightCount());
+        assertEquals("result-2", flight.execute("key", call));
+    }
+
+    /**
+     * Test a failed call fails every caller sharing it.
+     */
+    @Test
+    public void test_execute_failure() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("Failed");
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        final GatedCall call = new GatedCall(failure);
+        final List<Future<String>> futures = startCallers(flight, call, 2);
+
+        call.release.countDown();
+
+        for (final Future<String> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+
+                fail("Should have failed");
+            } catch (final ExecutionException executionException) {
+                assertSame(failure, executionException.getCause());
+            }
+        }
+
+        assertEquals(1, flight.getTotalStats().getFailures());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    /**
+     * Test a caller gives up waiting for a shared call after the max wait.
+     */
+    @Test
+    public void test_execute_timeout() throws Exception {
+        final SingleFlight<String, String> flight = new SingleFlight<>(50, TimeUnit.MILLISECONDS, 10);
+        final GatedCall call = new GatedCall();
+        final Future<String> leader = executorService.submit(() -> flight.execute("key", call));
+
+        assertTrue(call.started.await(5, TimeUnit.SECONDS));
+
+        try {
+            flight.execute("key", call);
+
+            fail("Should have timed out");
+        } catch (final ProxyException proxyException) {
+            assertSame(ResponseBuilder.SERVICE_UNAVAILABLE, proxyException.getResponseBuilder());
+        }
+
+        call.release.countDown();
+
+        assertEquals("result-1", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, flight.getTotalStats().getTimeouts());
+    }
+
+    /**
+     * Test submit shares an in-flight call's future.
+     */
+    @Test
+    public void test_submit() throws Exception {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        final GatedCall call = new GatedCall();
+        final Future<CompletableFuture<String>> leader = executorService.submit(() -> flight.submit("key", call));
+
+        assertTrue(call.started.await(5, TimeUnit.SECONDS));
+
+        final CompletableFuture<String> shared = flight.submit("key", call);
+
+        call.release.countDown();
+
+        assertEquals("result-1", shared.get(5, TimeUnit.SECONDS));
+        assertSame(shared, leader.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test stats stop being tracked per key beyond the maximum keys.
+     */
+    @Test
+    public void test_stats_overflow() {
+        final SingleFlight<String, String> flight = new SingleFlight<>(1, TimeUnit.SECONDS, 1);
+
+        flight.execute("first", () -> "first");
+        flight.execute("second", () -> "second");
+
+        assertEquals(1, flight.getStats("first").getCalls());
+        assertEquals(null, flight.getStats("second"));
+        assertEquals(1, flight.getOverflowStats().getCalls());
+        assertEquals(2, flight.getTotalStats().getCalls());
+    }
+}
@@ -0,0 +1,220 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequestWrapper;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests LazyRequestWrapper captures the body as it is read and replays it.
+ *
+ * @author sfloess
+ */
+public class LazyRequestWrapperTest {
+    static final byte[] BODY = TestRequest.newBody(5000);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Read exactly <code>length</code> bytes, as a reader trusting the
+     * content length does - never reading to -1.
+     */
+    static byte[] readExactly(final ServletInputStream inputStream, final int length) throws IOException {
+        final byte[] retVal = new byte[length];
+
+        for (int offset = 0; offset < length;) {
+            offset += inputStream.read(retVal, offset, length - offset);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Assert <code>requestWrapper</code> replays {@link #BODY}.
+     */
+    static void assertReplays(final LazyRequestWrapper requestWrapper, final ServletInputStream original) throws IOException {
+        assertTrue(requestWrapper.isCaptured());
+
+        final ServletInputStream replay = requestWrapper.getInputStream();
+
+        assertNotSame(original, replay);
+        assertArrayEquals(BODY, TestRequest.readAll(replay));
+        assertArrayEquals(BODY, TestRequest.readAll(requestWrapper.getInputStream()));
+        assertArrayEquals(BODY, requestWrapper.getBody().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Test reading exactly the content length completes the capture.
+     */
+    @Test
+    public void test_contentLengthRead() throws IOException {
+        final TestRequest testRequest = new TestRequest(BODY, 300, BODY.length, "ISO-8859-1");
+
+        testRequest.inputStream.reportsFinished = false;
+
+        final LazyRequestWrapper requestWrapper = new LazyRequestWrapper(testRequest.request, BODY.length);
+        final ServletInputStream original = requestWrapper.getInputStream();
+
+        assertFalse(requestWrapper.isCaptured());
+        assertArrayEquals(BODY, readExactly(original, BODY.length));
+        assertReplays(requestWrapper, original);
+    }
+
+    /**
+     * Test a chunked body is captured once the stream reports it is finished.
+     */
+    @Test
+    public void test_finished() throws IOException {
+        final TestRequest testRequest = new TestRequest(BODY, 300, -1, "ISO-8859-1");
+        final LazyRequestWrapper requestWrapper = new LazyRequestWrapper(testRequest.request, BODY.length);
+        final ServletInputStream original = requestWrapper.getInputStream();
+
+        assertArrayEquals(BODY, readExactly(original, BODY.length));
+        assertReplays(requestWrapper, original);
+    }
+
+    /**
+     * Test a chunked body is only captured when read to its end if the
+     * stream does not report it is finished.
+     */
+    @Test
+    public void test_endOfStream() throws IOException {
+        final TestRequest testRequest = new TestRequest(BODY, 300, -1, "ISO-8859-1");
+
+        testRequest.inputStream.reportsFinished = false;
+
+        final LazyRequestWrapper requestWrapper = new LazyRequestWrapper(testRequest.request, BODY.length);
+        final ServletInputStream original = requestWrapper.getInputStream();
+
+        readExactly(original, BODY.length);
+
+        assertFalse(requestWrapper.isCaptured());
+        assertSame("Still reading the original", original, requestWrapper.getInputStream());
+        assertEquals(-1, original.read());
+        assertReplays(requestWrapper, original);
+    }
+
+    /**
+     * Test single byte reads are captured.
+     */
+    @Test
+    public void test_singleBytes() throws IOException {
+        final LazyRequestWrapper requestWrapper = new LazyRequestWrapper(new TestRequest(BODY, "ISO-8859-1").request, BODY.length);
+        final ServletInputStream original = requestWrapper.getInputStream();
+
+        for (int index = 0; index < BODY.length; index++) {
+            assertEquals(BODY[index] & 0xFF, original.read());
+        }
+
+        assertReplays(requestWrapper, original);
+    }
+
+    /**
+     * Test getBody() reads whatever has not been read.
+     */
+    @Test
+    public void test_getBody() throws IOException {
+        final LazyRequestWrapper requestWrapper = new LazyRequestWrapper(new TestRequest(BODY, 300, -1, "ISO-8859-1").request, BODY.length);
+
+        readExactly(requestWrapper.getInputStream(), 100);
+
+        assertArrayEquals(BODY, requestWrapper.getBody().getBytes(StandardCharsets.ISO_8859_1));
+        assertSame(requestWrapper.getBody(), requestWrapper.getBody());
+
+        final StringBuilder replayed = new StringBuilder();
+
+        try (final BufferedReader reader = requestWrapper.getReader()) {
+            for (int value = reader.read(); value >= 0; value = reader.read()) {
+                replayed.append((char) value);
+            }
+        }
+
+        assertArrayEquals(BODY, replayed.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Test a body over the maximum size is passed through but not kept.
+     */
+    @Test
+    public void test_overflow() throws IOException {
+        final LazyRequestWrapper requestWrapper = new LazyRequestWrapper(new TestRequest(BODY, 300, BODY.length, null).request, BODY.length - 1);
+        final ServletInputStream original = requestWrapper.getInputStream();
+
+        assertArrayEquals(BODY, TestRequest.readAll(original));
+        assertTrue(requestWrapper.isOverflowed());
+        assertFalse(requestWrapper.isCaptured());
+        assertNull(requestWrapper.getBody());
+        assertSame(original, requestWrapper.getInputStream());
+    }
+
+    /**
+     * Test a body past the memory threshold is spilled and removed when the
+     * request completes.
+     */
+    @Test
+    public void test_spill() throws IOException {
+        final TestRequest testRequest = new TestRequest(BODY, 300, BODY.length, "ISO-8859-1");
+        final LazyRequestWrapper requestWrapper = new LazyRequestWrapper(testRequest.request, BODY.length, 1000, temporaryFolder.getRoot().toPath());
+        final ServletInputStream original = requestWrapper.getInputStream();
+
+        readExactly(original, BODY.length);
+
+        assertReplays(requestWrapper, original);
+        assertEquals(1, temporaryFolder.getRoot().list().length);
+
+        testRequest.destroy();
+
+        assertEquals(0, temporaryFolder.getRoot().list().length);
+    }
+
+    /**
+     * Test reads made on different threads are all captured and the result
+     * seen by another.
+     */
+    @Test
+    public void test_threads() throws Exception {
+        final LazyRequestWrapper requestWrapper = new LazyRequestWrapper(new TestRequest(BODY, 10, BODY.length, "ISO-8859-1").request, BODY.length);
+        final ServletInputStream original = requestWrapper.getInputStream();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            for (int offset = 0; offset < BODY.length; offset += 500) {
+                final Future<byte[]> read = executor.submit(() -> readExactly(original, 500));
+
+                assertArrayEquals(Arrays.copyOfRange(BODY, offset, offset + 500), read.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertReplays(requestWrapper, original);
+    }
+
+    /**
+     * Test the wrapper is found through other wrappers.
+     */
+    @Test
+    public void test_find() {
+        final TestRequest testRequest = new TestRequest(BODY, null);
+        final LazyRequestWrapper requestWrapper = new LazyRequestWrapper(testRequest.request, BODY.length);
+
+        assertSame(requestWrapper, LazyRequestWrapper.find(new HttpServletRequestWrapper(new HttpServletRequestWrapper(requestWrapper))));
+        assertNull(LazyRequestWrapper.find(testRequest.request));
+    }
+}
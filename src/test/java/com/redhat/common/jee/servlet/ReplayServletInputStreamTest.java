@@ -0,0 +1,233 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import javax.servlet.ReadListener;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests ReplayServletInputStream calls its read listener as the ReadListener
+ * contract requires.
+ *
+ * @author sfloess
+ */
+public class ReplayServletInputStreamTest {
+    static final byte[] BODY = TestRequest.newBody(100);
+
+    /**
+     * Runs dispatched callbacks when told to.
+     */
+    static final class QueueExecutor implements Executor {
+        final Queue<Runnable> queue = new ArrayDeque<>();
+
+        @Override
+        public void execute(final Runnable runnable) {
+            queue.add(runnable);
+        }
+
+        /**
+         * Run everything dispatched, including anything dispatched meanwhile.
+         */
+        void runAll() {
+            for (Runnable runnable = queue.poll(); null != runnable; runnable = queue.poll()) {
+                runnable.run();
+            }
+        }
+    }
+
+    /**
+     * Records callbacks, reading at most <code>maxRead</code> bytes per
+     * onDataAvailable - none at all when zero.
+     */
+    static class RecordingListener implements ReadListener {
+        final List<String> events = new ArrayList<>();
+        final ByteArrayOutputStream read = new ByteArrayOutputStream();
+
+        ReplayServletInputStream inputStream;
+
+        int maxRead;
+
+        RecordingListener(final int maxRead) {
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            events.add("onDataAvailable");
+
+            final byte[] chunk = new byte[16];
+
+            for (int total = 0; total < maxRead && inputStream.isReady(); total += chunk.length) {
+                final int count = inputStream.read(chunk, 0, Math.min(chunk.length, maxRead - total));
+
+                if (count < 0) {
+                    break;
+                }
+
+                read.write(chunk, 0, count);
+            }
+        }
+
+        @Override
+        public void onAllDataRead() {
+            events.add("onAllDataRead");
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            events.add("onError " + throwable.getMessage());
+        }
+    }
+
+    final QueueExecutor executor = new QueueExecutor();
+
+    /**
+     * Return a stream over <code>body</code> with <code>listener</code> set.
+     */
+    ReplayServletInputStream newStream(final byte[] body, final RecordingListener listener) {
+        final ReplayServletInputStream retVal = new ReplayServletInputStream(new ByteArrayInputStream(body), executor);
+
+        listener.inputStream = retVal;
+
+        retVal.setReadListener(listener);
+
+        return retVal;
+    }
+
+    /**
+     * Test a listener that drains the stream at once.
+     */
+    @Test
+    public void test_drainAtOnce() {
+        final RecordingListener listener = new RecordingListener(Integer.MAX_VALUE);
+        final ReplayServletInputStream inputStream = newStream(BODY, listener);
+
+        assertTrue("Nothing is called on the setting thread", listener.events.isEmpty());
+
+        executor.runAll();
+
+        assertEquals(Arrays.asList("onDataAvailable", "onAllDataRead"), listener.events);
+        assertArrayEquals(BODY, listener.read.toByteArray());
+        assertTrue(inputStream.isFinished());
+        assertFalse(inputStream.isReady());
+
+        executor.runAll();
+
+        assertEquals("onAllDataRead is called once", 2, listener.events.size());
+    }
+
+    /**
+     * Test a listener that reads part of the data each time is called until
+     * it has read everything.
+     */
+    @Test
+    public void test_drainInParts() {
+        final RecordingListener listener = new RecordingListener(30);
+
+        newStream(BODY, listener);
+
+        executor.runAll();
+
+        assertEquals(Arrays.asList("onDataAvailable", "onDataAvailable", "onDataAvailable", "onDataAvailable", "onAllDataRead"), listener.events);
+        assertArrayEquals(BODY, listener.read.toByteArray());
+    }
+
+    /**
+     * Test a listener that stops reading is resumed once it calls isReady().
+     */
+    @Test
+    public void test_resume() {
+        final RecordingListener listener = new RecordingListener(0);
+        final ReplayServletInputStream inputStream = newStream(BODY, listener);
+
+        executor.runAll();
+
+        assertEquals(Collections.singletonList("onDataAvailable"), listener.events);
+        assertTrue(executor.queue.isEmpty());
+
+        listener.maxRead = Integer.MAX_VALUE;
+
+        assertFalse("Not ready outside a callback", inputStream.isReady());
+        assertFalse(inputStream.isReady());
+
+        executor.runAll();
+
+        assertEquals(Arrays.asList("onDataAvailable", "onDataAvailable", "onAllDataRead"), listener.events);
+        assertArrayEquals(BODY, listener.read.toByteArray());
+    }
+
+    /**
+     * Test an empty body only reports all data read.
+     */
+    @Test
+    public void test_empty() {
+        final RecordingListener listener = new RecordingListener(Integer.MAX_VALUE);
+
+        newStream(new byte[0], listener);
+
+        executor.runAll();
+
+        assertEquals(Collections.singletonList("onAllDataRead"), listener.events);
+    }
+
+    /**
+     * Test a failing listener is told of the error and not called again.
+     */
+    @Test
+    public void test_error() {
+        final RecordingListener listener = new RecordingListener(10) {
+            @Override
+            public void onDataAvailable() throws IOException {
+                super.onDataAvailable();
+
+                throw new IOException("Failed");
+            }
+        };
+        final ReplayServletInputStream inputStream = newStream(BODY, listener);
+
+        executor.runAll();
+
+        assertEquals(Arrays.asList("onDataAvailable", "onError Failed"), listener.events);
+
+        assertFalse(inputStream.isReady());
+
+        executor.runAll();
+
+        assertEquals(2, listener.events.size());
+    }
+
+    /**
+     * Test only one listener may be set.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void test_setReadListener_twice() {
+        final ReplayServletInputStream inputStream = newStream(BODY, new RecordingListener(0));
+
+        inputStream.setReadListener(new RecordingListener(0));
+    }
+
+    /**
+     * Test reading without a listener never reports not ready.
+     */
+    @Test
+    public void test_blocking() throws IOException {
+        final ReplayServletInputStream inputStream = new ReplayServletInputStream(new ByteArrayInputStream(BODY), executor);
+
+        assertTrue(inputStream.isReady());
+        assertArrayEquals(BODY, TestRequest.readAll(inputStream));
+        assertTrue(inputStream.isReady());
+        assertTrue(inputStream.isFinished());
+    }
+}
@@ -0,0 +1,126 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Tests RequestWrapper keeps the body's bytes and decodes them as declared.
+ *
+ * @author sfloess
+ */
+public class RequestWrapperTest {
+    /**
+     * Test the bytes replayed are exactly those sent, including ones that are
+     * not valid in any charset, however many times they are read.
+     */
+    @Test
+    public void test_rawBytes() throws IOException {
+        final byte[] body = {0, (byte) 0xFF, (byte) 0xC3, 0x28, 'a', (byte) 0x80, (byte) 0xFE};
+        final RequestWrapper requestWrapper = new RequestWrapper(new TestRequest(body, "UTF-8").request);
+
+        assertEquals(body.length, requestWrapper.getBodyLength());
+        assertFalse(requestWrapper.isSpilled());
+        assertArrayEquals(body, TestRequest.readAll(requestWrapper.getInputStream()));
+        assertArrayEquals(body, TestRequest.readAll(requestWrapper.getInputStream()));
+
+        requestWrapper.getBody();
+
+        assertArrayEquals("Decoding does not change the bytes", body, TestRequest.readAll(requestWrapper.getInputStream()));
+    }
+
+    /**
+     * Test the declared charset decodes the body.
+     */
+    @Test
+    public void test_declaredCharset() throws IOException {
+        final RequestWrapper requestWrapper = new RequestWrapper(new TestRequest("café £".getBytes(StandardCharsets.ISO_8859_1), " ISO-8859-1 ").request);
+
+        assertEquals(StandardCharsets.ISO_8859_1, requestWrapper.getBodyCharset());
+        assertEquals("café £", requestWrapper.getBody());
+        assertSame("Decoded once", requestWrapper.getBody(), requestWrapper.getBody());
+
+        try (final BufferedReader reader = requestWrapper.getReader()) {
+            assertEquals("café £", reader.readLine());
+        }
+
+        final RequestWrapper utf16 = new RequestWrapper(new TestRequest("café".getBytes(StandardCharsets.UTF_16BE), "UTF-16BE").request);
+
+        assertEquals("café", utf16.getBody());
+    }
+
+    /**
+     * Test a body without a declared charset is decoded as UTF-8.
+     */
+    @Test
+    public void test_missingCharset() throws IOException {
+        final RequestWrapper requestWrapper = new RequestWrapper(new TestRequest("café ✓".getBytes(StandardCharsets.UTF_8), null).request);
+
+        assertEquals(StandardCharsets.UTF_8, requestWrapper.getBodyCharset());
+        assertEquals("café ✓", requestWrapper.getBody());
+    }
+
+    /**
+     * Test an unknown or malformed charset falls back to UTF-8.
+     */
+    @Test
+    public void test_badCharset() throws IOException {
+        for (final String encoding : new String[]{"no-such-charset", "not a charset!", ""}) {
+            final RequestWrapper requestWrapper = new RequestWrapper(new TestRequest("café".getBytes(StandardCharsets.UTF_8), encoding).request);
+
+            assertEquals(encoding, StandardCharsets.UTF_8, requestWrapper.getBodyCharset());
+            assertEquals(encoding, "café", requestWrapper.getBody());
+        }
+    }
+
+    /**
+     * Test empty bodies, with and without a content length.
+     */
+    @Test
+    public void test_emptyBody() throws IOException {
+        for (final long contentLength : new long[]{0, -1}) {
+            final RequestWrapper requestWrapper = new RequestWrapper(new TestRequest(new byte[0], Integer.MAX_VALUE, contentLength, null).request);
+
+            assertEquals(0, requestWrapper.getBodyLength());
+            assertEquals("", requestWrapper.getBody());
+            assertEquals(-1, requestWrapper.getInputStream().read());
+            assertEquals(null, requestWrapper.getReader().readLine());
+        }
+    }
+
+    /**
+     * Test a chunked body - no content length, arriving a little at a time.
+     */
+    @Test
+    public void test_chunkedBody() throws IOException {
+        final byte[] body = TestRequest.newBody(20000);
+        final RequestWrapper requestWrapper = new RequestWrapper(new TestRequest(body, 7, -1, null).request);
+
+        assertEquals(body.length, requestWrapper.getBodyLength());
+        assertArrayEquals(body, TestRequest.readAll(requestWrapper.getInputStream()));
+    }
+
+    /**
+     * Test a content length smaller than the body sent does not truncate it.
+     */
+    @Test
+    public void test_wrongContentLength() throws IOException {
+        final byte[] body = TestRequest.newBody(5000);
+        final RequestWrapper requestWrapper = new RequestWrapper(new TestRequest(body, 100, 10, null).request);
+
+        assertArrayEquals(body, TestRequest.readAll(requestWrapper.getInputStream()));
+    }
+
+    /**
+     * Test a negative memory threshold is refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_negativeMemoryThreshold() throws IOException {
+        new RequestWrapper(new TestRequest(new byte[0], null).request, -1);
+    }
+}
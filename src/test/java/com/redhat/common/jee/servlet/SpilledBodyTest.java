@@ -0,0 +1,260 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests bodies are spilled to disk past the memory threshold, and that the
+ * temporary files are removed.
+ *
+ * @author sfloess
+ */
+public class SpilledBodyTest {
+    static final int THRESHOLD = 10000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Return the spill directory.
+     */
+    Path getSpillDirectory() {
+        return temporaryFolder.getRoot().toPath();
+    }
+
+    /**
+     * Return the temporary files left in the spill directory.
+     */
+    int countFiles() {
+        return temporaryFolder.getRoot().list().length;
+    }
+
+    /**
+     * Test reading stops, and the array stops growing, just past the threshold.
+     */
+    @Test
+    public void test_readFrom_boundedByThreshold() throws IOException {
+        final BodyBuffer bodyBuffer = new BodyBuffer(-1);
+
+        assertFalse(bodyBuffer.readFrom(new ByteArrayInputStream(TestRequest.newBody(THRESHOLD * 10)), THRESHOLD));
+        assertEquals(THRESHOLD + 1, bodyBuffer.size());
+        assertEquals(THRESHOLD + 1, bodyBuffer.capacity());
+
+        final BodyBuffer exact = new BodyBuffer(-1);
+
+        assertTrue(exact.readFrom(new ByteArrayInputStream(TestRequest.newBody(THRESHOLD)), THRESHOLD));
+        assertEquals(THRESHOLD, exact.size());
+        assertTrue(exact.capacity() <= THRESHOLD + 1);
+    }
+
+    /**
+     * Test bodies up to the threshold stay in memory and larger ones spill,
+     * with or without a content length.
+     */
+    @Test
+    public void test_capture_thresholdCrossing() throws IOException {
+        final byte[] body = TestRequest.newBody(THRESHOLD);
+        final byte[] larger = TestRequest.newBody(THRESHOLD + 1);
+
+        assertFalse(new RequestWrapper(new TestRequest(body, 1000, body.length, null).request, THRESHOLD, getSpillDirectory()).isSpilled());
+        assertFalse(new RequestWrapper(new TestRequest(body, 1000, -1, null).request, THRESHOLD, getSpillDirectory()).isSpilled());
+        assertEquals(0, countFiles());
+
+        for (final long contentLength : new long[]{larger.length, -1}) {
+            final RequestWrapper requestWrapper = new RequestWrapper(new TestRequest(larger, 1000, contentLength, null).request, THRESHOLD, getSpillDirectory());
+
+            assertTrue(requestWrapper.isSpilled());
+            assertEquals(larger.length, requestWrapper.getBodyLength());
+            assertArrayEquals(larger, TestRequest.readAll(requestWrapper.getInputStream()));
+            assertArrayEquals(larger, TestRequest.readAll(requestWrapper.getInputStream()));
+            assertEquals(1, countFiles());
+
+            requestWrapper.close();
+
+            assertEquals(0, countFiles());
+        }
+    }
+
+    /**
+     * Test a spilled body decodes like one held in memory.
+     */
+    @Test
+    public void test_decode() throws IOException {
+        final StringBuilder text = new StringBuilder();
+
+        while (text.length() <= THRESHOLD) {
+            text.append("café ✓ ");
+        }
+
+        final RequestWrapper requestWrapper = new RequestWrapper(new TestRequest(text.toString().getBytes(StandardCharsets.UTF_8), null).request, THRESHOLD, getSpillDirectory());
+
+        assertTrue(requestWrapper.isSpilled());
+        assertEquals(text.toString(), requestWrapper.getBody());
+
+        requestWrapper.close();
+    }
+
+    /**
+     * Test closing removes the temporary file, and may be repeated.
+     */
+    @Test
+    public void test_close() throws IOException {
+        final byte[] body = TestRequest.newBody(THRESHOLD * 3);
+        final RequestWrapper requestWrapper = new RequestWrapper(new TestRequest(body, null).request, THRESHOLD, getSpillDirectory());
+
+        assertEquals(1, countFiles());
+
+        requestWrapper.close();
+        requestWrapper.close();
+
+        assertEquals(0, countFiles());
+    }
+
+    /**
+     * Test the cleanup listener removes the temporary file when the request completes.
+     */
+    @Test
+    public void test_cleanupListener() throws IOException {
+        final TestRequest testRequest = new TestRequest(TestRequest.newBody(THRESHOLD * 3), null);
+        final RequestWrapper requestWrapper = new RequestWrapper(testRequest.request, THRESHOLD, getSpillDirectory());
+
+        assertTrue(requestWrapper.isSpilled());
+        assertEquals(1, countFiles());
+
+        testRequest.destroy();
+
+        assertEquals(0, countFiles());
+        assertNull(testRequest.attributes.get(RequestWrapperCleanupListener.ATTRIBUTE));
+
+        testRequest.destroy();
+    }
+
+    /**
+     * Test bodies in memory are not registered for cleanup.
+     */
+    @Test
+    public void test_cleanupListener_notSpilled() throws IOException {
+        final TestRequest testRequest = new TestRequest(TestRequest.newBody(100), null);
+
+        new RequestWrapper(testRequest.request, THRESHOLD, getSpillDirectory());
+
+        assertNull(testRequest.attributes.get(RequestWrapperCleanupListener.ATTRIBUTE));
+    }
+
+    /**
+     * Test a file over 2GB cannot be mapped. The file is sparse, so nothing is
+     * actually written.
+     */
+    @Test
+    public void test_map_tooLarge() throws IOException {
+        final File file = temporaryFolder.newFile();
+
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(Integer.MAX_VALUE + 1L);
+        }
+
+        try (final FileChannel channel = SpilledBody.open(file.toPath())) {
+            SpilledBody.map(file.toPath(), channel);
+
+            fail("Expected a body over 2GB to be refused");
+        } catch (final IOException ioException) {
+            assertTrue(ioException.getMessage().contains("too large"));
+        }
+    }
+
+    /**
+     * Test the temporary file is removed when spilling fails.
+     */
+    @Test
+    public void test_spill_failure() {
+        final InputStream failing = new InputStream() {
+            int remaining = THRESHOLD;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining-- <= 0) {
+                    throw new IOException("Connection reset");
+                }
+
+                return 'a';
+            }
+        };
+
+        try {
+            SpilledBody.spill(new BodyBuffer(0), failing, getSpillDirectory());
+
+            fail("Expected the failure to be thrown");
+        } catch (final IOException ioException) {
+            assertEquals("Connection reset", ioException.getMessage());
+        }
+
+        assertEquals(0, countFiles());
+    }
+
+    /**
+     * Test a body collected in chunks spills once past the threshold, and
+     * the file is removed when aborted.
+     */
+    @Test
+    public void test_collector() throws IOException {
+        final byte[] body = TestRequest.newBody(THRESHOLD + 500);
+        final BodyCollector collector = new BodyCollector(-1, THRESHOLD, getSpillDirectory());
+
+        for (int offset = 0; offset < body.length; offset += 999) {
+            collector.write(body, offset, Math.min(999, body.length - offset));
+        }
+
+        final CapturedBody capturedBody = collector.finish();
+
+        assertTrue(capturedBody.isSpilled());
+        assertArrayEquals(body, TestRequest.readAll(capturedBody.newInputStream()));
+
+        capturedBody.close();
+
+        final BodyCollector aborted = new BodyCollector(-1, THRESHOLD, getSpillDirectory());
+
+        aborted.write(body, 0, body.length);
+
+        assertEquals(1, countFiles());
+
+        aborted.abort();
+
+        assertEquals(0, countFiles());
+    }
+
+    /**
+     * Test a body collected in chunks stays in memory up to the threshold
+     * without growing past it.
+     */
+    @Test
+    public void test_collector_inMemory() throws IOException {
+        final byte[] body = TestRequest.newBody(THRESHOLD);
+        final BodyCollector collector = new BodyCollector(-1, THRESHOLD, getSpillDirectory());
+
+        for (int offset = 0; offset < body.length; offset += 999) {
+            collector.write(body, offset, Math.min(999, body.length - offset));
+        }
+
+        final CapturedBody capturedBody = collector.finish();
+
+        assertFalse(capturedBody.isSpilled());
+        assertTrue(((BodyBuffer) capturedBody).capacity() <= THRESHOLD + 1);
+        assertArrayEquals(body, TestRequest.readAll(capturedBody.newInputStream()));
+        assertEquals(0, countFiles());
+    }
+}
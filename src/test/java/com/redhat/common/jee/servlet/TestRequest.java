@@ -0,0 +1,172 @@
+package com.redhat.common.jee.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * A servlet request with a body, for tests.
+ *
+ * @author sfloess
+ */
+final class TestRequest {
+    /**
+     * Delivers a body at most a few bytes per read - as a chunked body arrives.
+     */
+    static final class TestServletInputStream extends ServletInputStream {
+        final byte[] body;
+        final int maxRead;
+        int position;
+        boolean reportsFinished = true;
+
+        TestServletInputStream(final byte[] body, final int maxRead) {
+            this.body = body;
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public int read() {
+            return position < body.length ? body[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) {
+            if (0 == length) {
+                return 0;
+            }
+
+            if (position >= body.length) {
+                return -1;
+            }
+
+            final int retVal = Math.min(Math.min(length, maxRead), body.length - position);
+
+            System.arraycopy(body, position, buffer, offset, retVal);
+
+            position += retVal;
+
+            return retVal;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return reportsFinished && position >= body.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+            throw new IllegalStateException("Not async");
+        }
+    }
+
+    final Map<String, Object> attributes = new HashMap<>();
+
+    final TestServletInputStream inputStream;
+
+    final long contentLength;
+
+    final String encoding;
+
+    final HttpServletRequest request;
+
+    /**
+     * A request for <code>body</code>, delivered at most <code>maxRead</code>
+     * bytes at a time, declaring <code>contentLength</code> (-1 if unknown)
+     * and <code>encoding</code>.
+     */
+    TestRequest(final byte[] body, final int maxRead, final long contentLength, final String encoding) {
+        this.inputStream = new TestServletInputStream(body, maxRead);
+        this.contentLength = contentLength;
+        this.encoding = encoding;
+        this.request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (instance, invoked, args) -> invoke(invoked.getName(), args));
+    }
+
+    /**
+     * A request for <code>body</code> declaring its length and <code>encoding</code>.
+     */
+    TestRequest(final byte[] body, final String encoding) {
+        this(body, Integer.MAX_VALUE, body.length, encoding);
+    }
+
+    Object invoke(final String name, final Object[] args) {
+        switch (name) {
+            case "getInputStream":
+                return inputStream;
+
+            case "getContentLengthLong":
+                return contentLength;
+
+            case "getContentLength":
+                return (int) contentLength;
+
+            case "getCharacterEncoding":
+                return encoding;
+
+            case "isAsyncStarted":
+                return false;
+
+            case "getAttribute":
+                return attributes.get(args[0]);
+
+            case "setAttribute":
+                attributes.put((String) args[0], args[1]);
+
+                return null;
+
+            case "removeAttribute":
+                attributes.remove(args[0]);
+
+                return null;
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Complete the request, as the container does however it ended.
+     */
+    void destroy() {
+        new RequestWrapperCleanupListener().requestDestroyed(new ServletRequestEvent((ServletContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ServletContext.class}, (instance, invoked, args) -> null), request));
+    }
+
+    /**
+     * Return everything left in <code>inputStream</code>.
+     */
+    static byte[] readAll(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream retVal = new ByteArrayOutputStream();
+        final byte[] chunk = new byte[1000];
+
+        for (int read = inputStream.read(chunk); read >= 0; read = inputStream.read(chunk)) {
+            retVal.write(chunk, 0, read);
+        }
+
+        return retVal.toByteArray();
+    }
+
+    /**
+     * Return <code>length</code> bytes covering every byte value.
+     */
+    static byte[] newBody(final int length) {
+        final byte[] retVal = new byte[length];
+
+        for (int index = 0; index < length; index++) {
+            retVal[index] = (byte) (index * 31 + index / 256);
+        }
+
+        return retVal;
+    }
+}
@@ -0,0 +1,171 @@
+package com.redhat.common.jee.servlet.utils;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests the QueryParams view, its caching and typed accessors.
+ *
+ * @author sfloess
+ */
+public class QueryParamsTest {
+    /**
+     * A fake request whose parameter map is a new copy on every call.
+     */
+    static class TestRequest {
+        final Map<String, Object> attributes = new HashMap<>();
+        final AtomicInteger parameterMapCalls = new AtomicInteger();
+
+        Map<String, String[]> parameterMap;
+        DispatcherType dispatcherType = DispatcherType.REQUEST;
+        String queryString;
+
+        final HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (instance, invoked, args) -> {
+            switch (invoked.getName()) {
+                case "getParameterMap":
+                    parameterMapCalls.incrementAndGet();
+
+                    return new HashMap<>(parameterMap);
+
+                case "getDispatcherType":
+                    return dispatcherType;
+
+                case "getQueryString":
+                    return queryString;
+
+                case "getAttribute":
+                    return attributes.get(args[0]);
+
+                case "setAttribute":
+                    attributes.put((String) args[0], args[1]);
+
+                    return null;
+
+                default:
+                    return null;
+            }
+        });
+
+        TestRequest(final String queryString, final Map<String, String[]> parameterMap) {
+            this.queryString = queryString;
+            this.parameterMap = parameterMap;
+        }
+    }
+
+    /**
+     * Test the view is cached for the request even though the container
+     * returns a new parameter map on every call.
+     */
+    @Test
+    public void test_of_cached() {
+        final TestRequest testRequest = new TestRequest("a=1", Collections.singletonMap("a", new String[]{"1"}));
+        final QueryParams queryParams = QueryParams.of(testRequest.request);
+
+        assertSame(queryParams, QueryParams.of(testRequest.request));
+        assertSame(queryParams, HttpServletRequestUtils.getQueryParams(testRequest.request));
+        assertEquals(1, testRequest.parameterMapCalls.get());
+        assertEquals("1", queryParams.getFirst("a"));
+    }
+
+    /**
+     * Test a forward with a different query string replaces the view.
+     */
+    @Test
+    public void test_of_forwarded() {
+        final TestRequest testRequest = new TestRequest("a=1", Collections.singletonMap("a", new String[]{"1"}));
+        final QueryParams queryParams = QueryParams.of(testRequest.request);
+
+        testRequest.dispatcherType = DispatcherType.FORWARD;
+
+        final QueryParams forwarded = QueryParams.of(testRequest.request);
+
+        assertNotSame(queryParams, forwarded);
+        assertSame(forwarded, QueryParams.of(testRequest.request));
+
+        final Map<String, String[]> parameterMap = new HashMap<>();
+
+        parameterMap.put("a", new String[]{"1"});
+        parameterMap.put("b", new String[]{"2"});
+
+        testRequest.parameterMap = parameterMap;
+        testRequest.queryString = "b=2";
+
+        final QueryParams withExtra = QueryParams.of(testRequest.request);
+
+        assertNotSame(forwarded, withExtra);
+        assertEquals("a=1&b=2", withExtra.getCanonicalKey());
+    }
+
+    /**
+     * Test a null request or parameter map gives an empty view.
+     */
+    @Test
+    public void test_of_empty() {
+        assertSame(QueryParams.EMPTY, QueryParams.of(null));
+
+        final TestRequest testRequest = new TestRequest(null, Collections.emptyMap());
+
+        assertTrue(QueryParams.of(testRequest.request).isEmpty());
+        assertEquals("", QueryParams.of(testRequest.request).getCanonicalKey());
+    }
+
+    /**
+     * Test the canonical key sorts names, keeps value order and escapes separators.
+     */
+    @Test
+    public void test_toCanonicalKey() {
+        final Map<String, String[]> params = new HashMap<>();
+
+        params.put("z", new String[]{"2", "1"});
+        params.put("a&b", new String[]{"x=y%"});
+        params.put("m", new String[0]);
+
+        assertEquals("a%26b=x%3Dy%25&m&z=2&z=1", QueryParams.toCanonicalKey(params));
+        assertEquals("", QueryParams.toCanonicalKey(null));
+    }
+
+    /**
+     * Test typed accessors parse the first value or fall back to the default.
+     */
+    @Test
+    public void test_typedAccessors() {
+        final Map<String, String[]> params = new HashMap<>();
+
+        params.put("int", new String[]{" 42 ", "7"});
+        params.put("big", new String[]{"9999999999"});
+        params.put("min", new String[]{String.valueOf(Long.MIN_VALUE)});
+        params.put("over", new String[]{"9223372036854775808"});
+        params.put("bad", new String[]{"4x"});
+        params.put("bool", new String[]{"TRUE"});
+        params.put("unit", new String[]{"seconds"});
+
+        final QueryParams queryParams = new QueryParams(params, null, null);
+
+        assertEquals(42, queryParams.getInt("int", -1));
+        assertEquals(-1, queryParams.getInt("big", -1));
+        assertEquals(9999999999L, queryParams.getLong("big", -1));
+        assertEquals(Long.MIN_VALUE, queryParams.getLong("min", -1));
+        assertEquals(-1, queryParams.getLong("over", -1));
+        assertEquals(-1, queryParams.getInt("bad", -1));
+        assertEquals(-1, queryParams.getInt("absent", -1));
+        assertTrue(queryParams.getBoolean("bool", false));
+        assertFalse(queryParams.getBoolean("int", false));
+        assertEquals(TimeUnit.SECONDS, queryParams.getEnum("unit", TimeUnit.class, null));
+        assertEquals(TimeUnit.DAYS, queryParams.getEnum("bad", TimeUnit.class, TimeUnit.DAYS));
+        assertEquals("dflt", queryParams.getString("absent", "dflt"));
+        assertEquals(2, queryParams.getList("int").size());
+        assertTrue(queryParams.getList("absent").isEmpty());
+    }
+}
@@ -0,0 +1,170 @@
+package com.redhat.common.markup;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests the MarkupBuilder mapper caching and transcode support.
+ *
+ * @author sfloess
+ */
+public class MarkupBuilderTest {
+    /**
+     * Transcode <code>markup</code> from <code>source</code> to <code>target</code>.
+     */
+    static String transcode(final MarkupBuilder source, final MarkupBuilder target, final String markup) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        source.transcode(target, new ByteArrayInputStream(markup.getBytes(StandardCharsets.UTF_8)), out);
+
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test readers and writers are created once per type and shared.
+     */
+    @Test
+    public void test_getReader_getWriter_cached() {
+        for (final MarkupBuilder markupBuilder : MarkupBuilder.values()) {
+            final JavaType listType = markupBuilder.getMapper().getTypeFactory().constructCollectionType(List.class, String.class);
+
+            assertSame(markupBuilder.getMapper(), markupBuilder.getMapper());
+            assertSame(markupBuilder.getReader(HashMap.class), markupBuilder.getReader(HashMap.class));
+            assertSame(markupBuilder.getReader(listType), markupBuilder.getReader(listType));
+            assertSame(markupBuilder.getWriter(), markupBuilder.getWriter());
+            assertSame(markupBuilder.getWriter(HashMap.class), markupBuilder.getWriter(HashMap.class));
+            assertSame(markupBuilder.getWriter(listType), markupBuilder.getWriter(listType));
+            assertNotSame(markupBuilder.getReader(HashMap.class), markupBuilder.getReader(listType));
+        }
+    }
+
+    /**
+     * Test setting and resetting the mapper drops cached readers and writers.
+     */
+    @Test
+    public void test_setMapper_resetMapper() {
+        final ObjectMapper defaultMapper = MarkupBuilder.JSON.getMapper();
+        final Object defaultReader = MarkupBuilder.JSON.getReader(HashMap.class);
+        final Object defaultWriter = MarkupBuilder.JSON.getWriter(HashMap.class);
+        final ObjectMapper mapper = MarkupBuilder.JSON.createMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        try {
+            MarkupBuilder.JSON.setMapper(mapper);
+
+            assertSame(mapper, MarkupBuilder.JSON.getMapper());
+            assertNotSame(defaultReader, MarkupBuilder.JSON.getReader(HashMap.class));
+            assertNotSame(defaultWriter, MarkupBuilder.JSON.getWriter(HashMap.class));
+            assertSame(MarkupBuilder.JSON.getWriter(HashMap.class), MarkupBuilder.JSON.getWriter(HashMap.class));
+
+            final Map<String, Object> map = new HashMap<>();
+
+            map.put("a", 1);
+
+            assertTrue(MarkupBuilder.JSON.toString(map).contains("\n"));
+        } finally {
+            MarkupBuilder.JSON.resetMapper();
+        }
+
+        assertNotSame(mapper, MarkupBuilder.JSON.getMapper());
+        assertNotSame(defaultMapper, MarkupBuilder.JSON.getMapper());
+        assertEquals("{\"a\":1}", MarkupBuilder.JSON.toString(new JSONObject("{\"a\":1}")));
+    }
+
+    /**
+     * Test every markup can write and read back a map through the shared mapper.
+     */
+    @Test
+    public void test_toString_asMap() {
+        final Map<String, Object> map = new HashMap<>();
+
+        map.put("name", "value");
+
+        for (final MarkupBuilder markupBuilder : MarkupBuilder.values()) {
+            assertEquals(markupBuilder.name(), "value", markupBuilder.asMap(markupBuilder.toString(map)).get("name"));
+        }
+    }
+
+    /**
+     * Test repeated sibling elements become an array.
+     */
+    @Test
+    public void test_transcode_xmlRepeatedElements() {
+        final JSONObject json = new JSONObject(transcode(MarkupBuilder.XML, MarkupBuilder.JSON, "<root><name>list</name><item>1</item><item>2</item><item>3</item><last>x</last></root>"));
+
+        assertEquals("list", json.getString("name"));
+        assertEquals("x", json.getString("last"));
+
+        final JSONArray items = json.getJSONArray("item");
+
+        assertEquals(3, items.length());
+        assertEquals("1", items.getString(0));
+        assertEquals("3", items.getString(2));
+    }
+
+    /**
+     * Test repeated elements nested inside repeated elements.
+     */
+    @Test
+    public void test_transcode_xmlNestedRepeatedElements() {
+        final JSONObject json = new JSONObject(transcode(MarkupBuilder.XML, MarkupBuilder.JSON, "<root><group><id>a</id><id>b</id></group><group><id>c</id></group></root>"));
+        final JSONArray groups = json.getJSONArray("group");
+
+        assertEquals(2, groups.length());
+        assertEquals(2, groups.getJSONObject(0).getJSONArray("id").length());
+        assertEquals("c", groups.getJSONObject(1).getString("id"));
+    }
+
+    /**
+     * Test a single element stays a single value.
+     */
+    @Test
+    public void test_transcode_xmlSingleElement() {
+        final JSONObject json = new JSONObject(transcode(MarkupBuilder.XML, MarkupBuilder.JSON, "<root><item>1</item></root>"));
+
+        assertEquals("1", json.getString("item"));
+    }
+
+    /**
+     * Test repeated elements separated by another element fail rather than
+     * producing duplicate keys.
+     */
+    @Test(expected = MarkupException.class)
+    public void test_transcode_xmlSeparatedRepeatedElements() {
+        transcode(MarkupBuilder.XML, MarkupBuilder.JSON, "<root><item>1</item><other>x</other><item>2</item></root>");
+    }
+
+    /**
+     * Test YAML output receives arrays too.
+     */
+    @Test
+    public void test_transcode_xmlToYaml() {
+        final String yaml = transcode(MarkupBuilder.XML, MarkupBuilder.YAML, "<root><item>1</item><item>2</item></root>");
+
+        assertTrue(yaml, yaml.contains("item:\n- \"1\"\n- \"2\""));
+    }
+
+    /**
+     * Test JSON arrays survive a round trip through XML.
+     */
+    @Test
+    public void test_transcode_jsonXmlRoundTrip() {
+        final String xml = transcode(MarkupBuilder.JSON, MarkupBuilder.XML, "{\"item\":[1,2]}");
+        final JSONObject json = new JSONObject(transcode(MarkupBuilder.XML, MarkupBuilder.JSON, xml));
+
+        assertEquals(2, json.getJSONArray("item").length());
+    }
+}
@@ -0,0 +1,211 @@
+package com.redhat.common.markup;
+
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Tests MarkupIterator and the MarkupBuilder streaming API.
+ *
+ * @author sfloess
+ */
+public class MarkupIteratorTest {
+    /**
+     * A bean to read elements into.
+     */
+    public static class Item {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Return <code>str</code> as a stream.
+     */
+    static InputStream toStream(final String str) {
+        return new ByteArrayInputStream(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Return the names of every item iterated from <code>markup</code>.
+     */
+    static List<String> iterate(final MarkupBuilder markupBuilder, final String markup) {
+        final List<String> retVal = new ArrayList<>();
+
+        try (final MarkupIterator<Item> iterator = markupBuilder.iterator(toStream(markup), Item.class)) {
+            while (iterator.hasNext()) {
+                retVal.add(iterator.next().getName());
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Test a root array is iterated element by element.
+     */
+    @Test
+    public void test_iterator_array() {
+        assertEquals(Arrays.asList("a", "b", "c"), iterate(MarkupBuilder.JSON, "[{\"name\":\"a\"},{\"name\":\"b\"},{\"name\":\"c\"}]"));
+        assertEquals(Arrays.asList("a", "b"), iterate(MarkupBuilder.YAML, "- name: a\n- name: b\n"));
+        assertEquals(new ArrayList<>(), iterate(MarkupBuilder.JSON, "[]"));
+    }
+
+    /**
+     * Test the children of an XML root element are iterated.
+     */
+    @Test
+    public void test_iterator_xmlRoot() {
+        assertEquals(Arrays.asList("a", "b"), iterate(MarkupBuilder.XML, "<items><item><name>a</name></item><item><name>b</name></item></items>"));
+    }
+
+    /**
+     * Test a sequence of root values is iterated, as is a single root value.
+     */
+    @Test
+    public void test_iterator_rootValues() {
+        assertEquals(Arrays.asList("a", "b"), iterate(MarkupBuilder.JSON, "{\"name\":\"a\"} {\"name\":\"b\"}"));
+        assertEquals(Arrays.asList("a"), iterate(MarkupBuilder.JSON, "{\"name\":\"a\"}"));
+        assertEquals(new ArrayList<>(), iterate(MarkupBuilder.JSON, ""));
+    }
+
+    /**
+     * Test next() past the end fails and the parser is closed at the end.
+     */
+    @Test
+    public void test_next_end() throws Exception {
+        final JsonParser parser = MarkupBuilder.JSON.createParser("[{\"name\":\"a\"}]");
+        final MarkupIterator<Item> iterator = new MarkupIterator<>(MarkupBuilder.JSON, parser, Item.class);
+
+        assertEquals("a", iterator.next().getName());
+        assertFalse(iterator.hasNext());
+        assertTrue(parser.isClosed());
+
+        try {
+            iterator.next();
+
+            fail("Should not have a next element");
+        } catch (final NoSuchElementException noSuchElementException) {
+        }
+    }
+
+    /**
+     * Test an element that cannot be read closes the parser.
+     */
+    @Test
+    public void test_next_failureClosesParser() {
+        final JsonParser parser = MarkupBuilder.JSON.createParser("[{\"name\":{\"bad\":true}},{\"name\":\"b\"}]");
+        final MarkupIterator<Item> iterator = new MarkupIterator<>(MarkupBuilder.JSON, parser, Item.class);
+
+        try {
+            iterator.next();
+
+            fail("Should not read an object as a string");
+        } catch (final MarkupException markupException) {
+        }
+
+        assertTrue(parser.isClosed());
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Test malformed markup closes the parser.
+     */
+    @Test
+    public void test_hasNext_failureClosesParser() {
+        final JsonParser parser = MarkupBuilder.JSON.createParser("[{\"name\":\"a\"},");
+        final MarkupIterator<Item> iterator = new MarkupIterator<>(MarkupBuilder.JSON, parser, Item.class);
+
+        assertEquals("a", iterator.next().getName());
+
+        try {
+            iterator.hasNext();
+
+            fail("Should not parse truncated markup");
+        } catch (final MarkupException markupException) {
+        }
+
+        assertTrue(parser.isClosed());
+    }
+
+    /**
+     * Test elements can be streamed lazily from a reader.
+     */
+    @Test
+    public void test_stream() {
+        try (final Stream<Item> stream = MarkupBuilder.JSON.stream(new StringReader("[{\"name\":\"a\"},{\"name\":\"b\"}]"), Item.class)) {
+            assertEquals(Arrays.asList("a", "b"), stream.map(Item::getName).collect(Collectors.toList()));
+        }
+
+        try (final Stream<Item> stream = MarkupBuilder.XML.stream(toStream("<items><item><name>a</name></item></items>"), Item.class)) {
+            assertEquals(1, stream.count());
+        }
+    }
+
+    /**
+     * Test values can be read from streams, readers and parsers.
+     */
+    @Test
+    public void test_asType() throws Exception {
+        assertEquals("a", MarkupBuilder.JSON.asType(toStream("{\"name\":\"a\"}"), Item.class).getName());
+        assertEquals("b", MarkupBuilder.YAML.asType(new StringReader("name: b\n"), Item.class).getName());
+        assertEquals("c", MarkupBuilder.XML.asType(toStream("<item><name>c</name></item>"), Item.class).getName());
+        assertEquals("value", MarkupBuilder.JSON.asMap(toStream("{\"key\":\"value\"}")).get("key"));
+
+        try (final JsonParser parser = MarkupBuilder.JSON.createParser("{\"name\":\"d\"}")) {
+            assertEquals("d", MarkupBuilder.JSON.asType(parser, Item.class).getName());
+        }
+    }
+
+    /**
+     * Test malformed markup read from a stream fails with a MarkupException.
+     */
+    @Test(expected = MarkupException.class)
+    public void test_asType_malformed() {
+        MarkupBuilder.JSON.asType(toStream("{\"name\":"), Item.class);
+    }
+
+    /**
+     * Test values written to streams and writers read back.
+     */
+    @Test
+    public void test_writeTo() {
+        final Map<String, Object> map = new HashMap<>();
+
+        map.put("name", "a");
+
+        for (final MarkupBuilder markupBuilder : MarkupBuilder.values()) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final StringWriter writer = new StringWriter();
+
+            markupBuilder.writeTo(out, map);
+            markupBuilder.writeTo(writer, map);
+
+            assertEquals(markupBuilder.name(), "a", markupBuilder.asType(new ByteArrayInputStream(out.toByteArray()), Item.class).getName());
+            assertEquals(markupBuilder.name(), "a", markupBuilder.asType(new StringReader(writer.toString()), Item.class).getName());
+        }
+    }
+}
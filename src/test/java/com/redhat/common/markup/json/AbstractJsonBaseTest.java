@@ -0,0 +1,112 @@
+package com.redhat.common.markup.json;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests AbstractJsonBase unmanaged property handling.
+ *
+ * @author sfloess
+ */
+public class AbstractJsonBaseTest {
+    /**
+     * Accepts any unmanaged property.
+     */
+    static class TestJson extends AbstractJsonBase {
+        @Override
+        protected void processUnmanagedProperty(final String name, final Object value) {
+        }
+    }
+
+    /**
+     * Test the maps returned before and after a property is received are
+     * both modifiable and write through.
+     */
+    @Test
+    public void test_getAdditionalProperties_modifiable() {
+        final TestJson json = new TestJson();
+
+        assertTrue(json.getAdditionalProperties().isEmpty());
+        assertTrue(json.getOrderedAdditionalProperties().isEmpty());
+        assertNull(json.getAdditionalProperties().remove("missing"));
+
+        json.getAdditionalProperties().put("added", "value");
+
+        assertEquals(Collections.singletonMap("added", "value"), json.getAdditionalProperties());
+
+        json.setAdditionalProperty("name", "other");
+        json.getAdditionalProperties().put("added", "changed");
+        json.getAdditionalProperties().remove("name");
+
+        assertEquals(Collections.singletonMap("added", "changed"), json.getAdditionalProperties());
+    }
+
+    /**
+     * Test received properties are stored and their names kept newest first.
+     */
+    @Test
+    public void test_setAdditionalProperty() {
+        final TestJson json = new TestJson();
+
+        json.setAdditionalProperty("first", 1);
+        json.setAdditionalProperty("second", 2);
+        json.setAdditionalProperty("first", 3);
+
+        assertEquals(2, json.getAdditionalProperties().size());
+        assertEquals(3, json.getAdditionalProperties().get("first"));
+        assertEquals(Arrays.asList("first", "second", "first"), json.getOrderedAdditionalProperties());
+    }
+
+    /**
+     * Test the ordered names are a modifiable list that writes through.
+     */
+    @Test
+    public void test_getOrderedAdditionalProperties_modifiable() {
+        final TestJson json = new TestJson();
+
+        json.setAdditionalProperty("name", "value");
+
+        final List<String> ordered = json.getOrderedAdditionalProperties();
+
+        ordered.add(0, "newest");
+        ordered.add("oldest");
+
+        assertEquals(Arrays.asList("newest", "name", "oldest"), json.getOrderedAdditionalProperties());
+
+        ordered.set(1, "renamed");
+        ordered.remove(0);
+
+        assertEquals(Arrays.asList("renamed", "oldest"), json.getOrderedAdditionalProperties());
+
+        json.setAdditionalProperty("latest", "value");
+
+        assertEquals(Arrays.asList("latest", "renamed", "oldest"), ordered);
+
+        ordered.clear();
+
+        assertTrue(json.getOrderedAdditionalProperties().isEmpty());
+    }
+
+    /**
+     * Test names added before any property is received are kept.
+     */
+    @Test
+    public void test_getOrderedAdditionalProperties_beforeProperties() {
+        final TestJson json = new TestJson();
+        final List<String> ordered = json.getOrderedAdditionalProperties();
+
+        ordered.add("first");
+        ordered.add(0, "second");
+
+        assertEquals(Arrays.asList("second", "first"), json.getOrderedAdditionalProperties());
+
+        json.setAdditionalProperty("third", 3);
+
+        assertEquals(Arrays.asList("third", "second", "first"), ordered);
+    }
+}
@@ -0,0 +1,85 @@
+package com.redhat.common.markup.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.json.JSONObject;
+import org.json.JSONString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests JsonUtils bridging between org.json and Jackson.
+ *
+ * @author sfloess
+ */
+public class JsonUtilsTest {
+    /**
+     * Return a JSONObject holding values org.json does not wrap when put as an Object.
+     */
+    static JSONObject createUnwrapped() {
+        final JSONObject retVal = new JSONObject();
+
+        retVal.put("map", (Object) Collections.singletonMap("key", "value"));
+        retVal.put("list", (Object) Arrays.asList(1, 2, 3));
+        retVal.put("array", (Object) new String[]{"a", "b"});
+        retVal.put("atomic", (Object) new AtomicLong(42));
+        retVal.put("big", (Object) new AtomicLong(Long.MAX_VALUE));
+        retVal.put("raw", (Object) (JSONString) () -> "{\"nested\":true}");
+
+        return retVal;
+    }
+
+    /**
+     * Test unwrapped maps, collections, arrays, numbers and JSONString are
+     * written as structures, not strings.
+     */
+    @Test
+    public void test_toJsonNode_unwrappedValues() {
+        final JsonNode node = JsonUtils.toJsonNode(createUnwrapped());
+
+        assertTrue(node.get("map").isObject());
+        assertEquals("value", node.get("map").get("key").asText());
+        assertTrue(node.get("list").isArray());
+        assertEquals(3, node.get("list").size());
+        assertTrue(node.get("array").isArray());
+        assertEquals("b", node.get("array").get(1).asText());
+        assertTrue(node.get("atomic").isInt());
+        assertEquals(42, node.get("atomic").intValue());
+        assertTrue(node.get("big").isLong());
+        assertTrue(node.get("raw").get("nested").booleanValue());
+    }
+
+    /**
+     * Test the same values survive jsonObjectToObject.
+     */
+    @Test
+    public void test_jsonObjectToObject_unwrappedValues() {
+        final Map<?, ?> map = JsonUtils.jsonObjectToObject(createUnwrapped(), Map.class);
+
+        assertEquals("value", ((Map<?, ?>) map.get("map")).get("key"));
+        assertEquals(Arrays.asList(1, 2, 3), map.get("list"));
+        assertEquals(Arrays.asList("a", "b"), map.get("array"));
+        assertEquals(42, map.get("atomic"));
+        assertEquals(Long.MAX_VALUE, map.get("big"));
+        assertEquals(Boolean.TRUE, ((Map<?, ?>) map.get("raw")).get("nested"));
+    }
+
+    /**
+     * Test wrapped values still round trip as they did.
+     */
+    @Test
+    public void test_jsonObjectToObject_wrappedValues() {
+        final JSONObject json = new JSONObject("{\"name\":\"x\",\"count\":3,\"items\":[1.5,null,\"y\"],\"child\":{\"flag\":false}}");
+        final Map<?, ?> map = JsonUtils.jsonObjectToObject(json, Map.class);
+
+        assertEquals("x", map.get("name"));
+        assertEquals(3, map.get("count"));
+        assertEquals(Arrays.asList(1.5, null, "y"), (List<?>) map.get("items"));
+        assertEquals(Boolean.FALSE, ((Map<?, ?>) map.get("child")).get("flag"));
+    }
+}
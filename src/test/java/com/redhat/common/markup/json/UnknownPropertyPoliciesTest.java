@@ -0,0 +1,198 @@
+package com.redhat.common.markup.json;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.redhat.common.markup.MarkupBuilder;
+import com.redhat.common.markup.MarkupException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests unknown property policies, applied both while parsing and through
+ * <code>setAdditionalProperty()</code>.
+ *
+ * @author sfloess
+ */
+public class UnknownPropertyPoliciesTest {
+    static final String JSON = "{\"name\":\"value\",\"keep\":1,\"extra\":{\"nested\":[1,2,{\"deep\":true}]},\"last\":\"x\"}";
+
+    /**
+     * Records the unmanaged properties processed.
+     */
+    public static class RetainJson extends AbstractJsonBase {
+        public String name;
+
+        @JsonIgnore
+        public final List<String> processed = new ArrayList<>();
+
+        @Override
+        protected void processUnmanagedProperty(final String name, final Object value) {
+            processed.add(name);
+        }
+    }
+
+    @UnknownProperties(UnknownPropertyPolicy.DROP)
+    public static class DropJson extends RetainJson {
+    }
+
+    /**
+     * Inherits DROP.
+     */
+    public static class DropChildJson extends DropJson {
+    }
+
+    @UnknownProperties(value = UnknownPropertyPolicy.RETAIN_WHITELIST, whitelist = {"keep", "last"})
+    public static class WhitelistJson extends RetainJson {
+    }
+
+    @UnknownProperties(UnknownPropertyPolicy.FAIL)
+    public static class FailJson extends RetainJson {
+    }
+
+    @After
+    public void cleanup() {
+        UnknownPropertyPolicies.clearPolicy(DropJson.class);
+        UnknownPropertyPolicies.clearPolicy(DropChildJson.class);
+
+        MarkupBuilder.JSON.resetMapper();
+    }
+
+    /**
+     * Assert parsing {@link #JSON} as <code>klass</code> fails on the property "keep".
+     */
+    static void assertRejected(final Class<? extends RetainJson> klass) {
+        try {
+            MarkupBuilder.JSON.asType(JSON, klass);
+
+            fail("Expected unknown properties to be rejected");
+        } catch (final MarkupException markupException) {
+            assertTrue(markupException.getCause() instanceof UnrecognizedPropertyException);
+            assertEquals("keep", ((UnrecognizedPropertyException) markupException.getCause()).getPropertyName());
+        }
+    }
+
+    /**
+     * Test the default policy stores and processes every unknown property.
+     */
+    @Test
+    public void test_retain() {
+        final RetainJson json = MarkupBuilder.JSON.asType(JSON, RetainJson.class);
+
+        assertEquals(UnknownPropertyPolicy.RETAIN, UnknownPropertyPolicies.getPolicy(RetainJson.class));
+        assertEquals("value", json.name);
+        assertEquals(Arrays.asList("keep", "extra", "last"), json.processed);
+        assertEquals(Arrays.asList("last", "extra", "keep"), json.getOrderedAdditionalProperties());
+        assertEquals(1, json.getAdditionalProperties().get("keep"));
+    }
+
+    /**
+     * Test DROP skips unknown properties, including nested values.
+     */
+    @Test
+    public void test_drop() {
+        final DropJson json = MarkupBuilder.JSON.asType(JSON, DropJson.class);
+
+        assertEquals("value", json.name);
+        assertTrue(json.processed.isEmpty());
+        assertTrue(json.getAdditionalProperties().isEmpty());
+
+        json.setAdditionalProperty("keep", 1);
+
+        assertTrue(json.processed.isEmpty());
+        assertTrue(json.getAdditionalProperties().isEmpty());
+    }
+
+    /**
+     * Test only white listed properties are kept.
+     */
+    @Test
+    public void test_whitelist() {
+        final WhitelistJson json = MarkupBuilder.JSON.asType(JSON, WhitelistJson.class);
+
+        assertEquals(new HashSet<>(Arrays.asList("keep", "last")), UnknownPropertyPolicies.getWhitelist(WhitelistJson.class));
+        assertEquals("value", json.name);
+        assertEquals(Arrays.asList("keep", "last"), json.processed);
+        assertEquals(2, json.getAdditionalProperties().size());
+
+        json.setAdditionalProperty("extra", 2);
+        json.setAdditionalProperty("keep", 3);
+
+        assertEquals(Arrays.asList("keep", "last", "keep"), json.processed);
+        assertEquals(3, json.getAdditionalProperties().get("keep"));
+    }
+
+    /**
+     * Test FAIL raises UnrecognizedPropertyException while parsing.
+     */
+    @Test
+    public void test_fail_parsing() {
+        assertRejected(FailJson.class);
+    }
+
+    /**
+     * Test FAIL raises a JsonException when set directly, storing nothing.
+     */
+    @Test
+    public void test_fail_setAdditionalProperty() {
+        final FailJson json = new FailJson();
+
+        try {
+            json.setAdditionalProperty("keep", 1);
+
+            fail("Expected the property to be rejected");
+        } catch (final JsonException jsonException) {
+            assertTrue(jsonException.getMessage().contains("keep"));
+        }
+
+        assertTrue(json.processed.isEmpty());
+        assertTrue(json.getAdditionalProperties().isEmpty());
+    }
+
+    /**
+     * Test policies set programmatically override the annotation, apply to the
+     * exact class only and replace the cached resolution.
+     */
+    @Test
+    public void test_setPolicy() {
+        assertEquals(UnknownPropertyPolicy.DROP, UnknownPropertyPolicies.getPolicy(DropJson.class));
+        assertEquals("Annotation is inherited", UnknownPropertyPolicy.DROP, UnknownPropertyPolicies.getPolicy(DropChildJson.class));
+
+        UnknownPropertyPolicies.setPolicy(DropJson.class, UnknownPropertyPolicy.RETAIN_WHITELIST, "last");
+
+        assertEquals(UnknownPropertyPolicy.RETAIN_WHITELIST, UnknownPropertyPolicies.getPolicy(DropJson.class));
+        assertEquals(Collections.singleton("last"), UnknownPropertyPolicies.getWhitelist(DropJson.class));
+        assertEquals(UnknownPropertyPolicy.DROP, UnknownPropertyPolicies.getPolicy(DropChildJson.class));
+        assertEquals(Collections.singletonList("last"), MarkupBuilder.JSON.asType(JSON, DropJson.class).processed);
+
+        UnknownPropertyPolicies.setPolicy(DropJson.class, UnknownPropertyPolicy.FAIL);
+
+        assertRejected(DropJson.class);
+
+        UnknownPropertyPolicies.clearPolicy(DropJson.class);
+
+        assertEquals(UnknownPropertyPolicy.DROP, UnknownPropertyPolicies.getPolicy(DropJson.class));
+        assertTrue(MarkupBuilder.JSON.asType(JSON, DropJson.class).processed.isEmpty());
+    }
+
+    /**
+     * Test policies still apply through a custom mapper.
+     */
+    @Test
+    public void test_setMapper() {
+        MarkupBuilder.JSON.setMapper(new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+
+        assertRejected(FailJson.class);
+        assertTrue(MarkupBuilder.JSON.asType(JSON, DropJson.class).processed.isEmpty());
+        assertEquals(Arrays.asList("keep", "last"), MarkupBuilder.JSON.asType(JSON, WhitelistJson.class).processed);
+    }
+}
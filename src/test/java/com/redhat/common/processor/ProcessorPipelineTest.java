@@ -0,0 +1,77 @@
+package com.redhat.common.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Tests ProcessorPipeline.
+ *
+ * @author sfloess
+ */
+public class ProcessorPipelineTest {
+    /**
+     * Always fails, recovering with a fixed value.
+     */
+    static class RecoveringProcessor implements Processor<String> {
+        @Override
+        public String process(final String toProcess) {
+            throw new IllegalStateException("Failed:  " + toProcess);
+        }
+
+        @Override
+        public String postProcessFailure(final String failedProcess, final Throwable failure) {
+            return "recovered";
+        }
+    }
+
+    /**
+     * Test stages run in order, conditions skip and short-circuit stops.
+     */
+    @Test
+    public void test_process() {
+        final ProcessorPipeline<String> pipeline = new ProcessorPipeline<String>()
+                .add(str -> str + "a")
+                .addIf(str -> str.length() > 5, str -> str + "skipped")
+                .addBranch(str -> str.endsWith("a"), str -> str + "b", str -> str + "c")
+                .stopWhen(str -> str.endsWith("b"))
+                .add(str -> str + "never");
+
+        assertEquals("xab", pipeline.process("x"));
+        assertEquals(5, pipeline.size());
+        assertEquals(1, pipeline.getStageTimings().get(1).getSkipped());
+        assertEquals(1, pipeline.getStageTimings().get(3).getInvocations());
+        assertEquals(0, pipeline.getStageTimings().get(4).getInvocations());
+    }
+
+    /**
+     * Test a failure recovered by postProcessFailure is still counted.
+     */
+    @Test
+    public void test_process_recoveredFailure() {
+        final ProcessorPipeline<String> pipeline = new ProcessorPipeline<String>().add(new RecoveringProcessor()).add(str -> str + "!");
+
+        assertEquals("recovered!", pipeline.process("x"));
+        assertEquals(1, pipeline.getStageTimings().get(0).getFailures());
+        assertEquals(0, pipeline.getStageTimings().get(1).getFailures());
+    }
+
+    /**
+     * Test a failure that is not recovered is counted once and rethrown.
+     */
+    @Test
+    public void test_process_failure() {
+        final ProcessorPipeline<String> pipeline = new ProcessorPipeline<String>().add(str -> {
+            throw new IllegalStateException("Failed:  " + str);
+        });
+
+        try {
+            pipeline.process("x");
+
+            fail("Should have failed");
+        } catch (final ProcessorException processorException) {
+            assertEquals(1, pipeline.getStageTimings().get(0).getFailures());
+            assertEquals(1, pipeline.getStageTimings().get(0).getInvocations());
+        }
+    }
+}
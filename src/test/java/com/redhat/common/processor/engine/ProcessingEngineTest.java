@@ -0,0 +1,249 @@
+package com.redhat.common.processor.engine;
+
+import com.redhat.common.processor.Processor;
+import com.redhat.common.processor.ProcessorException;
+import com.redhat.common.processor.executor.Executor;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Tests ProcessingEngine shutdown, draining and overflow policies.
+ *
+ * @author sfloess
+ */
+public class ProcessingEngineTest {
+    /**
+     * Calls the processor directly.
+     */
+    static final Executor<String, Processor<String>> EXECUTOR = new Executor<String, Processor<String>>() {
+        @Override
+        public String executeProcessor(final Processor<String> processor, final String toProcess) {
+            return processor.process(toProcess);
+        }
+    };
+
+    /**
+     * Records what it processed, holding the first item until released.
+     */
+    static class GatedProcessor implements Processor<String> {
+        final List<String> processed = new CopyOnWriteArrayList<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String process(final String toProcess) {
+            started.countDown();
+
+            try {
+                release.await();
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (toProcess.startsWith("fail")) {
+                throw new IllegalStateException("Failed:  " + toProcess);
+            }
+
+            processed.add(toProcess);
+
+            return toProcess;
+        }
+    }
+
+    /**
+     * Return a started single consumer engine whose consumer is holding "first".
+     */
+    static ProcessingEngine<String, Processor<String>> createBlockedEngine(final GatedProcessor processor, final OverflowPolicy overflowPolicy) throws InterruptedException {
+        final ProcessingEngine<String, Processor<String>> retVal = new ProcessingEngine<>(EXECUTOR, processor, 2, 1, overflowPolicy);
+
+        retVal.start();
+
+        assertTrue(retVal.submit("first"));
+        assertTrue(processor.started.await(5, TimeUnit.SECONDS));
+
+        return retVal;
+    }
+
+    /**
+     * Test shutdown rejects new submissions but drains everything buffered.
+     */
+    @Test
+    public void test_shutdown_drains() throws Exception {
+        final GatedProcessor processor = new GatedProcessor();
+        final ProcessingEngine<String, Processor<String>> engine = createBlockedEngine(processor, OverflowPolicy.DROP_NEWEST);
+
+        assertTrue(engine.submit("second"));
+        assertTrue(engine.submit("fail"));
+
+        engine.shutdown();
+
+        assertFalse(engine.isRunning());
+
+        try {
+            engine.submit("late");
+
+            fail("Should not accept submissions after shutdown");
+        } catch (final ProcessorException processorException) {
+        }
+
+        processor.release.countDown();
+
+        assertTrue(engine.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(engine.isTerminated());
+        assertEquals(Arrays.asList("first", "second"), processor.processed);
+        assertEquals(3, engine.getSubmittedCount());
+        assertEquals(2, engine.getProcessedCount());
+        assertEquals(1, engine.getFailedCount());
+    }
+
+    /**
+     * Test shutdownNow returns what was buffered.
+     */
+    @Test
+    public void test_shutdownNow() throws Exception {
+        final GatedProcessor processor = new GatedProcessor();
+        final ProcessingEngine<String, Processor<String>> engine = createBlockedEngine(processor, OverflowPolicy.DROP_NEWEST);
+
+        engine.submit("second");
+        engine.submit("third");
+
+        assertEquals(Arrays.asList("second", "third"), engine.shutdownNow());
+        assertTrue(engine.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test a full buffer rejects the newest item.
+     */
+    @Test
+    public void test_submit_dropNewest() throws Exception {
+        final GatedProcessor processor = new GatedProcessor();
+        final ProcessingEngine<String, Processor<String>> engine = createBlockedEngine(processor, OverflowPolicy.DROP_NEWEST);
+
+        assertTrue(engine.submit("second"));
+        assertTrue(engine.submit("third"));
+        assertFalse(engine.submit("fourth"));
+        assertEquals(1, engine.getDroppedCount());
+
+        processor.release.countDown();
+        engine.shutdown();
+
+        assertTrue(engine.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "second", "third"), processor.processed);
+    }
+
+    /**
+     * Test a full buffer discards the oldest item.
+     */
+    @Test
+    public void test_submit_dropOldest() throws Exception {
+        final GatedProcessor processor = new GatedProcessor();
+        final ProcessingEngine<String, Processor<String>> engine = createBlockedEngine(processor, OverflowPolicy.DROP_OLDEST);
+
+        assertTrue(engine.submit("second"));
+        assertTrue(engine.submit("third"));
+        assertTrue(engine.submit("fourth"));
+        assertEquals(1, engine.getDroppedCount());
+
+        processor.release.countDown();
+        engine.shutdown();
+
+        assertTrue(engine.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "third", "fourth"), processor.processed);
+    }
+
+    /**
+     * Test a full buffer blocks the producer until its timeout, then until space frees.
+     */
+    @Test
+    public void test_submit_block() throws Exception {
+        final GatedProcessor processor = new GatedProcessor();
+        final ProcessingEngine<String, Processor<String>> engine = createBlockedEngine(processor, OverflowPolicy.BLOCK);
+
+        assertTrue(engine.submit("second"));
+        assertTrue(engine.submit("third"));
+        assertFalse(engine.submit("timedOut", 50, TimeUnit.MILLISECONDS));
+        assertEquals(1, engine.getDroppedCount());
+
+        final Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            processor.release.countDown();
+        });
+
+        releaser.start();
+
+        assertTrue(engine.submit("fourth", 5, TimeUnit.SECONDS));
+
+        engine.shutdown();
+
+        assertTrue(engine.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "second", "third", "fourth"), processor.processed);
+    }
+
+    /**
+     * Race producers against shutdown, returning the engine once terminated.
+     */
+    static ProcessingEngine<String, Processor<String>> raceShutdown() throws InterruptedException {
+        final GatedProcessor processor = new GatedProcessor();
+
+        processor.release.countDown();
+
+        final ProcessingEngine<String, Processor<String>> retVal = new ProcessingEngine<>(EXECUTOR, processor, 1024, 2, OverflowPolicy.DROP_NEWEST);
+        final AtomicBoolean stop = new AtomicBoolean();
+        final Thread[] producers = new Thread[4];
+
+        retVal.start();
+
+        for (int index = 0; index < producers.length; index++) {
+            producers[index] = new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        retVal.submit("item");
+                    }
+                } catch (final ProcessorException processorException) {
+                }
+            });
+
+            producers[index].start();
+        }
+
+        Thread.sleep(1);
+
+        retVal.shutdown();
+        stop.set(true);
+
+        for (final Thread producer : producers) {
+            producer.join(5000);
+        }
+
+        assertTrue(retVal.awaitTermination(5, TimeUnit.SECONDS));
+
+        return retVal;
+    }
+
+    /**
+     * Test every item accepted while racing shutdown is processed.
+     */
+    @Test
+    public void test_submit_racingShutdown() throws Exception {
+        for (int run = 0; run < 10; run++) {
+            final ProcessingEngine<String, Processor<String>> engine = raceShutdown();
+
+            assertEquals(engine.getSubmittedCount(), engine.getProcessedCount());
+            assertEquals(0, engine.getBufferedCount());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.redhat.common.processor.executor;
+
+import com.redhat.common.processor.Processor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests AbstractAsyncExecutor reports every failure to postProcessFailure
+ * before the returned future completes.
+ *
+ * @author sfloess
+ */
+public class AbstractAsyncExecutorTest {
+    /**
+     * Simply calls process.
+     */
+    static class TestAsyncExecutor extends AbstractAsyncExecutor<String, Processor<String>> {
+        TestAsyncExecutor(final ExecutorService executorService) {
+            super(executorService);
+        }
+
+        @Override
+        protected String doProcess(final Processor<String> processor, final String toProcess) {
+            return processor.process(toProcess);
+        }
+    }
+
+    /**
+     * Remembers the failure it was given.
+     */
+    static class RecordingProcessor implements Processor<String> {
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String process(final String toProcess) {
+            try {
+                release.await();
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            return toProcess;
+        }
+
+        @Override
+        public String postProcessFailure(final String failedProcess, final Throwable throwable) {
+            failure.set(throwable);
+
+            return failedProcess;
+        }
+    }
+
+    ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Test a rejecting executor service fails the future instead of throwing.
+     */
+    @Test
+    public void test_executeProcessorAsync_rejected() throws Exception {
+        executorService.shutdown();
+
+        final RecordingProcessor processor = new RecordingProcessor();
+        final CompletableFuture<String> future = new TestAsyncExecutor(executorService).executeProcessorAsync(processor, "value");
+
+        assertTrue(future.isCompletedExceptionally());
+        assertTrue(processor.failure.get() instanceof RejectedExecutionException);
+    }
+
+    /**
+     * Test postProcessFailure has run by the time a timed out future completes.
+     */
+    @Test
+    public void test_executeProcessorAsync_timeout() throws Exception {
+        final TestAsyncExecutor executor = new TestAsyncExecutor(executorService);
+        final RecordingProcessor processor = new RecordingProcessor();
+
+        executor.setTimeout(50, TimeUnit.MILLISECONDS);
+
+        final CompletableFuture<String> future = executor.executeProcessorAsync(processor, "value");
+        final AtomicReference<Throwable> seen = new AtomicReference<>();
+        final CompletableFuture<Void> observed = future.handle((result, failure) -> {
+            seen.set(processor.failure.get());
+
+            return null;
+        });
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+
+            fail("Should have timed out");
+        } catch (final ExecutionException executionException) {
+            observed.get(5, TimeUnit.SECONDS);
+
+            assertTrue(seen.get() instanceof TimeoutException);
+        } finally {
+            processor.release.countDown();
+        }
+    }
+
+    /**
+     * Test a successful call is not reported as a failure.
+     */
+    @Test
+    public void test_executeProcessorAsync_success() throws Exception {
+        final RecordingProcessor processor = new RecordingProcessor();
+
+        processor.release.countDown();
+
+        assertSame("value", new TestAsyncExecutor(executorService).executeProcessorAsync(processor, "value").get(5, TimeUnit.SECONDS));
+        assertSame(null, processor.failure.get());
+    }
+}
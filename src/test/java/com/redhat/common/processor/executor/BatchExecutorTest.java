@@ -0,0 +1,183 @@
+package com.redhat.common.processor.executor;
+
+import com.redhat.common.processor.Processor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Stream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests BatchExecutor chunking, ordering and failure handling.
+ *
+ * @author sfloess
+ */
+public class BatchExecutorTest {
+    /**
+     * Simply calls process.
+     */
+    static final Executor<Integer, Processor<Integer>> EXECUTOR = new Executor<Integer, Processor<Integer>>() {
+        @Override
+        public Integer executeProcessor(final Processor<Integer> processor, final Integer toProcess) {
+            return processor.process(toProcess);
+        }
+    };
+
+    ForkJoinPool executorService;
+
+    @Before
+    public void setUp() {
+        executorService = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Return the integers from 0 (inclusive) to <code>size</code> (exclusive).
+     */
+    static List<Integer> range(final int size) {
+        final List<Integer> retVal = new ArrayList<>(size);
+
+        for (int index = 0; index < size; index++) {
+            retVal.add(index);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Test every item is processed exactly once and results keep input order,
+     * whatever the batch and chunk sizes.
+     */
+    @Test
+    public void test_executeBatch_chunking() {
+        for (final int size : new int[]{1, 2, 7, 64, 1000}) {
+            for (final int chunkSize : new int[]{0, 1, 3, size, size + 1}) {
+                final AtomicIntegerArray counts = new AtomicIntegerArray(size);
+                final BatchExecutor<Integer, Processor<Integer>> batchExecutor = new BatchExecutor<>(EXECUTOR, executorService);
+
+                batchExecutor.setChunkSize(chunkSize);
+
+                final BatchResult<Integer> batchResult = batchExecutor.executeBatch(toProcess -> {
+                    counts.incrementAndGet(toProcess);
+
+                    return toProcess * 2;
+                }, new LinkedHashSet<>(range(size)));
+
+                assertEquals(size, batchResult.size());
+                assertFalse(batchResult.hasFailures());
+
+                for (int index = 0; index < size; index++) {
+                    assertEquals("size " + size + ", chunk size " + chunkSize, 1, counts.get(index));
+                    assertEquals(Integer.valueOf(index * 2), batchResult.getResult(index));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test the computed chunk size spreads a batch across the pool.
+     */
+    @Test
+    public void test_computeChunkSize() {
+        final BatchExecutor<Integer, Processor<Integer>> batchExecutor = new BatchExecutor<>(EXECUTOR, executorService);
+
+        assertEquals(1, batchExecutor.computeChunkSize(0));
+        assertEquals(1, batchExecutor.computeChunkSize(15));
+        assertEquals(100 / (4 * BatchExecutor.CHUNKS_PER_THREAD), batchExecutor.computeChunkSize(100));
+
+        batchExecutor.setChunkSize(7);
+
+        assertEquals(7, batchExecutor.computeChunkSize(100));
+    }
+
+    /**
+     * Test failing items are recorded by index and do not stop the rest.
+     */
+    @Test
+    public void test_executeBatch_partialFailures() {
+        final IllegalStateException failure = new IllegalStateException("odd");
+        final BatchExecutor<Integer, Processor<Integer>> batchExecutor = new BatchExecutor<>(EXECUTOR, executorService);
+
+        batchExecutor.setChunkSize(2);
+
+        final BatchResult<Integer> batchResult = batchExecutor.executeBatch(toProcess -> {
+            if (1 == toProcess % 2) {
+                throw failure;
+            }
+
+            return toProcess;
+        }, range(9));
+
+        assertTrue(batchResult.hasFailures());
+        assertEquals(4, batchResult.getFailureCount());
+        assertEquals(Arrays.asList(1, 3, 5, 7), new ArrayList<>(batchResult.getFailures().keySet()));
+        assertEquals(Arrays.asList(0, null, 2, null, 4, null, 6, null, 8), batchResult.getResults());
+
+        assertTrue(batchResult.isSuccess(0));
+        assertFalse(batchResult.isSuccess(1));
+        assertEquals(failure, batchResult.getFailure(1));
+        assertNull(batchResult.getFailure(2));
+        assertNull(batchResult.getResult(3));
+    }
+
+    /**
+     * Test an empty batch, from a collection or a stream.
+     */
+    @Test
+    public void test_executeBatch_empty() {
+        final BatchExecutor<Integer, Processor<Integer>> batchExecutor = new BatchExecutor<>(EXECUTOR, executorService);
+
+        final BatchResult<Integer> fromCollection = batchExecutor.executeBatch(toProcess -> toProcess, Collections.<Integer>emptyList());
+        final BatchResult<Integer> fromStream = batchExecutor.executeBatch(toProcess -> toProcess, Stream.<Integer>empty());
+
+        assertEquals(0, fromCollection.size());
+        assertFalse(fromCollection.hasFailures());
+        assertTrue(fromCollection.getResults().isEmpty());
+        assertTrue(fromCollection.getFailures().isEmpty());
+        assertEquals(0, fromStream.size());
+    }
+
+    /**
+     * Test a stream is processed in order.
+     */
+    @Test
+    public void test_executeBatch_stream() {
+        final BatchExecutor<Integer, Processor<Integer>> batchExecutor = new BatchExecutor<>(EXECUTOR, executorService);
+
+        assertEquals(Arrays.asList(1, 2, 3), batchExecutor.executeBatch(toProcess -> toProcess + 1, Stream.of(0, 1, 2)).getResults());
+    }
+
+    /**
+     * Test the results returned are a copy.
+     */
+    @Test
+    public void test_getResults_copy() {
+        final BatchResult<Integer> batchResult = new BatchExecutor<>(EXECUTOR, executorService).executeBatch(toProcess -> toProcess, range(2));
+
+        batchResult.getResults().clear();
+
+        assertEquals(2, batchResult.getResults().size());
+    }
+
+    /**
+     * Test a negative chunk size is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_setChunkSize_negative() {
+        new BatchExecutor<>(EXECUTOR, executorService).setChunkSize(-1);
+    }
+}
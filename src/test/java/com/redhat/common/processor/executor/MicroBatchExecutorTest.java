@@ -0,0 +1,178 @@
+package com.redhat.common.processor.executor;
+
+import com.redhat.common.processor.BatchProcessor;
+import com.redhat.common.processor.ProcessorException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Tests MicroBatchExecutor batching, shutdown and failures.
+ *
+ * @author sfloess
+ */
+public class MicroBatchExecutorTest {
+    /**
+     * Upper cases each item, recording the size of every batch.
+     */
+    static class RecordingBatchProcessor implements BatchProcessor<String> {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public List<String> process(final List<String> batch) {
+            batchSizes.add(batch.size());
+
+            final List<String> retVal = new ArrayList<>(batch.size());
+
+            for (final String item : batch) {
+                retVal.add(item.toUpperCase());
+            }
+
+            return retVal;
+        }
+    }
+
+    /**
+     * Return the result of <code>future</code>.
+     */
+    static String get(final CompletableFuture<String> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Test a full batch is dispatched without waiting for the maximum wait.
+     */
+    @Test
+    public void test_submit_fullBatch() throws Exception {
+        final RecordingBatchProcessor processor = new RecordingBatchProcessor();
+        final MicroBatchExecutor<String, RecordingBatchProcessor> executor = new MicroBatchExecutor<>(processor, 3, 1, TimeUnit.MINUTES);
+
+        executor.start();
+
+        final CompletableFuture<String> a = executor.submit("a");
+        final CompletableFuture<String> b = executor.submit("b");
+        final CompletableFuture<String> c = executor.submit("c");
+
+        assertEquals("A", get(a));
+        assertEquals("B", get(b));
+        assertEquals("C", get(c));
+        assertEquals(Collections.singletonList(3), processor.batchSizes);
+
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test a partial batch is dispatched once the maximum wait passes.
+     */
+    @Test
+    public void test_submit_maxWait() throws Exception {
+        final RecordingBatchProcessor processor = new RecordingBatchProcessor();
+        final MicroBatchExecutor<String, RecordingBatchProcessor> executor = new MicroBatchExecutor<>(processor, 100, 20, TimeUnit.MILLISECONDS);
+
+        executor.start();
+
+        assertEquals("A", get(executor.submit("a")));
+        assertEquals(Collections.singletonList(1), processor.batchSizes);
+        assertEquals(1, executor.getBatchCount());
+        assertEquals(1, executor.getItemCount());
+
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test shutdown rejects new submissions but dispatches what is pending.
+     */
+    @Test
+    public void test_shutdown_drains() throws Exception {
+        final RecordingBatchProcessor processor = new RecordingBatchProcessor();
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final MicroBatchExecutor<String, RecordingBatchProcessor> executor = new MicroBatchExecutor<>(processor, 2, 1, TimeUnit.MINUTES, executorService);
+
+        try {
+            executor.start();
+
+            final List<CompletableFuture<String>> futures = Arrays.asList(executor.submit("a"), executor.submit("b"), executor.submit("c"));
+
+            executor.shutdown();
+
+            try {
+                executor.submit("late");
+
+                fail("Should not accept submissions after shutdown");
+            } catch (final ProcessorException processorException) {
+            }
+
+            assertEquals("A", get(futures.get(0)));
+            assertEquals("B", get(futures.get(1)));
+            assertEquals("C", get(futures.get(2)));
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Test a failure recovered by postProcessFailure completes every item.
+     */
+    @Test
+    public void test_submit_recoveredFailure() throws Exception {
+        final MicroBatchExecutor<String, BatchProcessor<String>> executor = new MicroBatchExecutor<>(new BatchProcessor<String>() {
+            @Override
+            public List<String> process(final List<String> batch) {
+                throw new IllegalStateException("Failed");
+            }
+
+            @Override
+            public List<String> postProcessFailure(final List<String> failedBatch, final Throwable failure) {
+                return Collections.nCopies(failedBatch.size(), "recovered");
+            }
+        }, 1, 0, TimeUnit.MILLISECONDS);
+
+        executor.start();
+
+        assertEquals("recovered", get(executor.submit("a")));
+
+        executor.shutdown();
+    }
+
+    /**
+     * Test a failure or misaligned results fail every item's future.
+     */
+    @Test
+    public void test_submit_failure() throws Exception {
+        final MicroBatchExecutor<String, BatchProcessor<String>> failing = new MicroBatchExecutor<>(batch -> {
+            throw new IllegalStateException("Failed");
+        }, 1, 0, TimeUnit.MILLISECONDS);
+        final MicroBatchExecutor<String, BatchProcessor<String>> misaligned = new MicroBatchExecutor<>(batch -> Collections.<String>emptyList(), 1, 0, TimeUnit.MILLISECONDS);
+
+        failing.start();
+        misaligned.start();
+
+        for (final MicroBatchExecutor<String, BatchProcessor<String>> executor : Arrays.asList(failing, misaligned)) {
+            try {
+                get(executor.submit("a"));
+
+                fail("Should have failed");
+            } catch (final ExecutionException executionException) {
+                assertTrue(executionException.getCause() instanceof ProcessorException);
+            }
+
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.redhat.common.processor.metrics;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests LatencyHistogram bucketing and percentiles.
+ *
+ * @author sfloess
+ */
+public class LatencyHistogramTest {
+    /**
+     * Test small values each get their own bucket.
+     */
+    @Test
+    public void test_computeBucket_exact() {
+        assertEquals(0, LatencyHistogram.computeBucket(-5));
+
+        for (int value = 0; value < LatencyHistogram.SUB_BUCKET_COUNT; value++) {
+            assertEquals(value, LatencyHistogram.computeBucket(value));
+            assertEquals(value, LatencyHistogram.computeHighestValue(value));
+        }
+    }
+
+    /**
+     * Test bucket boundaries at each power of two.
+     */
+    @Test
+    public void test_computeBucket_boundaries() {
+        assertEquals(32, LatencyHistogram.computeBucket(32));
+        assertEquals(63, LatencyHistogram.computeBucket(63));
+        assertEquals(64, LatencyHistogram.computeBucket(64));
+        assertEquals(64, LatencyHistogram.computeBucket(65));
+        assertEquals(65, LatencyHistogram.computeBucket(66));
+        assertEquals(65, LatencyHistogram.computeHighestValue(64));
+
+        for (int exponent = LatencyHistogram.SUB_BUCKET_BITS + 1; exponent <= LatencyHistogram.MAX_EXPONENT; exponent++) {
+            final long value = 1L << exponent;
+            final int bucket = LatencyHistogram.computeBucket(value);
+
+            assertEquals(value - 1, LatencyHistogram.computeHighestValue(bucket - 1));
+            assertEquals(bucket - 1, LatencyHistogram.computeBucket(value - 1));
+        }
+    }
+
+    /**
+     * Test every bucket holds the values up to its highest value, within 1/32.
+     */
+    @Test
+    public void test_computeHighestValue() {
+        long previous = -1;
+
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+            final long highest = LatencyHistogram.computeHighestValue(bucket);
+            final long lowest = previous + 1;
+
+            assertEquals(bucket, LatencyHistogram.computeBucket(lowest));
+            assertEquals(bucket, LatencyHistogram.computeBucket(highest));
+            assertTrue(highest - lowest <= lowest / LatencyHistogram.SUB_BUCKET_COUNT);
+
+            previous = highest;
+        }
+    }
+
+    /**
+     * Test the last bucket covers 2^41 nanoseconds - about 36 minutes - and beyond.
+     */
+    @Test
+    public void test_computeBucket_overflow() {
+        final long limit = 1L << (LatencyHistogram.MAX_EXPONENT + 1);
+
+        assertEquals(limit - 1, LatencyHistogram.computeHighestValue(LatencyHistogram.BUCKET_COUNT - 1));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 2, LatencyHistogram.computeBucket(limit - (limit >>> 6) - 1));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.computeBucket(limit - 1));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.computeBucket(limit));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.computeBucket(Long.MAX_VALUE));
+        assertEquals(36, TimeUnit.NANOSECONDS.toMinutes(limit));
+    }
+
+    /**
+     * Test percentiles are within 3% of the exact values.
+     */
+    @Test
+    public void test_snapshot_percentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Random random = new Random(42);
+        final long[] values = new long[10_000];
+
+        for (int index = 0; index < values.length; index++) {
+            values[index] = 1000 + (long) (random.nextDouble() * random.nextDouble() * 10_000_000);
+
+            histogram.record(values[index]);
+        }
+
+        Arrays.sort(values);
+
+        final LatencySnapshot snapshot = histogram.snapshot();
+
+        assertEquals(values.length, snapshot.getCount());
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        assertEquals((double) Arrays.stream(values).sum() / values.length, snapshot.getMean(), 1);
+
+        assertWithin(values[4999], snapshot.getP50());
+        assertWithin(values[8999], snapshot.getP90());
+        assertWithin(values[9899], snapshot.getP99());
+        assertWithin(values[9989], snapshot.getP999());
+    }
+
+    /**
+     * Assert <code>actual</code> is no less than and within 1/32 of <code>expected</code>.
+     */
+    static void assertWithin(final long expected, final long actual) {
+        assertTrue(expected + " vs " + actual, actual >= expected && actual - expected <= expected / LatencyHistogram.SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * Test percentiles never exceed the max, and an empty or reset histogram is all zeros.
+     */
+    @Test
+    public void test_snapshot_maxAndReset() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.snapshot().getP99());
+
+        histogram.record(1000);
+
+        final LatencySnapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getP50());
+        assertEquals(1000, snapshot.getP999());
+        assertEquals(1000, snapshot.getMean());
+
+        histogram.reset();
+
+        final LatencySnapshot reset = histogram.snapshot();
+
+        assertEquals(0, reset.getCount());
+        assertEquals(0, reset.getMax());
+        assertEquals(0, reset.getMean());
+        assertEquals(0, reset.getP50());
+    }
+}
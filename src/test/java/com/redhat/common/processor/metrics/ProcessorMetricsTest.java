@@ -0,0 +1,112 @@
+package com.redhat.common.processor.metrics;
+
+import com.redhat.common.processor.Processor;
+import com.redhat.common.processor.ProcessorException;
+import com.redhat.common.processor.executor.AbstractExecutor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Tests AbstractExecutor records outcomes and timings to ProcessorMetrics.
+ *
+ * @author sfloess
+ */
+public class ProcessorMetricsTest {
+    /**
+     * Simply calls process.
+     */
+    static class TestExecutor extends AbstractExecutor<String, Processor<String>> {
+        @Override
+        protected String doProcess(final Processor<String> processor, final String toProcess) {
+            return processor.process(toProcess);
+        }
+    }
+
+    /**
+     * Fails on "fail", recovering in postProcessFailure.
+     */
+    static class TestProcessor implements Processor<String> {
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public String process(final String toProcess) {
+            if ("fail".equals(toProcess)) {
+                throw new IllegalStateException(toProcess);
+            }
+
+            return toProcess.toUpperCase();
+        }
+
+        @Override
+        public String postProcessFailure(final String failedProcess, final Throwable failure) {
+            return failedProcess;
+        }
+    }
+
+    /**
+     * Test successes, failures and every phase are recorded under the processor's name.
+     */
+    @Test
+    public void test_executeProcessor_outcomes() {
+        final ProcessorMetrics metrics = new ProcessorMetrics("test", false);
+        final TestExecutor executor = new TestExecutor();
+
+        executor.setMetrics(metrics);
+
+        assertSame(metrics, executor.getMetrics());
+        assertEquals("A", executor.executeProcessor(new TestProcessor(), "a"));
+        assertEquals("B", executor.executeProcessor(new TestProcessor(), "b"));
+
+        try {
+            executor.executeProcessor(new TestProcessor(), "fail");
+
+            fail("Should have failed");
+        } catch (final ProcessorException processorException) {
+        }
+
+        final ProcessorSnapshot snapshot = metrics.snapshot().get("test");
+
+        assertEquals(2, snapshot.getSuccessCount());
+        assertEquals(1, snapshot.getFailureCount());
+        assertEquals(3, snapshot.getTotalLatency().getCount());
+        assertEquals(3, snapshot.getPreProcessLatency().getCount());
+        assertEquals(2, snapshot.getProcessLatency().getCount());
+        assertEquals(2, snapshot.getPostProcessLatency().getCount());
+        assertTrue(snapshot.getTotalLatency().getMax() > 0);
+
+        metrics.reset();
+
+        assertEquals(0, metrics.getStats("test").getSuccessCount());
+        assertEquals(0, metrics.snapshot().get("test").getTotalLatency().getCount());
+    }
+
+    /**
+     * Test unnamed processors are recorded under their class name, and
+     * disabling metrics stops recording.
+     */
+    @Test
+    public void test_executeProcessor_disabled() {
+        final ProcessorMetrics metrics = new ProcessorMetrics("test", false);
+        final TestExecutor executor = new TestExecutor();
+        final Processor<String> processor = toProcess -> toProcess;
+
+        executor.setMetrics(metrics);
+        executor.executeProcessor(processor, "a");
+
+        assertEquals(1, metrics.getStats(processor.getClass().getName()).getSuccessCount());
+
+        executor.setMetrics(null);
+        executor.executeProcessor(processor, "a");
+
+        assertSame(ExecutorMetrics.DISABLED, executor.getMetrics());
+        assertEquals(1, metrics.getStats(processor.getClass().getName()).getSuccessCount());
+        assertNull(metrics.getStats("test"));
+    }
+}
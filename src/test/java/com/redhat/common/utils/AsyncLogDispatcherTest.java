@@ -0,0 +1,180 @@
+package com.redhat.common.utils;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests AsyncLogDispatcher draining, closing and overflow policies.
+ *
+ * @author sfloess
+ */
+public class AsyncLogDispatcherTest {
+    /**
+     * Records messages written, optionally holding the first write until released.
+     */
+    static class RecordingLogger {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Logger logger;
+
+        RecordingLogger(final boolean gated) {
+            if (!gated) {
+                release.countDown();
+            }
+
+            logger = (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{Logger.class}, (proxy, method, args) -> {
+                if ("getName".equals(method.getName())) {
+                    return "recording";
+                }
+
+                if (null == args || !(args[0] instanceof String)) {
+                    return false;
+                }
+
+                if ("fail".equals(args[0])) {
+                    throw new IllegalStateException("Failed to write");
+                }
+
+                writing.countDown();
+                release.await();
+                messages.add((String) args[0]);
+
+                return null;
+            });
+        }
+    }
+
+    AsyncLogDispatcher dispatcher;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (null != dispatcher) {
+            dispatcher.close(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Return a started dispatcher whose drain thread is stuck writing "first".
+     */
+    AsyncLogDispatcher createBlockedDispatcher(final RecordingLogger logger, final AsyncLogDispatcher.OverflowPolicy overflowPolicy) throws InterruptedException {
+        dispatcher = new AsyncLogDispatcher(2, overflowPolicy).start();
+
+        assertTrue(dispatcher.dispatch(logger.logger, Level.INFO, "first", null));
+        assertTrue(logger.writing.await(5, TimeUnit.SECONDS));
+
+        return dispatcher;
+    }
+
+    /**
+     * Test events are written in order and flush waits for them.
+     */
+    @Test
+    public void test_dispatch_flush() throws Exception {
+        final RecordingLogger logger = new RecordingLogger(false);
+
+        dispatcher = new AsyncLogDispatcher(4, AsyncLogDispatcher.OverflowPolicy.BLOCK).start();
+
+        for (int index = 0; index < 10; index++) {
+            assertTrue(dispatcher.dispatch(logger.logger, Level.INFO, "message-" + index, null));
+        }
+
+        assertTrue(dispatcher.dispatch(logger.logger, Level.ERROR, "fail", null));
+        assertTrue(dispatcher.flush(5, TimeUnit.SECONDS));
+        assertEquals(10, logger.messages.size());
+        assertEquals("message-9", logger.messages.get(9));
+        assertEquals(11, dispatcher.getPublished());
+        assertEquals(10, dispatcher.getWritten());
+        assertEquals(1, dispatcher.getFailed());
+        assertEquals(0, dispatcher.getPending());
+    }
+
+    /**
+     * Test a dispatcher that was not started tells callers to write directly.
+     */
+    @Test
+    public void test_dispatch_notStarted() {
+        assertFalse(new AsyncLogDispatcher().dispatch(new RecordingLogger(false).logger, Level.INFO, "message", null));
+    }
+
+    /**
+     * Test a full buffer drops events under the drop policy.
+     */
+    @Test
+    public void test_dispatch_drop() throws Exception {
+        final RecordingLogger logger = new RecordingLogger(true);
+
+        createBlockedDispatcher(logger, AsyncLogDispatcher.OverflowPolicy.DROP);
+
+        assertTrue(dispatcher.dispatch(logger.logger, Level.INFO, "second", null));
+        assertTrue(dispatcher.dispatch(logger.logger, Level.INFO, "third", null));
+        assertTrue(dispatcher.dispatch(logger.logger, Level.INFO, "dropped", null));
+        assertEquals(1, dispatcher.getDropped());
+
+        logger.release.countDown();
+
+        assertTrue(dispatcher.flush(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "second", "third"), logger.messages);
+    }
+
+    /**
+     * Test a full buffer blocks producers under the block policy, losing nothing.
+     */
+    @Test
+    public void test_dispatch_block() throws Exception {
+        final RecordingLogger logger = new RecordingLogger(true);
+        final AtomicBoolean dispatched = new AtomicBoolean();
+
+        createBlockedDispatcher(logger, AsyncLogDispatcher.OverflowPolicy.BLOCK);
+
+        dispatcher.dispatch(logger.logger, Level.INFO, "second", null);
+        dispatcher.dispatch(logger.logger, Level.INFO, "third", null);
+
+        final Thread producer = new Thread(() -> dispatched.set(dispatcher.dispatch(logger.logger, Level.INFO, "fourth", null)));
+
+        producer.start();
+        producer.join(100);
+
+        assertTrue(producer.isAlive());
+
+        logger.release.countDown();
+        producer.join(5000);
+
+        assertTrue(dispatched.get());
+        assertTrue(dispatcher.flush(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "second", "third", "fourth"), logger.messages);
+        assertEquals(0, dispatcher.getDropped());
+    }
+
+    /**
+     * Test close writes everything queued and then refuses events.
+     */
+    @Test
+    public void test_close_drains() throws Exception {
+        final RecordingLogger logger = new RecordingLogger(true);
+
+        createBlockedDispatcher(logger, AsyncLogDispatcher.OverflowPolicy.BLOCK);
+
+        dispatcher.dispatch(logger.logger, Level.INFO, "second", null);
+
+        logger.release.countDown();
+
+        assertTrue(dispatcher.close(5, TimeUnit.SECONDS));
+        assertFalse(dispatcher.isRunning());
+        assertFalse(dispatcher.dispatch(logger.logger, Level.INFO, "late", null));
+        assertEquals(Arrays.asList("first", "second"), logger.messages);
+        assertEquals(dispatcher.getPublished(), dispatcher.getWritten());
+    }
+}
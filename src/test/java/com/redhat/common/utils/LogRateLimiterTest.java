@@ -0,0 +1,155 @@
+package com.redhat.common.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.event.Level;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests LogRateLimiter counts, summaries and eviction.
+ *
+ * @author sfloess
+ */
+public class LogRateLimiterTest {
+    static final long INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    final List<String> summaries = new ArrayList<>();
+
+    long base;
+
+    LogRateLimiter newLimiter(final int permits, final int maxKeys) {
+        final LogRateLimiter retVal = new LogRateLimiter(permits, 1, TimeUnit.SECONDS, maxKeys);
+
+        retVal.setSummaryListener((loggerName, level, template, suppressed) -> summaries.add(loggerName + " " + level + " " + template + " " + suppressed));
+
+        base = System.nanoTime();
+
+        return retVal;
+    }
+
+    @Before
+    public void init() {
+        summaries.clear();
+    }
+
+    @Test
+    public void test_acquire_allowsPermitsThenSuppresses() {
+        final LogRateLimiter limiter = newLimiter(2, 10);
+
+        assertEquals(0, limiter.acquire("a", Level.WARN, "t", base));
+        assertEquals(0, limiter.acquire("a", Level.WARN, "t", base + 1));
+        assertEquals(LogRateLimiter.SUPPRESSED, limiter.acquire("a", Level.WARN, "t", base + 2));
+        assertEquals(LogRateLimiter.SUPPRESSED, limiter.acquire("a", Level.WARN, "t", base + 3));
+        assertEquals(2, limiter.getTotalSuppressed());
+
+        assertEquals("Other keys have their own permits", 0, limiter.acquire("a", Level.WARN, "other", base + 4));
+        assertEquals(0, limiter.acquire("a", Level.ERROR, "t", base + 5));
+        assertEquals(0, limiter.acquire("b", Level.WARN, "t", base + 6));
+        assertEquals(4, limiter.getKeyCount());
+    }
+
+    @Test
+    public void test_acquire_reportsSuppressedWithNextAllowed() {
+        final LogRateLimiter limiter = newLimiter(1, 10);
+
+        limiter.acquire("a", Level.WARN, "t", base);
+        limiter.acquire("a", Level.WARN, "t", base + 1);
+        limiter.acquire("a", Level.WARN, "t", base + 2);
+
+        assertEquals(2, limiter.acquire("a", Level.WARN, "t", base + INTERVAL + 1));
+        assertTrue("Reported with the message, not the listener", summaries.isEmpty());
+    }
+
+    @Test
+    public void test_sweep_reportsEndedInterval() {
+        final LogRateLimiter limiter = newLimiter(1, 10);
+
+        limiter.acquire("a", Level.WARN, "t", base);
+        limiter.acquire("a", Level.WARN, "t", base + 1);
+        limiter.acquire("a", Level.WARN, "t", base + 2);
+
+        limiter.acquire("b", Level.INFO, "u", base + INTERVAL / 2);
+        assertTrue(summaries.isEmpty());
+
+        limiter.acquire("b", Level.INFO, "u", base + INTERVAL + 1);
+        assertEquals(1, summaries.size());
+        assertEquals("a WARN t 2", summaries.get(0));
+
+        assertEquals("Already reported", 0, limiter.acquire("a", Level.WARN, "t", base + INTERVAL + 2));
+    }
+
+    @Test
+    public void test_sweep_evictsUnusedKeysAndReports() {
+        final LogRateLimiter limiter = newLimiter(1, 10);
+
+        limiter.acquire("a", Level.WARN, "t", base);
+        limiter.acquire("a", Level.WARN, "t", base + 1);
+        limiter.acquire("b", Level.WARN, "t", base + INTERVAL / 2);
+
+        limiter.acquire("c", Level.WARN, "t", base + INTERVAL + 1);
+
+        assertEquals("[a WARN t 1]", summaries.toString());
+        assertEquals("b and c remain", 2, limiter.getKeyCount());
+    }
+
+    @Test
+    public void test_sweep_keepsKeysInUse() {
+        final LogRateLimiter limiter = newLimiter(1, 10);
+
+        limiter.acquire("a", Level.WARN, "t", base);
+        limiter.acquire("a", Level.WARN, "t", base + INTERVAL - 1);
+
+        limiter.acquire("b", Level.WARN, "t", base + INTERVAL + 1);
+
+        assertEquals("Used within the interval", 2, limiter.getKeyCount());
+    }
+
+    @Test
+    public void test_acquire_sharesWindowWhenFull() {
+        final LogRateLimiter limiter = newLimiter(1, 1);
+
+        assertEquals(0, limiter.acquire("a", Level.WARN, "t", base));
+        assertEquals(0, limiter.acquire("b", Level.WARN, "t", base + 1));
+        assertEquals(LogRateLimiter.SUPPRESSED, limiter.acquire("c", Level.WARN, "t", base + 2));
+        assertEquals(1, limiter.getKeyCount());
+
+        limiter.flush();
+
+        assertEquals("[" + LogRateLimiter.class.getName() + " WARN " + LogRateLimiter.OVERFLOW_TEMPLATE + " 1]", summaries.toString());
+    }
+
+    @Test
+    public void test_flush() {
+        final LogRateLimiter limiter = newLimiter(1, 10);
+
+        limiter.acquire("a", Level.WARN, "t", base);
+        limiter.acquire("a", Level.WARN, "t", base + 1);
+
+        limiter.flush();
+        limiter.flush();
+
+        assertEquals("[a WARN t 1]", summaries.toString());
+    }
+
+    @Test
+    public void test_reset_reportsThenForgets() {
+        final LogRateLimiter limiter = newLimiter(1, 10);
+
+        limiter.acquire("a", Level.WARN, "t", base);
+        limiter.acquire("a", Level.WARN, "t", base + 1);
+
+        limiter.reset();
+
+        assertEquals("[a WARN t 1]", summaries.toString());
+        assertEquals(0, limiter.getKeyCount());
+    }
+
+    @Test
+    public void test_toSummary() {
+        assertEquals("Failed [3 similar messages suppressed]", LogRateLimiter.toSummary("Failed", 3));
+    }
+}
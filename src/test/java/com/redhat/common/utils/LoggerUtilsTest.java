@@ -0,0 +1,222 @@
+package com.redhat.common.utils;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Tests LoggerUtils overload resolution, message formatting and laziness.
+ *
+ * @author sfloess
+ */
+public class LoggerUtilsTest {
+    /**
+     * A logged event.
+     */
+    static final class Event {
+        final String level;
+        final String message;
+        final Throwable throwable;
+
+        Event(final String level, final String message, final Throwable throwable) {
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
+    }
+
+    /**
+     * Records events, with debug disabled.
+     */
+    static final class RecordingLogger {
+        final List<Event> events = new CopyOnWriteArrayList<>();
+
+        final Logger logger = (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{Logger.class}, (proxy, method, args) -> {
+            final String name = method.getName();
+
+            if ("getName".equals(name)) {
+                return "recording";
+            }
+
+            if (name.startsWith("is")) {
+                return !name.startsWith("isDebug") && !name.startsWith("isTrace");
+            }
+
+            events.add(new Event(name, (String) args[0], args.length > 1 ? (Throwable) args[1] : null));
+
+            return null;
+        });
+
+        Event last() {
+            return events.get(events.size() - 1);
+        }
+    }
+
+    /**
+     * Counts calls to toString().
+     */
+    static final class Counting {
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public String toString() {
+            return "counted" + count.incrementAndGet();
+        }
+    }
+
+    /**
+     * Test fixed arity and varargs calls format the same message.
+     */
+    @Test
+    public void test_logIfInfo_fixedArityMatchesVarargs() {
+        final RecordingLogger recording = new RecordingLogger();
+        final IllegalStateException failure = new IllegalStateException("boom");
+
+        LoggerUtils.logIfInfo(recording.logger, "a", 1);
+        assertEquals("a1", recording.last().message);
+
+        LoggerUtils.logIfInfo(recording.logger, "a", null, 'c');
+        assertEquals("ac", recording.last().message);
+
+        LoggerUtils.logIfInfo(recording.logger, "a", 1, null, 2.5);
+        assertEquals("a12.5", recording.last().message);
+
+        LoggerUtils.logIfInfo(recording.logger, "a", 1, null, 2.5, "e");
+        assertEquals("a12.5e", recording.last().message);
+
+        LoggerUtils.logIfInfo(recording.logger, failure, "a");
+        assertEquals("a", recording.last().message);
+        assertSame(failure, recording.last().throwable);
+
+        LoggerUtils.logIfInfo(recording.logger, failure, "a", "b", "c");
+        assertEquals("abc", recording.last().message);
+        assertSame(failure, recording.last().throwable);
+
+        LoggerUtils.logIfInfo(recording.logger, failure, "a", "b", "c", "d");
+        assertEquals("abcd", recording.last().message);
+        assertSame(failure, recording.last().throwable);
+
+        assertEquals(7, recording.events.size());
+        assertEquals("info", recording.last().level);
+    }
+
+    /**
+     * Test calls resolve as they did before the fixed arity overloads: a
+     * lone throwable binds to the throwable parameter, a throwable after the
+     * first part is just a part, and null is a null array of parts.
+     */
+    @Test
+    public void test_log_resolution() {
+        final RecordingLogger recording = new RecordingLogger();
+        final IllegalStateException failure = new IllegalStateException("boom");
+
+        LoggerUtils.logWarning(recording.logger, failure);
+        assertEquals("", recording.last().message);
+        assertSame(failure, recording.last().throwable);
+
+        LoggerUtils.logError(recording.logger, failure, "failed ", 1);
+        assertEquals("failed 1", recording.last().message);
+        assertSame(failure, recording.last().throwable);
+
+        LoggerUtils.logIfInfo(recording.logger, "failed: ", failure);
+        assertEquals("failed: " + failure, recording.last().message);
+        assertNull(recording.last().throwable);
+
+        LoggerUtils.logInfo(recording.logger, null);
+        assertEquals("", recording.last().message);
+        assertNull(recording.last().throwable);
+
+        LoggerUtils.logIfInfo(recording.logger, null, "a");
+        assertEquals("a", recording.last().message);
+        assertNull(recording.last().throwable);
+    }
+
+    /**
+     * Test a supplier passed as a message part is printed, not called.
+     */
+    @Test
+    public void test_log_supplierPart() {
+        final RecordingLogger recording = new RecordingLogger();
+        final AtomicInteger calls = new AtomicInteger();
+        final Supplier<String> supplier = () -> "called" + calls.incrementAndGet();
+
+        LoggerUtils.logInfo(recording.logger, supplier);
+        LoggerUtils.logIfInfo(recording.logger, supplier, "!");
+
+        assertEquals(0, calls.get());
+        assertEquals(supplier.toString(), recording.events.get(0).message);
+        assertEquals(supplier + "!", recording.events.get(1).message);
+    }
+
+    /**
+     * Test lazy messages are only built when the level is enabled.
+     */
+    @Test
+    public void test_logLazy() {
+        final RecordingLogger recording = new RecordingLogger();
+        final IllegalStateException failure = new IllegalStateException("boom");
+        final AtomicInteger calls = new AtomicInteger();
+
+        LoggerUtils.logDebugLazy(recording.logger, () -> "debug" + calls.incrementAndGet());
+        LoggerUtils.logDebugLazy(recording.logger, failure, () -> "debug" + calls.incrementAndGet());
+
+        assertEquals(0, calls.get());
+        assertEquals(0, recording.events.size());
+
+        LoggerUtils.logInfoLazy(recording.logger, () -> "info" + calls.incrementAndGet());
+        LoggerUtils.logInfoLazy(recording.logger, failure, () -> "info" + calls.incrementAndGet());
+
+        assertEquals(2, calls.get());
+        assertEquals("info1", recording.events.get(0).message);
+        assertEquals("info2", recording.events.get(1).message);
+        assertSame(failure, recording.events.get(1).throwable);
+    }
+
+    /**
+     * Test nothing is formatted at a disabled level, whichever overload is used.
+     */
+    @Test
+    public void test_log_disabledLevel() {
+        final RecordingLogger recording = new RecordingLogger();
+        final Counting counting = new Counting();
+        final IllegalStateException failure = new IllegalStateException("boom");
+
+        LoggerUtils.logDebug(recording.logger, counting);
+        LoggerUtils.logDebug(recording.logger, failure, counting, counting);
+        LoggerUtils.logIfDebug(recording.logger, counting, counting);
+        LoggerUtils.logIfDebug(recording.logger, counting, counting, counting, counting);
+        LoggerUtils.logIfDebug(recording.logger, failure, counting);
+        LoggerUtils.logIfDebug(recording.logger, counting, counting, counting, counting, counting);
+
+        assertEquals(0, counting.count.get());
+        assertEquals(0, recording.events.size());
+    }
+
+    /**
+     * Test a part whose toString() logs does not corrupt the outer message.
+     */
+    @Test
+    public void test_log_reentrant() {
+        final RecordingLogger recording = new RecordingLogger();
+        final Object nested = new Object() {
+            @Override
+            public String toString() {
+                LoggerUtils.logIfInfo(recording.logger, "inner", 1);
+
+                return "nested";
+            }
+        };
+
+        LoggerUtils.logIfInfo(recording.logger, "outer ", nested, " done");
+
+        assertEquals("inner1", recording.events.get(0).message);
+        assertEquals("outer nested done", recording.events.get(1).message);
+    }
+}